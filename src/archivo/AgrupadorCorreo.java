@@ -0,0 +1,148 @@
+package archivo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Agrupa las notificaciones por destinatario durante una ventana de tiempo.
+ * El primer aviso para un destinatario abre la ventana; al cerrarse (o al llegar al máximo
+ * de avisos por resumen) se entregan todos juntos en una sola llamada, así 30 aprobaciones
+ * para la misma persona se convierten en un correo en lugar de 30.
+ * Los avisos agrupados viven en memoria hasta que se entregan: vaciar() los envía de inmediato.
+ * Para que sobrevivan a un cierre inesperado hay que guardarlos antes (EmailService los retiene
+ * en la bandeja de salida).
+ */
+public class AgrupadorCorreo {
+
+    private static class Grupo {
+        final List<MensajeCorreo> mensajes = new ArrayList<>();
+        ScheduledFuture<?> cierre;
+    }
+
+    private final long ventanaMs;
+    private final int maxPorResumen;
+    private final Consumer<List<MensajeCorreo>> envio;
+    private final Map<String, Grupo> grupos = new HashMap<>();
+    private final ScheduledExecutorService temporizador;
+
+    private final AtomicLong avisosRecibidos = new AtomicLong();
+    private final AtomicLong correosEnviados = new AtomicLong();
+
+    /**
+     * @param envio recibe los avisos de un mismo destinatario, en el orden en que llegaron
+     */
+    public AgrupadorCorreo(long ventanaMs, int maxPorResumen, Consumer<List<MensajeCorreo>> envio) {
+        this.ventanaMs = ventanaMs;
+        this.maxPorResumen = Math.max(1, maxPorResumen);
+        this.envio = envio;
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "resumen-correo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    public void agregar(MensajeCorreo mensaje) {
+        avisosRecibidos.incrementAndGet();
+        String clave = clave(mensaje.getDestinatario());
+        List<MensajeCorreo> completo = null;
+        synchronized (this) {
+            Grupo grupo = grupos.get(clave);
+            if (grupo == null) {
+                grupo = new Grupo();
+                grupos.put(clave, grupo);
+                Grupo abierto = grupo;
+                grupo.cierre = temporizador.schedule(() -> cerrarGrupo(clave, abierto), ventanaMs, TimeUnit.MILLISECONDS);
+            }
+            grupo.mensajes.add(mensaje);
+            if (grupo.mensajes.size() >= maxPorResumen) {
+                grupos.remove(clave);
+                grupo.cierre.cancel(false);
+                completo = grupo.mensajes;
+            }
+        }
+        if (completo != null) {
+            entregar(completo);
+        }
+    }
+
+    /**
+     * Entrega de inmediato todos los avisos agrupados
+     */
+    public void vaciar() {
+        List<Grupo> abiertos;
+        synchronized (this) {
+            abiertos = new ArrayList<>(grupos.values());
+            grupos.clear();
+        }
+        for (Grupo grupo : abiertos) {
+            grupo.cierre.cancel(false);
+            entregar(grupo.mensajes);
+        }
+    }
+
+    /**
+     * Entrega lo pendiente y detiene el temporizador
+     */
+    public void cerrar() {
+        temporizador.shutdownNow();
+        vaciar();
+    }
+
+    /**
+     * Avisos que esperan a que se cierre su ventana
+     */
+    public synchronized int getAvisosPendientes() {
+        int total = 0;
+        for (Grupo grupo : grupos.values()) {
+            total += grupo.mensajes.size();
+        }
+        return total;
+    }
+
+    public long getAvisosRecibidos() {
+        return avisosRecibidos.get();
+    }
+
+    public long getCorreosEnviados() {
+        return correosEnviados.get();
+    }
+
+    private void cerrarGrupo(String clave, Grupo grupo) {
+        synchronized (this) {
+            // Si ya se entregó por tamaño o por vaciar(), el grupo actual es otro
+            if (grupos.get(clave) != grupo) {
+                return;
+            }
+            grupos.remove(clave);
+        }
+        entregar(grupo.mensajes);
+    }
+
+    private void entregar(List<MensajeCorreo> mensajes) {
+        correosEnviados.incrementAndGet();
+        try {
+            envio.accept(mensajes);
+        } catch (RuntimeException e) {
+            System.err.println("Error enviando resumen a " + mensajes.get(0).getDestinatario() + ": " + e.getMessage());
+        }
+    }
+
+    private static String clave(String destinatario) {
+        return destinatario == null ? "" : destinatario.trim().toLowerCase();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Avisos recibidos: %d, correos enviados: %d, pendientes: %d",
+                getAvisosRecibidos(), getCorreosEnviados(), getAvisosPendientes());
+    }
+}
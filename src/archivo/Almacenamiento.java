@@ -0,0 +1,177 @@
+package archivo;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Elige dónde se guardan empleados y solicitudes, según almacenamiento.properties:
+ * ARCHIVO (los archivos de texto de siempre), MEMORIA (sin disco, para pruebas y mediciones)
+ * o JDBC (una base embebida como H2 o SQLite, cuyo driver debe estar en el classpath).
+ * Con JDBC, los dos almacenes comparten un mismo pool de conexiones, que se cierra al
+ * terminar el proceso.
+ */
+public class Almacenamiento {
+
+    public enum Tipo {
+        ARCHIVO, MEMORIA, JDBC
+    }
+
+    static final String ARCHIVO_CONFIGURACION = "almacenamiento.properties";
+
+    private static Almacenamiento instancia;
+
+    private final Tipo tipo;
+    private final String archivoEmpleados;
+    private final String archivoSolicitudes;
+    private final boolean modoJournal;
+    private final boolean lecturaMapeada;
+    private final String jdbcUrl;
+    private final String jdbcUsuario;
+    private final String jdbcPassword;
+    private final int jdbcMaxConexiones;
+    private PoolConexionesJdbc pool;
+    private JdbcBitacoraStore bitacora;
+
+    public Almacenamiento(Properties config) {
+        String nombreTipo = config.getProperty("almacen.tipo", "ARCHIVO").trim().toUpperCase(Locale.ROOT);
+        Tipo elegido;
+        try {
+            elegido = Tipo.valueOf(nombreTipo);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Tipo de almacenamiento desconocido (" + nombreTipo + "), se usa ARCHIVO");
+            elegido = Tipo.ARCHIVO;
+        }
+        this.tipo = elegido;
+        this.archivoEmpleados = config.getProperty("almacen.archivo.empleados", ArchivoEmpleadoStore.EMPLEADOS_FILE).trim();
+        this.archivoSolicitudes = config.getProperty("almacen.archivo.solicitudes", ArchivoSolicitudStore.ARCHIVO_SOLICITUDES).trim();
+        this.modoJournal = Boolean.parseBoolean(config.getProperty("almacen.archivo.journal", "true").trim());
+        this.lecturaMapeada = Boolean.parseBoolean(config.getProperty("almacen.archivo.mapeo",
+                String.valueOf(LectorMapeado.MAPEO_POR_DEFECTO)).trim());
+        this.jdbcUrl = config.getProperty("almacen.jdbc.url", "jdbc:h2:./datos/turnos").trim();
+        this.jdbcUsuario = config.getProperty("almacen.jdbc.usuario", "");
+        this.jdbcPassword = config.getProperty("almacen.jdbc.password", "");
+        this.jdbcMaxConexiones = leerEntero(config, "almacen.jdbc.pool.max", 4, 1);
+    }
+
+    /**
+     * Valor entero de la configuración: si no es un número se usa el valor por defecto y si es
+     * menor que el mínimo se usa el mínimo, con un aviso (un error de tipeo no debe impedir iniciar)
+     */
+    private static int leerEntero(Properties config, String clave, int porDefecto, int minimo) {
+        String valor = config.getProperty(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        int numero;
+        try {
+            numero = Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + clave + " (" + valor + "), se usa " + porDefecto);
+            return porDefecto;
+        }
+        if (numero < minimo) {
+            System.err.println("Valor demasiado bajo para " + clave + " (" + valor + "), se usa " + minimo);
+            return minimo;
+        }
+        return numero;
+    }
+
+    /**
+     * Configuración compartida por todo el proceso, leída de almacenamiento.properties
+     */
+    public static synchronized Almacenamiento getInstancia() {
+        if (instancia == null) {
+            instancia = new Almacenamiento(cargarConfiguracion());
+        }
+        return instancia;
+    }
+
+    /**
+     * Lee almacenamiento.properties; sin el archivo se usan los valores por defecto
+     */
+    static Properties cargarConfiguracion() {
+        Properties config = new Properties();
+        try (InputStream in = new FileInputStream(ARCHIVO_CONFIGURACION)) {
+            config.load(in);
+        } catch (FileNotFoundException e) {
+            // Sin archivo de configuración se usan los archivos de texto
+        } catch (IOException e) {
+            System.err.println("Error leyendo configuración de almacenamiento: " + e.getMessage());
+        }
+        return config;
+    }
+
+    public EmpleadoStore crearEmpleadoStore() {
+        switch (tipo) {
+            case MEMORIA:
+                return new MemoriaEmpleadoStore();
+            case JDBC:
+                return new JdbcEmpleadoStore(getPool());
+            default:
+                return crearArchivoEmpleadoStore();
+        }
+    }
+
+    /**
+     * Almacén sobre los archivos de texto configurados, sea cual sea el tipo elegido
+     */
+    public ArchivoEmpleadoStore crearArchivoEmpleadoStore() {
+        return new ArchivoEmpleadoStore(archivoEmpleados, modoJournal, lecturaMapeada);
+    }
+
+    public SolicitudStore crearSolicitudStore() {
+        switch (tipo) {
+            case MEMORIA:
+                return new MemoriaSolicitudStore();
+            case JDBC:
+                return new JdbcSolicitudStore(getPool());
+            default:
+                return crearArchivoSolicitudStore();
+        }
+    }
+
+    public ArchivoSolicitudStore crearArchivoSolicitudStore() {
+        return new ArchivoSolicitudStore(archivoSolicitudes, lecturaMapeada);
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Copia de la bitácora en la base de datos, o null si el almacenamiento no es JDBC
+     */
+    public synchronized JdbcBitacoraStore getBitacoraJdbc() {
+        if (tipo != Tipo.JDBC) {
+            return null;
+        }
+        if (bitacora == null) {
+            bitacora = new JdbcBitacoraStore(getPool());
+        }
+        return bitacora;
+    }
+
+    /**
+     * Pool de conexiones a la base configurada; se crea al primer uso
+     */
+    public synchronized PoolConexionesJdbc getPool() {
+        if (pool == null) {
+            pool = new PoolConexionesJdbc(jdbcUrl, jdbcUsuario, jdbcPassword, jdbcMaxConexiones);
+            Runtime.getRuntime().addShutdownHook(new Thread(this::cerrarPool, "cierre-pool-jdbc"));
+        }
+        return pool;
+    }
+
+    /**
+     * Al terminar el proceso: el escritor de la bitácora copia sus últimos lotes a la base
+     * antes de que se cierren las conexiones
+     */
+    private void cerrarPool() {
+        EscritorBitacora.cerrarInstancia();
+        pool.cerrar();
+    }
+}
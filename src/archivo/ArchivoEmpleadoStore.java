@@ -0,0 +1,370 @@
+package archivo;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Employee store on a delimited text file (username|password|nombre|dpi|area|turno|estado|email|role).
+ * In journal mode each change is appended to a journal next to the file ("PUT|<employee>")
+ * and a background compaction folds the journal into a new snapshot of the file; otherwise
+ * every change rewrites the whole file. Every rewrite of the file (compaction, full save and the
+ * fallback when the journal cannot be written) goes to a temporary file that replaces it with an
+ * atomic move, holding LOCK_COMPACTACION so two rewrites never interleave.
+ */
+public class ArchivoEmpleadoStore implements EmpleadoStore {
+    static final String EMPLEADOS_FILE = "Empleadosguardados.txt";
+    private static final String REGISTRO_PUT = "PUT|";
+    private static final int UMBRAL_COMPACTACION = 500;
+    // One charset for the snapshot, the journal and compaction (the platform one, as files
+    // written by earlier versions with FileWriter use it)
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final Object LOCK_COMPACTACION = new Object();
+    // Held while appending to the journal and while compaction renames it, so a record is never
+    // appended to a journal that compaction has already read
+    private static final Object LOCK_JOURNAL = new Object();
+    private static final ExecutorService COMPACTADOR = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "compactador-empleados");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final String archivo;
+    private final String journal;
+    private final String journalCompactando;
+    private final boolean modoJournal;
+    private final boolean lecturaMapeada;
+    private final LectorCampos lector = new LectorCampos();
+    private int registrosEnJournal;
+
+    public ArchivoEmpleadoStore(boolean modoJournal) {
+        this(EMPLEADOS_FILE, modoJournal);
+    }
+
+    /**
+     * @param archivo     employee file; the journal goes next to it (Empleadosguardados.journal)
+     * @param modoJournal if true, changes are appended to the journal instead of
+     *                    rewriting the whole employee file
+     */
+    public ArchivoEmpleadoStore(String archivo, boolean modoJournal) {
+        this(archivo, modoJournal, LectorMapeado.MAPEO_POR_DEFECTO);
+    }
+
+    /**
+     * @param lecturaMapeada if true, a large employee file is loaded through a memory mapping
+     *                       (see LectorMapeado) into employees whose secondary fields are decoded lazily
+     */
+    public ArchivoEmpleadoStore(String archivo, boolean modoJournal, boolean lecturaMapeada) {
+        this.archivo = archivo;
+        String prefijo = archivo.endsWith(".txt") ? archivo.substring(0, archivo.length() - 4) : archivo;
+        this.journal = prefijo + ".journal";
+        this.journalCompactando = journal + ".compactando";
+        this.modoJournal = modoJournal;
+        this.lecturaMapeada = lecturaMapeada;
+    }
+
+    /**
+     * Load all employees from the snapshot file and replay pending journal records
+     */
+    @Override
+    public synchronized void cargar(Receptor receptor) throws IOException {
+        // Without journal mode, the replayed journal is folded into the file right away
+        Map<String, Empleado> aceptados = modoJournal ? null : new LinkedHashMap<>();
+        cargarSnapshot(receptor, aceptados);
+        // A journal left by an interrupted compaction is older than the current one
+        registrosEnJournal = reproducirJournal(journalCompactando, receptor, aceptados)
+                + reproducirJournal(journal, receptor, aceptados);
+        if (modoJournal && registrosEnJournal >= UMBRAL_COMPACTACION) {
+            programarCompactacion();
+        } else if (!modoJournal && registrosEnJournal > 0) {
+            guardarEmpleados(aceptados.values());
+            registrosEnJournal = 0;
+        }
+    }
+
+    /**
+     * Stream every employee line of the file to the receiver without keeping them in memory
+     * (used by the database migrator); pending journal records are folded into the file first
+     */
+    public synchronized void recorrer(Receptor receptor) {
+        compactarJournal();
+        cargarSnapshot(receptor, null);
+    }
+
+    private void cargarSnapshot(Receptor receptor, Map<String, Empleado> aceptados) {
+        if (lecturaMapeada && cargarSnapshotMapeado(receptor, aceptados)) {
+            return;
+        }
+        try (BufferedReader br = abrirLectura(new File(archivo))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                Empleado emp = parsearEmpleado(linea);
+                if (emp != null && !entregar(emp, receptor, aceptados)) {
+                    System.err.println("Empleado duplicado ignorado (username o DPI ya registrado): " + linea);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // File doesn't exist, will be created when saving
+            System.out.println("Archivo de empleados no encontrado, se creará uno nuevo");
+        } catch (IOException e) {
+            System.err.println("Error cargando empleados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the snapshot by scanning a memory mapping of the file, without decoding it into lines.
+     * Returns false (nothing delivered) if the file is small, its charset is not supported
+     * by LectorMapeado or it could not be mapped.
+     */
+    private boolean cargarSnapshotMapeado(Receptor receptor, Map<String, Empleado> aceptados) {
+        Charset charset = CHARSET;
+        File archivoEmpleados = new File(archivo);
+        long tamano = archivoEmpleados.length();
+        if (!LectorMapeado.admite(tamano, charset)) {
+            return false;
+        }
+        MappedByteBuffer mapeo;
+        try (FileChannel canal = FileChannel.open(archivoEmpleados.toPath(), StandardOpenOption.READ)) {
+            mapeo = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+        } catch (IOException e) {
+            System.err.println("No se pudo mapear el archivo de empleados: " + e.getMessage());
+            return false;
+        }
+        LectorMapeado campos = new LectorMapeado(mapeo, charset, true);
+        while (campos.siguiente()) {
+            if (campos.cantidadSinVaciosFinales() < 7) {
+                continue;
+            }
+            if (!entregar(new EmpleadoPerezoso(campos, charset), receptor, aceptados)) {
+                System.err.println("Empleado duplicado ignorado (username o DPI ya registrado): " + campos.linea());
+            }
+        }
+        return true;
+    }
+
+    private static boolean entregar(Empleado emp, Receptor receptor, Map<String, Empleado> aceptados) {
+        if (!receptor.agregado(emp)) {
+            return false;
+        }
+        if (aceptados != null) {
+            aceptados.put(emp.getUsername(), emp);
+        }
+        return true;
+    }
+
+    /**
+     * Apply the records of a journal file on top of the loaded employees
+     */
+    private int reproducirJournal(String archivoJournal, Receptor receptor, Map<String, Empleado> aceptados) {
+        File archivoRegistros = new File(archivoJournal);
+        if (!archivoRegistros.exists()) {
+            return 0;
+        }
+        int aplicados = 0;
+        try (BufferedReader br = abrirLectura(archivoRegistros)) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                if (!linea.startsWith(REGISTRO_PUT)) {
+                    continue; // Incomplete or unknown record
+                }
+                Empleado emp = parsearEmpleado(linea.substring(REGISTRO_PUT.length()));
+                if (emp == null) {
+                    continue;
+                }
+                if (receptor.guardado(emp)) {
+                    aplicados++;
+                    if (aceptados != null) {
+                        aceptados.put(emp.getUsername(), emp);
+                    }
+                } else {
+                    System.err.println("Registro de journal ignorado (DPI ya registrado): " + linea);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error leyendo journal de empleados: " + e.getMessage());
+        }
+        return aplicados;
+    }
+
+    /**
+     * Parse employee data from file line
+     */
+    private Empleado parsearEmpleado(String linea) {
+        try {
+            // Assuming format: username|password|nombre|dpi|area|turno|estado|email|role
+            LectorCampos datos = lector.cargar(linea);
+            int cantidad = datos.cantidadSinVaciosFinales(); // Same as split("\\|")
+            if (cantidad >= 7) {
+                Empleado emp = new Empleado(datos.texto(3), datos.texto(2), datos.texto(0),
+                                            datos.texto(4), datos.texto(5), datos.texto(6),
+                                            cantidad > 7 ? datos.texto(7) : null, datos.texto(1));
+                if (cantidad > 8) {
+                    emp.setRole(datos.texto(8));
+                } else {
+                    emp.setRole("Empleado"); // Default role
+                }
+                return emp;
+            }
+        } catch (Exception e) {
+            System.err.println("Error parseando empleado: " + linea + " - " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Format employee as a line of the employee file
+     */
+    static String formatearEmpleado(Empleado emp) {
+        return emp.getUsername() + "|" + emp.getPassword() + "|" +
+               emp.getNombre() + "|" + emp.getDpi() + "|" +
+               emp.getArea() + "|" + emp.getTurno() + "|" +
+               emp.getEstado() + "|" +
+               (emp.getEmail() != null ? emp.getEmail() : "") + "|" +
+               (emp.getRole() != null ? emp.getRole() : "Empleado");
+    }
+
+    /**
+     * Persist the change of a single employee
+     */
+    @Override
+    public synchronized void guardar(Empleado emp, Collection<Empleado> todos) throws IOException {
+        if (!modoJournal) {
+            guardarEmpleados(todos);
+            return;
+        }
+        try {
+            agregarAlJournal(REGISTRO_PUT + formatearEmpleado(emp));
+        } catch (IOException e) {
+            System.err.println("Error escribiendo journal de empleados: " + e.getMessage());
+            guardarEmpleados(todos);
+            registrosEnJournal = 0;
+            return;
+        }
+        registrosEnJournal++;
+        if (registrosEnJournal % UMBRAL_COMPACTACION == 0) {
+            programarCompactacion();
+        }
+    }
+
+    private void agregarAlJournal(String registro) throws IOException {
+        synchronized (LOCK_JOURNAL) {
+            // Unlike PrintWriter, the writer reports a failed write, so guardar can fall back to a rewrite
+            try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(journal), CHARSET,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                bw.write(registro);
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Save all employees to file. The new file already holds every journaled change, so the
+     * journals are removed together with the replacement; a compaction waiting on the lock
+     * then finds nothing to fold.
+     */
+    private void guardarEmpleados(Collection<Empleado> todos) throws IOException {
+        synchronized (LOCK_COMPACTACION) {
+            Path temporal = Paths.get(archivo + ".tmp");
+            try (BufferedWriter bw = Files.newBufferedWriter(temporal, CHARSET)) {
+                for (Empleado emp : todos) {
+                    bw.write(formatearEmpleado(emp));
+                    bw.newLine();
+                }
+            }
+            synchronized (LOCK_JOURNAL) {
+                Files.move(temporal, Paths.get(archivo), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(Paths.get(journalCompactando));
+                Files.deleteIfExists(Paths.get(journal));
+            }
+        }
+    }
+
+    private void programarCompactacion() {
+        COMPACTADOR.execute(this::compactarJournal);
+    }
+
+    /**
+     * Fold the journal into a new snapshot of the employee file.
+     * Works only on disk, so records appended while compacting go to a fresh journal.
+     */
+    void compactarJournal() {
+        synchronized (LOCK_COMPACTACION) {
+            try {
+                Path registros = Paths.get(journal);
+                Path compactando = Paths.get(journalCompactando);
+                if (!Files.exists(compactando)) {
+                    synchronized (LOCK_JOURNAL) {
+                        if (!Files.exists(registros)) {
+                            return;
+                        }
+                        Files.move(registros, compactando, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+
+                // As when loading, the first snapshot line per username is the live one and only
+                // journal records replace it (the last one wins); snapshot order is preserved
+                LectorCampos validador = new LectorCampos();
+                Map<String, String> lineas = new LinkedHashMap<>();
+                Path snapshot = Paths.get(archivo);
+                if (Files.exists(snapshot)) {
+                    for (String linea : leerLineas(snapshot.toFile())) {
+                        if (validador.cargar(linea).cantidadSinVaciosFinales() >= 7) {
+                            lineas.putIfAbsent(extraerUsername(linea), linea);
+                        }
+                    }
+                }
+                for (String linea : leerLineas(compactando.toFile())) {
+                    if (!linea.startsWith(REGISTRO_PUT)) {
+                        continue;
+                    }
+                    String lineaEmpleado = linea.substring(REGISTRO_PUT.length());
+                    if (validador.cargar(lineaEmpleado).cantidadSinVaciosFinales() >= 7) {
+                        lineas.put(extraerUsername(lineaEmpleado), lineaEmpleado);
+                    }
+                }
+
+                Path temporal = Paths.get(archivo + ".tmp");
+                Files.write(temporal, lineas.values(), CHARSET);
+                Files.move(temporal, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.delete(compactando);
+            } catch (IOException e) {
+                System.err.println("Error compactando journal de empleados: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reader in CHARSET; like FileReader, undecodable bytes are replaced instead of failing the load
+     */
+    private static BufferedReader abrirLectura(File archivo) throws FileNotFoundException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(archivo), CHARSET));
+    }
+
+    private static List<String> leerLineas(File archivo) throws IOException {
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader br = abrirLectura(archivo)) {
+            for (String linea = br.readLine(); linea != null; linea = br.readLine()) {
+                lineas.add(linea);
+            }
+        }
+        return lineas;
+    }
+
+    private static String extraerUsername(String linea) {
+        int separador = linea.indexOf('|');
+        return separador >= 0 ? linea.substring(0, separador) : linea;
+    }
+}
@@ -0,0 +1,395 @@
+package archivo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Archivo lateral con el estado de cada solicitud en registros de ancho fijo:
+ * ID | estado | procesado por | fecha de procesamiento.
+ * Aprobar o rechazar una solicitud es una sola escritura posicionada sobre su registro
+ * en lugar de reescribir solicitudes.txt. El motivo de rechazo es de largo variable y
+ * se agrega a un archivo de motivos (id|motivo, el último gana). Un aprobador que no cabe en
+ * su campo (los usernames no tienen largo máximo) se agrega del mismo modo a un archivo de
+ * aprobadores, y su campo fijo queda marcado con un byte 0 inicial para buscarlo ahí.
+ */
+public class ArchivoEstadosSolicitud {
+
+    /**
+     * Recibe los registros al recorrer los archivos de principio a fin
+     */
+    public interface Visitante {
+        void estado(int id, Solicitud.EstadoSolicitud estado, String procesadoPor, LocalDateTime fechaProcesamiento);
+
+        void motivo(int id, String motivoRechazo);
+    }
+
+    // El de solicitudes.txt, para que lo migrado se lea igual que en el archivo original
+    private static final Charset CHARSET = ArchivoSolicitudStore.CHARSET;
+
+    private static final int ANCHO_ID = 10;
+    private static final int ANCHO_ESTADO = 10;
+    private static final int ANCHO_APROBADOR = 64;
+    private static final int ANCHO_FECHA = 19;
+    // Primer byte del campo aprobador cuando el nombre está en el archivo de aprobadores
+    private static final byte APROBADOR_APARTE = 0;
+
+    private static final int POS_ESTADO = ANCHO_ID + 1;
+    private static final int POS_APROBADOR = POS_ESTADO + ANCHO_ESTADO + 1;
+    private static final int POS_FECHA = POS_APROBADOR + ANCHO_APROBADOR + 1;
+    static final int TAMANO_REGISTRO = POS_FECHA + ANCHO_FECHA + 1;
+
+    private final Path archivoEstados;
+    private final ArchivoTextos motivos;
+    private final ArchivoTextos aprobadores;
+
+    // Offset de cada registro, construido al leer el archivo
+    private final Map<Integer, Long> offsetPorId = new HashMap<>();
+    // IDs cuyo registro remite al archivo de aprobadores
+    private final Set<Integer> aprobadorAparte = new HashSet<>();
+    private long ultimaModificacion = -1;
+    private long bytesLeidos = 0;
+
+    /**
+     * Archivo de líneas id|texto que solo crece; el último texto de cada ID gana
+     */
+    private static final class ArchivoTextos {
+        private final String archivo;
+        private long ultimaModificacion = -1;
+        private long bytesLeidos = 0;
+
+        ArchivoTextos(String archivo) {
+            this.archivo = archivo;
+        }
+
+        void agregar(int id, String texto) throws IOException {
+            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(archivo, true), CHARSET))) {
+                pw.println(id + "|" + texto.replace("|", "~"));
+            }
+        }
+
+        /**
+         * Lee las líneas agregadas desde la última lectura
+         */
+        void sincronizar(BiConsumer<Integer, String> destino) throws IOException {
+            File archivoTextos = new File(archivo);
+            if (!archivoTextos.exists()) {
+                return;
+            }
+            long modificacion = archivoTextos.lastModified();
+            long tamano = archivoTextos.length();
+            if (modificacion == ultimaModificacion && tamano == bytesLeidos) {
+                return;
+            }
+            if (tamano < bytesLeidos) {
+                bytesLeidos = 0;
+            }
+
+            byte[] buffer = new byte[(int) (tamano - bytesLeidos)];
+            try (RandomAccessFile raf = new RandomAccessFile(archivoTextos, "r")) {
+                raf.seek(bytesLeidos);
+                raf.readFully(buffer);
+            }
+            int fin = buffer.length;
+            while (fin > 0 && buffer[fin - 1] != '\n') {
+                fin--;
+            }
+            leer(new ByteArrayInputStream(buffer, 0, fin), destino);
+            bytesLeidos += fin;
+            ultimaModificacion = modificacion;
+        }
+
+        /**
+         * Entrega todas las líneas, sin depender de lo ya sincronizado
+         */
+        void recorrer(BiConsumer<Integer, String> destino) throws IOException {
+            if (new File(archivo).exists()) {
+                try (InputStream in = new FileInputStream(archivo)) {
+                    leer(in, destino);
+                }
+            }
+        }
+
+        void reiniciar() {
+            ultimaModificacion = -1;
+            bytesLeidos = 0;
+        }
+
+        private void leer(InputStream in, BiConsumer<Integer, String> destino) throws IOException {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(in, CHARSET))) {
+                String linea;
+                while ((linea = br.readLine()) != null) {
+                    int separador = linea.indexOf('|');
+                    if (separador <= 0) {
+                        continue;
+                    }
+                    try {
+                        destino.accept(Integer.parseInt(linea.substring(0, separador)),
+                                linea.substring(separador + 1).replace("~", "|"));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Línea inválida en " + archivo + ": " + linea);
+                    }
+                }
+            }
+        }
+    }
+
+    public ArchivoEstadosSolicitud(String archivoEstados, String archivoMotivos, String archivoAprobadores) {
+        this.archivoEstados = Paths.get(archivoEstados);
+        this.motivos = new ArchivoTextos(archivoMotivos);
+        this.aprobadores = new ArchivoTextos(archivoAprobadores);
+    }
+
+    public boolean existe() {
+        return Files.exists(archivoEstados);
+    }
+
+    /**
+     * Crea el archivo de estados a partir de las solicitudes cargadas del formato delimitado.
+     * solicitudes.txt no se modifica, por lo que la migración no pierde información; los
+     * aprobadores largos van al archivo de aprobadores. Si algún otro valor no cabe en su campo
+     * fijo (un ID negativo de 11 caracteres), o hay IDs repetidos (los registros se ubican por ID y no
+     * distinguirían las solicitudes), no se migra y se sigue usando el formato anterior.
+     */
+    public void migrar(List<Solicitud> solicitudes) throws IOException {
+        Set<Integer> ids = new HashSet<>();
+        for (Solicitud solicitud : solicitudes) {
+            if (!ids.add(solicitud.getId())) {
+                throw new IOException("ID de solicitud repetido: " + solicitud.getId());
+            }
+        }
+        Path temporal = Paths.get(archivoEstados + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal))) {
+            for (Solicitud solicitud : solicitudes) {
+                out.write(codificar(solicitud));
+            }
+        } catch (IllegalArgumentException e) {
+            Files.deleteIfExists(temporal);
+            throw new IOException("No se puede migrar al formato de ancho fijo: " + e.getMessage());
+        }
+        // Antes de publicar el archivo de estados, para que ningún registro marcado quede sin su aprobador
+        for (Solicitud solicitud : solicitudes) {
+            if (!cabeAprobador(solicitud)) {
+                aprobadores.agregar(solicitud.getId(), solicitud.getAprobadoPor());
+            }
+        }
+        Files.move(temporal, archivoEstados, StandardCopyOption.ATOMIC_MOVE);
+        reiniciar();
+    }
+
+    /**
+     * Aplica a las solicitudes los registros nuevos o modificados desde la última lectura.
+     * Si el archivo solo creció se leen los registros agregados; si cambió de otra forma
+     * (actualización de otro proceso) se vuelve a leer completo.
+     */
+    public void sincronizar(Map<Integer, Solicitud> solicitudesPorId,
+                            BiConsumer<Solicitud, Solicitud.EstadoSolicitud> alCambiarEstado) throws IOException {
+        File archivo = archivoEstados.toFile();
+        long modificacion = archivo.lastModified();
+        long tamano = archivo.length();
+        if (modificacion != ultimaModificacion || tamano != bytesLeidos) {
+            if (tamano <= bytesLeidos) {
+                reiniciar();
+            }
+            try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+                long completos = (tamano - bytesLeidos) / TAMANO_REGISTRO * TAMANO_REGISTRO;
+                byte[] buffer = new byte[(int) completos];
+                raf.seek(bytesLeidos);
+                raf.readFully(buffer);
+                for (int pos = 0; pos < buffer.length; pos += TAMANO_REGISTRO) {
+                    aplicarRegistro(buffer, pos, bytesLeidos + pos, solicitudesPorId, alCambiarEstado);
+                }
+                bytesLeidos += completos;
+            }
+            ultimaModificacion = modificacion;
+        }
+        motivos.sincronizar((id, motivo) -> {
+            Solicitud solicitud = solicitudesPorId.get(id);
+            if (solicitud != null) {
+                solicitud.setMotivoRechazo(motivo);
+            }
+        });
+        aprobadores.sincronizar((id, aprobador) -> {
+            Solicitud solicitud = solicitudesPorId.get(id);
+            if (solicitud != null && aprobadorAparte.contains(id)) {
+                solicitud.setAprobadoPor(aprobador);
+            }
+        });
+    }
+
+    /**
+     * Entrega en orden cada registro de estado y luego cada motivo, leyendo de a un registro
+     * (no depende de lo ya sincronizado ni lo modifica). Con IDs repetidos, el último gana.
+     */
+    public void recorrer(Visitante visitante) throws IOException {
+        Map<Integer, String> aprobadoresAparte = new HashMap<>();
+        aprobadores.recorrer(aprobadoresAparte::put);
+        byte[] registro = new byte[TAMANO_REGISTRO];
+        long offset = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivoEstados)))) {
+            while (true) {
+                try {
+                    in.readFully(registro);
+                } catch (EOFException e) {
+                    break; // Fin del archivo (o registro a medio escribir)
+                }
+                try {
+                    int id = Integer.parseInt(leerCampo(registro, 0, ANCHO_ID));
+                    String aprobadoPor = registro[POS_APROBADOR] == APROBADOR_APARTE
+                            ? aprobadoresAparte.getOrDefault(id, "")
+                            : leerCampo(registro, POS_APROBADOR, ANCHO_APROBADOR);
+                    String fecha = leerCampo(registro, POS_FECHA, ANCHO_FECHA);
+                    visitante.estado(id,
+                            Solicitud.EstadoSolicitud.valueOf(leerCampo(registro, POS_ESTADO, ANCHO_ESTADO)),
+                            aprobadoPor.isEmpty() ? null : aprobadoPor,
+                            fecha.isEmpty() ? null : FechaHoraTexto.parsear(fecha));
+                } catch (RuntimeException e) {
+                    System.err.println("Registro de estado inválido en offset " + offset + ": " + e.getMessage());
+                }
+                offset += TAMANO_REGISTRO;
+            }
+        }
+
+        motivos.recorrer(visitante::motivo);
+    }
+
+    /**
+     * Agrega el registro de una solicitud nueva al final del archivo
+     */
+    public void agregar(Solicitud solicitud) throws IOException {
+        byte[] registro = codificar(solicitud);
+        if (!cabeAprobador(solicitud)) {
+            aprobadores.agregar(solicitud.getId(), solicitud.getAprobadoPor());
+        }
+        try (FileChannel canal = FileChannel.open(archivoEstados, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long offset = canal.size();
+            canal.write(ByteBuffer.wrap(registro));
+            offsetPorId.put(solicitud.getId(), offset);
+            if (offset == bytesLeidos) {
+                // Estábamos al día: el registro propio no necesita volver a leerse
+                bytesLeidos += TAMANO_REGISTRO;
+                ultimaModificacion = archivoEstados.toFile().lastModified();
+            }
+        }
+    }
+
+    /**
+     * Sobrescribe en su lugar el registro de estado de la solicitud y, si fue
+     * rechazada, agrega su motivo
+     */
+    public void actualizar(Solicitud solicitud) throws IOException {
+        Long offset = offsetPorId.get(solicitud.getId());
+        if (offset == null) {
+            // Solicitud sin registro (p. ej. se interrumpió la escritura al crearla)
+            agregar(solicitud);
+        } else {
+            byte[] registro = codificar(solicitud);
+            // El aprobador va antes que el registro que remite a él
+            if (!cabeAprobador(solicitud)) {
+                aprobadores.agregar(solicitud.getId(), solicitud.getAprobadoPor());
+            }
+            try (FileChannel canal = FileChannel.open(archivoEstados, StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.wrap(registro), offset);
+                if (canal.size() == bytesLeidos) {
+                    ultimaModificacion = archivoEstados.toFile().lastModified();
+                }
+            }
+        }
+        if (solicitud.getMotivoRechazo() != null) {
+            motivos.agregar(solicitud.getId(), solicitud.getMotivoRechazo());
+        }
+    }
+
+    /**
+     * Olvida lo leído para que la próxima sincronización aplique todos los registros
+     * (necesario cuando las solicitudes se volvieron a cargar desde solicitudes.txt)
+     */
+    public void reiniciar() {
+        offsetPorId.clear();
+        aprobadorAparte.clear();
+        ultimaModificacion = -1;
+        bytesLeidos = 0;
+        motivos.reiniciar();
+        aprobadores.reiniciar();
+    }
+
+    private void aplicarRegistro(byte[] buffer, int pos, long offset, Map<Integer, Solicitud> solicitudesPorId,
+                                 BiConsumer<Solicitud, Solicitud.EstadoSolicitud> alCambiarEstado) {
+        try {
+            int id = Integer.parseInt(leerCampo(buffer, pos, ANCHO_ID));
+            offsetPorId.put(id, offset);
+
+            Solicitud solicitud = solicitudesPorId.get(id);
+            if (solicitud == null) {
+                return;
+            }
+            Solicitud.EstadoSolicitud anterior = solicitud.getEstado();
+            solicitud.setEstado(Solicitud.EstadoSolicitud.valueOf(leerCampo(buffer, pos + POS_ESTADO, ANCHO_ESTADO)));
+            if (buffer[pos + POS_APROBADOR] == APROBADOR_APARTE) {
+                // Lo completa la lectura del archivo de aprobadores, que sigue a la de estados
+                aprobadorAparte.add(id);
+            } else {
+                aprobadorAparte.remove(id);
+                String aprobadoPor = leerCampo(buffer, pos + POS_APROBADOR, ANCHO_APROBADOR);
+                solicitud.setAprobadoPor(aprobadoPor.isEmpty() ? null : aprobadoPor);
+            }
+            String fecha = leerCampo(buffer, pos + POS_FECHA, ANCHO_FECHA);
+            solicitud.setFechaProcesamiento(fecha.isEmpty() ? null : FechaHoraTexto.parsear(fecha));
+            alCambiarEstado.accept(solicitud, anterior);
+        } catch (RuntimeException e) {
+            System.err.println("Registro de estado inválido en offset " + offset + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] codificar(Solicitud solicitud) {
+        byte[] registro = new byte[TAMANO_REGISTRO];
+        Arrays.fill(registro, (byte) ' ');
+        escribirCampo(registro, 0, ANCHO_ID, String.format("%010d", solicitud.getId()), "ID");
+        registro[POS_ESTADO - 1] = '|';
+        escribirCampo(registro, POS_ESTADO, ANCHO_ESTADO, solicitud.getEstado().name(), "estado");
+        registro[POS_APROBADOR - 1] = '|';
+        if (cabeAprobador(solicitud)) {
+            escribirCampo(registro, POS_APROBADOR, ANCHO_APROBADOR,
+                    solicitud.getAprobadoPor() != null ? solicitud.getAprobadoPor() : "", "procesado por");
+        } else {
+            registro[POS_APROBADOR] = APROBADOR_APARTE;
+        }
+        registro[POS_FECHA - 1] = '|';
+        escribirCampo(registro, POS_FECHA, ANCHO_FECHA,
+                solicitud.getFechaProcesamiento() != null ? FechaHoraTexto.formatear(solicitud.getFechaProcesamiento()) : "",
+                "fecha de procesamiento");
+        registro[TAMANO_REGISTRO - 1] = '\n';
+        return registro;
+    }
+
+    private static boolean cabeAprobador(Solicitud solicitud) {
+        return solicitud.getAprobadoPor() == null
+                || solicitud.getAprobadoPor().getBytes(CHARSET).length <= ANCHO_APROBADOR;
+    }
+
+    private void escribirCampo(byte[] registro, int pos, int ancho, String valor, String nombreCampo) {
+        byte[] bytes = valor.getBytes(CHARSET);
+        if (bytes.length > ancho) {
+            throw new IllegalArgumentException("El campo " + nombreCampo + " excede " + ancho + " bytes: " + valor);
+        }
+        System.arraycopy(bytes, 0, registro, pos, bytes.length);
+    }
+
+    private String leerCampo(byte[] buffer, int pos, int ancho) {
+        return new String(buffer, pos, ancho, CHARSET).trim();
+    }
+}
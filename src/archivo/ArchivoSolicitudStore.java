@@ -0,0 +1,454 @@
+package archivo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Almacén de solicitudes en solicitudes.txt (una línea delimitada por solicitud).
+ * Solo vuelve a leer el archivo cuando cambian su fecha de modificación o su tamaño; si el
+ * archivo solo creció (los bytes ya leídos siguen iguales, según su CRC32), parsea únicamente
+ * las líneas agregadas después del último offset leído. Las líneas que agrega este mismo almacén
+ * no obligan a revisar el prefijo: la siguiente sincronización lee solo lo agregado.
+ * El estado de cada solicitud vive en un archivo lateral de ancho fijo
+ * (ver ArchivoEstadosSolicitud), de modo que aprobar o rechazar no reescribe solicitudes.txt.
+ * Los IDs nuevos salen de solicitudes.seq (ver GeneradorIdSolicitud).
+ */
+public class ArchivoSolicitudStore implements SolicitudStore {
+
+    static final String ARCHIVO_SOLICITUDES = "solicitudes.txt";
+    // Un solo charset para solicitudes.txt y sus archivos de estados, motivos y aprobadores (el de
+    // la plataforma, como en los archivos escritos con FileWriter por versiones anteriores)
+    static final Charset CHARSET = Charset.defaultCharset();
+    private static final Solicitud.TipoSolicitud[] TIPOS = Solicitud.TipoSolicitud.values();
+    private static final Solicitud.EstadoSolicitud[] ESTADOS = Solicitud.EstadoSolicitud.values();
+
+    private final String archivoSolicitudes;
+    private final ArchivoEstadosSolicitud estados;
+    private final GeneradorIdSolicitud generadorIds;
+    private final boolean lecturaMapeada;
+
+    // Solicitudes ya entregadas y estado del archivo cuando se leyó
+    private final List<Solicitud> solicitudes = new ArrayList<>();
+    private final Map<Integer, Solicitud> solicitudesPorId = new HashMap<>();
+    private long ultimaModificacion = -1;
+    private long ultimoTamano = -1;
+    private long offsetLeido = 0;
+    private CRC32 huellaLeida = new CRC32(); // CRC32 de los bytes [0, offsetLeido)
+    // Tamaño y fecha de modificación del archivo después de lo último que agregó este almacén,
+    // si desde la última lectura el archivo solo cambió por sus propias líneas; -1 si no
+    private long tamanoPropio = -1;
+    private long modificacionPropia = -1;
+    // La migración al archivo de estados falló con el contenido actual: no se reintenta hasta
+    // volver a leer el archivo completo, y mientras tanto valen los estados de solicitudes.txt
+    private boolean migracionFallida = false;
+
+    private final LectorCampos lector = new LectorCampos();
+
+    public ArchivoSolicitudStore() {
+        this(ARCHIVO_SOLICITUDES);
+    }
+
+    /**
+     * @param archivoSolicitudes archivo de solicitudes; los de estados, motivos, aprobadores y secuencia de IDs
+     *                           van a su lado (solicitudes.estado, .motivos, .aprobadores y .seq)
+     */
+    public ArchivoSolicitudStore(String archivoSolicitudes) {
+        this(archivoSolicitudes, LectorMapeado.MAPEO_POR_DEFECTO);
+    }
+
+    /**
+     * @param lecturaMapeada si es true, una porción grande del archivo se lee a través de un mapeo
+     *                       en memoria (ver LectorMapeado) y las solicitudes decodifican sus campos
+     *                       secundarios cuando se piden
+     */
+    public ArchivoSolicitudStore(String archivoSolicitudes, boolean lecturaMapeada) {
+        this.archivoSolicitudes = archivoSolicitudes;
+        this.lecturaMapeada = lecturaMapeada;
+        String prefijo = archivoSolicitudes.endsWith(".txt")
+                ? archivoSolicitudes.substring(0, archivoSolicitudes.length() - 4) : archivoSolicitudes;
+        this.estados = new ArchivoEstadosSolicitud(prefijo + ".estado", prefijo + ".motivos", prefijo + ".aprobadores");
+        this.generadorIds = new GeneradorIdSolicitud(prefijo + ".seq", archivoSolicitudes,
+                GeneradorIdSolicitud.TAMANO_BLOQUE);
+    }
+
+    /**
+     * No hace nada si el archivo no cambió, lee solo lo agregado si el archivo creció
+     * y entrega todo de nuevo en cualquier otro caso
+     */
+    @Override
+    public synchronized void sincronizar(Receptor receptor) {
+        File archivo = new File(archivoSolicitudes);
+        if (!archivo.exists()) {
+            reiniciar(receptor);
+            return;
+        }
+
+        long modificacion = archivo.lastModified();
+        long tamano = archivo.length();
+        if (modificacion != ultimaModificacion || tamano != ultimoTamano) {
+            try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+                CRC32 huella = new CRC32();
+                boolean soloPropias = tamano == tamanoPropio && modificacion == modificacionPropia;
+                tamanoPropio = -1;
+                if (offsetLeido == 0 || tamano <= offsetLeido) {
+                    reiniciar(receptor);
+                } else if (soloPropias) {
+                    huella = huellaLeida; // El prefijo es el que ya se leyó
+                } else if (!prefijoIntacto(raf, huella)) {
+                    reiniciar(receptor);
+                    huella.reset();
+                }
+                long leidos = leerLineasDesde(raf, offsetLeido, tamano, receptor);
+                agregarAHuella(raf, huella, offsetLeido, offsetLeido + leidos);
+                offsetLeido += leidos;
+                huellaLeida = huella;
+                ultimaModificacion = modificacion;
+                ultimoTamano = tamano;
+            } catch (IOException e) {
+                System.err.println("Error al leer archivo de solicitudes: " + e.getMessage());
+                reiniciar(receptor);
+                return;
+            }
+        }
+        sincronizarEstados(receptor);
+    }
+
+    /**
+     * Aplica el archivo de estados, migrándolo desde solicitudes.txt si aún no existe
+     */
+    private void sincronizarEstados(Receptor receptor) {
+        try {
+            if (!estados.existe()) {
+                if (solicitudes.isEmpty() || migracionFallida) {
+                    return;
+                }
+                try {
+                    estados.migrar(solicitudes);
+                } catch (IOException e) {
+                    migracionFallida = true;
+                    System.err.println("No se pudo crear el archivo de estados de solicitudes, se usan los estados de "
+                            + archivoSolicitudes + ": " + e.getMessage());
+                    return;
+                }
+            }
+            estados.sincronizar(solicitudesPorId, receptor::estadoCambiado);
+        } catch (IOException e) {
+            System.err.println("Error con archivo de estados de solicitudes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica que los bytes ya leídos no hayan cambiado; si cambiaron, el archivo fue reescrito
+     * (aunque haya crecido) y lo leído ya no es válido. Deja en huella el CRC32 del prefijo.
+     * Releer el prefijo cuesta una lectura secuencial, pero nada de parseo.
+     */
+    private boolean prefijoIntacto(RandomAccessFile raf, CRC32 huella) throws IOException {
+        agregarAHuella(raf, huella, 0, offsetLeido);
+        return huella.getValue() == huellaLeida.getValue();
+    }
+
+    private static void agregarAHuella(RandomAccessFile raf, CRC32 huella, long desde, long hasta)
+            throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        raf.seek(desde);
+        for (long pendientes = hasta - desde; pendientes > 0; ) {
+            int leidos = raf.read(buffer, 0, (int) Math.min(buffer.length, pendientes));
+            if (leidos < 0) {
+                throw new EOFException("El archivo de solicitudes se acortó mientras se leía");
+            }
+            huella.update(buffer, 0, leidos);
+            pendientes -= leidos;
+        }
+    }
+
+    /**
+     * Parsea las líneas completas entre el offset y el final del archivo.
+     * Devuelve la cantidad de bytes consumidos (una línea a medio escribir se deja para después).
+     */
+    private long leerLineasDesde(RandomAccessFile raf, long offset, long tamano, Receptor receptor) throws IOException {
+        Charset charset = CHARSET;
+        if (lecturaMapeada && LectorMapeado.admite(tamano - offset, charset)) {
+            return leerLineasMapeadas(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, tamano - offset),
+                    charset, receptor);
+        }
+        byte[] buffer = new byte[(int) (tamano - offset)];
+        raf.seek(offset);
+        raf.readFully(buffer);
+
+        int fin = buffer.length;
+        while (fin > 0 && buffer[fin - 1] != '\n') {
+            fin--;
+        }
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(buffer, 0, fin), CHARSET))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                if (!linea.trim().isEmpty()) {
+                    try {
+                        Solicitud solicitud = parsearSolicitudDesdeArchivo(linea);
+                        if (solicitud != null) {
+                            entregar(solicitud, receptor);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Error al parsear línea: " + linea + " - " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return fin;
+    }
+
+    /**
+     * Igual que leerLineasDesde, pero buscando los separadores directamente en el mapeo:
+     * solo se decodifican ID, DPI, tipo y estado, y el resto de cada línea queda en una SolicitudPerezosa
+     */
+    private long leerLineasMapeadas(ByteBuffer mapeo, Charset charset, Receptor receptor) {
+        LectorMapeado campos = new LectorMapeado(mapeo, charset, false);
+        while (campos.siguiente()) {
+            if (campos.enBlanco()) {
+                continue;
+            }
+            Solicitud solicitud = crearSolicitudPerezosa(campos, charset);
+            if (solicitud != null) {
+                entregar(solicitud, receptor);
+            }
+        }
+        return campos.getConsumidos();
+    }
+
+    /**
+     * Valida la línea como parsearSolicitudDesdeArchivo (cantidad de campos, números, enums y fechas)
+     * pero sin decodificar el texto ni construir las fechas
+     */
+    private Solicitud crearSolicitudPerezosa(LectorMapeado campos, Charset charset) {
+        if (campos.cantidad() < 9) {
+            return null; // Línea inválida
+        }
+        try {
+            int id = campos.entero(0);
+            Solicitud.TipoSolicitud tipo = campos.enumeracion(3, TIPOS);
+            campos.validarFechaHora(5);
+            campos.validarFechaHora(6);
+            if (!campos.vacio(7)) {
+                campos.validarFechaHora(7);
+            }
+            Solicitud.EstadoSolicitud estado = campos.vacio(8)
+                    ? Solicitud.EstadoSolicitud.PENDIENTE : campos.enumeracion(8, ESTADOS);
+            if (campos.cantidad() > 11 && !campos.vacio(11)) {
+                campos.validarFechaHora(11);
+            }
+            return new SolicitudPerezosa(id, campos.texto(1), tipo, estado, campos.copiarLinea(), charset);
+        } catch (RuntimeException e) {
+            System.err.println("Error al parsear solicitud: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void entregar(Solicitud solicitud, Receptor receptor) {
+        solicitudes.add(solicitud);
+        // Con IDs repetidos (archivos anteriores al generador persistente) gana el primero
+        solicitudesPorId.putIfAbsent(solicitud.getId(), solicitud);
+        receptor.agregada(solicitud);
+    }
+
+    private void reiniciar(Receptor receptor) {
+        reiniciar();
+        receptor.reiniciar();
+    }
+
+    @Override
+    public synchronized void reiniciar() {
+        solicitudes.clear();
+        solicitudesPorId.clear();
+        estados.reiniciar();
+        ultimaModificacion = -1;
+        ultimoTamano = -1;
+        offsetLeido = 0;
+        huellaLeida = new CRC32();
+        tamanoPropio = -1;
+        migracionFallida = false;
+    }
+
+    @Override
+    public int siguienteId() throws IOException {
+        return generadorIds.siguienteId();
+    }
+
+    /**
+     * Agrega la línea de la solicitud al final del archivo (y su registro de estado).
+     * Si hasta ahora el archivo solo cambió por líneas de este almacén, anota cómo queda para
+     * que la próxima sincronización lea solo lo agregado, sin revisar el prefijo
+     */
+    @Override
+    public synchronized void agregar(Solicitud solicitud) throws IOException {
+        File archivo = new File(archivoSolicitudes);
+        long tamano = archivo.length();
+        long modificacion = archivo.lastModified();
+        boolean soloPropias = archivo.exists()
+                && ((tamano == ultimoTamano && modificacion == ultimaModificacion && offsetLeido == ultimoTamano)
+                    || (tamano == tamanoPropio && modificacion == modificacionPropia));
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(archivoSolicitudes, true), CHARSET))) {
+            pw.println(formatearSolicitudParaArchivo(solicitud));
+        }
+        tamanoPropio = soloPropias ? archivo.length() : -1;
+        modificacionPropia = archivo.lastModified();
+        if (estados.existe()) {
+            estados.agregar(solicitud);
+        }
+    }
+
+    /**
+     * Escribe el registro de estado de la solicitud; sin archivo de estados (no se pudo
+     * migrar) se reescribe solicitudes.txt completo
+     */
+    @Override
+    public synchronized void actualizarEstado(Solicitud solicitud) throws IOException {
+        if (estados.existe()) {
+            estados.actualizar(solicitud); // Escritura posicionada de un solo registro
+            return;
+        }
+        reescribirArchivoSolicitudes(solicitudes);
+        File archivo = new File(archivoSolicitudes);
+        ultimaModificacion = archivo.lastModified();
+        ultimoTamano = archivo.length();
+        offsetLeido = ultimoTamano;
+        CRC32 huella = new CRC32();
+        try (RandomAccessFile raf = new RandomAccessFile(archivo, "r")) {
+            agregarAHuella(raf, huella, 0, offsetLeido);
+        }
+        huellaLeida = huella;
+        tamanoPropio = -1;
+    }
+
+    /**
+     * Recorre solicitudes.txt línea por línea y después sus archivos de estados y motivos,
+     * sin guardar nada en memoria (lo usa el migrador a base de datos).
+     * Sin archivo de estados, el estado de cada línea es el vigente.
+     */
+    public synchronized void recorrer(Consumer<Solicitud> destino, ArchivoEstadosSolicitud.Visitante visitante)
+            throws IOException {
+        File archivo = new File(archivoSolicitudes);
+        if (!archivo.exists()) {
+            return;
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new FileInputStream(archivo), CHARSET))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                if (linea.trim().isEmpty()) {
+                    continue;
+                }
+                Solicitud solicitud = parsearSolicitudDesdeArchivo(linea);
+                if (solicitud != null) {
+                    destino.accept(solicitud);
+                } else {
+                    System.err.println("Línea de solicitud inválida: " + linea);
+                }
+            }
+        }
+        if (estados.existe()) {
+            estados.recorrer(visitante);
+        }
+    }
+
+    /**
+     * Formatea una solicitud para guardarla en archivo
+     */
+    private String formatearSolicitudParaArchivo(Solicitud solicitud) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(solicitud.getId()).append('|');
+        sb.append(solicitud.getEmpleadoDpi()).append('|');
+        sb.append(solicitud.getEmpleadoNombre()).append('|');
+        sb.append(solicitud.getTipo().name()).append('|');
+        sb.append(solicitud.getDescripcion().replace('|', '~')).append('|'); // Reemplazar | para evitar conflictos
+        FechaHoraTexto.formatear(solicitud.getFechaInicio(), sb).append('|');
+        FechaHoraTexto.formatear(solicitud.getFechaFin(), sb).append('|');
+        FechaHoraTexto.formatear(solicitud.getFechaSolicitud(), sb).append('|');
+        sb.append(solicitud.getEstado().name()).append('|');
+        sb.append(solicitud.getAprobadoPor() != null ? solicitud.getAprobadoPor() : "").append('|');
+        sb.append(solicitud.getMotivoRechazo() != null ? solicitud.getMotivoRechazo().replace('|', '~') : "").append('|');
+        if (solicitud.getFechaProcesamiento() != null) {
+            FechaHoraTexto.formatear(solicitud.getFechaProcesamiento(), sb);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Parsea una línea del archivo para crear una solicitud
+     */
+    private Solicitud parsearSolicitudDesdeArchivo(String linea) {
+        LectorCampos campos = lector.cargar(linea); // Conserva los campos vacíos al final
+
+        if (campos.cantidad() < 9) {
+            return null; // Línea inválida
+        }
+
+        try {
+            // Crear solicitud básica
+            int id = campos.entero(0);
+            String empleadoDpi = campos.texto(1);
+            String empleadoNombre = campos.texto(2);
+            Solicitud.TipoSolicitud tipo = campos.enumeracion(3, TIPOS);
+            String descripcion = campos.textoEscapado(4); // Restaurar | en descripción
+            LocalDateTime fechaInicio = campos.fechaHora(5);
+            LocalDateTime fechaFin = campos.fechaHora(6);
+
+            Solicitud solicitud = new Solicitud(id, empleadoDpi, empleadoNombre, tipo, descripcion, fechaInicio, fechaFin);
+
+            // Restaurar fecha de solicitud
+            if (!campos.vacio(7)) {
+                solicitud.setFechaSolicitud(campos.fechaHora(7));
+            }
+
+            // Restaurar estado
+            if (!campos.vacio(8)) {
+                solicitud.setEstado(campos.enumeracion(8, ESTADOS));
+            }
+
+            // Restaurar campos opcionales si existen
+            if (campos.cantidad() > 9 && !campos.vacio(9)) {
+                solicitud.setAprobadoPor(campos.texto(9));
+            }
+
+            if (campos.cantidad() > 10 && !campos.vacio(10)) {
+                solicitud.setMotivoRechazo(campos.textoEscapado(10));
+            }
+
+            if (campos.cantidad() > 11 && !campos.vacio(11)) {
+                solicitud.setFechaProcesamiento(campos.fechaHora(11));
+            }
+
+            return solicitud;
+
+        } catch (Exception e) {
+            System.err.println("Error al parsear solicitud: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reescribe completamente el archivo de solicitudes
+     */
+    private void reescribirArchivoSolicitudes(List<Solicitud> solicitudes) throws IOException {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(archivoSolicitudes, false), CHARSET))) {
+
+            for (Solicitud solicitud : solicitudes) {
+                String linea = formatearSolicitudParaArchivo(solicitud);
+                pw.println(linea);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package archivo;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bandeja de salida persistente: cada correo se guarda como un archivo antes de intentar
+ * enviarlo y se borra solo cuando se entregó. Al iniciar se vuelven a programar los que
+ * quedaron pendientes. Un envío fallido se reintenta con espera exponencial con variación
+ * aleatoria (para no reintentar todos a la vez cuando el servidor vuelve), y después de N
+ * intentos el correo pasa a la carpeta de fallidos. Los avisos que esperan su resumen se guardan
+ * aparte (carpeta de retenidos) para que no se pierdan si la aplicación se cierra antes.
+ */
+public class BandejaSalidaCorreo {
+
+    private static final String EXTENSION = ".msg";
+    private static final long ESPERA_BREVE_MS = 1000;
+
+    private final File directorio;
+    private final File directorioFallidos;
+    private final File directorioRetenidos;
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final Predicate<MensajeCorreo> envio;
+    private final LimitadorEnvio limitador;
+    private final DespachadorCorreo despachador;
+    private final ScheduledExecutorService reintentos;
+    private final Random aleatorio = new Random();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final AtomicInteger programados = new AtomicInteger();
+    private final AtomicLong descartados = new AtomicLong();
+
+    /**
+     * @param hilos         hilos de entrega en segundo plano (también hacen los reintentos)
+     * @param capacidadCola mensajes que pueden esperar en la cola de entrega
+     * @param limitador     ritmo y presupuesto diario de envío; null para no limitar
+     * @param envio         envía un mensaje y devuelve true si se entregó
+     */
+    public BandejaSalidaCorreo(String directorio, int maxIntentos, long esperaBaseMs, long esperaMaximaMs,
+                               int hilos, int capacidadCola, LimitadorEnvio limitador, Predicate<MensajeCorreo> envio) {
+        this.directorio = new File(directorio);
+        this.directorioFallidos = new File(this.directorio, "fallidos");
+        this.directorioRetenidos = new File(this.directorio, "retenidos");
+        this.maxIntentos = Math.max(1, maxIntentos);
+        this.esperaBaseMs = Math.max(1, esperaBaseMs);
+        this.esperaMaximaMs = Math.max(this.esperaBaseMs, esperaMaximaMs);
+        this.envio = envio;
+        this.limitador = limitador;
+        this.despachador = new DespachadorCorreo(hilos, capacidadCola, this::intentar);
+        this.reintentos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "reintentos-correo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.directorio.mkdirs();
+        recuperar();
+    }
+
+    /**
+     * Guarda el correo en la bandeja y lo encola para entrega en segundo plano.
+     * Si la cola está llena el correo queda guardado y se vuelve a encolar más tarde.
+     */
+    public boolean agregar(MensajeCorreo mensaje) {
+        MensajeCorreo guardado = guardarNuevo(mensaje);
+        if (!despachador.encolar(guardado)) {
+            programar(guardado, ESPERA_BREVE_MS);
+        }
+        return true;
+    }
+
+    /**
+     * Guarda el correo en la bandeja e intenta entregarlo en el hilo que llama.
+     * Devuelve si se entregó; si no, queda guardado y se reintenta en segundo plano.
+     * No espera al limitador: si el ritmo no permite enviarlo ya, pasa a la cola de entrega
+     * y devuelve false.
+     */
+    public boolean enviarAhora(MensajeCorreo mensaje) {
+        MensajeCorreo guardado = guardarNuevo(mensaje);
+        if (limitador != null) {
+            LimitadorEnvio.Permiso permiso = limitador.intentarAdquirir(guardado.isTransaccional());
+            if (permiso == LimitadorEnvio.Permiso.SIN_PRESUPUESTO) {
+                posponer(guardado, limitador.getMsHastaNuevoDia());
+                return false;
+            }
+            if (permiso == LimitadorEnvio.Permiso.SIN_FICHA) {
+                if (!despachador.encolar(guardado)) {
+                    programar(guardado, ESPERA_BREVE_MS);
+                }
+                return false;
+            }
+        }
+        return entregar(guardado);
+    }
+
+    /**
+     * Guarda un aviso que todavía no se envía (espera su resumen). Devuelve el aviso con su
+     * identificador, o null si no se pudo guardar. Al entregarlo se llama a liberar().
+     */
+    public MensajeCorreo retener(MensajeCorreo mensaje) {
+        MensajeCorreo retenido = mensaje.conId(nuevoId());
+        try {
+            directorioRetenidos.mkdirs();
+            guardar(retenido, directorioRetenidos);
+            return retenido;
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el aviso retenido: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Borra los avisos retenidos una vez que su resumen quedó en la bandeja
+     */
+    public void liberar(List<MensajeCorreo> mensajes) {
+        for (MensajeCorreo mensaje : mensajes) {
+            if (mensaje.getId() != null) {
+                new File(directorioRetenidos, mensaje.getId() + EXTENSION).delete();
+            }
+        }
+    }
+
+    private MensajeCorreo guardarNuevo(MensajeCorreo mensaje) {
+        MensajeCorreo guardado = mensaje.conId(nuevoId());
+        try {
+            guardar(guardado);
+        } catch (IOException e) {
+            // Sin respaldo en disco se intenta igual, pero no sobrevive a un reinicio
+            System.err.println("No se pudo guardar el correo en la bandeja de salida: " + e.getMessage());
+        }
+        return guardado;
+    }
+
+    private String nuevoId() {
+        return String.format("%d-%06d", System.currentTimeMillis(), secuencia.incrementAndGet());
+    }
+
+    /**
+     * Intenta entregar el correo; si falla, lo reprograma o lo pasa a fallidos
+     */
+    boolean intentar(MensajeCorreo mensaje) {
+        if (limitador != null) {
+            try {
+                if (!limitador.adquirir(mensaje.isTransaccional())) {
+                    // Sin presupuesto por hoy: no cuenta como intento fallido
+                    posponer(mensaje, limitador.getMsHastaNuevoDia());
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                posponer(mensaje, ESPERA_BREVE_MS);
+                return false;
+            }
+        }
+        return entregar(mensaje);
+    }
+
+    private boolean entregar(MensajeCorreo mensaje) {
+        boolean entregado;
+        try {
+            entregado = envio.test(mensaje);
+        } catch (RuntimeException e) {
+            System.err.println("Error enviando correo a " + mensaje.getDestinatario() + ": " + e.getMessage());
+            entregado = false;
+        }
+        if (entregado) {
+            archivo(mensaje).delete();
+        } else {
+            registrarFallo(mensaje);
+        }
+        return entregado;
+    }
+
+    /**
+     * Correos guardados que aún no se entregaron (incluye los que esperan un reintento)
+     */
+    public int getPendientes() {
+        String[] archivos = directorio.list((dir, nombre) -> nombre.endsWith(EXTENSION));
+        return archivos != null ? archivos.length : 0;
+    }
+
+    public int getReintentosProgramados() {
+        return programados.get();
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    public DespachadorCorreo getDespachador() {
+        return despachador;
+    }
+
+    public LimitadorEnvio getLimitador() {
+        return limitador;
+    }
+
+    /**
+     * Deja de programar reintentos y espera a que se entreguen los correos encolados.
+     * Lo que no alcance a enviarse sigue en disco y se retoma en la próxima ejecución.
+     */
+    public boolean cerrar(long esperaMs) {
+        reintentos.shutdownNow();
+        return despachador.cerrar(esperaMs);
+    }
+
+    private void registrarFallo(MensajeCorreo mensaje) {
+        int intentos = mensaje.getIntentos() + 1;
+        mensaje.setIntentos(intentos);
+        if (intentos >= maxIntentos) {
+            descartados.incrementAndGet();
+            System.err.println("Correo a " + mensaje.getDestinatario() + " descartado después de " + intentos
+                    + " intentos; queda en " + directorioFallidos.getPath());
+            moverAFallidos(mensaje);
+            return;
+        }
+
+        posponer(mensaje, calcularEspera(intentos));
+    }
+
+    private void posponer(MensajeCorreo mensaje, long espera) {
+        mensaje.setProximoIntento(System.currentTimeMillis() + espera);
+        try {
+            guardar(mensaje);
+        } catch (IOException e) {
+            System.err.println("No se pudo actualizar el correo en la bandeja de salida: " + e.getMessage());
+        }
+        programar(mensaje, espera);
+    }
+
+    /**
+     * Espera exponencial (base * 2^(intentos-1), con tope) con variación aleatoria:
+     * la mitad fija y la otra mitad al azar
+     */
+    private long calcularEspera(int intentos) {
+        long espera = esperaBaseMs << Math.min(intentos - 1, 30);
+        if (espera <= 0 || espera > esperaMaximaMs) {
+            espera = esperaMaximaMs;
+        }
+        long mitad = espera / 2;
+        return mitad + (long) (aleatorio.nextDouble() * (espera - mitad));
+    }
+
+    private void programar(MensajeCorreo mensaje, long esperaMs) {
+        programados.incrementAndGet();
+        try {
+            reintentos.schedule(() -> {
+                programados.decrementAndGet();
+                if (!despachador.encolar(mensaje)) {
+                    programar(mensaje, ESPERA_BREVE_MS);
+                }
+            }, Math.max(0, esperaMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            programados.decrementAndGet();
+            // La bandeja se está cerrando: el correo sigue en disco para la próxima ejecución
+        }
+    }
+
+    /**
+     * Vuelve a programar los correos que quedaron en la bandeja de una ejecución anterior.
+     * Los avisos retenidos cuyo resumen no llegó a armarse se envían sueltos.
+     */
+    private void recuperar() {
+        File[] retenidos = directorioRetenidos.listFiles((dir, nombre) -> nombre.endsWith(EXTENSION));
+        if (retenidos != null) {
+            for (File retenido : retenidos) {
+                if (!retenido.renameTo(new File(directorio, retenido.getName()))) {
+                    System.err.println("No se pudo recuperar el aviso retenido " + retenido.getName());
+                }
+            }
+        }
+        File[] archivos = directorio.listFiles((dir, nombre) -> nombre.endsWith(EXTENSION));
+        if (archivos == null || archivos.length == 0) {
+            return;
+        }
+        Arrays.sort(archivos);
+        long ahora = System.currentTimeMillis();
+        for (File archivo : archivos) {
+            MensajeCorreo mensaje = leer(archivo);
+            if (mensaje == null) {
+                System.err.println("Correo ilegible en la bandeja de salida: " + archivo.getName());
+                directorioFallidos.mkdirs();
+                archivo.renameTo(new File(directorioFallidos, archivo.getName()));
+                continue;
+            }
+            programar(mensaje, mensaje.getProximoIntento() - ahora);
+        }
+        System.out.println("Bandeja de salida: " + archivos.length + " correos pendientes de una ejecución anterior");
+    }
+
+    private void guardar(MensajeCorreo mensaje) throws IOException {
+        guardar(mensaje, directorio);
+    }
+
+    private void guardar(MensajeCorreo mensaje, File carpeta) throws IOException {
+        Properties datos = new Properties();
+        datos.setProperty("destinatario", mensaje.getDestinatario());
+        datos.setProperty("asunto", mensaje.getAsunto());
+        datos.setProperty("contenido", mensaje.getContenido());
+        datos.setProperty("transaccional", String.valueOf(mensaje.isTransaccional()));
+        datos.setProperty("intentos", String.valueOf(mensaje.getIntentos()));
+        datos.setProperty("proximoIntento", String.valueOf(mensaje.getProximoIntento()));
+
+        File destino = new File(carpeta, mensaje.getId() + EXTENSION);
+        File temporal = new File(carpeta, mensaje.getId() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temporal)) {
+            datos.store(out, null);
+        }
+        Files.move(temporal.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private MensajeCorreo leer(File archivo) {
+        Properties datos = new Properties();
+        try (InputStream in = new FileInputStream(archivo)) {
+            datos.load(in);
+            String nombre = archivo.getName();
+            return new MensajeCorreo(nombre.substring(0, nombre.length() - EXTENSION.length()),
+                    datos.getProperty("destinatario"), datos.getProperty("asunto"), datos.getProperty("contenido"),
+                    Boolean.parseBoolean(datos.getProperty("transaccional", "false")),
+                    Integer.parseInt(datos.getProperty("intentos", "0")),
+                    Long.parseLong(datos.getProperty("proximoIntento", "0")));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void moverAFallidos(MensajeCorreo mensaje) {
+        try {
+            guardar(mensaje);
+            directorioFallidos.mkdirs();
+            Files.move(archivo(mensaje).toPath(), new File(directorioFallidos, mensaje.getId() + EXTENSION).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("No se pudo mover el correo a fallidos: " + e.getMessage());
+        }
+    }
+
+    private File archivo(MensajeCorreo mensaje) {
+        return new File(directorio, mensaje.getId() + EXTENSION);
+    }
+}
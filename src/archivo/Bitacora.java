@@ -18,6 +18,14 @@ public class Bitacora {
         this.empleadoAfectado = empleadoAfectado;
     }
 
+    public Bitacora(String usuario, LocalDateTime fechaHora, String tipoOperacion, String detalles, String empleadoAfectado) {
+        this.usuario = usuario;
+        this.fechaHora = fechaHora;
+        this.tipoOperacion = tipoOperacion;
+        this.detalles = detalles;
+        this.empleadoAfectado = empleadoAfectado;
+    }
+
     // Getters
     public String getUsuario() {
         return usuario;
@@ -45,9 +53,66 @@ public class Bitacora {
         return fechaHora.format(formatter);
     }
 
+    /**
+     * Agrega la línea de bitácora al StringBuilder sin pasar por String.format ni DateTimeFormatter
+     * (mismo texto que toString)
+     */
+    public void formatear(StringBuilder sb) {
+        sb.append('[');
+        dosDigitos(sb, fechaHora.getDayOfMonth()).append('/');
+        dosDigitos(sb, fechaHora.getMonthValue()).append('/');
+        sb.append(fechaHora.getYear()).append(' ');
+        dosDigitos(sb, fechaHora.getHour()).append(':');
+        dosDigitos(sb, fechaHora.getMinute()).append(':');
+        dosDigitos(sb, fechaHora.getSecond());
+        sb.append("] Usuario: ").append(usuario)
+          .append(" | Operación: ").append(tipoOperacion)
+          .append(" | Empleado: ").append(empleadoAfectado)
+          .append(" | Detalles: ").append(detalles);
+    }
+
+    /**
+     * Reconstruye un registro desde una línea escrita por formatear/toString.
+     * Devuelve null si la línea no tiene ese formato.
+     */
+    public static Bitacora parsear(String linea) {
+        if (linea.length() < 22 || linea.charAt(0) != '[' || linea.charAt(20) != ']') {
+            return null;
+        }
+        int usuario = linea.indexOf("] Usuario: ");
+        // "Operación" se busca sin la 'ó' por si el archivo se escribió con otra codificación
+        int operacion = linea.indexOf(" | Operaci", usuario);
+        int valorOperacion = operacion < 0 ? -1 : linea.indexOf(": ", operacion) + 2;
+        int empleado = operacion < 0 ? -1 : linea.indexOf(" | Empleado: ", operacion);
+        int detalles = empleado < 0 ? -1 : linea.indexOf(" | Detalles: ", empleado);
+        if (usuario != 20 || detalles < 0) {
+            return null;
+        }
+        try {
+            LocalDateTime fecha = LocalDateTime.of(
+                    Integer.parseInt(linea.substring(7, 11)), Integer.parseInt(linea.substring(4, 6)),
+                    Integer.parseInt(linea.substring(1, 3)), Integer.parseInt(linea.substring(12, 14)),
+                    Integer.parseInt(linea.substring(15, 17)), Integer.parseInt(linea.substring(18, 20)));
+            String afectado = linea.substring(empleado + 13, detalles);
+            return new Bitacora(linea.substring(usuario + 11, operacion), fecha,
+                    linea.substring(valorOperacion, empleado), linea.substring(detalles + 13),
+                    "null".equals(afectado) ? null : afectado);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static StringBuilder dosDigitos(StringBuilder sb, int valor) {
+        if (valor < 10) {
+            sb.append('0');
+        }
+        return sb.append(valor);
+    }
+
     @Override
     public String toString() {
-        return String.format("[%s] Usuario: %s | Operación: %s | Empleado: %s | Detalles: %s",
-                getFechaHoraFormateada(), usuario, tipoOperacion, empleadoAfectado, detalles);
+        StringBuilder sb = new StringBuilder(128);
+        formatear(sb);
+        return sb.toString();
     }
 }
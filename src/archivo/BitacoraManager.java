@@ -1,63 +1,97 @@
 package archivo;
 
-import java.io.*;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Manager for audit logging (Bitácora) - handles all system operation tracking
+ * Manager for audit logging (Bitácora) - handles all system operation tracking.
+ * Creating it does no I/O: records are written by EscritorBitacora, the history
+ * is read on demand through LectorBitacora and filtered queries go through IndiceBitacora
+ * (or the per-segment sparse timestamp index for date-only queries). With JDBC storage,
+ * filtered queries run on the indexed bitacora table instead (see JdbcBitacoraStore).
  */
 public class BitacoraManager {
-    private List<Bitacora> registros;
-    private static final String BITACORA_FILE = "bitacora.txt";
-
-    public BitacoraManager() {
-        registros = new ArrayList<>();
-        cargarBitacora();
-    }
+    static final String BITACORA_FILE = "bitacora.txt";
+    // Cuánto esperar a que la copia en la base alcance lo escrito antes de buscar en los archivos
+    private static final long ESPERA_COPIA_MS = 2000;
 
     public void registrarOperacion(String usuario, String tipoOperacion, String detalles, String empleadoAfectado) {
         Bitacora registro = new Bitacora(usuario, tipoOperacion, detalles, empleadoAfectado);
-        registros.add(registro);
         guardarRegistro(registro);
     }
 
+    /**
+     * El registro se entrega al escritor asíncrono; no bloquea al hilo que llama
+     */
     private void guardarRegistro(Bitacora registro) {
-        try (FileWriter fw = new FileWriter(BITACORA_FILE, true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            pw.println(registro.toString());
-        } catch (IOException e) {
-            System.err.println("Error guardando en bitácora: " + e.getMessage());
-        }
-    }
-
-    private void cargarBitacora() {
-        try (BufferedReader br = new BufferedReader(new FileReader(BITACORA_FILE))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                // Aquí podrías parsear las líneas existentes si necesitas cargar el historial
-                System.out.println("Registro cargado: " + linea);
-            }
-        } catch (FileNotFoundException e) {
-            // El archivo no existe, se creará cuando sea necesario
-        } catch (IOException e) {
-            System.err.println("Error cargando bitácora: " + e.getMessage());
-        }
+        EscritorBitacora.getInstancia().publicar(registro);
     }
 
     public List<Bitacora> obtenerRegistros() {
-        return new ArrayList<>(registros);
+        return LectorBitacora.getInstancia().obtenerRegistros();
     }
 
     public List<Bitacora> filtrarPorUsuario(String usuario) {
-        return registros.stream()
-                .filter(r -> r.getUsuario().equals(usuario))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return buscar(usuario, null, null, null);
     }
 
     public List<Bitacora> filtrarPorTipoOperacion(String tipoOperacion) {
-        return registros.stream()
-                .filter(r -> r.getTipoOperacion().equals(tipoOperacion))
-                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        return buscar(null, tipoOperacion, null, null);
+    }
+
+    /**
+     * Búsqueda combinada sobre el índice de la bitácora: usuario Y operación Y rango de fechas.
+     * Los criterios null no filtran.
+     */
+    public List<Bitacora> buscar(String usuario, String tipoOperacion, LocalDateTime desde, LocalDateTime hasta) {
+        List<Bitacora> enBaseDatos = buscarEnBaseDatos(usuario, tipoOperacion, desde, hasta);
+        if (enBaseDatos != null) {
+            return enBaseDatos;
+        }
+        if (usuario == null && tipoOperacion == null && (desde != null || hasta != null)) {
+            return filtrarPorFechas(desde, hasta);
+        }
+        return IndiceBitacora.getInstancia().buscar(usuario, tipoOperacion, desde, hasta);
+    }
+
+    /**
+     * Registros en el rango de fechas (inclusivo), usando los segmentos y sus índices dispersos
+     */
+    public List<Bitacora> filtrarPorFechas(LocalDateTime desde, LocalDateTime hasta) {
+        List<Bitacora> enBaseDatos = buscarEnBaseDatos(null, null, desde, hasta);
+        if (enBaseDatos != null) {
+            return enBaseDatos;
+        }
+        EscritorBitacora.getInstancia().vaciar();
+        try {
+            return SegmentosBitacora.getInstancia().buscarPorFechas(desde, hasta);
+        } catch (IOException e) {
+            System.err.println("Error consultando bitácora por fechas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Con almacenamiento JDBC la búsqueda usa los índices de la tabla de bitácora.
+     * Devuelve null si no hay base de datos, si la copia en la base está atrasada o si falló
+     * la consulta (se busca en los archivos).
+     */
+    private List<Bitacora> buscarEnBaseDatos(String usuario, String tipoOperacion,
+                                             LocalDateTime desde, LocalDateTime hasta) {
+        JdbcBitacoraStore baseDatos = Almacenamiento.getInstancia().getBitacoraJdbc();
+        if (baseDatos == null) {
+            return null;
+        }
+        if (!EscritorBitacora.getInstancia().copiaJdbcAlDia(ESPERA_COPIA_MS)) {
+            return null;
+        }
+        try {
+            return baseDatos.buscar(usuario, tipoOperacion, desde, hasta);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
     }
 }
@@ -0,0 +1,158 @@
+package archivo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copia en segundo plano los registros de la bitácora a la tabla de la base (JdbcBitacoraStore).
+ * Lleva la posición lógica hasta la que la tabla está al día y copia desde ahí leyendo los
+ * segmentos, así un lote que no se pudo insertar (la base no respondía, por ejemplo) se vuelve
+ * a intentar con el próximo aviso en lugar de perderse, y lo que faltó copiar al cerrar la
+ * aplicación se completa en la siguiente ejecución. El escritor de la bitácora solo avisa:
+ * los INSERT corren en el hilo de la copia.
+ */
+public class CopiaBitacoraJdbc {
+
+    private static final int REGISTROS_POR_LOTE = 500;
+
+    private final JdbcBitacoraStore store;
+    private final SegmentosBitacora segmentos;
+    private final ExecutorService ejecutor;
+    private final AtomicBoolean programada = new AtomicBoolean();
+
+    private final Object monitor = new Object();
+    private long copiado = -1;          // Posición hasta la que la tabla está al día; -1 hasta consultarla
+    private boolean fallando = false;   // Solo lo usa el hilo de la copia
+
+    public CopiaBitacoraJdbc(JdbcBitacoraStore store, SegmentosBitacora segmentos) {
+        this.store = store;
+        this.segmentos = segmentos;
+        this.ejecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "copia-bitacora");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Pide copiar lo nuevo de la bitácora; vuelve de inmediato
+     */
+    public void avisar() {
+        if (programada.compareAndSet(false, true)) {
+            try {
+                ejecutor.execute(this::copiar);
+            } catch (RejectedExecutionException e) {
+                programada.set(false);
+            }
+        }
+    }
+
+    /**
+     * Espera a que la tabla tenga todo lo escrito hasta la posición lógica dada.
+     * Devuelve false si no lo alcanza dentro del plazo.
+     */
+    public boolean esperar(long posicion, long esperaMs) {
+        avisar();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        synchronized (monitor) {
+            while (copiado < posicion) {
+                long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restante <= 0) {
+                    return false;
+                }
+                try {
+                    monitor.wait(restante);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Posición hasta la que la tabla está al día (-1 si todavía no se consultó)
+     */
+    public long getCopiado() {
+        synchronized (monitor) {
+            return copiado;
+        }
+    }
+
+    private void copiar() {
+        programada.set(false);
+        try {
+            long posicion = posicionInicial();
+            List<Bitacora> registros = new ArrayList<>(REGISTROS_POR_LOTE);
+            long[] posiciones = new long[REGISTROS_POR_LOTE];
+            try (InputStream in = segmentos.abrirDesde(posicion)) {
+                // Solo entrega líneas completas: una a medio escribir se copia en el próximo aviso
+                SegmentosBitacora.LectorLineas lector = new SegmentosBitacora.LectorLineas(in);
+                for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                    long inicioLinea = posicion;
+                    posicion += lector.bytesUltimaLinea();
+                    Bitacora registro = linea.isEmpty() ? null : Bitacora.parsear(linea);
+                    if (registro != null) {
+                        posiciones[registros.size()] = inicioLinea;
+                        registros.add(registro);
+                    }
+                    if (registros.size() == REGISTROS_POR_LOTE) {
+                        store.agregarLote(posiciones, registros);
+                        registros.clear();
+                        publicar(posicion);
+                    }
+                }
+            }
+            if (!registros.isEmpty()) {
+                store.agregarLote(posiciones, registros);
+            }
+            publicar(posicion);
+            if (fallando) {
+                System.err.println("Copia de la bitácora en la base de datos al día otra vez");
+                fallando = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Se informa una vez por racha de errores; la copia se reintenta con el próximo aviso
+            if (!fallando) {
+                System.err.println(e.getMessage() + " (las búsquedas usan los archivos hasta que la copia se ponga al día)");
+                fallando = true;
+            }
+        }
+    }
+
+    /**
+     * Al empezar, continúa después del último registro que ya está en la tabla
+     */
+    private long posicionInicial() throws IOException {
+        synchronized (monitor) {
+            if (copiado >= 0) {
+                return copiado;
+            }
+        }
+        long ultima = store.ultimaPosicion();
+        long inicio = 0;
+        if (ultima >= 0) {
+            try (InputStream in = segmentos.abrirDesde(ultima)) {
+                SegmentosBitacora.LectorLineas lector = new SegmentosBitacora.LectorLineas(in);
+                inicio = lector.siguiente() != null ? ultima + lector.bytesUltimaLinea() : ultima;
+            }
+        }
+        publicar(inicio);
+        return inicio;
+    }
+
+    private void publicar(long posicion) {
+        synchronized (monitor) {
+            copiado = posicion;
+            monitor.notifyAll();
+        }
+    }
+}
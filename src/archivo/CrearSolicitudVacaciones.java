@@ -26,12 +26,13 @@ public class CrearSolicitudVacaciones extends JFrame {
     private JTextArea txtDescripcion;
     private JButton btnCrear;
     private JButton btnCancelar;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
 
     public CrearSolicitudVacaciones(Empleado empleado) {
         this.empleadoActual = empleado;
-        this.dbManager = new DatabaseManager();
+        this.dbManager = DatabaseManager.getInstancia();
         this.bitacoraManager = new BitacoraManager();
-        this.solicitudManager = new SolicitudManager();
+        this.solicitudManager = SolicitudManager.getInstancia();
 
         initComponents();
         configurarVentana();
@@ -161,6 +162,7 @@ public class CrearSolicitudVacaciones extends JFrame {
 
         panelBotones.add(btnCrear);
         panelBotones.add(btnCancelar);
+        panelBotones.add(ejecutor.getIndicador());
 
         gbc.gridx = 0; gbc.gridy = 7; gbc.gridwidth = 2;
         gbc.insets = new Insets(20, 0, 0, 0);
@@ -179,6 +181,9 @@ public class CrearSolicitudVacaciones extends JFrame {
     }
 
     private void crearSolicitud() {
+        if (ejecutor.hayTareasEnCurso()) {
+            return; // La solicitud ya se está guardando
+        }
         try {
             // Validar campos
             if (!validarCampos()) {
@@ -208,29 +213,35 @@ public class CrearSolicitudVacaciones extends JFrame {
                 return;
             }
 
-            // Crear la solicitud
-            Solicitud nuevaSolicitud = new Solicitud(
-                    empleadoActual.getDpi(),
-                    empleadoActual.getNombre(),
-                    tipo,
-                    descripcion,
-                    fechaInicio,
-                    fechaFin
-            );
-
-            // Guardar la solicitud
-            solicitudManager.guardarSolicitud(nuevaSolicitud);
-
-            // Registrar en bitácora
-            bitacoraManager.registrarOperacion(empleadoActual.getUsername(), "CREAR_SOLICITUD",
-                    "Solicitud creada: " + tipo.getDescripcion(), "ID: " + nuevaSolicitud.getId());
-
-            // Mostrar confirmación
-            JOptionPane.showMessageDialog(this,
-                    "Solicitud creada exitosamente.\nID de solicitud: " + nuevaSolicitud.getId(),
-                    "Solicitud creada", JOptionPane.INFORMATION_MESSAGE);
+            // Crear y guardar la solicitud (fuera del EDT: el almacén reserva el ID y escribe)
+            btnCrear.setEnabled(false);
+            ejecutor.ejecutar(null, "Guardando solicitud...", avance -> {
+                Solicitud nuevaSolicitud = solicitudManager.crearSolicitud(
+                        empleadoActual.getDpi(),
+                        empleadoActual.getNombre(),
+                        tipo,
+                        descripcion,
+                        fechaInicio,
+                        fechaFin
+                );
+
+                // Registrar en bitácora
+                bitacoraManager.registrarOperacion(empleadoActual.getUsername(), "CREAR_SOLICITUD",
+                        "Solicitud creada: " + tipo.getDescripcion(), "ID: " + nuevaSolicitud.getId());
+                return nuevaSolicitud;
+            }, guardada -> {
+                // Mostrar confirmación
+                JOptionPane.showMessageDialog(this,
+                        "Solicitud creada exitosamente.\nID de solicitud: " + guardada.getId(),
+                        "Solicitud creada", JOptionPane.INFORMATION_MESSAGE);
 
-            dispose();
+                dispose();
+            }, ex -> {
+                btnCrear.setEnabled(true);
+                JOptionPane.showMessageDialog(this,
+                        "Error al crear la solicitud: " + ex.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            });
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
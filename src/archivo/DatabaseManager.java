@@ -1,159 +1,243 @@
 package archivo;
 
-import java.io.*;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 /**
- * Database Manager for handling employee data operations
+ * Database Manager for handling employee data operations.
+ * The application shares one instance (see {@link #getInstancia()}), so the employees are
+ * loaded once per process. The indexes live in an immutable snapshot held in a volatile field:
+ * readers use whatever snapshot is current without locking, and writers (serialized among
+ * themselves) derive a new snapshot and publish it with a single write. The indexes are
+ * persistent structures (MapaPersistente, VectorPersistente): the new snapshot shares all
+ * but the changed path with the old one, so a write costs about the same with 100 or
+ * 100,000 employees. The trigram search index is persistent in the same way and is kept in
+ * step with every write, so a search never rebuilds it. Employees inside a published snapshot
+ * are never modified; a change stores a new Empleado object.
+ * Persistence is delegated to an EmpleadoStore (text file, memory or JDBC), chosen in
+ * almacenamiento.properties for the shared instance.
  */
 public class DatabaseManager {
-    private static final String EMPLEADOS_FILE = "Empleadosguardados.txt";
-    private static final String SOLICITUDES_FILE = "solicitudes.txt";
-    private List<Empleado> empleados;
-    private List<Solicitud> solicitudes;
+    private static DatabaseManager instancia;
 
-    public DatabaseManager() {
-        empleados = new ArrayList<>();
-        solicitudes = new ArrayList<>();
-        cargarEmpleados();
-        cargarSolicitudes();
-    }
+    private final EmpleadoStore store;
+    // Serializes writers; readers never take it
+    private final Object escritura = new Object();
+    private volatile Instantanea instantanea;
 
     /**
-     * Load all employees from file
+     * Immutable (once published) version of the employee indexes
      */
-    private void cargarEmpleados() {
-        try (BufferedReader br = new BufferedReader(new FileReader(EMPLEADOS_FILE))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                Empleado emp = parsearEmpleado(linea);
-                if (emp != null) {
-                    empleados.add(emp);
-                }
+    private static final class Instantanea {
+        // Employees in file order, and the primary index from username to position in that order
+        VectorPersistente<Empleado> empleados;
+        MapaPersistente<String, Integer> posicionPorUsername;
+        // Unique secondary index by DPI
+        MapaPersistente<String, Empleado> porDpi;
+        // Search index over the same employees and positions; null while loading (built once at the end)
+        IndiceBusquedaEmpleados busqueda;
+
+        Instantanea() {
+            empleados = VectorPersistente.vacio();
+            posicionPorUsername = MapaPersistente.vacio();
+            porDpi = MapaPersistente.vacio();
+        }
+
+        /**
+         * Unpublished snapshot to apply a change on; shares every index with the original
+         */
+        Instantanea(Instantanea original) {
+            empleados = original.empleados;
+            posicionPorUsername = original.posicionPorUsername;
+            porDpi = original.porDpi;
+            busqueda = original.busqueda;
+        }
+
+        /**
+         * Read-only view of all employees (no copy)
+         */
+        List<Empleado> todos() {
+            return empleados.comoLista();
+        }
+
+        Empleado porUsername(String username) {
+            Integer posicion = username != null ? posicionPorUsername.get(username) : null;
+            return posicion != null ? empleados.get(posicion) : null;
+        }
+
+        Empleado porDpi(String dpi) {
+            if (!esDpiIndexable(dpi)) {
+                return null;
             }
-        } catch (FileNotFoundException e) {
-            // File doesn't exist, will be created when saving
-            System.out.println("Archivo de empleados no encontrado, se creará uno nuevo");
-        } catch (IOException e) {
-            System.err.println("Error cargando empleados: " + e.getMessage());
+            Empleado emp = porDpi.get(dpi);
+            return emp != null && dpi.equals(emp.getDpi()) ? emp : null;
+        }
+
+        /**
+         * Add employee to the username and DPI indexes, rejecting duplicates
+         */
+        boolean indexar(Empleado emp) {
+            if (posicionPorUsername.contiene(emp.getUsername()) || porDpi(emp.getDpi()) != null) {
+                return false;
+            }
+            posicionPorUsername = posicionPorUsername.con(emp.getUsername(), empleados.tamano());
+            empleados = empleados.agregar(emp);
+            if (esDpiIndexable(emp.getDpi())) {
+                porDpi = porDpi.con(emp.getDpi(), emp);
+            }
+            if (busqueda != null) {
+                busqueda = busqueda.conAgregado(emp);
+            }
+            return true;
+        }
+
+        /**
+         * Replace an indexed employee, rejecting a DPI that belongs to a different employee
+         */
+        boolean reemplazar(Empleado actual, Empleado nuevo) {
+            Empleado conMismoDpi = porDpi(nuevo.getDpi());
+            if (conMismoDpi != null && conMismoDpi != actual) {
+                return false;
+            }
+            if (esDpiIndexable(actual.getDpi()) && porDpi.get(actual.getDpi()) == actual) {
+                porDpi = porDpi.sin(actual.getDpi());
+            }
+            // The username does not change: the employee keeps its position in file order
+            int posicion = posicionPorUsername.get(actual.getUsername());
+            empleados = empleados.con(posicion, nuevo);
+            if (esDpiIndexable(nuevo.getDpi())) {
+                porDpi = porDpi.con(nuevo.getDpi(), nuevo);
+            }
+            if (busqueda != null) {
+                busqueda = busqueda.conReemplazo(posicion, nuevo);
+            }
+            return true;
         }
     }
 
     /**
-     * Load requests from file
+     * Repository shared by the whole application; the first call loads the employees
+     * from the store configured in almacenamiento.properties
      */
-    private void cargarSolicitudes() {
-        try (BufferedReader br = new BufferedReader(new FileReader(SOLICITUDES_FILE))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                // For now, just initialize empty list - file format would need to be defined
-                // In a real implementation, you'd parse the solicitudes from file
-            }
-        } catch (FileNotFoundException e) {
-            // File doesn't exist, will be created when saving
-            System.out.println("Archivo de solicitudes no encontrado, se creará uno nuevo");
-        } catch (IOException e) {
-            System.err.println("Error cargando solicitudes: " + e.getMessage());
+    public static synchronized DatabaseManager getInstancia() {
+        if (instancia == null) {
+            instancia = new DatabaseManager(Almacenamiento.getInstancia().crearEmpleadoStore());
         }
+        return instancia;
+    }
+
+    public DatabaseManager() {
+        this(true);
+    }
+
+    /**
+     * @param modoJournal if true, changes are appended to the journal instead of
+     *                    rewriting the whole employee file
+     */
+    public DatabaseManager(boolean modoJournal) {
+        this(new ArchivoEmpleadoStore(modoJournal));
+    }
+
+    public DatabaseManager(EmpleadoStore store) {
+        this.store = store;
+        cargarEmpleados();
     }
 
     /**
-     * Parse employee data from file line
+     * Load all employees from the store into the first snapshot
      */
-    private Empleado parsearEmpleado(String linea) {
+    private void cargarEmpleados() {
+        Instantanea cargada = new Instantanea();
         try {
-            // Assuming format: username|password|nombre|dpi|area|turno|estado|email
-            String[] datos = linea.split("\\|");
-            if (datos.length >= 7) {
-                Empleado emp = new Empleado();
-                emp.setUsername(datos[0]);
-                emp.setPassword(datos[1]);
-                emp.setNombre(datos[2]);
-                emp.setDpi(datos[3]);
-                emp.setArea(datos[4]);
-                emp.setTurno(datos[5]);
-                emp.setEstado(datos[6]);
-                if (datos.length > 7) {
-                    emp.setEmail(datos[7]);
+            store.cargar(new EmpleadoStore.Receptor() {
+                @Override
+                public boolean agregado(Empleado empleado) {
+                    return cargada.indexar(empleado);
                 }
-                if (datos.length > 8) {
-                    emp.setRole(datos[8]);
-                } else {
-                    emp.setRole("Empleado"); // Default role
+
+                @Override
+                public boolean guardado(Empleado empleado) {
+                    Empleado actual = cargada.porUsername(empleado.getUsername());
+                    return actual != null ? cargada.reemplazar(actual, empleado) : cargada.indexar(empleado);
                 }
-                return emp;
-            }
-        } catch (Exception e) {
-            System.err.println("Error parseando empleado: " + linea + " - " + e.getMessage());
+            });
+        } catch (IOException e) {
+            System.err.println("Error cargando empleados: " + e.getMessage());
         }
-        return null;
+        // Built in one pass: indexing record by record would copy the trigram lists on every add
+        cargada.busqueda = new IndiceBusquedaEmpleados(cargada.todos());
+        instantanea = cargada;
+    }
+
+    static boolean esDpiIndexable(String dpi) {
+        return dpi != null && !dpi.isEmpty();
     }
 
     /**
-     * Get all employees
+     * Get all employees (read-only list of the current snapshot)
      */
     public List<Empleado> obtenerTodosEmpleados() {
-        return new ArrayList<>(empleados);
+        return instantanea.todos();
     }
 
     /**
-     * Search employees by criteria
+     * Search employees whose username, name, DPI or area contains the criteria
+     * (case and accent insensitive). Exact username/DPI matches come first, then by the
+     * first field that contains it; file order within each group.
      */
     public List<Empleado> buscarEmpleados(String criterio) {
-        List<Empleado> resultado = new ArrayList<>();
-        String criterioLower = criterio.toLowerCase();
-
-        for (Empleado emp : empleados) {
-            if (emp.getUsername().toLowerCase().contains(criterioLower) ||
-                emp.getNombre().toLowerCase().contains(criterioLower) ||
-                emp.getDpi().contains(criterio) ||
-                emp.getArea().toLowerCase().contains(criterioLower)) {
-                resultado.add(emp);
-            }
-        }
-        return resultado;
+        return obtenerIndiceBusqueda().buscar(criterio, null).getEmpleados();
+    }
+
+    /**
+     * Search index of the current snapshot (immutable; later writes publish a new one)
+     */
+    public IndiceBusquedaEmpleados obtenerIndiceBusqueda() {
+        return instantanea.busqueda;
     }
 
     /**
      * Get employee by username
      */
     public Empleado obtenerEmpleadoPorUsername(String username) {
-        for (Empleado emp : empleados) {
-            if (emp.getUsername().equals(username)) {
-                return emp;
-            }
-        }
-        return null;
+        return instantanea.porUsername(username);
     }
 
     /**
      * Deactivate employee
      */
     public boolean desactivarEmpleado(String username, String motivo) {
-        for (Empleado emp : empleados) {
-            if (emp.getUsername().equals(username)) {
-                emp.setEstado("Inactivo");
-                guardarEmpleados();
-                return true;
+        synchronized (escritura) {
+            Empleado emp = obtenerEmpleadoPorUsername(username);
+            if (emp == null) {
+                return false;
             }
+            Empleado desactivado = new Empleado(emp);
+            desactivado.setEstado("Inactivo");
+            return publicarReemplazo(emp, desactivado);
         }
-        return false;
     }
 
     /**
-     * Save all employees to file
+     * Publish a snapshot with the employee replaced and persist the change.
+     * Must be called holding the write lock.
      */
-    private void guardarEmpleados() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(EMPLEADOS_FILE))) {
-            for (Empleado emp : empleados) {
-                pw.println(emp.getUsername() + "|" + emp.getPassword() + "|" +
-                          emp.getNombre() + "|" + emp.getDpi() + "|" +
-                          emp.getArea() + "|" + emp.getTurno() + "|" +
-                          emp.getEstado() + "|" +
-                          (emp.getEmail() != null ? emp.getEmail() : "") + "|" +
-                          (emp.getRole() != null ? emp.getRole() : "Empleado"));
-            }
+    private boolean publicarReemplazo(Empleado actual, Empleado nuevo) {
+        Instantanea nueva = new Instantanea(instantanea);
+        if (!nueva.reemplazar(actual, nuevo)) {
+            return false;
+        }
+        instantanea = nueva;
+        persistirCambio(nuevo);
+        return true;
+    }
+
+    /**
+     * Persist the change of a single employee
+     */
+    private void persistirCambio(Empleado emp) {
+        try {
+            store.guardar(emp, instantanea.todos());
         } catch (IOException e) {
             System.err.println("Error guardando empleados: " + e.getMessage());
         }
@@ -163,49 +247,42 @@ public class DatabaseManager {
      * Add new employee
      */
     public boolean agregarEmpleado(Empleado empleado) {
-        // Check if username already exists
-        if (obtenerEmpleadoPorUsername(empleado.getUsername()) != null) {
-            return false;
+        synchronized (escritura) {
+            // Rejects the employee if the username or the DPI already exists
+            Instantanea nueva = new Instantanea(instantanea);
+            if (!nueva.indexar(empleado)) {
+                return false;
+            }
+            instantanea = nueva;
+            persistirCambio(empleado);
+            return true;
         }
-        empleados.add(empleado);
-        guardarEmpleados();
-        return true;
     }
 
     /**
      * Update employee
      */
     public boolean actualizarEmpleado(Empleado empleadoActualizado) {
-        for (int i = 0; i < empleados.size(); i++) {
-            if (empleados.get(i).getUsername().equals(empleadoActualizado.getUsername())) {
-                empleados.set(i, empleadoActualizado);
-                guardarEmpleados();
-                return true;
-            }
+        synchronized (escritura) {
+            Empleado actual = obtenerEmpleadoPorUsername(empleadoActualizado.getUsername());
+            return actual != null && publicarReemplazo(actual, empleadoActualizado);
         }
-        return false;
     }
 
     /**
      * Get employee by DPI
      */
     public Empleado obtenerEmpleadoPorDpi(String dpi) {
-        for (Empleado emp : empleados) {
-            if (emp.getDpi().equals(dpi)) {
-                return emp;
-            }
-        }
-        return null;
+        return instantanea.porDpi(dpi);
     }
 
     /**
      * Authenticate user with username and password
      */
     public Empleado autenticarUsuario(String username, String password) {
-        for (Empleado emp : empleados) {
-            if (emp.getUsername().equals(username) && emp.getPassword().equals(password)) {
-                return emp;
-            }
+        Empleado emp = obtenerEmpleadoPorUsername(username);
+        if (emp != null && emp.getPassword().equals(password)) {
+            return emp;
         }
         return null;
     }
@@ -235,89 +312,29 @@ public class DatabaseManager {
      * Assign role to user
      */
     public boolean asignarRol(String username, String rol) {
-        Empleado emp = obtenerEmpleadoPorUsername(username);
-        if (emp != null) {
-            emp.setRole(rol);
-            guardarEmpleados();
-            return true;
+        synchronized (escritura) {
+            Empleado emp = obtenerEmpleadoPorUsername(username);
+            if (emp == null) {
+                return false;
+            }
+            Empleado conRol = new Empleado(emp);
+            conRol.setRole(rol);
+            return publicarReemplazo(emp, conRol);
         }
-        return false;
     }
 
     /**
      * Remove role from user (set to default "Empleado")
      */
     public boolean removerRol(String username) {
-        Empleado emp = obtenerEmpleadoPorUsername(username);
-        if (emp != null) {
-            emp.setRole("Empleado");
-            guardarEmpleados();
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Get all pending requests
-     */
-    public List<Solicitud> obtenerSolicitudesPendientes() {
-        List<Solicitud> pendientes = new ArrayList<>();
-        for (Solicitud sol : solicitudes) {
-            if (sol.isPendiente()) {
-                pendientes.add(sol);
-            }
-        }
-        return pendientes;
-    }
-
-    /**
-     * Get request by ID
-     */
-    public Solicitud obtenerSolicitudPorId(int id) {
-        for (Solicitud sol : solicitudes) {
-            if (sol.getId() == id) {
-                return sol;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Update request
-     */
-    public boolean actualizarSolicitud(Solicitud solicitud) {
-        for (int i = 0; i < solicitudes.size(); i++) {
-            if (solicitudes.get(i).getId() == solicitud.getId()) {
-                solicitudes.set(i, solicitud);
-                guardarSolicitudes();
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Create new request
-     */
-    public boolean crearSolicitud(Solicitud solicitud) {
-        solicitudes.add(solicitud);
-        guardarSolicitudes();
-        return true;
-    }
-
-    /**
-     * Save all requests to file
-     */
-    private void guardarSolicitudes() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(SOLICITUDES_FILE))) {
-            for (Solicitud sol : solicitudes) {
-                // Simple format for demonstration - in a real app you'd use JSON or a proper format
-                pw.println(sol.getId() + "|" + sol.getEmpleadoDpi() + "|" +
-                          sol.getEmpleadoNombre() + "|" + sol.getTipo().name() + "|" +
-                          sol.getDescripcion() + "|" + sol.getEstado().name());
+        synchronized (escritura) {
+            Empleado emp = obtenerEmpleadoPorUsername(username);
+            if (emp == null) {
+                return false;
             }
-        } catch (IOException e) {
-            System.err.println("Error guardando solicitudes: " + e.getMessage());
+            Empleado conRol = new Empleado(emp);
+            conRol.setRole("Empleado");
+            return publicarReemplazo(emp, conRol);
         }
     }
 }
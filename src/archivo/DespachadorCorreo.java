@@ -0,0 +1,163 @@
+package archivo;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cola de envío de correos con un grupo acotado de hilos de entrega.
+ * encolar() vuelve de inmediato, así el EDT no espera el handshake SMTP; si la cola
+ * está llena el mensaje se rechaza (y se informa) en lugar de bloquear al llamador.
+ * Los correos transaccionales salen de la cola antes que los masivos; dentro de cada tipo,
+ * en orden de llegada.
+ * Lleva contadores de profundidad de cola, entregas y latencia (de encolado a entregado).
+ */
+public class DespachadorCorreo {
+
+    /**
+     * Tarea de entrega ordenada por prioridad y luego por orden de llegada
+     */
+    private class Entrega implements Runnable, Comparable<Entrega> {
+        final MensajeCorreo mensaje;
+        final long orden;
+
+        Entrega(MensajeCorreo mensaje, long orden) {
+            this.mensaje = mensaje;
+            this.orden = orden;
+        }
+
+        @Override
+        public void run() {
+            entregar(mensaje);
+        }
+
+        @Override
+        public int compareTo(Entrega otra) {
+            if (mensaje.isTransaccional() != otra.mensaje.isTransaccional()) {
+                return mensaje.isTransaccional() ? -1 : 1;
+            }
+            return Long.compare(orden, otra.orden);
+        }
+    }
+
+    private final ThreadPoolExecutor ejecutor;
+    private final int capacidadCola;
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Predicate<MensajeCorreo> entrega;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final AtomicLong entregados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+    private final AtomicLong latenciaTotalNanos = new AtomicLong();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    /**
+     * @param entrega envía un mensaje y devuelve true si se entregó
+     */
+    public DespachadorCorreo(int hilos, int capacidadCola, Predicate<MensajeCorreo> entrega) {
+        this.entrega = entrega;
+        this.capacidadCola = capacidadCola;
+        AtomicInteger numero = new AtomicInteger();
+        // La cola con prioridad no tiene límite propio: la capacidad se controla en encolar()
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread hilo = new Thread(r, "envio-correo-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        // Sin correos pendientes los hilos terminan y el despachador no consume nada
+        this.ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Agrega el mensaje a la cola. Devuelve false si la cola está llena o el despachador se cerró.
+     */
+    public boolean encolar(MensajeCorreo mensaje) {
+        try {
+            if (ejecutor.getQueue().size() >= capacidadCola) {
+                throw new RejectedExecutionException();
+            }
+            ejecutor.execute(new Entrega(mensaje, secuencia.incrementAndGet()));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rechazados.incrementAndGet();
+            System.err.println("Cola de correo llena, no se envió el correo a " + mensaje.getDestinatario());
+            return false;
+        }
+    }
+
+    private void entregar(MensajeCorreo mensaje) {
+        enCurso.incrementAndGet();
+        try {
+            boolean exito;
+            try {
+                exito = entrega.test(mensaje);
+            } catch (RuntimeException e) {
+                System.err.println("Error enviando correo a " + mensaje.getDestinatario() + ": " + e.getMessage());
+                exito = false;
+            }
+            if (exito) {
+                long latencia = System.nanoTime() - mensaje.getEncoladoNanos();
+                entregados.incrementAndGet();
+                latenciaTotalNanos.addAndGet(latencia);
+                latenciaMaximaNanos.accumulateAndGet(latencia, Math::max);
+            } else {
+                fallidos.incrementAndGet();
+            }
+        } finally {
+            enCurso.decrementAndGet();
+        }
+    }
+
+    /**
+     * Deja de aceptar mensajes y espera (hasta el tiempo dado) a que se entreguen los encolados
+     */
+    public boolean cerrar(long esperaMs) {
+        ejecutor.shutdown();
+        try {
+            return ejecutor.awaitTermination(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Mensajes esperando en la cola más los que se están enviando
+     */
+    public int getPendientes() {
+        return ejecutor.getQueue().size() + enCurso.get();
+    }
+
+    public long getEntregados() {
+        return entregados.get();
+    }
+
+    public long getFallidos() {
+        return fallidos.get();
+    }
+
+    public long getRechazados() {
+        return rechazados.get();
+    }
+
+    public double getLatenciaPromedioMs() {
+        long cantidad = entregados.get();
+        return cantidad == 0 ? 0 : latenciaTotalNanos.get() / 1_000_000.0 / cantidad;
+    }
+
+    public double getLatenciaMaximaMs() {
+        return latenciaMaximaNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pendientes: %d, entregados: %d, fallidos: %d, rechazados: %d, latencia promedio: %.1f ms, máxima: %.1f ms",
+                getPendientes(), getEntregados(), getFallidos(), getRechazados(), getLatenciaPromedioMs(), getLatenciaMaximaMs());
+    }
+}
@@ -0,0 +1,189 @@
+package archivo;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta en segundo plano el trabajo de las ventanas (lecturas y escrituras de archivos)
+ * para que el EDT nunca espere al disco, y entrega el resultado de vuelta en el EDT.
+ * Las tareas con la misma clave se reemplazan: al lanzar una búsqueda nueva, la anterior
+ * se cancela y su resultado se descarta aunque termine después. Mientras hay tareas en curso
+ * se muestra una barra de progreso (indeterminada hasta que la tarea informa su avance).
+ * Todos los métodos deben llamarse desde el EDT.
+ */
+public class EjecutorTareas {
+
+    /**
+     * Trabajo a ejecutar fuera del EDT
+     */
+    public interface Tarea<R> {
+        R ejecutar(Avance avance) throws Exception;
+    }
+
+    /**
+     * Permite a una tarea informar su progreso y saber si ya no se necesita su resultado
+     */
+    public interface Avance {
+        void informar(int porcentaje, String mensaje);
+
+        boolean isCancelada();
+    }
+
+    private final JProgressBar indicador = new JProgressBar(0, 100);
+    private final Map<String, Trabajo<?>> enCurso = new HashMap<>();
+    private final Map<Trabajo<?>, String> descripciones = new LinkedHashMap<>(); // En orden de inicio
+    private int sinClave = 0;
+
+    public EjecutorTareas() {
+        indicador.setStringPainted(true);
+        indicador.setVisible(false);
+    }
+
+    /**
+     * Barra de progreso para agregar a la ventana; solo se ve mientras hay tareas en curso
+     */
+    public JProgressBar getIndicador() {
+        return indicador;
+    }
+
+    /**
+     * Ejecuta la tarea y muestra los errores en un diálogo
+     */
+    public <R> void ejecutar(String clave, String descripcion, Tarea<R> tarea, Consumer<R> alTerminar) {
+        ejecutar(clave, descripcion, tarea, alTerminar, null);
+    }
+
+    /**
+     * @param clave      tareas con la misma clave se reemplazan; null para que nunca se cancele
+     *                   (escrituras, por ejemplo)
+     * @param alTerminar recibe el resultado en el EDT
+     * @param alFallar   recibe el error en el EDT; null para mostrarlo en un diálogo
+     */
+    public <R> void ejecutar(String clave, String descripcion, Tarea<R> tarea, Consumer<R> alTerminar,
+                             Consumer<Exception> alFallar) {
+        String claveReal = clave != null ? clave : "#" + (++sinClave);
+        Trabajo<R> trabajo = new Trabajo<>(claveReal, tarea, alTerminar, alFallar);
+        Trabajo<?> anterior = enCurso.put(claveReal, trabajo);
+        if (anterior != null) {
+            // Sin interrumpir el hilo: una interrupción puede dejar a medias una escritura
+            anterior.cancel(false);
+            descripciones.remove(anterior);
+        }
+        descripciones.put(trabajo, descripcion);
+        actualizarIndicador();
+        trabajo.execute();
+    }
+
+    /**
+     * Cancela la tarea con esa clave (su resultado se descarta)
+     */
+    public void cancelar(String clave) {
+        Trabajo<?> trabajo = enCurso.remove(clave);
+        if (trabajo != null) {
+            trabajo.cancel(false);
+            descripciones.remove(trabajo);
+            actualizarIndicador();
+        }
+    }
+
+    public boolean hayTareasEnCurso() {
+        return !enCurso.isEmpty();
+    }
+
+    private void actualizarIndicador() {
+        if (descripciones.isEmpty()) {
+            indicador.setVisible(false);
+            return;
+        }
+        // Se muestra la tarea iniciada más recientemente
+        Trabajo<?> ultimo = null;
+        for (Trabajo<?> trabajo : descripciones.keySet()) {
+            ultimo = trabajo;
+        }
+        String descripcion = descripciones.get(ultimo);
+        int progreso = ultimo.getProgress();
+        indicador.setIndeterminate(progreso == 0);
+        indicador.setValue(progreso);
+        indicador.setString(ultimo.mensaje != null ? ultimo.mensaje : descripcion);
+        indicador.setVisible(true);
+    }
+
+    private class Trabajo<R> extends SwingWorker<R, String> implements Avance {
+        final String clave;
+        final Tarea<R> tarea;
+        final Consumer<R> alTerminar;
+        final Consumer<Exception> alFallar;
+        String mensaje;
+
+        Trabajo(String clave, Tarea<R> tarea, Consumer<R> alTerminar, Consumer<Exception> alFallar) {
+            this.clave = clave;
+            this.tarea = tarea;
+            this.alTerminar = alTerminar;
+            this.alFallar = alFallar;
+            addPropertyChangeListener(evento -> {
+                if ("progress".equals(evento.getPropertyName()) && enCurso.get(clave) == this) {
+                    actualizarIndicador();
+                }
+            });
+        }
+
+        @Override
+        protected R doInBackground() throws Exception {
+            return tarea.ejecutar(this);
+        }
+
+        @Override
+        public void informar(int porcentaje, String mensaje) {
+            setProgress(Math.max(0, Math.min(100, porcentaje)));
+            if (mensaje != null) {
+                publish(mensaje);
+            }
+        }
+
+        @Override
+        public boolean isCancelada() {
+            return isCancelled();
+        }
+
+        @Override
+        protected void process(List<String> mensajes) {
+            mensaje = mensajes.get(mensajes.size() - 1);
+            if (enCurso.get(clave) == this) {
+                actualizarIndicador();
+            }
+        }
+
+        @Override
+        protected void done() {
+            // Una tarea reemplazada o cancelada ya no es la vigente: su resultado se descarta
+            if (enCurso.get(clave) != this) {
+                return;
+            }
+            enCurso.remove(clave);
+            descripciones.remove(this);
+            actualizarIndicador();
+            try {
+                R resultado = get();
+                if (alTerminar != null) {
+                    alTerminar.accept(resultado);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Exception causa = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if (alFallar != null) {
+                    alFallar.accept(causa);
+                } else {
+                    System.err.println("Error en tarea en segundo plano: " + causa.getMessage());
+                    JOptionPane.showMessageDialog(SwingUtilities.getWindowAncestor(indicador),
+                            "Error: " + causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }
+    }
+}
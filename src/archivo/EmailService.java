@@ -2,125 +2,341 @@ package archivo;
 
 import javax.mail.*;
 import javax.mail.internet.*;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Email Service for sending real email notifications
- * Now configured with JavaMail API for actual email delivery
+ * Now configured with JavaMail API for actual email delivery.
+ * The application shares one instance (see {@link #getInstancia()}): the outbox, the digester
+ * and the SMTP pool belong to it, so configureEmail changes how everything is delivered.
  */
 public class EmailService {
 
+    private static EmailService instancia;
+
     private String smtpHost;
-    private String smtpPort;
+    private int smtpPort;
     private String username;
     private String password;
     private String fromEmail;
     private boolean useSSL;
-    private boolean enabled;
+    private volatile boolean enabled;
+    private volatile boolean asyncEnabled;
+    private int asyncWorkers;
+    private int asyncQueueSize;
+    private boolean digestEnabled;
+    private long digestWindowMs;
+    private int digestMaxEvents;
+    private double rateLimitPerSecond;
+    private int rateLimitBurst;
+    private long rateLimitPerDay;
+    private long rateLimitTransactionalReserve;
+    private String outboxDir;
+    private int outboxMaxAttempts;
+    private long outboxRetryBaseMs;
+    private long outboxRetryMaxMs;
+    private int poolMaxMessages;
+    private long poolIdleTimeoutMs;
+    private Session session;
+    private PoolTransporteSmtp poolTransporte;
+    // Protege la creación de la bandeja y el agrupador, aparte del pool, que los usa al entregar
+    private final Object bloqueoBandeja = new Object();
+    private BandejaSalidaCorreo bandejaSalida;
+    private AgrupadorCorreo agrupador;
+    private boolean cierreRegistrado;
+
+    /**
+     * Servicio compartido por todas las ventanas; el primero en pedirlo lee la configuración y
+     * retoma los correos pendientes de la ejecución anterior
+     */
+    public static synchronized EmailService getInstancia() {
+        if (instancia == null) {
+            instancia = new EmailService();
+        }
+        return instancia;
+    }
 
-    public EmailService() {
+    private EmailService() {
         loadEmailConfiguration();
+        if (enabled) {
+            // Al iniciar se retoman los correos que quedaron pendientes de la ejecución anterior
+            getBandejaSalida();
+        }
     }
 
+    /**
+     * Lee email-config.properties; sin el archivo se usan los valores por defecto (modo simulado).
+     * Cada número se valida por separado: un valor inválido usa su valor por defecto con un
+     * aviso, sin afectar al resto de la configuración
+     */
     private void loadEmailConfiguration() {
-        try {
-            Properties config = new Properties();
-            config.load(new java.io.FileInputStream("email-config.properties"));
-
-            this.smtpHost = config.getProperty("smtp.host", "smtp.gmail.com");
-            this.smtpPort = config.getProperty("smtp.port", "587");
-            this.username = config.getProperty("email.username", "your-email@gmail.com");
-            this.password = config.getProperty("email.password", "your-app-password");
-            this.fromEmail = config.getProperty("email.from", "noreply@empresa.com");
-            this.useSSL = Boolean.parseBoolean(config.getProperty("smtp.use.ssl", "false"));
-            this.enabled = Boolean.parseBoolean(config.getProperty("email.enabled", "false"));
+        Properties config = new Properties();
+        boolean fromFile = false;
+        try (java.io.FileInputStream in = new java.io.FileInputStream("email-config.properties")) {
+            config.load(in);
+            fromFile = true;
+        } catch (java.io.IOException e) {
+            System.out.println("Email configuration file not found, using defaults (simulation mode).");
+        }
 
+        this.smtpHost = config.getProperty("smtp.host", "smtp.gmail.com");
+        this.smtpPort = (int) readLong(config, "smtp.port", 587, 1, 65535);
+        this.username = config.getProperty("email.username", "your-email@gmail.com");
+        this.password = config.getProperty("email.password", "your-app-password");
+        this.fromEmail = config.getProperty("email.from", "noreply@empresa.com");
+        this.useSSL = Boolean.parseBoolean(config.getProperty("smtp.use.ssl", "false").trim());
+        this.enabled = Boolean.parseBoolean(config.getProperty("email.enabled", "false").trim());
+        this.asyncEnabled = Boolean.parseBoolean(config.getProperty("email.async.enabled", "true").trim());
+        this.asyncWorkers = (int) readLong(config, "email.async.workers", 2, 1, 64);
+        this.asyncQueueSize = (int) readLong(config, "email.async.queue.size", 1000, 1, Integer.MAX_VALUE);
+        this.poolMaxMessages = (int) readLong(config, "smtp.pool.max.messages", 100, 1, Integer.MAX_VALUE);
+        this.poolIdleTimeoutMs = readLong(config, "smtp.pool.idle.timeout.ms", 60000, 0, Long.MAX_VALUE);
+        this.digestEnabled = Boolean.parseBoolean(config.getProperty("email.digest.enabled", "true").trim());
+        this.digestWindowMs = readLong(config, "email.digest.window.ms", 60000, 1, Long.MAX_VALUE);
+        this.digestMaxEvents = (int) readLong(config, "email.digest.max.events", 50, 1, Integer.MAX_VALUE);
+        this.rateLimitPerSecond = readDouble(config, "email.rate.per.second", 1);
+        this.rateLimitBurst = (int) readLong(config, "email.rate.burst", 10, 1, Integer.MAX_VALUE);
+        this.rateLimitPerDay = readLong(config, "email.rate.per.day", 500, 0, Long.MAX_VALUE);
+        this.rateLimitTransactionalReserve =
+                readLong(config, "email.rate.day.transactional.reserve", 50, 0, Long.MAX_VALUE);
+        this.outboxDir = config.getProperty("email.outbox.dir", "correo-salida").trim();
+        this.outboxMaxAttempts = (int) readLong(config, "email.outbox.max.attempts", 8, 1, Integer.MAX_VALUE);
+        this.outboxRetryBaseMs = readLong(config, "email.outbox.retry.base.ms", 30000, 1, Long.MAX_VALUE);
+        this.outboxRetryMaxMs = readLong(config, "email.outbox.retry.max.ms", 3600000, 1, Long.MAX_VALUE);
+
+        if (fromFile) {
             if (enabled) {
                 System.out.println("Email service loaded from configuration file and ENABLED.");
             } else {
                 System.out.println("Email service loaded from configuration file but DISABLED. Set email.enabled=true to activate.");
             }
-
-        } catch (Exception e) {
-            System.out.println("Email configuration file not found, using defaults (simulation mode).");
-            this.smtpHost = "smtp.gmail.com";
-            this.smtpPort = "587";
-            this.username = "your-email@gmail.com";
-            this.password = "your-app-password";
-            this.fromEmail = "noreply@empresa.com";
-            this.useSSL = false;
-            this.enabled = false;
         }
 
         System.out.println("SMTP Host: " + smtpHost + ", Port: " + smtpPort + ", From: " + fromEmail);
     }
 
+    /**
+     * Valor entero de la configuración; si no es un número válido o está fuera de rango se usa
+     * el valor por defecto con un aviso
+     */
+    private static long readLong(Properties config, String key, long defaultValue, long min, long max) {
+        return readLong(key, config.getProperty(key), defaultValue, min, max);
+    }
+
+    private static long readLong(String key, String value, long defaultValue, long min, long max) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long number = Long.parseLong(value.trim());
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Valor inválido para " + key + " (" + value + "), se usa " + defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * Como readLong, para valores con decimales (cero o negativo: sin límite)
+     */
+    private static double readDouble(Properties config, String key, double defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            double number = Double.parseDouble(value.trim());
+            if (!Double.isNaN(number) && !Double.isInfinite(number)) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Valor inválido para " + key + " (" + value + "), se usa " + defaultValue);
+        return defaultValue;
+    }
+
     public boolean enviarNotificacionInactividad(String email, String nombreEmpleado, String motivo) {
         String subject = "Notificación de Cambio de Estado Laboral";
         String content = buildInactivityEmailContent(nombreEmpleado, motivo);
 
-        if (enabled) {
-            return sendEmail(email, subject, content);
-        } else {
-            logEmailToConsole(email, subject, content);
-            return true;
-        }
+        return dispatchEmail(email, subject, content, false);
     }
 
     public boolean enviarNotificacion(String email, String asunto, String mensaje) {
-        if (enabled) {
-            return sendEmail(email, asunto, mensaje);
-        } else {
-            logEmailToConsole(email, asunto, mensaje);
-            return true;
-        }
+        return queueForDigest(email, asunto, mensaje, false);
     }
 
     public boolean enviarBienvenida(String email, String nombreEmpleado, String username) {
         String subject = "Bienvenido al Sistema de Control de Turnos";
         String content = buildWelcomeEmailContent(nombreEmpleado, username);
 
-        if (enabled) {
-            return sendEmail(email, subject, content);
-        } else {
-            logEmailToConsole(email, subject, content);
-            return true;
-        }
+        return dispatchEmail(email, subject, content, false);
     }
 
     public boolean enviarAprobacionSolicitud(String email, String nombreEmpleado, String tipoSolicitud) {
         String subject = "Solicitud Aprobada - " + tipoSolicitud;
         String content = buildApprovalEmailContent(nombreEmpleado, tipoSolicitud);
 
-        if (enabled) {
-            return sendEmail(email, subject, content);
-        } else {
-            logEmailToConsole(email, subject, content);
-            return true;
-        }
+        return queueForDigest(email, subject, content, true);
     }
 
     public boolean enviarRechazoSolicitud(String email, String nombreEmpleado, String tipoSolicitud, String motivo) {
         String subject = "Solicitud Rechazada - " + tipoSolicitud;
         String content = buildRejectionEmailContent(nombreEmpleado, tipoSolicitud, motivo);
 
+        return queueForDigest(email, subject, content, true);
+    }
+
+    public boolean enviarEmailSimulado(String email, String asunto, String mensaje) {
+        return dispatchEmail(email, asunto, mensaje, false);
+    }
+
+    /**
+     * Agrupa el aviso con los demás del mismo destinatario dentro de la ventana configurada;
+     * sin agrupación se envía de inmediato. Con el correo habilitado el aviso se guarda antes en
+     * la bandeja de salida, así no se pierde si la aplicación se cierra antes del resumen.
+     * Devuelve true si el aviso quedó aceptado para el resumen (como en el envío asíncrono, no
+     * indica que ya se entregó); si no se pudo guardar se envía solo y devuelve ese resultado.
+     */
+    private boolean queueForDigest(String toEmail, String subject, String content, boolean transactional) {
+        if (!digestEnabled) {
+            return dispatchEmail(toEmail, subject, content, transactional);
+        }
+        MensajeCorreo aviso = new MensajeCorreo(toEmail, subject, content, transactional);
         if (enabled) {
-            return sendEmail(email, subject, content);
+            aviso = getBandejaSalida().retener(aviso);
+            if (aviso == null) {
+                return dispatchEmail(toEmail, subject, content, transactional);
+            }
+        }
+        getAgrupador().agregar(aviso);
+        return true;
+    }
+
+    /**
+     * Un aviso solo se envía tal cual; varios se combinan en un resumen, que es transaccional
+     * si alguno de los avisos lo era
+     */
+    private void sendDigest(List<MensajeCorreo> mensajes) {
+        MensajeCorreo primero = mensajes.get(0);
+        if (mensajes.size() == 1) {
+            dispatchEmail(primero.getDestinatario(), primero.getAsunto(), primero.getContenido(), primero.isTransaccional());
         } else {
-            logEmailToConsole(email, subject, content);
+            String subject = "Resumen de notificaciones (" + mensajes.size() + ")";
+            boolean transactional = false;
+            for (MensajeCorreo mensaje : mensajes) {
+                transactional |= mensaje.isTransaccional();
+            }
+            dispatchEmail(primero.getDestinatario(), subject, buildDigestEmailContent(mensajes), transactional);
+        }
+        // El resumen ya está guardado en la bandeja: los avisos sueltos dejan de hacer falta
+        if (enabled) {
+            getBandejaSalida().liberar(mensajes);
+        }
+    }
+
+    /**
+     * Agrupador de avisos, creado con el primer aviso
+     */
+    public AgrupadorCorreo getAgrupador() {
+        synchronized (bloqueoBandeja) {
+            if (agrupador == null) {
+                agrupador = new AgrupadorCorreo(digestWindowMs, digestMaxEvents, this::sendDigest);
+                registerShutdown();
+            }
+            return agrupador;
+        }
+    }
+
+    /**
+     * Envía el correo según la configuración: simulado en consola si el servicio está deshabilitado,
+     * o guardado en la bandeja de salida y entregado en segundo plano (modo asíncrono, devuelve
+     * si se aceptó) o en el hilo actual. Un envío que falla queda en la bandeja y se reintenta.
+     */
+    private boolean dispatchEmail(String toEmail, String subject, String content, boolean transactional) {
+        if (!enabled) {
+            logEmailToConsole(toEmail, subject, content);
             return true;
         }
+        MensajeCorreo mensaje = new MensajeCorreo(toEmail, subject, content, transactional);
+        if (asyncEnabled) {
+            return getBandejaSalida().agregar(mensaje);
+        }
+        return getBandejaSalida().enviarAhora(mensaje);
     }
 
-    public boolean enviarEmailSimulado(String email, String asunto, String mensaje) {
-        return enviarNotificacion(email, asunto, mensaje);
+    /**
+     * Bandeja de salida, creada al iniciar el servicio habilitado o con el primer envío. Entrega con
+     * la configuración SMTP vigente del servicio, incluida la que se cambie con configureEmail.
+     */
+    public BandejaSalidaCorreo getBandejaSalida() {
+        synchronized (bloqueoBandeja) {
+            if (bandejaSalida == null) {
+                // El conteo diario se guarda junto a la bandeja para que un reinicio no renueve el presupuesto
+                LimitadorEnvio limitador = new LimitadorEnvio(rateLimitPerSecond, rateLimitBurst, rateLimitPerDay,
+                        rateLimitTransactionalReserve, new java.io.File(outboxDir, "enviados-hoy.properties"));
+                bandejaSalida = new BandejaSalidaCorreo(outboxDir, outboxMaxAttempts,
+                        outboxRetryBaseMs, outboxRetryMaxMs, asyncWorkers, asyncQueueSize, limitador,
+                        m -> sendEmail(m.getDestinatario(), m.getAsunto(), m.getContenido()));
+                registerShutdown();
+            }
+            return bandejaSalida;
+        }
     }
 
-    private boolean sendEmail(String toEmail, String subject, String content) {
-        try {
+    /**
+     * Al salir se envían los resúmenes abiertos y se da un margen para entregar lo que quedó
+     * en la cola; lo que no alcance queda en la bandeja de salida para la próxima ejecución
+     */
+    private void registerShutdown() {
+        if (cierreRegistrado) {
+            return;
+        }
+        cierreRegistrado = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            AgrupadorCorreo resumenes;
+            BandejaSalidaCorreo bandeja;
+            synchronized (bloqueoBandeja) {
+                resumenes = agrupador;
+                bandeja = bandejaSalida;
+            }
+            if (resumenes != null) {
+                resumenes.cerrar();
+            }
+            if (bandeja != null) {
+                bandeja.cerrar(10000);
+            }
+            reiniciarPoolTransporte();
+        }, "cierre-correo"));
+    }
+
+    /**
+     * Ritmo y presupuesto diario de envío (incluye cuántos correos quedan hoy)
+     */
+    public LimitadorEnvio getLimitador() {
+        return getBandejaSalida().getLimitador();
+    }
+
+    /**
+     * Cola de entrega en segundo plano de la bandeja de salida
+     */
+    public DespachadorCorreo getDespachador() {
+        return getBandejaSalida().getDespachador();
+    }
+
+    /**
+     * Sesión y pool de conexiones SMTP, creados una sola vez y reutilizados por todos los envíos
+     */
+    private synchronized PoolTransporteSmtp getPoolTransporte() {
+        if (poolTransporte == null) {
             Properties props = new Properties();
             props.put("mail.smtp.host", smtpHost);
-            props.put("mail.smtp.port", smtpPort);
+            props.put("mail.smtp.port", String.valueOf(smtpPort));
             props.put("mail.smtp.auth", "true");
 
             // Enhanced Gmail-specific settings
@@ -135,21 +351,59 @@ public class EmailService {
                 props.put("mail.smtp.starttls.enable", "true");
             }
 
-            Session session = Session.getInstance(props, new Authenticator() {
+            session = Session.getInstance(props, new Authenticator() {
                 @Override
                 protected PasswordAuthentication getPasswordAuthentication() {
                     System.out.println("Authenticating with username: " + username);
                     return new PasswordAuthentication(username, password);
                 }
             });
+            setFabricaConexion(PoolTransporteSmtp.fabricaSmtp(session, smtpHost, smtpPort, username, password));
+        }
+        return poolTransporte;
+    }
+
+    /**
+     * Reemplaza la forma de abrir conexiones SMTP (por ejemplo, con un servidor simulado en pruebas)
+     */
+    public synchronized void setFabricaConexion(PoolTransporteSmtp.FabricaConexion fabrica) {
+        if (session == null) {
+            session = Session.getInstance(new Properties());
+        }
+        if (poolTransporte != null) {
+            poolTransporte.cerrar();
+        }
+        poolTransporte = new PoolTransporteSmtp(fabrica, Math.max(1, asyncWorkers), poolMaxMessages, poolIdleTimeoutMs);
+    }
+
+    /**
+     * Descarta el pool para que la próxima conexión use la configuración actual
+     */
+    private synchronized void reiniciarPoolTransporte() {
+        if (poolTransporte != null) {
+            poolTransporte.cerrar();
+        }
+        poolTransporte = null;
+        session = null;
+    }
 
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(fromEmail));
+    private boolean sendEmail(String toEmail, String subject, String content) {
+        try {
+            PoolTransporteSmtp pool;
+            Session currentSession;
+            String from;
+            synchronized (this) {
+                pool = getPoolTransporte();
+                currentSession = session;
+                from = fromEmail;
+            }
+            Message message = new MimeMessage(currentSession);
+            message.setFrom(new InternetAddress(from));
             message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(toEmail));
             message.setSubject(subject);
             message.setText(content);
 
-            Transport.send(message);
+            pool.enviar(message);
             System.out.println("Email sent successfully to: " + toEmail);
             return true;
 
@@ -212,9 +466,21 @@ public class EmailService {
                "Departamento de Recursos Humanos";
     }
 
-    public void configureEmail(String smtpHost, String smtpPort, String username, String password, String fromEmail) {
+    private String buildDigestEmailContent(List<MensajeCorreo> mensajes) {
+        StringBuilder content = new StringBuilder();
+        content.append("Usted tiene ").append(mensajes.size()).append(" notificaciones nuevas:\n\n");
+        for (int i = 0; i < mensajes.size(); i++) {
+            MensajeCorreo mensaje = mensajes.get(i);
+            content.append("----- ").append(i + 1).append(". ").append(mensaje.getAsunto()).append(" -----\n")
+                   .append(mensaje.getContenido()).append("\n\n");
+        }
+        return content.toString();
+    }
+
+    public synchronized void configureEmail(String smtpHost, String smtpPort, String username, String password, String fromEmail) {
+        reiniciarPoolTransporte();
         this.smtpHost = smtpHost;
-        this.smtpPort = smtpPort;
+        this.smtpPort = (int) readLong("smtp.port", smtpPort, 587, 1, 65535);
         this.username = username;
         this.password = password;
         this.fromEmail = fromEmail;
@@ -233,4 +499,12 @@ public class EmailService {
     public boolean isEnabled() {
         return enabled;
     }
+
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
 }
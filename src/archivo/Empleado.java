@@ -38,6 +38,22 @@ public class Empleado {
         this.password = password;
     }
 
+    // Constructor de copia (por getters, para copiar también los campos de un EmpleadoPerezoso)
+    public Empleado(Empleado otro) {
+        this.dpi = otro.getDpi();
+        this.nombre = otro.getNombre();
+        this.username = otro.getUsername();
+        this.area = otro.getArea();
+        this.turno = otro.getTurno();
+        this.estado = otro.getEstado();
+        this.email = otro.getEmail();
+        this.password = otro.getPassword();
+        this.role = otro.getRole();
+        this.fechaCreacion = otro.getFechaCreacion();
+        this.fechaModificacion = otro.getFechaModificacion();
+        this.motivoInactividad = otro.getMotivoInactividad();
+    }
+
     // Constructor básico para compatibilidad
     public Empleado(String dpi, String nombre, String area, String turno, String estado) {
         this();
@@ -149,11 +165,11 @@ public class Empleado {
 
     // Métodos de validación
     public boolean isValid() {
-        return dpi != null && !dpi.trim().isEmpty() &&
-               nombre != null && !nombre.trim().isEmpty() &&
-               username != null && !username.trim().isEmpty() &&
-               area != null && !area.trim().isEmpty() &&
-               turno != null && !turno.trim().isEmpty();
+        return getDpi() != null && !getDpi().trim().isEmpty() &&
+               getNombre() != null && !getNombre().trim().isEmpty() &&
+               getUsername() != null && !getUsername().trim().isEmpty() &&
+               getArea() != null && !getArea().trim().isEmpty() &&
+               getTurno() != null && !getTurno().trim().isEmpty();
     }
 
     public boolean isActive() {
@@ -172,14 +188,14 @@ public class Empleado {
     @Override
     public String toString() {
         return "Empleado{" +
-                "dpi='" + dpi + '\'' +
-                ", nombre='" + nombre + '\'' +
-                ", username='" + username + '\'' +
-                ", area='" + area + '\'' +
-                ", turno='" + turno + '\'' +
-                ", estado='" + estado + '\'' +
-                ", email='" + email + '\'' +
-                ", role='" + role + '\'' +
+                "dpi='" + getDpi() + '\'' +
+                ", nombre='" + getNombre() + '\'' +
+                ", username='" + getUsername() + '\'' +
+                ", area='" + getArea() + '\'' +
+                ", turno='" + getTurno() + '\'' +
+                ", estado='" + getEstado() + '\'' +
+                ", email='" + getEmail() + '\'' +
+                ", role='" + getRole() + '\'' +
                 '}';
     }
 }
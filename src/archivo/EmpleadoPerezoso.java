@@ -0,0 +1,114 @@
+package archivo;
+
+import java.nio.charset.Charset;
+
+/**
+ * Empleado leído de un archivo mapeado (ver LectorMapeado). Username, DPI, estado, nombre y área,
+ * que los índices usan al cargar, se decodifican enseguida; password, turno, email y rol quedan
+ * como bytes de la línea hasta que alguien los pide. Un setter reemplaza el valor pendiente sin
+ * decodificarlo.
+ */
+final class EmpleadoPerezoso extends Empleado {
+
+    private static final int PASSWORD = 1;
+    private static final int TURNO = 2;
+    private static final int EMAIL = 4;
+    private static final int ROL = 8;
+
+    private final Charset charset;
+    private volatile byte[] linea; // null cuando ya no queda nada por decodificar
+    private int pendientes = PASSWORD | TURNO | EMAIL | ROL;
+
+    /**
+     * @param campos línea actual del lector, con al menos 7 campos
+     */
+    EmpleadoPerezoso(LectorMapeado campos, Charset charset) {
+        super(campos.texto(3), campos.texto(2), campos.texto(0), campos.texto(4), null, campos.texto(6), null, null);
+        this.linea = campos.copiarLinea();
+        this.charset = charset;
+    }
+
+    /**
+     * Decodifica los campos que siguen pendientes, igual que ArchivoEmpleadoStore.parsearEmpleado
+     */
+    private synchronized void materializar() {
+        byte[] bytes = linea;
+        if (bytes == null) {
+            return;
+        }
+        LectorCampos datos = new LectorCampos().cargar(new String(bytes, charset));
+        int cantidad = datos.cantidadSinVaciosFinales();
+        if ((pendientes & PASSWORD) != 0) {
+            super.setPassword(datos.texto(1));
+        }
+        if ((pendientes & TURNO) != 0) {
+            super.setTurno(datos.texto(5));
+        }
+        if ((pendientes & EMAIL) != 0) {
+            super.setEmail(cantidad > 7 ? datos.texto(7) : null);
+        }
+        if ((pendientes & ROL) != 0) {
+            super.setRole(cantidad > 8 ? datos.texto(8) : "Empleado");
+        }
+        pendientes = 0;
+        linea = null;
+    }
+
+    private synchronized void descartar(int campo) {
+        pendientes &= ~campo;
+    }
+
+    private void asegurar() {
+        if (linea != null) {
+            materializar();
+        }
+    }
+
+    @Override
+    public String getPassword() {
+        asegurar();
+        return super.getPassword();
+    }
+
+    @Override
+    public void setPassword(String password) {
+        descartar(PASSWORD);
+        super.setPassword(password);
+    }
+
+    @Override
+    public String getTurno() {
+        asegurar();
+        return super.getTurno();
+    }
+
+    @Override
+    public void setTurno(String turno) {
+        descartar(TURNO);
+        super.setTurno(turno);
+    }
+
+    @Override
+    public String getEmail() {
+        asegurar();
+        return super.getEmail();
+    }
+
+    @Override
+    public void setEmail(String email) {
+        descartar(EMAIL);
+        super.setEmail(email);
+    }
+
+    @Override
+    public String getRole() {
+        asegurar();
+        return super.getRole();
+    }
+
+    @Override
+    public void setRole(String role) {
+        descartar(ROL);
+        super.setRole(role);
+    }
+}
@@ -0,0 +1,40 @@
+package archivo;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Storage backend for employees. DatabaseManager keeps the employees in memory and only
+ * uses the store to load them once and to persist each change.
+ * Implementations: ArchivoEmpleadoStore (text file and journal), MemoriaEmpleadoStore
+ * and JdbcEmpleadoStore.
+ */
+public interface EmpleadoStore {
+
+    /**
+     * Receives the employees while loading
+     */
+    interface Receptor {
+        /**
+         * A stored employee; returns false if it was rejected (username or DPI already loaded)
+         */
+        boolean agregado(Empleado empleado);
+
+        /**
+         * A later change: replaces the employee with the same username, or adds it.
+         * Returns false if it was rejected (DPI of another employee)
+         */
+        boolean guardado(Empleado empleado);
+    }
+
+    /**
+     * Read all stored employees, in registration order
+     */
+    void cargar(Receptor receptor) throws IOException;
+
+    /**
+     * Persist a new or changed employee
+     * @param todos all employees after the change, for stores that rewrite everything
+     */
+    void guardar(Empleado empleado, Collection<Empleado> todos) throws IOException;
+}
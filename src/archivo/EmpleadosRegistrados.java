@@ -6,9 +6,10 @@
 package archivo;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.util.List;
 
 /**
@@ -23,11 +24,18 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
 
     private JTextField txtBusqueda;
     private JTable tablaEmpleados;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaLista<Empleado> modeloTabla;
     private JButton btnBuscar;
     private JButton btnDesactivar;
     private JButton btnRegresar;
     private JComboBox<String> cboMotivoInactividad;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
+
+    // Búsqueda mientras se escribe: se filtra cuando el usuario deja de teclear
+    private static final int ESPERA_BUSQUEDA_MS = 150;
+    private Timer temporizadorBusqueda;
+    private IndiceBusquedaEmpleados indiceBusqueda;
+    private IndiceBusquedaEmpleados.Resultado ultimoResultado;
 
     public EmpleadosRegistrados() {
         initComponents();
@@ -53,18 +61,43 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
         txtBusqueda = new JTextField(20);
         panelBusqueda.add(txtBusqueda);
 
+        temporizadorBusqueda = new Timer(ESPERA_BUSQUEDA_MS, e -> filtrarEmpleados());
+        temporizadorBusqueda.setRepeats(false);
+        txtBusqueda.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                temporizadorBusqueda.restart();
+            }
+        });
+        txtBusqueda.addActionListener(this::buscarEmpleados);
+
         btnBuscar = new JButton("Buscar");
         btnBuscar.addActionListener(this::buscarEmpleados);
         panelBusqueda.add(btnBuscar);
 
         // Tabla de empleados
         String[] columnas = {"Username", "Nombre", "DPI", "Área", "Turno", "Estado", "Email"};
-        modeloTabla = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Hacer tabla no editable
+        modeloTabla = new ModeloTablaLista<>(columnas, (emp, columna) -> {
+            switch (columna) {
+                case 0: return emp.getUsername();
+                case 1: return emp.getNombre();
+                case 2: return emp.getDpi();
+                case 3: return emp.getArea();
+                case 4: return emp.getTurno();
+                case 5: return emp.getEstado();
+                default: return emp.getEmail() != null ? emp.getEmail() : "";
             }
-        };
+        });
 
         tablaEmpleados = new JTable(modeloTabla);
         tablaEmpleados.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -88,6 +121,7 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
         btnRegresar = new JButton("Regresar");
         btnRegresar.addActionListener(this::regresar);
         panelAcciones.add(btnRegresar);
+        panelAcciones.add(ejecutor.getIndicador());
 
         add(panelBusqueda, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
@@ -101,31 +135,34 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
     }
 
     private void cargarTodosEmpleados() {
-        List<Empleado> empleados = dbManager.obtenerTodosEmpleados();
-        actualizarTabla(empleados);
+        // El índice de búsqueda lo mantiene DatabaseManager; se toma fuera del EDT junto con la carga
+        ejecutor.ejecutar("empleados", "Cargando empleados...",
+                avance -> dbManager.obtenerIndiceBusqueda(), indice -> {
+                    indiceBusqueda = indice;
+                    ultimoResultado = null;
+                    filtrarEmpleados();
+                });
     }
 
     private void buscarEmpleados(ActionEvent e) {
-        String criterio = txtBusqueda.getText().trim();
-        List<Empleado> empleados = dbManager.buscarEmpleados(criterio);
-        actualizarTabla(empleados);
+        temporizadorBusqueda.stop();
+        filtrarEmpleados();
     }
 
-    private void actualizarTabla(List<Empleado> empleados) {
-        modeloTabla.setRowCount(0); // Limpiar tabla
-
-        for (Empleado emp : empleados) {
-            Object[] fila = {
-                emp.getUsername(),
-                emp.getNombre(),
-                emp.getDpi(),
-                emp.getArea(),
-                emp.getTurno(),
-                emp.getEstado(),
-                emp.getEmail() != null ? emp.getEmail() : ""
-            };
-            modeloTabla.addRow(fila);
+    /**
+     * Filtra con el texto actual. Si la consulta extiende a la anterior solo se revisan
+     * los empleados que ya coincidían.
+     */
+    private void filtrarEmpleados() {
+        if (indiceBusqueda == null) {
+            return; // Se filtra al terminar la carga
         }
+        ultimoResultado = indiceBusqueda.buscar(txtBusqueda.getText(), ultimoResultado);
+        actualizarTabla(ultimoResultado.getEmpleados());
+    }
+
+    private void actualizarTabla(List<Empleado> empleados) {
+        modeloTabla.setFilas(empleados);
     }
 
     private void desactivarEmpleado(ActionEvent e) {
@@ -136,9 +173,10 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
             return;
         }
 
-        String username = (String) modeloTabla.getValueAt(filaSeleccionada, 0);
-        String nombre = (String) modeloTabla.getValueAt(filaSeleccionada, 1);
-        String estadoActual = (String) modeloTabla.getValueAt(filaSeleccionada, 5);
+        Empleado seleccionado = modeloTabla.getFila(filaSeleccionada);
+        String username = seleccionado.getUsername();
+        String nombre = seleccionado.getNombre();
+        String estadoActual = seleccionado.getEstado();
 
         if ("Inactivo".equals(estadoActual)) {
             JOptionPane.showMessageDialog(this, "El empleado ya está inactivo",
@@ -153,11 +191,11 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
             "Confirmar desactivación", JOptionPane.YES_NO_OPTION);
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            if (dbManager.desactivarEmpleado(username, motivo)) {
-                JOptionPane.showMessageDialog(this,
-                    "Empleado " + username + " ha sido desactivado exitosamente",
-                    "Desactivación exitosa", JOptionPane.INFORMATION_MESSAGE);
-
+            btnDesactivar.setEnabled(false);
+            ejecutor.ejecutar(null, "Desactivando empleado...", avance -> {
+                if (!dbManager.desactivarEmpleado(username, motivo)) {
+                    return false;
+                }
                 // Registrar en bitácora
                 bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "DEACTIVATE",
                                                  "Empleado desactivado. Motivo: " + motivo, username);
@@ -167,13 +205,25 @@ public class EmpleadosRegistrados extends javax.swing.JFrame {
                 if (empleado != null && empleado.getEmail() != null && !empleado.getEmail().isEmpty()) {
                     emailService.enviarNotificacionInactividad(empleado.getEmail(), empleado.getNombre(), motivo);
                 }
-
-                // Actualizar tabla
-                cargarTodosEmpleados();
-            } else {
-                JOptionPane.showMessageDialog(this, "Error al desactivar empleado",
+                return true;
+            }, desactivado -> {
+                btnDesactivar.setEnabled(true);
+                if (desactivado) {
+                    JOptionPane.showMessageDialog(this,
+                        "Empleado " + username + " ha sido desactivado exitosamente",
+                        "Desactivación exitosa", JOptionPane.INFORMATION_MESSAGE);
+
+                    // Actualizar tabla
+                    cargarTodosEmpleados();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Error al desactivar empleado",
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, ex -> {
+                btnDesactivar.setEnabled(true);
+                JOptionPane.showMessageDialog(this, "Error al desactivar empleado: " + ex.getMessage(),
                                             "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
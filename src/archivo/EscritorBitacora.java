@@ -0,0 +1,567 @@
+package archivo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritor asíncrono de la bitácora.
+ * Los hilos que registran operaciones (normalmente el EDT de Swing) solo publican el registro
+ * en un buffer circular acotado y sin locks; un único hilo escritor les da formato y los
+ * escribe por lotes sobre un canal que permanece abierto.
+ * El lote se vacía al archivo cada N registros, cada T milisegundos o al cerrar la aplicación,
+ * y opcionalmente se fuerza a disco (fsync) en cada vaciado. Al cerrar siempre se fuerza.
+ * El escritor también decide cuándo rotar el segmento activo (ver SegmentosBitacora).
+ * Si una escritura falla, el hilo no termina: conserva el lote (y lo que ya se alcanzó a escribir
+ * de él), cierra el canal y reintenta con espera creciente hasta que el archivo vuelve a aceptar
+ * escrituras. Mientras tanto los registros siguen acumulándose en el buffer y vaciar() no espera.
+ */
+public class EscritorBitacora {
+
+    private static final String ARCHIVO_CONFIGURACION = "bitacora.properties";
+    private static final long ESPERA_REINTENTO_INICIAL_MS = 100;
+    private static final long ESPERA_REINTENTO_MAXIMA_MS = 5_000;
+
+    /**
+     * Qué hacer cuando el buffer está lleno
+     */
+    public enum PoliticaSaturacion {
+        BLOQUEAR,   // El productor espera a que el escritor libere espacio (no se pierden registros)
+        DESCARTAR   // El registro se descarta y se contabiliza
+    }
+
+    private static EscritorBitacora instancia;
+
+    private final SegmentosBitacora segmentos;
+    private final int registrosPorVaciado;
+    private final long intervaloVaciadoNanos;
+    private final boolean fsyncAlVaciar;
+    private final PoliticaSaturacion politica;
+    private final IndiceBitacora indice;
+    private final CopiaBitacoraJdbc copiaJdbc;
+    private final Charset charset = Charset.defaultCharset();
+
+    // Buffer circular multi-productor / un consumidor: cada celda lleva su número de
+    // secuencia para saber si está libre (== posición) o publicada (== posición + 1)
+    private final AtomicReferenceArray<Bitacora> celdas;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong cola = new AtomicLong();
+    private long cabeza = 0; // Solo lo usa el hilo escritor
+
+    private final AtomicLong descartados = new AtomicLong(); // Total desde que se creó el escritor
+    private long descartadosInformados = 0; // Solo lo usa el hilo escritor
+    private final Object monitorVaciado = new Object();
+    private volatile long confirmados = 0;       // Registros ya escritos en el archivo
+    private volatile long vaciadoSolicitado = 0;
+    private volatile boolean escritorDormido = false;
+    private volatile boolean cerrando = false;
+    private volatile boolean cerrado = false;
+    private volatile boolean fallando = false;   // La última escritura falló; el escritor reintenta
+    private final Thread hilo;
+
+    // Lote en curso; solo lo usa el hilo escritor
+    private final StringBuilder linea = new StringBuilder(256);
+    private final ByteArrayOutputStream lote = new ByteArrayOutputStream(8192);
+    private final List<Bitacora> registrosLote = new ArrayList<>();
+    private int[] largosLote = new int[64];
+    // Bytes del lote que se está escribiendo y su posición lógica; si la escritura falla a mitad,
+    // el reintento sigue desde donde quedó en lugar de repetir lo ya escrito
+    private ByteBuffer bytesLote;
+    private long inicioLote;
+    // Registro tomado del buffer que aún no entró al lote (va al segmento nuevo si está rotando,
+    // o la rotación falló antes de agregarlo)
+    private Bitacora registroPendiente;
+
+    // Segmento activo; solo lo usa el hilo escritor
+    private FileChannel canal;
+    private long baseActivo;
+    private long bytesActivo;
+    private LocalDate diaActivo;
+
+    public EscritorBitacora(SegmentosBitacora segmentos, int capacidad, int registrosPorVaciado, long intervaloVaciadoMs,
+                            boolean fsyncAlVaciar, PoliticaSaturacion politica, IndiceBitacora indice) {
+        this(segmentos, capacidad, registrosPorVaciado, intervaloVaciadoMs, fsyncAlVaciar, politica, indice, null);
+    }
+
+    /**
+     * @param copiaJdbc si no es null, lo escrito en el archivo también se copia a la base, en segundo plano
+     */
+    public EscritorBitacora(SegmentosBitacora segmentos, int capacidad, int registrosPorVaciado, long intervaloVaciadoMs,
+                            boolean fsyncAlVaciar, PoliticaSaturacion politica, IndiceBitacora indice,
+                            JdbcBitacoraStore copiaJdbc) {
+        if (capacidad < 2 || registrosPorVaciado < 1 || intervaloVaciadoMs < 1) {
+            throw new IllegalArgumentException("Configuración de bitácora inválida");
+        }
+        this.segmentos = segmentos;
+        this.registrosPorVaciado = registrosPorVaciado;
+        this.intervaloVaciadoNanos = TimeUnit.MILLISECONDS.toNanos(intervaloVaciadoMs);
+        this.fsyncAlVaciar = fsyncAlVaciar;
+        this.politica = politica;
+        this.indice = indice;
+        this.copiaJdbc = copiaJdbc != null ? new CopiaBitacoraJdbc(copiaJdbc, segmentos) : null;
+
+        int tamano = Integer.highestOneBit(capacidad - 1) << 1;
+        this.celdas = new AtomicReferenceArray<>(tamano);
+        this.secuencias = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            secuencias.set(i, i);
+        }
+        this.mascara = tamano - 1;
+
+        this.hilo = new Thread(this::ejecutar, "escritor-bitacora");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+        if (this.copiaJdbc != null) {
+            // Completa lo que no se llegó a copiar en la ejecución anterior
+            this.copiaJdbc.avisar();
+        }
+    }
+
+    /**
+     * Obtiene el escritor compartido por todo el proceso, configurado desde bitacora.properties
+     */
+    public static synchronized EscritorBitacora getInstancia() {
+        if (instancia == null) {
+            Properties config = cargarConfiguracion();
+            PoliticaSaturacion politica;
+            try {
+                politica = PoliticaSaturacion.valueOf(config.getProperty("bitacora.saturacion", "BLOQUEAR").trim());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Política de saturación desconocida, se usa BLOQUEAR");
+                politica = PoliticaSaturacion.BLOQUEAR;
+            }
+            instancia = new EscritorBitacora(
+                    SegmentosBitacora.getInstancia(),
+                    (int) leerNumero(config, "bitacora.buffer.capacidad", 8192, 2, 1 << 30),
+                    (int) leerNumero(config, "bitacora.vaciado.registros", 64, 1, Integer.MAX_VALUE),
+                    leerNumero(config, "bitacora.vaciado.intervalo.ms", 200, 1, Long.MAX_VALUE),
+                    Boolean.parseBoolean(config.getProperty("bitacora.fsync", "false").trim()),
+                    politica,
+                    IndiceBitacora.getInstancia(),
+                    Almacenamiento.getInstancia().getBitacoraJdbc());
+            Runtime.getRuntime().addShutdownHook(new Thread(instancia::cerrar, "cierre-bitacora"));
+        }
+        return instancia;
+    }
+
+    /**
+     * Cierra el escritor compartido si ya se creó (no lo crea solo para cerrarlo)
+     */
+    static void cerrarInstancia() {
+        EscritorBitacora escritor;
+        synchronized (EscritorBitacora.class) {
+            escritor = instancia;
+        }
+        if (escritor != null) {
+            escritor.cerrar();
+        }
+    }
+
+    /**
+     * Lee bitacora.properties; sin el archivo se usan los valores por defecto
+     */
+    static Properties cargarConfiguracion() {
+        Properties config = new Properties();
+        try (InputStream in = new FileInputStream(ARCHIVO_CONFIGURACION)) {
+            config.load(in);
+        } catch (FileNotFoundException e) {
+            // Sin archivo de configuración se usan los valores por defecto
+        } catch (IOException e) {
+            System.err.println("Error leyendo configuración de bitácora: " + e.getMessage());
+        }
+        return config;
+    }
+
+    /**
+     * Valor numérico de la configuración; si no es un número válido o está fuera de rango
+     * se usa el valor por defecto (una clave mal escrita no debe impedir registrar operaciones)
+     */
+    static long leerNumero(Properties config, String clave, long porDefecto, long minimo, long maximo) {
+        String valor = config.getProperty(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            long numero = Long.parseLong(valor.trim());
+            if (numero >= minimo && numero <= maximo) {
+                return numero;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.err.println("Valor inválido para " + clave + " (" + valor + "), se usa " + porDefecto);
+        return porDefecto;
+    }
+
+    /**
+     * Publica un registro para que el hilo escritor lo guarde.
+     * Devuelve false si se descartó por estar el buffer lleno (política DESCARTAR).
+     */
+    public boolean publicar(Bitacora registro) {
+        if (cerrado) {
+            escribirDirecto(registro);
+            return true;
+        }
+        while (!ofrecer(registro)) {
+            if (politica == PoliticaSaturacion.DESCARTAR) {
+                descartados.incrementAndGet();
+                return false;
+            }
+            LockSupport.unpark(hilo);
+            LockSupport.parkNanos(50_000);
+            if (cerrado) {
+                escribirDirecto(registro);
+                return true;
+            }
+        }
+        if (cerrado) {
+            // El escritor terminó mientras se publicaba: nadie más va a tomar este registro
+            escribirRestantes();
+        } else if (escritorDormido) {
+            LockSupport.unpark(hilo);
+        }
+        return true;
+    }
+
+    /**
+     * Espera a que todo lo publicado hasta ahora esté escrito en el archivo
+     * (lo usan los lectores de la bitácora para no perder registros recientes)
+     */
+    public void vaciar() {
+        long objetivo = cola.get();
+        if (confirmados >= objetivo || cerrado || fallando) {
+            return;
+        }
+        vaciadoSolicitado = objetivo;
+        LockSupport.unpark(hilo);
+        synchronized (monitorVaciado) {
+            while (confirmados < objetivo && !cerrado && !fallando) {
+                try {
+                    monitorVaciado.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacía lo publicado y espera a que la copia en la base llegue hasta ahí. Devuelve false si no
+     * hay copia en la base o sigue atrasada después de la espera (entonces se busca en los archivos).
+     */
+    public boolean copiaJdbcAlDia(long esperaMs) {
+        if (copiaJdbc == null) {
+            return false;
+        }
+        vaciar();
+        try {
+            return copiaJdbc.esperar(segmentos.tamanoLogico(), esperaMs);
+        } catch (IOException e) {
+            System.err.println("Error consultando el tamaño de la bitácora: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, fuerza el archivo a disco y detiene el hilo escritor.
+     * Los registros publicados después se escriben directamente.
+     */
+    public void cerrar() {
+        cerrando = true;
+        LockSupport.unpark(hilo);
+        try {
+            hilo.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Total de registros descartados por saturación desde que se creó el escritor
+     */
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    private boolean ofrecer(Bitacora registro) {
+        long posicion = cola.get();
+        while (true) {
+            int indice = (int) posicion & mascara;
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    celdas.lazySet(indice, registro);
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+                posicion = cola.get();
+            } else if (diferencia < 0) {
+                return false; // Lleno: la celda aún no fue liberada por el escritor
+            } else {
+                posicion = cola.get();
+            }
+        }
+    }
+
+    private Bitacora tomar() {
+        int indice = (int) cabeza & mascara;
+        if (secuencias.get(indice) != cabeza + 1) {
+            return null;
+        }
+        Bitacora registro = celdas.get(indice);
+        celdas.lazySet(indice, null);
+        secuencias.set(indice, cabeza + mascara + 1);
+        cabeza++;
+        return registro;
+    }
+
+    private void ejecutar() {
+        long espera = ESPERA_REINTENTO_INICIAL_MS;
+        try {
+            while (true) {
+                try {
+                    escribirHastaCerrar();
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    cerrarCanal();
+                    if (cerrando) {
+                        System.err.println("Error en el escritor de bitácora: " + e.getMessage());
+                        return;
+                    }
+                    if (!fallando) {
+                        espera = ESPERA_REINTENTO_INICIAL_MS; // Hubo escrituras buenas desde la última falla
+                    }
+                    fallando = true;
+                    synchronized (monitorVaciado) {
+                        monitorVaciado.notifyAll(); // Quien espera en vaciar() no debe quedarse esperando
+                    }
+                    System.err.println("Error en el escritor de bitácora, se reintenta en " + espera + " ms: "
+                            + e.getMessage());
+                    esperarReintento(espera);
+                    espera = Math.min(espera * 2, ESPERA_REINTENTO_MAXIMA_MS);
+                }
+            }
+        } finally {
+            cerrado = true;
+            cerrarCanal();
+            // Primero lo que ya se había tomado del buffer, para no perderlo ni desordenarlo
+            escribirLotePendiente();
+            escribirRestantes();
+            synchronized (monitorVaciado) {
+                monitorVaciado.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Bucle del escritor; termina al cerrar y lanza la excepción si una escritura falla
+     * (el lote en curso y el registro pendiente se conservan para el reintento)
+     */
+    private void escribirHastaCerrar() throws IOException {
+        abrirSegmento();
+        if (!registrosLote.isEmpty()) {
+            vaciarLote(fsyncAlVaciar);
+        }
+        int pendientes = 0;
+        long ultimoVaciado = System.nanoTime();
+        while (true) {
+            Bitacora registro = registroPendiente != null ? registroPendiente : tomar();
+            if (registro != null) {
+                registroPendiente = registro;
+                agregarAlLote(registro);
+                registroPendiente = null;
+                if (++pendientes >= registrosPorVaciado) {
+                    vaciarLote(fsyncAlVaciar);
+                    pendientes = 0;
+                    ultimoVaciado = System.nanoTime();
+                }
+                continue;
+            }
+
+            // Buffer vacío: vaciar si corresponde y dormir hasta el próximo plazo o aviso
+            long ahora = System.nanoTime();
+            boolean vencido = pendientes > 0 && ahora - ultimoVaciado >= intervaloVaciadoNanos;
+            if (vencido || vaciadoSolicitado > confirmados || cerrando) {
+                vaciarLote(fsyncAlVaciar || cerrando);
+                pendientes = 0;
+                ultimoVaciado = ahora;
+                if (cerrando && cabeza == cola.get()) {
+                    return;
+                }
+                continue;
+            }
+
+            escritorDormido = true;
+            if (cabeza == cola.get() && !cerrando) {
+                LockSupport.parkNanos(this, pendientes > 0
+                        ? intervaloVaciadoNanos - (ahora - ultimoVaciado)
+                        : TimeUnit.SECONDS.toNanos(1));
+            }
+            escritorDormido = false;
+        }
+    }
+
+    /**
+     * Espera antes de reintentar; los avisos de los productores no la acortan, cerrar sí
+     */
+    private void esperarReintento(long esperaMs) {
+        long hasta = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        for (long resto = hasta - System.nanoTime(); resto > 0 && !cerrando; resto = hasta - System.nanoTime()) {
+            LockSupport.parkNanos(this, resto);
+        }
+    }
+
+    private void cerrarCanal() {
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando bitácora: " + e.getMessage());
+            }
+            canal = null;
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        canal = FileChannel.open(segmentos.getArchivoActivo().toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        baseActivo = segmentos.baseActivo();
+        bytesActivo = canal.size();
+        diaActivo = segmentos.diaActivo();
+    }
+
+    /**
+     * Cierra el segmento activo (después de escribir lo pendiente) y abre uno nuevo
+     */
+    private void rotarSegmento() throws IOException {
+        vaciarLote(true);
+        canal.close();
+        canal = null;
+        segmentos.rotar();
+        abrirSegmento();
+    }
+
+    private void agregarAlLote(Bitacora registro) throws IOException {
+        linea.setLength(0);
+        registro.formatear(linea);
+        linea.append(System.lineSeparator());
+        byte[] bytes = linea.toString().getBytes(charset);
+        if (segmentos.debeRotar(bytesActivo + lote.size(), diaActivo, registro, bytes.length)) {
+            rotarSegmento();
+        }
+        if (bytesActivo + lote.size() == 0) {
+            diaActivo = registro.getFechaHora().toLocalDate();
+        }
+        lote.write(bytes, 0, bytes.length);
+        if (registrosLote.size() == largosLote.length) {
+            largosLote = Arrays.copyOf(largosLote, largosLote.length * 2);
+        }
+        largosLote[registrosLote.size()] = bytes.length;
+        registrosLote.add(registro);
+    }
+
+    private void vaciarLote(boolean fsync) throws IOException {
+        if (!registrosLote.isEmpty()) {
+            if (bytesLote == null) {
+                // Posición lógica: base del segmento activo + tamaño actual del archivo
+                inicioLote = baseActivo + canal.size();
+                bytesLote = ByteBuffer.wrap(lote.toByteArray());
+            }
+            while (bytesLote.hasRemaining()) {
+                canal.write(bytesLote);
+            }
+            bytesActivo = canal.size();
+            if (fsync) {
+                canal.force(false);
+            }
+            // El índice se actualiza después de escribir el log, así nunca apunta a bytes que no existen
+            if (indice != null) {
+                indice.agregarLote(inicioLote, registrosLote, largosLote);
+            }
+            if (copiaJdbc != null) {
+                copiaJdbc.avisar();
+            }
+            bytesLote = null;
+            lote.reset();
+            registrosLote.clear();
+        } else if (fsync) {
+            canal.force(false);
+        }
+        fallando = false;
+        long totalDescartados = descartados.get();
+        if (totalDescartados > descartadosInformados) {
+            System.err.println("Bitácora saturada: se descartaron " + (totalDescartados - descartadosInformados)
+                    + " registros");
+            descartadosInformados = totalDescartados;
+        }
+        synchronized (monitorVaciado) {
+            confirmados = registroPendiente != null ? cabeza - 1 : cabeza;
+            monitorVaciado.notifyAll();
+        }
+    }
+
+    /**
+     * Escribe lo que quedó del lote en curso (desde donde se interrumpió) y el registro que aún
+     * no había entrado al lote, una vez detenido el hilo escritor
+     */
+    private synchronized void escribirLotePendiente() {
+        if (!registrosLote.isEmpty()) {
+            ByteBuffer bytes = bytesLote != null ? bytesLote : ByteBuffer.wrap(lote.toByteArray());
+            try (FileChannel canalDirecto = FileChannel.open(segmentos.getArchivoActivo().toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (bytes.hasRemaining()) {
+                    canalDirecto.write(bytes);
+                }
+            } catch (IOException e) {
+                System.err.println("Error guardando en bitácora: se perdieron " + registrosLote.size()
+                        + " registros del lote: " + e.getMessage());
+            }
+            bytesLote = null;
+            lote.reset();
+            registrosLote.clear();
+        }
+        if (registroPendiente != null) {
+            escribirDirecto(registroPendiente);
+            registroPendiente = null;
+        }
+    }
+
+    /**
+     * Escribe lo que quedó en el buffer una vez detenido el hilo escritor
+     */
+    private synchronized void escribirRestantes() {
+        for (Bitacora registro = tomar(); registro != null; registro = tomar()) {
+            escribirDirecto(registro);
+        }
+    }
+
+    private synchronized void escribirDirecto(Bitacora registro) {
+        StringBuilder linea = new StringBuilder(128);
+        registro.formatear(linea);
+        linea.append(System.lineSeparator());
+        try (FileChannel canal = FileChannel.open(segmentos.getArchivoActivo().toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(linea.toString().getBytes(charset)));
+        } catch (IOException e) {
+            System.err.println("Error guardando en bitácora: " + e.getMessage());
+        }
+    }
+}
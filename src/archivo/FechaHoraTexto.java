@@ -0,0 +1,75 @@
+package archivo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conversión rápida del formato fijo "yyyy-MM-dd HH:mm:ss" usado en los archivos de datos.
+ * Lee y escribe los dígitos por posición, sin DateTimeFormatter ni textos intermedios.
+ */
+public final class FechaHoraTexto {
+
+    public static final int LARGO = 19;
+
+    private FechaHoraTexto() {
+    }
+
+    public static LocalDateTime parsear(CharSequence texto) {
+        return parsear(texto, 0, texto.length());
+    }
+
+    /**
+     * Decodifica la fecha ubicada entre inicio (incluido) y fin (excluido)
+     */
+    public static LocalDateTime parsear(CharSequence texto, int inicio, int fin) {
+        if (fin - inicio != LARGO
+                || texto.charAt(inicio + 4) != '-' || texto.charAt(inicio + 7) != '-'
+                || texto.charAt(inicio + 10) != ' '
+                || texto.charAt(inicio + 13) != ':' || texto.charAt(inicio + 16) != ':') {
+            throw new IllegalArgumentException("Fecha inválida: " + texto.subSequence(inicio, fin));
+        }
+        return LocalDateTime.of(
+                digitos(texto, inicio, 4),
+                digitos(texto, inicio + 5, 2),
+                digitos(texto, inicio + 8, 2),
+                digitos(texto, inicio + 11, 2),
+                digitos(texto, inicio + 14, 2),
+                digitos(texto, inicio + 17, 2));
+    }
+
+    public static String formatear(LocalDateTime fecha) {
+        return formatear(fecha, new StringBuilder(LARGO)).toString();
+    }
+
+    /**
+     * Agrega la fecha al StringBuilder (los segundos fraccionarios se descartan)
+     */
+    public static StringBuilder formatear(LocalDateTime fecha, StringBuilder sb) {
+        rellenar(sb, fecha.getYear(), 4).append('-');
+        rellenar(sb, fecha.getMonthValue(), 2).append('-');
+        rellenar(sb, fecha.getDayOfMonth(), 2).append(' ');
+        rellenar(sb, fecha.getHour(), 2).append(':');
+        rellenar(sb, fecha.getMinute(), 2).append(':');
+        return rellenar(sb, fecha.getSecond(), 2);
+    }
+
+    private static int digitos(CharSequence texto, int inicio, int cantidad) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            int digito = texto.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new IllegalArgumentException("Fecha inválida: " + texto);
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private static StringBuilder rellenar(StringBuilder sb, int valor, int ancho) {
+        for (int limite = 10, i = 1; i < ancho; i++, limite *= 10) {
+            if (valor < limite) {
+                sb.append('0');
+            }
+        }
+        return sb.append(valor);
+    }
+}
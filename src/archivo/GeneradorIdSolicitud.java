@@ -0,0 +1,130 @@
+package archivo;
+
+import java.io.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Generador persistente de IDs para ArchivoSolicitudStore.
+ * Reserva bloques de IDs en el archivo de secuencia (bajo un FileLock, para que
+ * varios procesos no se pisen) y los entrega desde memoria, de modo que solo se
+ * toca el disco una vez por bloque. Los IDs no usados de un bloque se descartan.
+ * El primer bloque de cada proceso parte del mayor entre la marca guardada y el ID más
+ * alto de solicitudes.txt, así una marca vieja (por ejemplo, tras restaurar un respaldo
+ * de las solicitudes) no entrega IDs que ya existen.
+ * Dentro de una misma JVM los generadores de un mismo archivo se turnan con un candado
+ * por ruta, porque el FileLock es de todo el proceso y pedirlo dos veces falla.
+ */
+public class GeneradorIdSolicitud {
+
+    static final int TAMANO_BLOQUE = 50;
+
+    // Un candado por ruta canónica del archivo de secuencia, compartido por todos los generadores
+    private static final ConcurrentMap<String, Object> CANDADOS = new ConcurrentHashMap<>();
+
+    private final String archivoSecuencia;
+    private final String archivoSolicitudes;
+    private final Object candado;
+    private final int tamanoBloque;
+    private int siguiente = 1;  // Próximo ID a entregar
+    private int limite = 0;     // Último ID reservado del bloque actual
+    private boolean recuperado = false; // Si ya se comparó la marca con el archivo de solicitudes
+
+    public GeneradorIdSolicitud(String archivoSecuencia, String archivoSolicitudes, int tamanoBloque) {
+        this.archivoSecuencia = archivoSecuencia;
+        this.archivoSolicitudes = archivoSolicitudes;
+        this.tamanoBloque = tamanoBloque;
+        this.candado = CANDADOS.computeIfAbsent(rutaCanonica(archivoSecuencia), ruta -> new Object());
+    }
+
+    private static String rutaCanonica(String archivo) {
+        File f = new File(archivo);
+        try {
+            return f.getCanonicalPath();
+        } catch (IOException e) {
+            return f.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Entrega el siguiente ID libre, reservando un bloque nuevo cuando se agota el actual
+     */
+    public synchronized int siguienteId() throws IOException {
+        if (siguiente > limite) {
+            reservarBloque();
+        }
+        return siguiente++;
+    }
+
+    private void reservarBloque() throws IOException {
+        synchronized (candado) {
+            reservarBloqueBloqueado();
+        }
+    }
+
+    private void reservarBloqueBloqueado() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(archivoSecuencia, "rw")) {
+            // El candado se libera al cerrar el archivo
+            raf.getChannel().lock();
+
+            int marca = leerMarca(raf);
+            if (marca < 0 || !recuperado) {
+                marca = Math.max(marca, buscarIdMaximo());
+                recuperado = true;
+            }
+
+            int fin = marca + tamanoBloque;
+            raf.setLength(0);
+            raf.writeBytes(fin + System.lineSeparator());
+            raf.getChannel().force(true);
+
+            siguiente = marca + 1;
+            limite = fin;
+        } catch (IOException e) {
+            throw new IOException("No se pudo reservar IDs de solicitud: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lee la marca guardada; -1 si el archivo está vacío o dañado
+     */
+    private int leerMarca(RandomAccessFile raf) throws IOException {
+        if (raf.length() == 0) {
+            return -1;
+        }
+        String linea = raf.readLine();
+        try {
+            return linea != null ? Integer.parseInt(linea.trim()) : -1;
+        } catch (NumberFormatException e) {
+            System.err.println("Archivo de secuencia dañado, se recupera desde solicitudes: " + linea);
+            return -1;
+        }
+    }
+
+    /**
+     * Recorre el archivo de solicitudes y devuelve el mayor ID encontrado (0 si no hay)
+     */
+    private int buscarIdMaximo() throws IOException {
+        File archivo = new File(archivoSolicitudes);
+        if (!archivo.exists()) {
+            return 0;
+        }
+
+        int maximo = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                int separador = linea.indexOf('|');
+                if (separador <= 0) {
+                    continue;
+                }
+                try {
+                    maximo = Math.max(maximo, Integer.parseInt(linea.substring(0, separador)));
+                } catch (NumberFormatException e) {
+                    // Línea inválida, se ignora igual que al cargar solicitudes
+                }
+            }
+        }
+        return maximo;
+    }
+}
@@ -1,7 +1,6 @@
 package archivo;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableRowSorter;
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
@@ -24,13 +23,14 @@ public class GestionRoles extends JFrame {
     private JButton btnRemoverRol;
     private JButton btnRegresar;
     private JTable tablaEmpleados;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaLista<Empleado> modeloTabla;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
     
     public GestionRoles(Empleado usuario, DatabaseManager db, BitacoraManager bitacora) {
         this.usuarioActual = usuario;
         this.dbManager = db;
         this.bitacoraManager = bitacora;
-        this.emailService = new EmailService();
+        this.emailService = EmailService.getInstancia();
         
         initComponents();
         cargarEmpleados();
@@ -92,6 +92,7 @@ public class GestionRoles extends JFrame {
         btnRegresar.setFont(new Font("Tahoma", Font.BOLD, 14));
         btnRegresar.addActionListener(this::regresar);
         panelBotones.add(btnRegresar);
+        panelBotones.add(ejecutor.getIndicador());
         
         gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2;
         gbc.insets = new Insets(20, 20, 20, 20);
@@ -113,12 +114,15 @@ public class GestionRoles extends JFrame {
     private void crearTablaEmpleados() {
         // Crear modelo de tabla con columnas específicas
         String[] columnas = {"Usuario", "Nombre Completo", "Rol", "Estado", "Email"};
-        modeloTabla = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Hacer la tabla no editable
+        modeloTabla = new ModeloTablaLista<>(columnas, (emp, columna) -> {
+            switch (columna) {
+                case 0: return emp.getUsername();
+                case 1: return emp.getNombre();
+                case 2: return emp.getRole();
+                case 3: return emp.getEstado();
+                default: return emp.getEmail() != null ? emp.getEmail() : "No disponible";
             }
-        };
+        });
         
         tablaEmpleados = new JTable(modeloTabla);
         
@@ -136,7 +140,7 @@ public class GestionRoles extends JFrame {
         tablaEmpleados.getColumnModel().getColumn(4).setPreferredWidth(180); // Email
         
         // Agregar ordenamiento
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(modeloTabla);
+        TableRowSorter<ModeloTablaLista<Empleado>> sorter = new TableRowSorter<>(modeloTabla);
         tablaEmpleados.setRowSorter(sorter);
         
         // Configurar renderer personalizado para colores alternados
@@ -212,29 +216,21 @@ public class GestionRoles extends JFrame {
     }
     
     private void cargarEmpleados() {
-        comboEmpleados.removeAllItems();
-        List<Empleado> empleados = dbManager.obtenerTodosEmpleados();
-        
-        for (Empleado emp : empleados) {
-            comboEmpleados.addItem(emp.getUsername() + " - " + emp.getNombre());
-        }
+        ejecutor.ejecutar("combo", "Cargando empleados...", avance -> dbManager.obtenerTodosEmpleados(), empleados -> {
+            comboEmpleados.removeAllItems();
+            for (Empleado emp : empleados) {
+                comboEmpleados.addItem(emp.getUsername() + " - " + emp.getNombre());
+            }
+        });
     }
     
     private void cargarDatosTabla() {
-        modeloTabla.setRowCount(0); // Limpiar tabla
-        
-        List<Empleado> empleados = dbManager.obtenerTodosEmpleados();
-        
-        for (Empleado emp : empleados) {
-            Object[] fila = {
-                emp.getUsername(),
-                emp.getNombre(),
-                emp.getRole(),
-                emp.getEstado(),
-                emp.getEmail() != null ? emp.getEmail() : "No disponible"
-            };
-            modeloTabla.addRow(fila);
-        }
+        ejecutor.ejecutar("tabla", "Cargando empleados...", avance -> dbManager.obtenerTodosEmpleados(),
+                this::mostrarEmpleados);
+    }
+    
+    private void mostrarEmpleados(List<Empleado> empleados) {
+        modeloTabla.setFilas(empleados);
         
         // Actualizar estadísticas
         actualizarEstadisticas(empleados);
@@ -299,17 +295,27 @@ public class GestionRoles extends JFrame {
         String username = seleccion.split(" - ")[0];
         String nuevoRol = (String) comboRoles.getSelectedItem();
         
-        if (dbManager.asignarRol(username, nuevoRol)) {
-            JOptionPane.showMessageDialog(this, "Asignación de rol exitosa", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            
-            // Registrar en bitácora
-            bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "ASSIGN_ROLE", 
-                                             "Rol " + nuevoRol + " asignado", username);
-            
-            cargarDatosTabla(); // Actualizar tabla
-        } else {
-            JOptionPane.showMessageDialog(this, "Error en la asignación de rol", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        btnAsignarRol.setEnabled(false);
+        ejecutor.ejecutar(null, "Asignando rol...", avance -> {
+            boolean asignado = dbManager.asignarRol(username, nuevoRol);
+            if (asignado) {
+                // Registrar en bitácora
+                bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "ASSIGN_ROLE", 
+                                                 "Rol " + nuevoRol + " asignado", username);
+            }
+            return asignado;
+        }, asignado -> {
+            btnAsignarRol.setEnabled(true);
+            if (asignado) {
+                JOptionPane.showMessageDialog(this, "Asignación de rol exitosa", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                cargarDatosTabla(); // Actualizar tabla
+            } else {
+                JOptionPane.showMessageDialog(this, "Error en la asignación de rol", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, ex -> {
+            btnAsignarRol.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error en la asignación de rol: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
     
     private void removerRol(ActionEvent e) {
@@ -321,17 +327,27 @@ public class GestionRoles extends JFrame {
         
         String username = seleccion.split(" - ")[0];
         
-        if (dbManager.removerRol(username)) {
-            JOptionPane.showMessageDialog(this, "Eliminación de rol exitosa", "Éxito", JOptionPane.INFORMATION_MESSAGE);
-            
-            // Registrar en bitácora
-            bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "REMOVE_ROLE", 
-                                             "Rol removido, asignado rol Empleado", username);
-            
-            cargarDatosTabla(); // Actualizar tabla
-        } else {
-            JOptionPane.showMessageDialog(this, "Error en la eliminación de rol", "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        btnRemoverRol.setEnabled(false);
+        ejecutor.ejecutar(null, "Removiendo rol...", avance -> {
+            boolean removido = dbManager.removerRol(username);
+            if (removido) {
+                // Registrar en bitácora
+                bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "REMOVE_ROLE", 
+                                                 "Rol removido, asignado rol Empleado", username);
+            }
+            return removido;
+        }, removido -> {
+            btnRemoverRol.setEnabled(true);
+            if (removido) {
+                JOptionPane.showMessageDialog(this, "Eliminación de rol exitosa", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+                cargarDatosTabla(); // Actualizar tabla
+            } else {
+                JOptionPane.showMessageDialog(this, "Error en la eliminación de rol", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }, ex -> {
+            btnRemoverRol.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "Error en la eliminación de rol: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        });
     }
     
     private void regresar(ActionEvent e) {
@@ -0,0 +1,354 @@
+package archivo;
+
+import java.io.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido de la bitácora: listas de posiciones por usuario y por tipo de operación,
+ * más la posición en bytes y el instante de cada registro.
+ * Se guarda junto al log en un archivo de solo agregado (bitacora.idx), así que al iniciar se
+ * lee ese archivo en lugar de volver a parsear el log. Lo que el índice no cubra (otro proceso
+ * escribió, o se cortó la escritura del índice) se recupera leyendo el log desde donde quedó.
+ * Las posiciones son lógicas (ver SegmentosBitacora), así que siguen valiendo al rotar segmentos.
+ */
+public class IndiceBitacora {
+
+    private static final String ARCHIVO_INDICE = "bitacora.idx";
+
+    // Tipos de entrada del archivo de índice
+    private static final byte TERMINO_USUARIO = 1;
+    private static final byte TERMINO_OPERACION = 2;
+    private static final byte REGISTRO = 3;
+    private static final byte AVANCE = 4;   // Bytes del log recorridos sin registros válidos
+
+    private static IndiceBitacora instancia;
+
+    private final SegmentosBitacora segmentos;
+    private final File archivoIndice;
+
+    private boolean cargado = false;
+    private long finIndexado = 0;   // Bytes del log ya cubiertos por el índice
+    private DataOutputStream salida;
+
+    // Datos por registro, en el orden del log
+    private int cantidad = 0;
+    private long[] offsets = new long[1024];
+    private int[] largos = new int[1024];
+    private long[] instantes = new long[1024];
+
+    private final Map<String, Integer> idUsuarios = new HashMap<>();
+    private final Map<String, Integer> idOperaciones = new HashMap<>();
+    private final List<ListaEnteros> porUsuario = new ArrayList<>();
+    private final List<ListaEnteros> porOperacion = new ArrayList<>();
+
+    public IndiceBitacora(SegmentosBitacora segmentos, String archivoIndice) {
+        this.segmentos = segmentos;
+        this.archivoIndice = new File(archivoIndice);
+    }
+
+    public static synchronized IndiceBitacora getInstancia() {
+        if (instancia == null) {
+            instancia = new IndiceBitacora(SegmentosBitacora.getInstancia(), ARCHIVO_INDICE);
+        }
+        return instancia;
+    }
+
+    /**
+     * Registros que cumplen todos los criterios dados; un criterio null no filtra.
+     * El rango de fechas es inclusivo.
+     */
+    public List<Bitacora> buscar(String usuario, String tipoOperacion, LocalDateTime desde, LocalDateTime hasta) {
+        EscritorBitacora.getInstancia().vaciar();
+        synchronized (this) {
+            try {
+                cargar();
+                ponerseAlDia();
+                return leerRegistros(candidatos(usuario, tipoOperacion,
+                        desde != null ? instante(desde) : Long.MIN_VALUE,
+                        hasta != null ? instante(hasta) : Long.MAX_VALUE));
+            } catch (IOException e) {
+                System.err.println("Error consultando índice de bitácora: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
+    }
+
+    /**
+     * Agrega al índice un lote que el escritor acaba de escribir a partir de la posición
+     * inicio, sin volver a leerlo del log. Si el log no continúa donde termina el índice,
+     * se recupera desde el archivo.
+     */
+    public synchronized void agregarLote(long inicio, List<Bitacora> registros, int[] largosLote) {
+        try {
+            cargar();
+            if (inicio != finIndexado) {
+                ponerseAlDia();
+                return;
+            }
+            long offset = inicio;
+            for (int i = 0; i < registros.size(); i++) {
+                agregar(registros.get(i), offset, largosLote[i]);
+                offset += largosLote[i];
+            }
+            salida.flush();
+        } catch (IOException e) {
+            System.err.println("Error actualizando índice de bitácora: " + e.getMessage());
+        }
+    }
+
+    private List<Integer> candidatos(String usuario, String tipoOperacion, long desde, long hasta) {
+        ListaEnteros lista = null;
+        if (usuario != null) {
+            Integer id = idUsuarios.get(usuario);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            lista = porUsuario.get(id);
+        }
+        if (tipoOperacion != null) {
+            Integer id = idOperaciones.get(tipoOperacion);
+            if (id == null) {
+                return new ArrayList<>();
+            }
+            lista = lista == null ? porOperacion.get(id) : lista.interseccion(porOperacion.get(id));
+        }
+
+        List<Integer> resultado = new ArrayList<>();
+        int total = lista != null ? lista.tamano : cantidad;
+        for (int i = 0; i < total; i++) {
+            int posicion = lista != null ? lista.valores[i] : i;
+            if (instantes[posicion] >= desde && instantes[posicion] <= hasta) {
+                resultado.add(posicion);
+            }
+        }
+        return resultado;
+    }
+
+    private List<Bitacora> leerRegistros(List<Integer> posiciones) throws IOException {
+        List<Bitacora> resultado = new ArrayList<>(posiciones.size());
+        if (posiciones.isEmpty()) {
+            return resultado;
+        }
+        long[] offsetsBuscados = new long[posiciones.size()];
+        int[] largosBuscados = new int[posiciones.size()];
+        for (int i = 0; i < posiciones.size(); i++) {
+            offsetsBuscados[i] = offsets[posiciones.get(i)];
+            largosBuscados[i] = largos[posiciones.get(i)];
+        }
+        segmentos.leerLineas(offsetsBuscados, largosBuscados, posiciones.size(), linea -> {
+            Bitacora registro = Bitacora.parsear(linea);
+            if (registro != null) {
+                resultado.add(registro);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Lee el archivo de índice la primera vez que se usa. Una entrada incompleta al final
+     * (escritura interrumpida) se descarta; si el índice no corresponde al log, se reconstruye.
+     */
+    private void cargar() throws IOException {
+        if (cargado) {
+            return;
+        }
+        cargado = true;
+        long valido = archivoIndice.exists() ? leerIndice() : 0;
+        if (finIndexado > segmentos.tamanoLogico() || !segmentos.terminaEnLinea(finIndexado)) {
+            System.err.println("El índice de bitácora no corresponde al log, se reconstruye");
+            reiniciar();
+            valido = 0;
+        }
+        if (archivoIndice.exists() && archivoIndice.length() != valido) {
+            try (RandomAccessFile raf = new RandomAccessFile(archivoIndice, "rw")) {
+                raf.setLength(valido);
+            }
+        }
+        salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archivoIndice, true)));
+    }
+
+    private long leerIndice() throws IOException {
+        long valido = 0;
+        try (ContadorBytes contador = new ContadorBytes(
+                new BufferedInputStream(new FileInputStream(archivoIndice), 65536));
+             DataInputStream in = new DataInputStream(contador)) {
+            while (true) {
+                int tipo = in.read();
+                if (tipo == -1) {
+                    break;
+                }
+                if (tipo == TERMINO_USUARIO || tipo == TERMINO_OPERACION) {
+                    boolean esUsuario = tipo == TERMINO_USUARIO;
+                    int id = in.readInt();
+                    String termino = in.readUTF();
+                    if (id != (esUsuario ? porUsuario : porOperacion).size()) {
+                        break;
+                    }
+                    registrarTermino(termino, esUsuario);
+                } else if (tipo == REGISTRO) {
+                    long offset = in.readLong();
+                    int largo = in.readInt();
+                    long instante = in.readLong();
+                    int usuario = in.readInt();
+                    int operacion = in.readInt();
+                    if (offset < finIndexado || usuario >= porUsuario.size() || operacion >= porOperacion.size()) {
+                        break;
+                    }
+                    agregarEnMemoria(offset, largo, instante, usuario, operacion);
+                } else if (tipo == AVANCE) {
+                    long fin = in.readLong();
+                    if (fin < finIndexado) {
+                        break;
+                    }
+                    finIndexado = fin;
+                } else {
+                    break;
+                }
+                valido = contador.leidos;
+            }
+        } catch (EOFException e) {
+            // Última entrada incompleta: se trunca en la última válida
+        }
+        return valido;
+    }
+
+    /**
+     * Indexa las líneas que el log tenga más allá de lo cubierto por el índice
+     */
+    private void ponerseAlDia() throws IOException {
+        long tamano = segmentos.tamanoLogico();
+        if (tamano == finIndexado) {
+            return;
+        }
+        if (tamano < finIndexado || !segmentos.terminaEnLinea(finIndexado)) {
+            System.err.println("El log de bitácora fue reemplazado, se reconstruye el índice");
+            reiniciar();
+        }
+
+        try (InputStream in = segmentos.abrirDesde(finIndexado)) {
+            SegmentosBitacora.LectorLineas lector = new SegmentosBitacora.LectorLineas(in);
+            long offset = finIndexado;
+            boolean huboInvalidas = false;
+            for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                Bitacora registro = Bitacora.parsear(linea);
+                if (registro != null) {
+                    agregar(registro, offset, lector.bytesUltimaLinea());
+                    huboInvalidas = false;
+                } else {
+                    huboInvalidas = true;
+                }
+                offset += lector.bytesUltimaLinea();
+            }
+            if (huboInvalidas) {
+                salida.writeByte(AVANCE);
+                salida.writeLong(offset);
+                finIndexado = offset;
+            }
+        }
+        salida.flush();
+    }
+
+    private void agregar(Bitacora registro, long offset, int largo) throws IOException {
+        int usuario = termino(registro.getUsuario(), true);
+        int operacion = termino(registro.getTipoOperacion(), false);
+        long instante = instante(registro.getFechaHora());
+        salida.writeByte(REGISTRO);
+        salida.writeLong(offset);
+        salida.writeInt(largo);
+        salida.writeLong(instante);
+        salida.writeInt(usuario);
+        salida.writeInt(operacion);
+        agregarEnMemoria(offset, largo, instante, usuario, operacion);
+    }
+
+    private void agregarEnMemoria(long offset, int largo, long instante, int usuario, int operacion) {
+        if (cantidad == offsets.length) {
+            offsets = Arrays.copyOf(offsets, cantidad * 2);
+            largos = Arrays.copyOf(largos, cantidad * 2);
+            instantes = Arrays.copyOf(instantes, cantidad * 2);
+        }
+        offsets[cantidad] = offset;
+        largos[cantidad] = largo;
+        instantes[cantidad] = instante;
+        porUsuario.get(usuario).agregar(cantidad);
+        porOperacion.get(operacion).agregar(cantidad);
+        cantidad++;
+        finIndexado = offset + largo;
+    }
+
+    /**
+     * Id del término, registrándolo en el índice si es nuevo
+     */
+    private int termino(String valor, boolean esUsuario) throws IOException {
+        String clave = String.valueOf(valor);
+        Integer id = (esUsuario ? idUsuarios : idOperaciones).get(clave);
+        if (id != null) {
+            return id;
+        }
+        int nuevo = registrarTermino(clave, esUsuario);
+        salida.writeByte(esUsuario ? TERMINO_USUARIO : TERMINO_OPERACION);
+        salida.writeInt(nuevo);
+        salida.writeUTF(clave);
+        return nuevo;
+    }
+
+    private int registrarTermino(String valor, boolean esUsuario) {
+        List<ListaEnteros> listas = esUsuario ? porUsuario : porOperacion;
+        int id = listas.size();
+        listas.add(new ListaEnteros());
+        (esUsuario ? idUsuarios : idOperaciones).put(valor, id);
+        return id;
+    }
+
+    private void reiniciar() throws IOException {
+        cantidad = 0;
+        finIndexado = 0;
+        idUsuarios.clear();
+        idOperaciones.clear();
+        porUsuario.clear();
+        porOperacion.clear();
+        if (salida != null) {
+            salida.close();
+            salida = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(archivoIndice, false)));
+        }
+    }
+
+    private static long instante(LocalDateTime fechaHora) {
+        return fechaHora.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Cuenta los bytes leídos para saber hasta dónde el archivo de índice es válido
+     */
+    private static class ContadorBytes extends FilterInputStream {
+        long leidos = 0;
+
+        ContadorBytes(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package archivo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas para buscar empleados por username, nombre, DPI y área.
+ * Cada empleado ocupa la misma posición que en el orden del archivo; por cada campo se guarda
+ * una clave normalizada (minúsculas, sin tildes) y cada trigrama de esas claves apunta a la
+ * lista ordenada de posiciones que lo contienen, partida en bloques de 512 posiciones. Una búsqueda intersecta las listas de los
+ * trigramas de la consulta, empezando por la más corta, y verifica los candidatos con contains.
+ * Las consultas de menos de tres caracteres recorren las claves ya normalizadas.
+ * El índice es inmutable y persistente: {@link #conAgregado} y {@link #conReemplazo} devuelven
+ * otro índice que comparte con este todo lo que no cambió (de cada trigrama que el cambio agrega
+ * o quita se copia un solo bloque), así cada instantánea de DatabaseManager tiene el suyo
+ * sin reconstruirlo. Si la consulta nueva contiene a la anterior (el usuario siguió escribiendo),
+ * solo se revisan los empleados que ya coincidían.
+ */
+public class IndiceBusquedaEmpleados {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final int USERNAME = 0;
+    private static final int NOMBRE = 1;
+    private static final int DPI = 2;
+    private static final int AREA = 3;
+    private static final int CAMPOS = 4;
+    private static final int[] SIN_POSICIONES = new int[0];
+    private static final int BITS_BLOQUE = 9;
+
+    /**
+     * Empleados que coinciden con una consulta; sirve para refinar la siguiente
+     */
+    public static class Resultado {
+        private final IndiceBusquedaEmpleados indice;
+        private final String consulta;
+        private final int[] posiciones;
+
+        private Resultado(IndiceBusquedaEmpleados indice, String consulta, int[] posiciones) {
+            this.indice = indice;
+            this.consulta = consulta;
+            this.posiciones = posiciones;
+        }
+
+        public int getCantidad() {
+            return posiciones.length;
+        }
+
+        public List<Empleado> getEmpleados() {
+            List<Empleado> empleados = new ArrayList<>(posiciones.length);
+            for (int posicion : posiciones) {
+                empleados.add(indice.empleados.get(posicion));
+            }
+            return empleados;
+        }
+    }
+
+    private final VectorPersistente<Empleado> empleados;
+    // Campos normalizados de cada posición: username, nombre, DPI y área
+    private final VectorPersistente<String[]> claves;
+    // Trigrama -> posiciones que lo contienen
+    private final MapaPersistente<Long, Lista> listas;
+
+    /**
+     * Posiciones en orden ascendente, agrupadas por bloque (posición >>> BITS_BLOQUE). Es inmutable:
+     * agregar o quitar una posición copia solo su bloque y el arreglo de referencias a los bloques,
+     * así una lista de un trigrama muy común no se copia entera en cada alta.
+     */
+    private static final class Lista {
+        final int[] bloques;
+        final int[][] posiciones;
+        final int tamano;
+
+        Lista(int[] bloques, int[][] posiciones, int tamano) {
+            this.bloques = bloques;
+            this.posiciones = posiciones;
+            this.tamano = tamano;
+        }
+
+        static Lista de(ListaEnteros ordenada) {
+            ListaEnteros bloques = new ListaEnteros();
+            List<int[]> contenidos = new ArrayList<>();
+            int inicio = 0;
+            for (int i = 1; i <= ordenada.tamano; i++) {
+                if (i == ordenada.tamano || ordenada.valores[i] >>> BITS_BLOQUE != ordenada.valores[inicio] >>> BITS_BLOQUE) {
+                    bloques.agregar(ordenada.valores[inicio] >>> BITS_BLOQUE);
+                    contenidos.add(Arrays.copyOfRange(ordenada.valores, inicio, i));
+                    inicio = i;
+                }
+            }
+            return new Lista(Arrays.copyOf(bloques.valores, bloques.tamano), contenidos.toArray(new int[0][]), ordenada.tamano);
+        }
+
+        Lista con(int posicion) {
+            int bloque = posicion >>> BITS_BLOQUE;
+            int i = Arrays.binarySearch(bloques, bloque);
+            if (i >= 0) {
+                int[] contenido = insertar(posiciones[i], posicion);
+                if (contenido == posiciones[i]) {
+                    return this;
+                }
+                int[][] copia = posiciones.clone();
+                copia[i] = contenido;
+                return new Lista(bloques, copia, tamano + 1);
+            }
+            i = -i - 1;
+            int[] nuevosBloques = insertar(bloques, bloque);
+            int[][] copia = new int[posiciones.length + 1][];
+            System.arraycopy(posiciones, 0, copia, 0, i);
+            copia[i] = new int[]{posicion};
+            System.arraycopy(posiciones, i, copia, i + 1, posiciones.length - i);
+            return new Lista(nuevosBloques, copia, tamano + 1);
+        }
+
+        /**
+         * Lista sin la posición; null si queda vacía
+         */
+        Lista sin(int posicion) {
+            int i = Arrays.binarySearch(bloques, posicion >>> BITS_BLOQUE);
+            if (i < 0) {
+                return this;
+            }
+            int[] contenido = quitar(posiciones[i], posicion);
+            if (contenido == posiciones[i]) {
+                return this;
+            }
+            if (tamano == 1) {
+                return null;
+            }
+            if (contenido.length > 0) {
+                int[][] copia = posiciones.clone();
+                copia[i] = contenido;
+                return new Lista(bloques, copia, tamano - 1);
+            }
+            int[][] copia = new int[posiciones.length - 1][];
+            System.arraycopy(posiciones, 0, copia, 0, i);
+            System.arraycopy(posiciones, i + 1, copia, i, copia.length - i);
+            return new Lista(quitar(bloques, bloques[i]), copia, tamano - 1);
+        }
+
+        int[] comoArreglo() {
+            int[] resultado = new int[tamano];
+            int siguiente = 0;
+            for (int[] contenido : posiciones) {
+                System.arraycopy(contenido, 0, resultado, siguiente, contenido.length);
+                siguiente += contenido.length;
+            }
+            return resultado;
+        }
+
+        /**
+         * Las posiciones de la lista ordenada que también están en esta
+         */
+        int[] filtrar(int[] ordenadas) {
+            int[] resultado = new int[ordenadas.length];
+            int cantidad = 0;
+            int i = 0;
+            for (int posicion : ordenadas) {
+                int bloque = posicion >>> BITS_BLOQUE;
+                while (i < bloques.length && bloques[i] < bloque) {
+                    i++;
+                }
+                if (i == bloques.length) {
+                    break;
+                }
+                if (bloques[i] == bloque && Arrays.binarySearch(posiciones[i], posicion) >= 0) {
+                    resultado[cantidad++] = posicion;
+                }
+            }
+            return Arrays.copyOf(resultado, cantidad);
+        }
+    }
+
+    private IndiceBusquedaEmpleados(VectorPersistente<Empleado> empleados, VectorPersistente<String[]> claves,
+                                    MapaPersistente<Long, Lista> listas) {
+        this.empleados = empleados;
+        this.claves = claves;
+        this.listas = listas;
+    }
+
+    /**
+     * Construye el índice de una sola vez (al cargar); los cambios posteriores
+     * se aplican con conAgregado y conReemplazo
+     */
+    public IndiceBusquedaEmpleados(List<Empleado> empleados) {
+        VectorPersistente<Empleado> vector = VectorPersistente.vacio();
+        VectorPersistente<String[]> camposPorPosicion = VectorPersistente.vacio();
+        Map<Long, ListaEnteros> porTrigrama = new HashMap<>();
+        Set<Long> trigramas = new HashSet<>();
+        int posicion = 0;
+        for (Empleado emp : empleados) {
+            String[] campos = campos(emp);
+            vector = vector.agregar(emp);
+            camposPorPosicion = camposPorPosicion.agregar(campos);
+            trigramas.clear();
+            agregarTrigramas(campos, trigramas);
+            for (Long trigrama : trigramas) {
+                porTrigrama.computeIfAbsent(trigrama, t -> new ListaEnteros()).agregar(posicion);
+            }
+            posicion++;
+        }
+        MapaPersistente<Long, Lista> mapa = MapaPersistente.vacio();
+        for (Map.Entry<Long, ListaEnteros> lista : porTrigrama.entrySet()) {
+            mapa = mapa.con(lista.getKey(), Lista.de(lista.getValue()));
+        }
+        this.empleados = vector;
+        this.claves = camposPorPosicion;
+        this.listas = mapa;
+    }
+
+    /**
+     * Índice con el empleado agregado al final del orden del archivo
+     */
+    public IndiceBusquedaEmpleados conAgregado(Empleado emp) {
+        int posicion = empleados.tamano();
+        String[] campos = campos(emp);
+        Set<Long> trigramas = new HashSet<>();
+        agregarTrigramas(campos, trigramas);
+        MapaPersistente<Long, Lista> nuevas = listas;
+        for (Long trigrama : trigramas) {
+            nuevas = conPosicion(nuevas, trigrama, posicion);
+        }
+        return new IndiceBusquedaEmpleados(empleados.agregar(emp), claves.agregar(campos), nuevas);
+    }
+
+    /**
+     * Índice con el empleado de la posición dada reemplazado; solo se tocan las listas de los
+     * trigramas que aparecen o desaparecen (un cambio de rol o de estado no toca ninguna)
+     */
+    public IndiceBusquedaEmpleados conReemplazo(int posicion, Empleado nuevo) {
+        String[] anteriores = claves.get(posicion);
+        String[] campos = campos(nuevo);
+        if (Arrays.equals(anteriores, campos)) {
+            return new IndiceBusquedaEmpleados(empleados.con(posicion, nuevo), claves, listas);
+        }
+        Set<Long> quitados = new HashSet<>();
+        agregarTrigramas(anteriores, quitados);
+        Set<Long> agregados = new HashSet<>();
+        agregarTrigramas(campos, agregados);
+        Set<Long> comunes = new HashSet<>(quitados);
+        comunes.retainAll(agregados);
+        quitados.removeAll(comunes);
+        agregados.removeAll(comunes);
+
+        MapaPersistente<Long, Lista> nuevas = listas;
+        for (Long trigrama : quitados) {
+            Lista lista = nuevas.get(trigrama).sin(posicion);
+            nuevas = lista != null ? nuevas.con(trigrama, lista) : nuevas.sin(trigrama);
+        }
+        for (Long trigrama : agregados) {
+            nuevas = conPosicion(nuevas, trigrama, posicion);
+        }
+        return new IndiceBusquedaEmpleados(empleados.con(posicion, nuevo), claves.con(posicion, campos), nuevas);
+    }
+
+    private static MapaPersistente<Long, Lista> conPosicion(MapaPersistente<Long, Lista> listas, Long trigrama,
+                                                            int posicion) {
+        Lista lista = listas.get(trigrama);
+        if (lista == null) {
+            return listas.con(trigrama, new Lista(new int[]{posicion >>> BITS_BLOQUE}, new int[][]{{posicion}}, 1));
+        }
+        return listas.con(trigrama, lista.con(posicion));
+    }
+
+    /**
+     * Minúsculas y sin tildes, para que "jose" encuentre a "José"
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String minusculas = texto.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < minusculas.length(); i++) {
+            if (minusculas.charAt(i) > 0x7F) {
+                return MARCAS.matcher(Normalizer.normalize(minusculas, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return minusculas;
+    }
+
+    /**
+     * Busca la consulta en username, nombre, DPI y área.
+     * Primero los que coinciden exactamente en username o DPI, luego por el primer campo que
+     * la contiene (username, nombre, DPI, área); dentro de cada grupo, en orden del archivo.
+     * @param anterior resultado de la consulta previa sobre este índice, o null
+     */
+    public Resultado buscar(String consulta, Resultado anterior) {
+        String normalizada = normalizar(consulta.trim());
+        if (normalizada.isEmpty()) {
+            return todos();
+        }
+        int[] candidatos;
+        int total;
+        if (anterior != null && anterior.indice == this && normalizada.contains(anterior.consulta)) {
+            candidatos = anterior.posiciones.clone();
+            Arrays.sort(candidatos); // El resultado anterior está ordenado por grupo
+            total = candidatos.length;
+        } else {
+            candidatos = candidatos(normalizada);
+            total = candidatos != null ? candidatos.length : empleados.tamano();
+        }
+
+        ListaEnteros[] porRango = new ListaEnteros[CAMPOS + 1];
+        for (int i = 0; i < porRango.length; i++) {
+            porRango[i] = new ListaEnteros();
+        }
+        for (int i = 0; i < total; i++) {
+            int posicion = candidatos != null ? candidatos[i] : i;
+            int rango = rango(claves.get(posicion), normalizada);
+            if (rango >= 0) {
+                porRango[rango].agregar(posicion);
+            }
+        }
+
+        int cantidad = 0;
+        for (ListaEnteros grupo : porRango) {
+            cantidad += grupo.tamano;
+        }
+        int[] posiciones = new int[cantidad];
+        int siguiente = 0;
+        for (ListaEnteros grupo : porRango) {
+            System.arraycopy(grupo.valores, 0, posiciones, siguiente, grupo.tamano);
+            siguiente += grupo.tamano;
+        }
+        return new Resultado(this, normalizada, posiciones);
+    }
+
+    public Resultado todos() {
+        int[] posiciones = new int[empleados.tamano()];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = i;
+        }
+        return new Resultado(this, "", posiciones);
+    }
+
+    public int getCantidadEmpleados() {
+        return empleados.tamano();
+    }
+
+    /**
+     * Intersección de las listas de los trigramas de la consulta;
+     * null si la consulta es muy corta para usar el índice (se revisan todos)
+     */
+    private int[] candidatos(String consulta) {
+        if (consulta.length() < 3) {
+            return null;
+        }
+        Set<Long> trigramas = new HashSet<>();
+        agregarTrigramas(consulta, trigramas);
+        List<Lista> encontradas = new ArrayList<>(trigramas.size());
+        for (Long trigrama : trigramas) {
+            Lista lista = listas.get(trigrama);
+            if (lista == null) {
+                return SIN_POSICIONES;
+            }
+            encontradas.add(lista);
+        }
+        encontradas.sort((a, b) -> Integer.compare(a.tamano, b.tamano));
+        int[] resultado = encontradas.get(0).comoArreglo();
+        for (int i = 1; i < encontradas.size() && resultado.length > 0; i++) {
+            resultado = encontradas.get(i).filtrar(resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * 0 si coincide exactamente con el username o el DPI; si no, 1 + el primer campo que
+     * contiene la consulta; -1 si ninguno la contiene
+     */
+    private static int rango(String[] campos, String consulta) {
+        if (campos[USERNAME].equals(consulta) || campos[DPI].equals(consulta)) {
+            return 0;
+        }
+        for (int campo = 0; campo < CAMPOS; campo++) {
+            if (campos[campo].contains(consulta)) {
+                return campo + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] campos(Empleado emp) {
+        String[] campos = new String[CAMPOS];
+        campos[USERNAME] = normalizar(emp.getUsername());
+        campos[NOMBRE] = normalizar(emp.getNombre());
+        campos[DPI] = normalizar(emp.getDpi());
+        campos[AREA] = normalizar(emp.getArea());
+        return campos;
+    }
+
+    private static void agregarTrigramas(String[] campos, Set<Long> trigramas) {
+        for (String campo : campos) {
+            agregarTrigramas(campo, trigramas);
+        }
+    }
+
+    private static void agregarTrigramas(String texto, Set<Long> trigramas) {
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            trigramas.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+    }
+
+    /**
+     * Copia del arreglo ordenado con el valor insertado en su lugar (el mismo si ya estaba)
+     */
+    private static int[] insertar(int[] valores, int valor) {
+        int i = Arrays.binarySearch(valores, valor);
+        if (i >= 0) {
+            return valores;
+        }
+        i = -i - 1;
+        int[] copia = new int[valores.length + 1];
+        System.arraycopy(valores, 0, copia, 0, i);
+        copia[i] = valor;
+        System.arraycopy(valores, i, copia, i + 1, valores.length - i);
+        return copia;
+    }
+
+    /**
+     * Copia del arreglo ordenado sin el valor (el mismo si no estaba)
+     */
+    private static int[] quitar(int[] valores, int valor) {
+        int i = Arrays.binarySearch(valores, valor);
+        if (i < 0) {
+            return valores;
+        }
+        int[] copia = new int[valores.length - 1];
+        System.arraycopy(valores, 0, copia, 0, i);
+        System.arraycopy(valores, i + 1, copia, i, copia.length - i);
+        return copia;
+    }
+}
@@ -0,0 +1,160 @@
+package archivo;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copia de la bitácora en una tabla de base de datos, para las búsquedas por usuario,
+ * operación y fechas con índices de la base.
+ * bitacora.txt (y sus segmentos) sigue siendo el registro principal: CopiaBitacoraJdbc inserta
+ * en segundo plano lo que el escritor vacía al archivo, por lotes con un solo executeBatch. La
+ * clave de cada fila es su posición lógica en la bitácora, así un mismo registro nunca se
+ * inserta dos veces.
+ */
+public class JdbcBitacoraStore {
+
+    private static final String SQL_CREAR =
+            "CREATE TABLE IF NOT EXISTS bitacora ("
+            + "posicion BIGINT NOT NULL PRIMARY KEY, "
+            + "fecha_hora TIMESTAMP NOT NULL, "
+            + "usuario VARCHAR(100), "
+            + "tipo_operacion VARCHAR(100), "
+            + "empleado_afectado VARCHAR(100), "
+            + "detalles VARCHAR(4000))";
+    private static final String[] SQL_INDICES = {
+            "CREATE INDEX IF NOT EXISTS idx_bitacora_fecha ON bitacora (fecha_hora)",
+            "CREATE INDEX IF NOT EXISTS idx_bitacora_usuario ON bitacora (usuario, fecha_hora)",
+            "CREATE INDEX IF NOT EXISTS idx_bitacora_operacion ON bitacora (tipo_operacion, fecha_hora)"
+    };
+    static final String SQL_INSERTAR =
+            "INSERT INTO bitacora (posicion, fecha_hora, usuario, tipo_operacion, empleado_afectado, detalles) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SQL_ULTIMA_POSICION = "SELECT MAX(posicion) FROM bitacora";
+    private static final String SQL_BUSCAR =
+            "SELECT fecha_hora, usuario, tipo_operacion, empleado_afectado, detalles FROM bitacora";
+
+    private final PoolConexionesJdbc pool;
+    private boolean tablaCreada = false;
+
+    public JdbcBitacoraStore(PoolConexionesJdbc pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Inserta un lote ya escrito en la bitácora, en una sola transacción
+     *
+     * @param posiciones posición lógica de cada registro en la bitácora
+     */
+    public void agregarLote(long[] posiciones, List<Bitacora> registros) throws IOException {
+        asegurarTabla();
+        try {
+            pool.enTransaccion(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR)) {
+                    for (int i = 0; i < registros.size(); i++) {
+                        asignarCampos(ps, posiciones[i], registros.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error copiando bitácora a la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Posición lógica del último registro copiado, o -1 si la tabla está vacía
+     */
+    public long ultimaPosicion() throws IOException {
+        asegurarTabla();
+        try {
+            return pool.ejecutar(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_ULTIMA_POSICION);
+                     ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        long posicion = rs.getLong(1);
+                        return rs.wasNull() ? -1L : posicion;
+                    }
+                    return -1L;
+                }
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error consultando bitácora en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registros que cumplen todos los criterios dados (los null no filtran), en orden de la bitácora.
+     * El rango de fechas es inclusivo.
+     */
+    public List<Bitacora> buscar(String usuario, String tipoOperacion, LocalDateTime desde, LocalDateTime hasta)
+            throws IOException {
+        asegurarTabla();
+        StringBuilder sql = new StringBuilder(SQL_BUSCAR);
+        List<Object> parametros = new ArrayList<>(4);
+        agregarCondicion(sql, parametros, "usuario = ?", usuario);
+        agregarCondicion(sql, parametros, "tipo_operacion = ?", tipoOperacion);
+        agregarCondicion(sql, parametros, "fecha_hora >= ?", desde != null ? Timestamp.valueOf(desde) : null);
+        agregarCondicion(sql, parametros, "fecha_hora <= ?", hasta != null ? Timestamp.valueOf(hasta) : null);
+        sql.append(" ORDER BY posicion");
+        try {
+            return pool.ejecutar(conexion -> {
+                List<Bitacora> resultado = new ArrayList<>();
+                try (PreparedStatement ps = conexion.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < parametros.size(); i++) {
+                        ps.setObject(i + 1, parametros.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            resultado.add(new Bitacora(rs.getString("usuario"),
+                                    rs.getTimestamp("fecha_hora").toLocalDateTime(), rs.getString("tipo_operacion"),
+                                    rs.getString("detalles"), rs.getString("empleado_afectado")));
+                        }
+                    }
+                }
+                return resultado;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error consultando bitácora en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    private static void agregarCondicion(StringBuilder sql, List<Object> parametros, String condicion, Object valor) {
+        if (valor == null) {
+            return;
+        }
+        sql.append(parametros.isEmpty() ? " WHERE " : " AND ").append(condicion);
+        parametros.add(valor);
+    }
+
+    /**
+     * Parámetros de SQL_INSERTAR
+     */
+    static void asignarCampos(PreparedStatement ps, long posicion, Bitacora registro) throws SQLException {
+        ps.setLong(1, posicion);
+        ps.setTimestamp(2, Timestamp.valueOf(registro.getFechaHora()));
+        ps.setString(3, registro.getUsuario());
+        ps.setString(4, registro.getTipoOperacion());
+        ps.setString(5, registro.getEmpleadoAfectado());
+        ps.setString(6, registro.getDetalles());
+    }
+
+    synchronized void asegurarTabla() throws IOException {
+        if (tablaCreada) {
+            return;
+        }
+        try {
+            pool.crearSiNoExisten(SQL_CREAR, SQL_INDICES);
+            tablaCreada = true;
+        } catch (SQLException e) {
+            throw new IOException("Error creando la tabla de bitácora: " + e.getMessage(), e);
+        }
+    }
+}
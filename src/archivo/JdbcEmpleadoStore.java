@@ -0,0 +1,137 @@
+package archivo;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+
+/**
+ * Employee store on a database table, through a PoolConexionesJdbc.
+ * Uses only portable SQL (works with embedded H2 or SQLite files); the table is created
+ * on first use. The orden column keeps the registration order that the file store has.
+ */
+public class JdbcEmpleadoStore implements EmpleadoStore {
+
+    private static final String SQL_CREAR =
+            "CREATE TABLE IF NOT EXISTS empleados ("
+            + "username VARCHAR(100) NOT NULL PRIMARY KEY, "
+            + "password VARCHAR(255) NOT NULL, "
+            + "nombre VARCHAR(255), "
+            + "dpi VARCHAR(50), "
+            + "area VARCHAR(100), "
+            + "turno VARCHAR(50), "
+            + "estado VARCHAR(50), "
+            + "email VARCHAR(255), "
+            + "rol VARCHAR(50), "
+            + "orden BIGINT NOT NULL)";
+    private static final String[] SQL_INDICES = {
+            "CREATE INDEX IF NOT EXISTS idx_empleados_dpi ON empleados (dpi)",
+            "CREATE INDEX IF NOT EXISTS idx_empleados_estado ON empleados (estado)",
+            "CREATE INDEX IF NOT EXISTS idx_empleados_orden ON empleados (orden)"
+    };
+    private static final String SQL_CARGAR =
+            "SELECT username, password, nombre, dpi, area, turno, estado, email, rol FROM empleados ORDER BY orden";
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE empleados SET password = ?, nombre = ?, dpi = ?, area = ?, turno = ?, estado = ?, "
+            + "email = ?, rol = ? WHERE username = ?";
+    private static final String SQL_SIGUIENTE_ORDEN = "SELECT COALESCE(MAX(orden), 0) + 1 FROM empleados";
+    static final String SQL_INSERTAR =
+            "INSERT INTO empleados (password, nombre, dpi, area, turno, estado, email, rol, username, orden) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PoolConexionesJdbc pool;
+    private boolean tablaCreada = false;
+
+    public JdbcEmpleadoStore(PoolConexionesJdbc pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void cargar(Receptor receptor) throws IOException {
+        asegurarTabla();
+        try {
+            pool.ejecutar(conexion -> {
+                try (Statement st = conexion.createStatement();
+                     ResultSet rs = st.executeQuery(SQL_CARGAR)) {
+                    while (rs.next()) {
+                        Empleado emp = new Empleado(rs.getString("dpi"), rs.getString("nombre"),
+                                rs.getString("username"), rs.getString("area"), rs.getString("turno"),
+                                rs.getString("estado"), rs.getString("email"), rs.getString("password"));
+                        String rol = rs.getString("rol");
+                        emp.setRole(rol != null ? rol : "Empleado");
+                        if (!receptor.agregado(emp)) {
+                            System.err.println("Empleado duplicado ignorado (DPI ya registrado): " + emp.getUsername());
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error cargando empleados de la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Updates the row of the employee, or inserts it at the end if it does not exist
+     */
+    @Override
+    public void guardar(Empleado empleado, Collection<Empleado> todos) throws IOException {
+        asegurarTabla();
+        try {
+            pool.enTransaccion(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_ACTUALIZAR)) {
+                    asignarCampos(ps, empleado);
+                    if (ps.executeUpdate() > 0) {
+                        return null;
+                    }
+                }
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR)) {
+                    asignarCampos(ps, empleado);
+                    ps.setLong(10, siguienteOrden(conexion));
+                    ps.executeUpdate();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error guardando empleado en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parameters 1-9 shared by SQL_ACTUALIZAR and SQL_INSERTAR
+     */
+    static void asignarCampos(PreparedStatement ps, Empleado emp) throws SQLException {
+        ps.setString(1, emp.getPassword());
+        ps.setString(2, emp.getNombre());
+        ps.setString(3, emp.getDpi());
+        ps.setString(4, emp.getArea());
+        ps.setString(5, emp.getTurno());
+        ps.setString(6, emp.getEstado());
+        ps.setString(7, emp.getEmail());
+        ps.setString(8, emp.getRole() != null ? emp.getRole() : "Empleado");
+        ps.setString(9, emp.getUsername());
+    }
+
+    static long siguienteOrden(Connection conexion) throws SQLException {
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery(SQL_SIGUIENTE_ORDEN)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    synchronized void asegurarTabla() throws IOException {
+        if (tablaCreada) {
+            return;
+        }
+        try {
+            pool.crearSiNoExisten(SQL_CREAR, SQL_INDICES);
+            tablaCreada = true;
+        } catch (SQLException e) {
+            throw new IOException("Error creando la tabla de empleados: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package archivo;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Almacén de solicitudes en una tabla de base de datos, a través de un PoolConexionesJdbc.
+ * Usa solo SQL portable (funciona con H2 o SQLite embebidos); la tabla se crea al primer uso.
+ * Cada alta o cambio de estado numera la fila con la siguiente versión, así una sincronización
+ * solo lee las filas con versión mayor a la última vista, incluidas las que escribió otro proceso.
+ * La versión sale de una fila contador que cada escritor incrementa dentro de su transacción:
+ * el incremento bloquea la fila hasta el commit, así dos escritores nunca comparten versión y
+ * las versiones se confirman en orden (ninguna aparece después por debajo de la ya leída).
+ * Los IDs de solicitudes nuevas salen de otra fila contador de la misma tabla, así varios
+ * procesos que comparten la base nunca reservan el mismo ID.
+ */
+public class JdbcSolicitudStore implements SolicitudStore {
+
+    private static final Solicitud.TipoSolicitud[] TIPOS = Solicitud.TipoSolicitud.values();
+    private static final Solicitud.EstadoSolicitud[] ESTADOS = Solicitud.EstadoSolicitud.values();
+
+    private static final String SQL_CREAR =
+            "CREATE TABLE IF NOT EXISTS solicitudes ("
+            + "id INTEGER NOT NULL PRIMARY KEY, "
+            + "empleado_dpi VARCHAR(50) NOT NULL, "
+            + "empleado_nombre VARCHAR(255), "
+            + "tipo VARCHAR(30) NOT NULL, "
+            + "descripcion VARCHAR(2000), "
+            + "fecha_inicio TIMESTAMP, "
+            + "fecha_fin TIMESTAMP, "
+            + "fecha_solicitud TIMESTAMP, "
+            + "estado VARCHAR(20) NOT NULL, "
+            + "aprobado_por VARCHAR(100), "
+            + "motivo_rechazo VARCHAR(2000), "
+            + "fecha_procesamiento TIMESTAMP, "
+            + "version BIGINT NOT NULL)";
+    private static final String[] SQL_INDICES = {
+            "CREATE INDEX IF NOT EXISTS idx_solicitudes_dpi ON solicitudes (empleado_dpi)",
+            "CREATE INDEX IF NOT EXISTS idx_solicitudes_estado ON solicitudes (estado, fecha_solicitud)",
+            "CREATE INDEX IF NOT EXISTS idx_solicitudes_fechas ON solicitudes (fecha_inicio, fecha_fin)",
+            "CREATE INDEX IF NOT EXISTS idx_solicitudes_version ON solicitudes (version)"
+    };
+    private static final String COLUMNAS =
+            "id, empleado_dpi, empleado_nombre, tipo, descripcion, fecha_inicio, fecha_fin, fecha_solicitud, "
+            + "estado, aprobado_por, motivo_rechazo, fecha_procesamiento, version";
+    // La primera lectura sigue el orden de creación; las siguientes, el de los cambios
+    private static final String SQL_CARGAR = "SELECT " + COLUMNAS + " FROM solicitudes ORDER BY id";
+    private static final String SQL_CAMBIOS =
+            "SELECT " + COLUMNAS + " FROM solicitudes WHERE version > ? ORDER BY version";
+    // Contadores: la fila 1 tiene la última versión asignada y la fila 2 el último ID entregado
+    private static final String SQL_CREAR_CONTADOR =
+            "CREATE TABLE IF NOT EXISTS solicitudes_version (id INTEGER NOT NULL PRIMARY KEY, valor BIGINT NOT NULL)";
+    private static final String SQL_INICIAR_CONTADOR =
+            "INSERT INTO solicitudes_version (id, valor) SELECT 1, COALESCE(MAX(version), 0) FROM solicitudes "
+            + "WHERE NOT EXISTS (SELECT 1 FROM solicitudes_version WHERE id = 1)";
+    private static final String SQL_INICIAR_CONTADOR_ID =
+            "INSERT INTO solicitudes_version (id, valor) SELECT 2, COALESCE(MAX(id), 0) FROM solicitudes "
+            + "WHERE NOT EXISTS (SELECT 1 FROM solicitudes_version WHERE id = 2)";
+    // Por si se escribieron filas sin pasar por los contadores (la migración, o una versión anterior de la aplicación)
+    private static final String SQL_AJUSTAR_CONTADOR =
+            "UPDATE solicitudes_version SET valor = (SELECT COALESCE(MAX(version), 0) FROM solicitudes) "
+            + "WHERE id = 1 AND valor < (SELECT COALESCE(MAX(version), 0) FROM solicitudes)";
+    private static final String SQL_AJUSTAR_CONTADOR_ID =
+            "UPDATE solicitudes_version SET valor = (SELECT COALESCE(MAX(id), 0) FROM solicitudes) "
+            + "WHERE id = 2 AND valor < (SELECT COALESCE(MAX(id), 0) FROM solicitudes)";
+    private static final String SQL_INCREMENTAR_CONTADOR = "UPDATE solicitudes_version SET valor = valor + 1 WHERE id = 1";
+    private static final String SQL_LEER_CONTADOR = "SELECT valor FROM solicitudes_version WHERE id = 1";
+    private static final String SQL_INCREMENTAR_CONTADOR_ID = "UPDATE solicitudes_version SET valor = valor + 1 WHERE id = 2";
+    private static final String SQL_LEER_CONTADOR_ID = "SELECT valor FROM solicitudes_version WHERE id = 2";
+    // Versiones por debajo de la última vista que se vuelven a leer en cada sincronización, por si
+    // otro proceso escribió sin el contador; releer una fila sin cambios no tiene efecto
+    private static final long VENTANA_RELECTURA = 50;
+    static final String SQL_INSERTAR =
+            "INSERT INTO solicitudes (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_ACTUALIZAR_ESTADO =
+            "UPDATE solicitudes SET estado = ?, aprobado_por = ?, motivo_rechazo = ?, fecha_procesamiento = ?, "
+            + "version = ? WHERE id = ?";
+
+    private final PoolConexionesJdbc pool;
+    private boolean tablaCreada = false;
+
+    // Solicitudes ya entregadas y versión más alta leída
+    private final Map<Integer, Solicitud> solicitudesPorId = new HashMap<>();
+    private long ultimaVersion = 0;
+    private boolean cargadas = false;
+
+    public JdbcSolicitudStore(PoolConexionesJdbc pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void sincronizar(Receptor receptor) throws IOException {
+        asegurarTabla();
+        boolean primera = !cargadas;
+        try {
+            pool.ejecutar(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(primera ? SQL_CARGAR : SQL_CAMBIOS)) {
+                    if (!primera) {
+                        ps.setLong(1, Math.max(0, ultimaVersion - VENTANA_RELECTURA));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            aplicarFila(rs, receptor);
+                        }
+                    }
+                }
+                return null;
+            });
+            cargadas = true;
+        } catch (SQLException e) {
+            throw new IOException("Error leyendo solicitudes de la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Entrega la fila como solicitud nueva, o aplica su estado a la ya entregada
+     */
+    private void aplicarFila(ResultSet rs, Receptor receptor) throws SQLException {
+        ultimaVersion = Math.max(ultimaVersion, rs.getLong("version"));
+        int id = rs.getInt("id");
+        Solicitud.EstadoSolicitud estado = ESTADOS[indice(ESTADOS, rs.getString("estado"))];
+        Solicitud existente = solicitudesPorId.get(id);
+        if (existente == null) {
+            Solicitud solicitud = new Solicitud(id, rs.getString("empleado_dpi"), rs.getString("empleado_nombre"),
+                    TIPOS[indice(TIPOS, rs.getString("tipo"))], rs.getString("descripcion"),
+                    fecha(rs, "fecha_inicio"), fecha(rs, "fecha_fin"));
+            solicitud.setFechaSolicitud(fecha(rs, "fecha_solicitud"));
+            aplicarEstado(solicitud, estado, rs);
+            solicitudesPorId.put(id, solicitud);
+            receptor.agregada(solicitud);
+            return;
+        }
+        Solicitud.EstadoSolicitud anterior = existente.getEstado();
+        aplicarEstado(existente, estado, rs);
+        if (anterior != estado) {
+            receptor.estadoCambiado(existente, anterior);
+        }
+    }
+
+    private static void aplicarEstado(Solicitud solicitud, Solicitud.EstadoSolicitud estado, ResultSet rs)
+            throws SQLException {
+        solicitud.setEstado(estado);
+        solicitud.setAprobadoPor(rs.getString("aprobado_por"));
+        solicitud.setMotivoRechazo(rs.getString("motivo_rechazo"));
+        solicitud.setFechaProcesamiento(fecha(rs, "fecha_procesamiento"));
+    }
+
+    @Override
+    public int siguienteId() throws IOException {
+        asegurarTabla();
+        try {
+            long id = pool.enTransaccion(conexion ->
+                    incrementar(conexion, SQL_INCREMENTAR_CONTADOR_ID, SQL_LEER_CONTADOR_ID, "IDs"));
+            return Math.toIntExact(id);
+        } catch (SQLException e) {
+            throw new IOException("Error reservando ID de solicitud en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void agregar(Solicitud solicitud) throws IOException {
+        asegurarTabla();
+        try {
+            pool.enTransaccion(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR)) {
+                    asignarCampos(ps, solicitud, siguienteVersion(conexion));
+                    ps.executeUpdate();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error guardando solicitud en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void actualizarEstado(Solicitud solicitud) throws IOException {
+        asegurarTabla();
+        try {
+            int filas = pool.enTransaccion(conexion -> {
+                try (PreparedStatement ps = conexion.prepareStatement(SQL_ACTUALIZAR_ESTADO)) {
+                    ps.setString(1, solicitud.getEstado().name());
+                    ps.setString(2, solicitud.getAprobadoPor());
+                    ps.setString(3, solicitud.getMotivoRechazo());
+                    asignarFecha(ps, 4, solicitud.getFechaProcesamiento());
+                    ps.setLong(5, siguienteVersion(conexion));
+                    ps.setInt(6, solicitud.getId());
+                    return ps.executeUpdate();
+                }
+            });
+            if (filas == 0) {
+                throw new IOException("Solicitud con ID " + solicitud.getId() + " no existe en la base de datos");
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error actualizando solicitud en la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void reiniciar() {
+        solicitudesPorId.clear();
+        ultimaVersion = 0;
+        cargadas = false;
+    }
+
+    /**
+     * Parámetros de SQL_INSERTAR, en el orden de COLUMNAS
+     */
+    static void asignarCampos(PreparedStatement ps, Solicitud solicitud, long version) throws SQLException {
+        ps.setInt(1, solicitud.getId());
+        ps.setString(2, solicitud.getEmpleadoDpi());
+        ps.setString(3, solicitud.getEmpleadoNombre());
+        ps.setString(4, solicitud.getTipo().name());
+        ps.setString(5, solicitud.getDescripcion());
+        asignarFecha(ps, 6, solicitud.getFechaInicio());
+        asignarFecha(ps, 7, solicitud.getFechaFin());
+        asignarFecha(ps, 8, solicitud.getFechaSolicitud());
+        ps.setString(9, solicitud.getEstado().name());
+        ps.setString(10, solicitud.getAprobadoPor());
+        ps.setString(11, solicitud.getMotivoRechazo());
+        asignarFecha(ps, 12, solicitud.getFechaProcesamiento());
+        ps.setLong(13, version);
+    }
+
+    /**
+     * Incrementa el contador y devuelve la nueva versión. Debe llamarse dentro de la transacción
+     * que escribe la fila: el contador queda bloqueado para los demás escritores hasta el commit.
+     */
+    static long siguienteVersion(Connection conexion) throws SQLException {
+        return incrementar(conexion, SQL_INCREMENTAR_CONTADOR, SQL_LEER_CONTADOR, "versiones");
+    }
+
+    private static long incrementar(Connection conexion, String sqlIncrementar, String sqlLeer, String contador)
+            throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            if (st.executeUpdate(sqlIncrementar) != 1) {
+                throw new SQLException("Falta el contador de " + contador + " de solicitudes");
+            }
+            try (ResultSet rs = st.executeQuery(sqlLeer)) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Lleva los contadores hasta la versión y el ID más altos de la tabla (después de insertar
+     * filas con versiones e IDs propios, como hace la migración)
+     */
+    static void ajustarContadores(Connection conexion) throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            st.executeUpdate(SQL_AJUSTAR_CONTADOR);
+            st.executeUpdate(SQL_AJUSTAR_CONTADOR_ID);
+        }
+    }
+
+    private static void asignarFecha(PreparedStatement ps, int parametro, LocalDateTime fecha) throws SQLException {
+        if (fecha != null) {
+            ps.setTimestamp(parametro, Timestamp.valueOf(fecha));
+        } else {
+            ps.setNull(parametro, Types.TIMESTAMP);
+        }
+    }
+
+    private static LocalDateTime fecha(ResultSet rs, String columna) throws SQLException {
+        Timestamp valor = rs.getTimestamp(columna);
+        return valor != null ? valor.toLocalDateTime() : null;
+    }
+
+    private static int indice(Enum<?>[] valores, String nombre) throws SQLException {
+        for (Enum<?> valor : valores) {
+            if (valor.name().equals(nombre)) {
+                return valor.ordinal();
+            }
+        }
+        throw new SQLException("Valor desconocido: " + nombre);
+    }
+
+    synchronized void asegurarTabla() throws IOException {
+        if (tablaCreada) {
+            return;
+        }
+        try {
+            pool.crearSiNoExisten(SQL_CREAR, SQL_INDICES);
+            pool.crearSiNoExisten(SQL_CREAR_CONTADOR);
+            pool.ejecutar(conexion -> {
+                iniciarContador(conexion, SQL_INICIAR_CONTADOR, SQL_LEER_CONTADOR);
+                iniciarContador(conexion, SQL_INICIAR_CONTADOR_ID, SQL_LEER_CONTADOR_ID);
+                ajustarContadores(conexion);
+                return null;
+            });
+            tablaCreada = true;
+        } catch (SQLException e) {
+            throw new IOException("Error creando la tabla de solicitudes: " + e.getMessage(), e);
+        }
+    }
+
+    private static void iniciarContador(Connection conexion, String sqlIniciar, String sqlLeer) throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            try {
+                st.executeUpdate(sqlIniciar);
+            } catch (SQLException e) {
+                // Otro proceso creó la fila al mismo tiempo
+                try (ResultSet rs = st.executeQuery(sqlLeer)) {
+                    if (!rs.next()) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package archivo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector perezoso de la bitácora, compartido por todo el proceso.
+ * No lee nada al crearse: el historial se carga la primera vez que se consulta y luego
+ * solo se leen las líneas agregadas desde la última lectura (si la bitácora fue truncada
+ * o reemplazada se vuelve a cargar completa). Recorre todos los segmentos en orden.
+ */
+public class LectorBitacora {
+
+    private static LectorBitacora instancia;
+
+    private final SegmentosBitacora segmentos;
+    private final List<Bitacora> registros = new ArrayList<>();
+    private long offsetLeido = 0;   // Posición lógica hasta donde se leyó
+
+    public LectorBitacora(SegmentosBitacora segmentos) {
+        this.segmentos = segmentos;
+    }
+
+    public static synchronized LectorBitacora getInstancia() {
+        if (instancia == null) {
+            instancia = new LectorBitacora(SegmentosBitacora.getInstancia());
+        }
+        return instancia;
+    }
+
+    /**
+     * Todos los registros de la bitácora, incluidos los que el escritor aún tenía pendientes
+     */
+    public synchronized List<Bitacora> obtenerRegistros() {
+        EscritorBitacora.getInstancia().vaciar();
+        sincronizar();
+        return new ArrayList<>(registros);
+    }
+
+    private void sincronizar() {
+        try {
+            long tamano = segmentos.tamanoLogico();
+            if (tamano == offsetLeido) {
+                return;
+            }
+            if (tamano < offsetLeido || !segmentos.terminaEnLinea(offsetLeido)) {
+                registros.clear();
+                offsetLeido = 0;
+            }
+            try (InputStream in = segmentos.abrirDesde(offsetLeido)) {
+                SegmentosBitacora.LectorLineas lector = new SegmentosBitacora.LectorLineas(in);
+                for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                    offsetLeido += lector.bytesUltimaLinea();
+                    if (linea.isEmpty()) {
+                        continue;
+                    }
+                    Bitacora registro = Bitacora.parsear(linea);
+                    if (registro != null) {
+                        registros.add(registro);
+                    } else {
+                        System.err.println("Línea de bitácora inválida: " + linea);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error cargando bitácora: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package archivo;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Tokenizador de una sola pasada para las líneas delimitadas por '|' de los archivos de datos.
+ * Solo guarda la posición de cada campo; el texto de un campo se crea únicamente cuando
+ * se pide, y los números, fechas y enums se decodifican directamente desde la línea.
+ * Una instancia se reutiliza línea por línea, por lo que no es thread-safe.
+ */
+public class LectorCampos {
+
+    private final char separador;
+    private String linea;
+    private int cantidad;
+    private int[] inicios = new int[16];
+    private int[] fines = new int[16];
+
+    public LectorCampos() {
+        this('|');
+    }
+
+    public LectorCampos(char separador) {
+        this.separador = separador;
+    }
+
+    /**
+     * Ubica los campos de la línea (incluye los campos vacíos, también al final)
+     */
+    public LectorCampos cargar(String linea) {
+        this.linea = linea;
+        cantidad = 0;
+        int inicio = 0;
+        int largo = linea.length();
+        for (int i = 0; i < largo; i++) {
+            if (linea.charAt(i) == separador) {
+                agregarCampo(inicio, i);
+                inicio = i + 1;
+            }
+        }
+        agregarCampo(inicio, largo);
+        return this;
+    }
+
+    private void agregarCampo(int inicio, int fin) {
+        if (cantidad == inicios.length) {
+            inicios = Arrays.copyOf(inicios, cantidad * 2);
+            fines = Arrays.copyOf(fines, cantidad * 2);
+        }
+        inicios[cantidad] = inicio;
+        fines[cantidad] = fin;
+        cantidad++;
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Cantidad de campos sin contar los vacíos del final (igual que String.split sin límite)
+     */
+    public int cantidadSinVaciosFinales() {
+        int n = cantidad;
+        while (n > 0 && vacio(n - 1)) {
+            n--;
+        }
+        return n;
+    }
+
+    public boolean vacio(int campo) {
+        return inicios[campo] == fines[campo];
+    }
+
+    public String texto(int campo) {
+        return linea.substring(inicios[campo], fines[campo]);
+    }
+
+    /**
+     * Texto del campo restaurando los '|' que se guardaron como '~'
+     */
+    public String textoEscapado(int campo) {
+        return texto(campo).replace('~', '|');
+    }
+
+    public int entero(int campo) {
+        int inicio = inicios[campo];
+        int fin = fines[campo];
+        if (inicio == fin) {
+            throw new NumberFormatException("Campo " + campo + " vacío");
+        }
+        boolean negativo = linea.charAt(inicio) == '-';
+        int i = negativo ? inicio + 1 : inicio;
+        if (i == fin || fin - i > 10) {
+            throw new NumberFormatException("Número inválido: " + texto(campo));
+        }
+        long valor = 0;
+        for (; i < fin; i++) {
+            int digito = linea.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new NumberFormatException("Número inválido: " + texto(campo));
+            }
+            valor = valor * 10 + digito;
+        }
+        valor = negativo ? -valor : valor;
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Número fuera de rango: " + texto(campo));
+        }
+        return (int) valor;
+    }
+
+    public LocalDateTime fechaHora(int campo) {
+        return FechaHoraTexto.parsear(linea, inicios[campo], fines[campo]);
+    }
+
+    /**
+     * Busca la constante del enum cuyo nombre coincide con el campo, sin crear el texto
+     */
+    public <E extends Enum<E>> E enumeracion(int campo, E[] valores) {
+        int inicio = inicios[campo];
+        int largo = fines[campo] - inicio;
+        for (E valor : valores) {
+            String nombre = valor.name();
+            if (nombre.length() == largo && linea.regionMatches(inicio, nombre, 0, largo)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Valor no reconocido: " + texto(campo));
+    }
+}
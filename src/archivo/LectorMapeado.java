@@ -0,0 +1,283 @@
+package archivo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Tokenizador de líneas delimitadas por '|' sobre un archivo mapeado en memoria (FileChannel.map).
+ * Busca los separadores directamente en los bytes del mapeo: no hay lector de caracteres ni
+ * copia de la línea, y el texto de un campo se decodifica solo cuando se pide.
+ * Solo sirve para codificaciones en las que '|', '\n' y los dígitos ASCII no pueden aparecer dentro
+ * de otro carácter (UTF-8 o de un byte por carácter); ver admite().
+ * Una instancia recorre un solo mapeo y no es thread-safe.
+ */
+public class LectorMapeado {
+
+    /**
+     * Debajo de este tamaño leer el archivo de una vez cuesta menos que mapearlo
+     */
+    static final long MIN_BYTES_MAPEO = 256 * 1024;
+
+    /**
+     * En Windows un archivo mapeado no puede truncarse ni reemplazarse hasta que el recolector
+     * libere el mapeo (Java 8 no permite liberarlo antes), y los almacenes reescriben sus archivos
+     */
+    static final boolean MAPEO_POR_DEFECTO =
+            !System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+
+    private final ByteBuffer bytes;
+    private final ByteBuffer copia; // Vista para copiar rangos con una sola lectura
+    private final Charset charset;
+    private final boolean incluirUltimaSinSalto;
+    private byte[] temporal = new byte[128];
+    private int inicioLinea;
+    private int finLinea;       // Sin el '\r' final
+    private int siguienteLinea; // Después del '\n'
+    private int cantidad;
+    private int[] inicios = new int[16];
+    private int[] fines = new int[16];
+
+    /**
+     * @param incluirUltimaSinSalto si la última línea sin '\n' se entrega (archivo completo) o se
+     *                              deja para después (puede estar a medio escribir)
+     */
+    public LectorMapeado(ByteBuffer bytes, Charset charset, boolean incluirUltimaSinSalto) {
+        this.bytes = bytes;
+        this.copia = bytes.duplicate();
+        this.charset = charset;
+        this.incluirUltimaSinSalto = incluirUltimaSinSalto;
+        this.siguienteLinea = bytes.position();
+    }
+
+    /**
+     * Si conviene mapear una región de ese tamaño con esa codificación
+     */
+    public static boolean admite(long bytes, Charset charset) {
+        if (bytes < MIN_BYTES_MAPEO || bytes > Integer.MAX_VALUE) {
+            return false;
+        }
+        return charset.equals(StandardCharsets.UTF_8)
+                || (charset.newEncoder().maxBytesPerChar() == 1
+                    && Arrays.equals("|\n0".getBytes(charset), new byte[]{'|', '\n', '0'}));
+    }
+
+    /**
+     * Avanza a la próxima línea y ubica sus campos. Devuelve false al final del mapeo.
+     */
+    public boolean siguiente() {
+        int limite = bytes.limit();
+        int inicio = siguienteLinea;
+        cantidad = 0;
+        int inicioCampo = inicio;
+        for (int i = inicio; i < limite; i++) {
+            byte b = bytes.get(i);
+            if (b == '|') {
+                agregarCampo(inicioCampo, i);
+                inicioCampo = i + 1;
+            } else if (b == '\n') {
+                int fin = i > inicioCampo && bytes.get(i - 1) == '\r' ? i - 1 : i;
+                agregarCampo(inicioCampo, fin);
+                inicioLinea = inicio;
+                finLinea = fin;
+                siguienteLinea = i + 1;
+                return true;
+            }
+        }
+        if (incluirUltimaSinSalto && inicio < limite) {
+            agregarCampo(inicioCampo, limite);
+            inicioLinea = inicio;
+            finLinea = limite;
+            siguienteLinea = limite;
+            return true;
+        }
+        cantidad = 0;
+        return false;
+    }
+
+    private void agregarCampo(int inicio, int fin) {
+        if (cantidad == inicios.length) {
+            inicios = Arrays.copyOf(inicios, cantidad * 2);
+            fines = Arrays.copyOf(fines, cantidad * 2);
+        }
+        inicios[cantidad] = inicio;
+        fines[cantidad] = fin;
+        cantidad++;
+    }
+
+    /**
+     * Posición del mapeo donde empieza la próxima línea (bytes consumidos desde el inicio)
+     */
+    public int getConsumidos() {
+        return siguienteLinea;
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Cantidad de campos sin contar los vacíos del final (igual que LectorCampos)
+     */
+    public int cantidadSinVaciosFinales() {
+        int n = cantidad;
+        while (n > 0 && vacio(n - 1)) {
+            n--;
+        }
+        return n;
+    }
+
+    public boolean vacio(int campo) {
+        return inicios[campo] == fines[campo];
+    }
+
+    /**
+     * La línea no tiene más que espacios
+     */
+    public boolean enBlanco() {
+        for (int i = inicioLinea; i < finLinea; i++) {
+            if ((bytes.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String texto(int campo) {
+        return decodificar(inicios[campo], fines[campo]);
+    }
+
+    /**
+     * Copia de los bytes de la línea (sin el salto), para decodificarla más tarde sin
+     * conservar el mapeo
+     */
+    public byte[] copiarLinea() {
+        byte[] linea = new byte[finLinea - inicioLinea];
+        copiar(inicioLinea, linea, linea.length);
+        return linea;
+    }
+
+    /**
+     * Texto completo de la línea, para mensajes de error
+     */
+    public String linea() {
+        return decodificar(inicioLinea, finLinea);
+    }
+
+    public int entero(int campo) {
+        int inicio = inicios[campo];
+        int fin = fines[campo];
+        boolean negativo = inicio < fin && bytes.get(inicio) == '-';
+        int i = negativo ? inicio + 1 : inicio;
+        if (i == fin || fin - i > 10) {
+            throw new NumberFormatException("Número inválido: " + texto(campo));
+        }
+        long valor = 0;
+        for (; i < fin; i++) {
+            int digito = bytes.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new NumberFormatException("Número inválido: " + texto(campo));
+            }
+            valor = valor * 10 + digito;
+        }
+        valor = negativo ? -valor : valor;
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Número fuera de rango: " + texto(campo));
+        }
+        return (int) valor;
+    }
+
+    /**
+     * Busca la constante del enum cuyo nombre coincide con los bytes del campo
+     */
+    public <E extends Enum<E>> E enumeracion(int campo, E[] valores) {
+        int inicio = inicios[campo];
+        int largo = fines[campo] - inicio;
+        for (E valor : valores) {
+            String nombre = valor.name();
+            if (nombre.length() == largo && coincide(inicio, nombre)) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Valor no reconocido: " + texto(campo));
+    }
+
+    /**
+     * Verifica que el campo tenga la forma "yyyy-MM-dd HH:mm:ss" y sea una fecha que existe
+     * (nada de 31 de febrero), sin construirla: FechaHoraTexto la decodifica cuando se necesita
+     * y así no puede fallar después
+     */
+    public void validarFechaHora(int campo) {
+        int inicio = inicios[campo];
+        boolean valida = fines[campo] - inicio == FechaHoraTexto.LARGO;
+        for (int i = 0; valida && i < FechaHoraTexto.LARGO; i++) {
+            byte b = bytes.get(inicio + i);
+            switch (i) {
+                case 4:
+                case 7:
+                    valida = b == '-';
+                    break;
+                case 10:
+                    valida = b == ' ';
+                    break;
+                case 13:
+                case 16:
+                    valida = b == ':';
+                    break;
+                default:
+                    valida = b >= '0' && b <= '9';
+            }
+        }
+        if (valida) {
+            int anio = digitos(inicio, 4);
+            int mes = digitos(inicio + 5, 2);
+            int dia = digitos(inicio + 8, 2);
+            valida = mes >= 1 && mes <= 12
+                    && dia >= 1 && dia <= Month.of(mes).length(Year.isLeap(anio))
+                    && digitos(inicio + 11, 2) < 24
+                    && digitos(inicio + 14, 2) < 60
+                    && digitos(inicio + 17, 2) < 60;
+        }
+        if (!valida) {
+            throw new IllegalArgumentException("Fecha inválida: " + texto(campo));
+        }
+    }
+
+    private int digitos(int inicio, int cantidad) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            valor = valor * 10 + (bytes.get(i) - '0');
+        }
+        return valor;
+    }
+
+    private boolean coincide(int inicio, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes.get(inicio + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decodificar(int inicio, int fin) {
+        int largo = fin - inicio;
+        if (largo == 0) {
+            return "";
+        }
+        if (largo > temporal.length) {
+            temporal = new byte[Math.max(largo, temporal.length * 2)];
+        }
+        copiar(inicio, temporal, largo);
+        return new String(temporal, 0, largo, charset);
+    }
+
+    private void copiar(int inicio, byte[] destino, int largo) {
+        copia.limit(inicio + largo).position(inicio);
+        copia.get(destino, 0, largo);
+        copia.clear();
+    }
+}
@@ -0,0 +1,234 @@
+package archivo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+
+/**
+ * Limita el ritmo de envío de correos a lo que permite el proveedor SMTP.
+ * Un balde de fichas que se recarga a una tasa fija por segundo (con una ráfaga máxima)
+ * reparte los envíos en el tiempo: quien no tiene ficha espera en lugar de fallar.
+ * Además lleva un presupuesto por día; los avisos masivos no pueden usar la reserva final
+ * del día, que queda para los correos transaccionales, y mientras un transaccional espera
+ * ficha ningún masivo la toma.
+ * El conteo del día se guarda en un archivo (si se indica) para que reiniciar la aplicación
+ * no renueve el presupuesto.
+ */
+public class LimitadorEnvio {
+
+    /**
+     * Resultado de intentarAdquirir()
+     */
+    public enum Permiso {
+        CONCEDIDO,
+        SIN_FICHA,          // hay presupuesto pero el ritmo obliga a esperar
+        SIN_PRESUPUESTO     // se agotó el presupuesto del día para este tipo de correo
+    }
+
+    private final double porSegundo;      // <= 0: sin límite por segundo
+    private final double rafaga;
+    private final long porDia;            // <= 0: sin límite diario
+    private final long reservaTransaccional;
+    private final File archivoConteo;     // null: el conteo solo vive en memoria
+
+    private double fichas;
+    private long ultimaRecarga = System.nanoTime();
+    private LocalDate dia = LocalDate.now();
+    private long enviadosHoy = 0;
+    private int transaccionalesEsperando = 0;
+
+    public LimitadorEnvio(double porSegundo, int rafaga, long porDia, long reservaTransaccional) {
+        this(porSegundo, rafaga, porDia, reservaTransaccional, null);
+    }
+
+    /**
+     * @param archivoConteo donde se guardan el día y los envíos de ese día; null para no guardarlos
+     */
+    public LimitadorEnvio(double porSegundo, int rafaga, long porDia, long reservaTransaccional, File archivoConteo) {
+        this.porSegundo = porSegundo;
+        this.rafaga = Math.max(1, rafaga);
+        this.porDia = porDia;
+        this.reservaTransaccional = Math.max(0, reservaTransaccional);
+        this.fichas = this.rafaga;
+        this.archivoConteo = archivoConteo;
+        cargarConteo();
+    }
+
+    /**
+     * Espera hasta que el ritmo permita un envío más y lo descuenta del presupuesto.
+     * Devuelve false, sin esperar, si el presupuesto del día ya no alcanza para este tipo de correo.
+     */
+    public synchronized boolean adquirir(boolean transaccional) throws InterruptedException {
+        if (transaccional) {
+            transaccionalesEsperando++;
+        }
+        try {
+            while (true) {
+                renovarDia();
+                if (!quedaPresupuesto(transaccional)) {
+                    return false;
+                }
+                if (!transaccional && transaccionalesEsperando > 0) {
+                    wait(esperaPorFicha());
+                    continue;
+                }
+                if (tomarFicha()) {
+                    return true;
+                }
+                wait(esperaPorFicha());
+            }
+        } finally {
+            if (transaccional) {
+                transaccionalesEsperando--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Como adquirir(), pero sin esperar: si el ritmo no permite enviar ahora devuelve SIN_FICHA.
+     * Un masivo tampoco recibe ficha mientras un transaccional espera.
+     */
+    public synchronized Permiso intentarAdquirir(boolean transaccional) {
+        renovarDia();
+        if (!quedaPresupuesto(transaccional)) {
+            return Permiso.SIN_PRESUPUESTO;
+        }
+        if (!transaccional && transaccionalesEsperando > 0) {
+            return Permiso.SIN_FICHA;
+        }
+        return tomarFicha() ? Permiso.CONCEDIDO : Permiso.SIN_FICHA;
+    }
+
+    private boolean tomarFicha() {
+        recargar();
+        if (porSegundo > 0 && fichas < 1) {
+            return false;
+        }
+        fichas--;
+        enviadosHoy++;
+        guardarConteo();
+        return true;
+    }
+
+    /**
+     * Envíos que quedan hoy (Long.MAX_VALUE sin límite diario)
+     */
+    public synchronized long getRestantesHoy() {
+        renovarDia();
+        return porDia <= 0 ? Long.MAX_VALUE : Math.max(0, porDia - enviadosHoy);
+    }
+
+    /**
+     * Envíos que quedan hoy para avisos masivos, descontada la reserva de transaccionales
+     */
+    public synchronized long getRestantesMasivosHoy() {
+        renovarDia();
+        return porDia <= 0 ? Long.MAX_VALUE : Math.max(0, porDia - reservaTransaccional - enviadosHoy);
+    }
+
+    public synchronized long getEnviadosHoy() {
+        renovarDia();
+        return enviadosHoy;
+    }
+
+    /**
+     * Fichas disponibles en este momento (envíos que pueden salir sin esperar)
+     */
+    public synchronized double getFichasDisponibles() {
+        recargar();
+        return porSegundo <= 0 ? rafaga : fichas;
+    }
+
+    /**
+     * Milisegundos hasta que se renueva el presupuesto diario
+     */
+    public long getMsHastaNuevoDia() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return Math.max(1, ChronoUnit.MILLIS.between(ahora, ahora.toLocalDate().plusDays(1).atStartOfDay()));
+    }
+
+    private boolean quedaPresupuesto(boolean transaccional) {
+        if (porDia <= 0) {
+            return true;
+        }
+        long limite = transaccional ? porDia : porDia - reservaTransaccional;
+        return enviadosHoy < limite;
+    }
+
+    private void recargar() {
+        long ahora = System.nanoTime();
+        if (porSegundo > 0) {
+            fichas = Math.min(rafaga, fichas + (ahora - ultimaRecarga) / 1e9 * porSegundo);
+        }
+        ultimaRecarga = ahora;
+    }
+
+    private long esperaPorFicha() {
+        if (porSegundo <= 0) {
+            return 10;
+        }
+        return Math.max(1, (long) Math.ceil((1 - fichas) / porSegundo * 1000));
+    }
+
+    private void renovarDia() {
+        LocalDate hoy = LocalDate.now();
+        if (!hoy.equals(dia)) {
+            dia = hoy;
+            enviadosHoy = 0;
+        }
+    }
+
+    /**
+     * Retoma el conteo guardado si es de hoy; un archivo de otro día o ilegible se ignora
+     */
+    private void cargarConteo() {
+        if (archivoConteo == null || !archivoConteo.isFile()) {
+            return;
+        }
+        Properties datos = new Properties();
+        try (InputStream in = new FileInputStream(archivoConteo)) {
+            datos.load(in);
+            if (dia.toString().equals(datos.getProperty("dia"))) {
+                enviadosHoy = Math.max(0, Long.parseLong(datos.getProperty("enviados", "0").trim()));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo leer el conteo de envíos de " + archivoConteo.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    private void guardarConteo() {
+        if (archivoConteo == null) {
+            return;
+        }
+        Properties datos = new Properties();
+        datos.setProperty("dia", dia.toString());
+        datos.setProperty("enviados", String.valueOf(enviadosHoy));
+        File temporal = new File(archivoConteo.getPath() + ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(temporal)) {
+                datos.store(out, null);
+            }
+            Files.move(temporal.toPath(), archivoConteo.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el conteo de envíos: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        long restantes = getRestantesHoy();
+        return String.format("Enviados hoy: %d, restantes hoy: %s, fichas disponibles: %.1f",
+                enviadosHoy, restantes == Long.MAX_VALUE ? "sin límite" : String.valueOf(restantes), getFichasDisponibles());
+    }
+}
@@ -0,0 +1,36 @@
+package archivo;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de enteros en orden ascendente (lista de posiciones de un índice invertido)
+ */
+class ListaEnteros {
+    int[] valores = new int[8];
+    int tamano = 0;
+
+    void agregar(int valor) {
+        if (tamano == valores.length) {
+            valores = Arrays.copyOf(valores, tamano * 2);
+        }
+        valores[tamano++] = valor;
+    }
+
+    ListaEnteros interseccion(ListaEnteros otra) {
+        ListaEnteros resultado = new ListaEnteros();
+        int i = 0;
+        int j = 0;
+        while (i < tamano && j < otra.tamano) {
+            if (valores[i] < otra.valores[j]) {
+                i++;
+            } else if (valores[i] > otra.valores[j]) {
+                j++;
+            } else {
+                resultado.agregar(valores[i]);
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+}
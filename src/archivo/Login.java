@@ -17,15 +17,51 @@ public class Login extends javax.swing.JFrame {
     private DatabaseManager dbManager;
     private EmailService emailService;
     private BitacoraManager bitacoraManager;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
 
     /**
      * Creates new form Login
      */
     public Login() {
         initComponents();
-        dbManager = new DatabaseManager();
-        emailService = new EmailService();
+        agregarIndicador();
+        emailService = EmailService.getInstancia();
         bitacoraManager = new BitacoraManager();
+        cargarEmpleados();
+    }
+
+    /**
+     * Muestra la barra de progreso del ejecutor debajo del formulario (el diseño generado no la incluye)
+     */
+    private void agregarIndicador() {
+        java.awt.Container formulario = getContentPane();
+        javax.swing.JPanel contenido = new javax.swing.JPanel(new java.awt.BorderLayout());
+        contenido.add(formulario, java.awt.BorderLayout.CENTER);
+        contenido.add(ejecutor.getIndicador(), java.awt.BorderLayout.SOUTH);
+        setContentPane(contenido);
+        pack();
+    }
+
+    /**
+     * Los empleados se cargan en segundo plano; se puede ingresar cuando terminan. Si la carga
+     * falla se ofrece reintentar; si no, el botón se habilita igual para el acceso de compatibilidad.
+     */
+    private void cargarEmpleados() {
+        jButton1.setEnabled(false);
+        ejecutor.ejecutar("empleados", "Cargando empleados...", avance -> DatabaseManager.getInstancia(), db -> {
+            dbManager = db;
+            jButton1.setEnabled(true);
+        }, ex -> {
+            System.err.println("Error cargando empleados: " + ex.getMessage());
+            int opcion = JOptionPane.showConfirmDialog(this,
+                    "No se pudieron cargar los empleados: " + ex.getMessage() + "\n¿Desea reintentar?",
+                    "Error", JOptionPane.YES_NO_OPTION, JOptionPane.ERROR_MESSAGE);
+            if (opcion == JOptionPane.YES_OPTION) {
+                cargarEmpleados();
+            } else {
+                jButton1.setEnabled(true);
+            }
+        });
     }
 
     /**
@@ -118,6 +154,9 @@ public class Login extends javax.swing.JFrame {
     }//GEN-LAST:event_txtusuarioActionPerformed
 
     private void jButton1MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jButton1MouseClicked
+        if (!jButton1.isEnabled()) {
+            return; // Todavía se están cargando los empleados (el clic llega aunque el botón esté deshabilitado)
+        }
         String usuario = txtusuario.getText().trim();
         String password = new String(Password.getPassword());
 
@@ -129,6 +168,9 @@ public class Login extends javax.swing.JFrame {
         }
 
         try {
+            if (dbManager == null) {
+                throw new IllegalStateException("No se pudieron cargar los empleados");
+            }
             // Intentar autenticación con base de datos
             Empleado empleadoAutenticado = dbManager.autenticarUsuario(usuario, password);
 
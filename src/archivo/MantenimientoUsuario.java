@@ -36,7 +36,7 @@ public class MantenimientoUsuario extends javax.swing.JFrame {
         this.usuarioActual = usuario;
         this.dbManager = db;
         this.bitacoraManager = bitacora;
-        this.emailService = new EmailService();
+        this.emailService = EmailService.getInstancia();
     }
 
     /**
@@ -150,8 +150,8 @@ public class MantenimientoUsuario extends javax.swing.JFrame {
     }//GEN-LAST:event_jButton2ActionPerformed
 
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
-        // Solicitudes - Create SolicitudManager and pass it to the constructor
-        SolicitudManager solicitudManager = new SolicitudManager();
+        // Solicitudes - Pass the shared SolicitudManager to the constructor
+        SolicitudManager solicitudManager = SolicitudManager.getInstancia();
         Solicitudes solicitudes = new Solicitudes(usuarioActual, dbManager, bitacoraManager, emailService, solicitudManager);
         solicitudes.setVisible(true);
         this.dispose();
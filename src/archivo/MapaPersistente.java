@@ -0,0 +1,311 @@
+package archivo;
+
+/**
+ * Mapa inmutable con estructura compartida (un trie por hash, de 32 ramas por nivel).
+ * Agregar, reemplazar o quitar una clave devuelve un mapa nuevo que solo copia el camino
+ * hasta esa clave (unos pocos arreglos chicos); el resto de los nodos se comparte con el
+ * original, que sigue igual. Así una instantánea publicada nunca cambia y escribir cuesta
+ * según el cambio, no según el tamaño del mapa. No admite claves null.
+ */
+final class MapaPersistente<K, V> {
+
+    private static final MapaPersistente<Object, Object> VACIO = new MapaPersistente<>(null, 0);
+
+    private final Nodo raiz;
+    private final int tamano;
+
+    private MapaPersistente(Nodo raiz, int tamano) {
+        this.raiz = raiz;
+        this.tamano = tamano;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> MapaPersistente<K, V> vacio() {
+        return (MapaPersistente<K, V>) VACIO;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object clave) {
+        if (raiz == null || clave == null) {
+            return null;
+        }
+        Entrada entrada = raiz.buscar(hash(clave), 0, clave);
+        return entrada != null ? (V) entrada.valor : null;
+    }
+
+    boolean contiene(Object clave) {
+        return raiz != null && clave != null && raiz.buscar(hash(clave), 0, clave) != null;
+    }
+
+    /**
+     * Mapa con la clave asociada al valor (agregada o reemplazada)
+     */
+    MapaPersistente<K, V> con(K clave, V valor) {
+        int hash = hash(clave);
+        Entrada nueva = new Entrada(hash, clave, valor);
+        if (raiz == null) {
+            return new MapaPersistente<>(new Ramas(bit(hash, 0), new Object[]{nueva}), 1);
+        }
+        boolean[] agregada = new boolean[1];
+        Nodo nuevaRaiz = raiz.con(nueva, 0, agregada);
+        return nuevaRaiz == raiz ? this : new MapaPersistente<>(nuevaRaiz, agregada[0] ? tamano + 1 : tamano);
+    }
+
+    /**
+     * Mapa sin la clave (el mismo si no estaba)
+     */
+    MapaPersistente<K, V> sin(Object clave) {
+        if (raiz == null || clave == null) {
+            return this;
+        }
+        Nodo nuevaRaiz = raiz.sin(hash(clave), 0, clave);
+        if (nuevaRaiz == raiz) {
+            return this;
+        }
+        return nuevaRaiz == null ? vacio() : new MapaPersistente<>(nuevaRaiz, tamano - 1);
+    }
+
+    private static int hash(Object clave) {
+        int h = clave.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int desplazamiento) {
+        return 1 << ((hash >>> desplazamiento) & 31);
+    }
+
+    private static final class Entrada {
+        final int hash;
+        final Object clave;
+        final Object valor;
+
+        Entrada(int hash, Object clave, Object valor) {
+            this.hash = hash;
+            this.clave = clave;
+            this.valor = valor;
+        }
+
+        boolean es(int hash, Object clave) {
+            return this.hash == hash && this.clave.equals(clave);
+        }
+    }
+
+    private abstract static class Nodo {
+        abstract Entrada buscar(int hash, int desplazamiento, Object clave);
+
+        abstract Nodo con(Entrada nueva, int desplazamiento, boolean[] agregada);
+
+        /**
+         * Nodo sin la clave; null si queda vacío
+         */
+        abstract Nodo sin(int hash, int desplazamiento, Object clave);
+
+        /**
+         * La entrada, si el nodo tiene una sola y ningún hijo (para subirla al padre)
+         */
+        abstract Entrada unica();
+    }
+
+    /**
+     * Nodo con hasta 32 posiciones ocupadas según los 5 bits del hash de este nivel; cada
+     * posición tiene una Entrada o un Nodo hijo. El mapa de bits dice cuáles están ocupadas.
+     */
+    private static final class Ramas extends Nodo {
+        final int mapa;
+        final Object[] contenido;
+
+        Ramas(int mapa, Object[] contenido) {
+            this.mapa = mapa;
+            this.contenido = contenido;
+        }
+
+        private int indice(int bit) {
+            return Integer.bitCount(mapa & (bit - 1));
+        }
+
+        @Override
+        Entrada buscar(int hash, int desplazamiento, Object clave) {
+            int bit = bit(hash, desplazamiento);
+            if ((mapa & bit) == 0) {
+                return null;
+            }
+            Object elemento = contenido[indice(bit)];
+            if (elemento instanceof Nodo) {
+                return ((Nodo) elemento).buscar(hash, desplazamiento + 5, clave);
+            }
+            Entrada entrada = (Entrada) elemento;
+            return entrada.es(hash, clave) ? entrada : null;
+        }
+
+        @Override
+        Nodo con(Entrada nueva, int desplazamiento, boolean[] agregada) {
+            int bit = bit(nueva.hash, desplazamiento);
+            int i = indice(bit);
+            if ((mapa & bit) == 0) {
+                Object[] copia = new Object[contenido.length + 1];
+                System.arraycopy(contenido, 0, copia, 0, i);
+                copia[i] = nueva;
+                System.arraycopy(contenido, i, copia, i + 1, contenido.length - i);
+                agregada[0] = true;
+                return new Ramas(mapa | bit, copia);
+            }
+            Object elemento = contenido[i];
+            Object reemplazo;
+            if (elemento instanceof Nodo) {
+                Nodo hijo = (Nodo) elemento;
+                reemplazo = hijo.con(nueva, desplazamiento + 5, agregada);
+                if (reemplazo == hijo) {
+                    return this;
+                }
+            } else {
+                Entrada existente = (Entrada) elemento;
+                if (existente.es(nueva.hash, nueva.clave)) {
+                    if (existente.valor == nueva.valor) {
+                        return this;
+                    }
+                    reemplazo = nueva;
+                } else {
+                    reemplazo = dos(existente, nueva, desplazamiento + 5);
+                    agregada[0] = true;
+                }
+            }
+            Object[] copia = contenido.clone();
+            copia[i] = reemplazo;
+            return new Ramas(mapa, copia);
+        }
+
+        @Override
+        Nodo sin(int hash, int desplazamiento, Object clave) {
+            int bit = bit(hash, desplazamiento);
+            if ((mapa & bit) == 0) {
+                return this;
+            }
+            int i = indice(bit);
+            Object elemento = contenido[i];
+            Object reemplazo;
+            if (elemento instanceof Nodo) {
+                Nodo hijo = (Nodo) elemento;
+                Nodo nuevoHijo = hijo.sin(hash, desplazamiento + 5, clave);
+                if (nuevoHijo == hijo) {
+                    return this;
+                }
+                reemplazo = nuevoHijo;
+                if (nuevoHijo != null && nuevoHijo.unica() != null) {
+                    reemplazo = nuevoHijo.unica();
+                }
+            } else {
+                if (!((Entrada) elemento).es(hash, clave)) {
+                    return this;
+                }
+                reemplazo = null;
+            }
+            if (reemplazo != null) {
+                Object[] copia = contenido.clone();
+                copia[i] = reemplazo;
+                return new Ramas(mapa, copia);
+            }
+            if (mapa == bit) {
+                return null;
+            }
+            Object[] copia = new Object[contenido.length - 1];
+            System.arraycopy(contenido, 0, copia, 0, i);
+            System.arraycopy(contenido, i + 1, copia, i, copia.length - i);
+            return new Ramas(mapa & ~bit, copia);
+        }
+
+        @Override
+        Entrada unica() {
+            return contenido.length == 1 && contenido[0] instanceof Entrada ? (Entrada) contenido[0] : null;
+        }
+
+        /**
+         * Nodo con dos entradas de claves distintas que coincidieron hasta el nivel anterior
+         */
+        static Nodo dos(Entrada a, Entrada b, int desplazamiento) {
+            if (a.hash == b.hash) {
+                return new Colisiones(a.hash, new Entrada[]{a, b});
+            }
+            int bitA = bit(a.hash, desplazamiento);
+            int bitB = bit(b.hash, desplazamiento);
+            if (bitA == bitB) {
+                return new Ramas(bitA, new Object[]{dos(a, b, desplazamiento + 5)});
+            }
+            return new Ramas(bitA | bitB, Integer.compareUnsigned(bitA, bitB) < 0
+                    ? new Object[]{a, b} : new Object[]{b, a});
+        }
+    }
+
+    /**
+     * Entradas de claves distintas con el mismo hash completo
+     */
+    private static final class Colisiones extends Nodo {
+        final int hash;
+        final Entrada[] entradas;
+
+        Colisiones(int hash, Entrada[] entradas) {
+            this.hash = hash;
+            this.entradas = entradas;
+        }
+
+        private int posicion(Object clave) {
+            for (int i = 0; i < entradas.length; i++) {
+                if (entradas[i].clave.equals(clave)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Entrada buscar(int hash, int desplazamiento, Object clave) {
+            int i = hash == this.hash ? posicion(clave) : -1;
+            return i >= 0 ? entradas[i] : null;
+        }
+
+        @Override
+        Nodo con(Entrada nueva, int desplazamiento, boolean[] agregada) {
+            if (nueva.hash != hash) {
+                // Otra clave llegó hasta aquí con un hash distinto: se separan en un nodo de ramas
+                return new Ramas(bit(hash, desplazamiento), new Object[]{this}).con(nueva, desplazamiento, agregada);
+            }
+            int i = posicion(nueva.clave);
+            if (i >= 0) {
+                if (entradas[i].valor == nueva.valor) {
+                    return this;
+                }
+                Entrada[] copia = entradas.clone();
+                copia[i] = nueva;
+                return new Colisiones(hash, copia);
+            }
+            Entrada[] copia = new Entrada[entradas.length + 1];
+            System.arraycopy(entradas, 0, copia, 0, entradas.length);
+            copia[entradas.length] = nueva;
+            agregada[0] = true;
+            return new Colisiones(hash, copia);
+        }
+
+        @Override
+        Nodo sin(int hash, int desplazamiento, Object clave) {
+            int i = hash == this.hash ? posicion(clave) : -1;
+            if (i < 0) {
+                return this;
+            }
+            if (entradas.length == 1) {
+                return null;
+            }
+            Entrada[] copia = new Entrada[entradas.length - 1];
+            System.arraycopy(entradas, 0, copia, 0, i);
+            System.arraycopy(entradas, i + 1, copia, i, copia.length - i);
+            return new Colisiones(hash, copia);
+        }
+
+        @Override
+        Entrada unica() {
+            return entradas.length == 1 ? entradas[0] : null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package archivo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Employee store that keeps everything in memory and never touches the disk.
+ * Meant for tests and benchmarks; its contents are lost when the process ends.
+ */
+public class MemoriaEmpleadoStore implements EmpleadoStore {
+
+    private final Map<String, Empleado> empleados = new LinkedHashMap<>();
+
+    public MemoriaEmpleadoStore() {
+    }
+
+    /**
+     * Store that starts with the given employees
+     */
+    public MemoriaEmpleadoStore(Collection<Empleado> iniciales) {
+        for (Empleado emp : iniciales) {
+            empleados.put(emp.getUsername(), emp);
+        }
+    }
+
+    @Override
+    public synchronized void cargar(Receptor receptor) {
+        for (Empleado emp : empleados.values()) {
+            receptor.agregado(emp);
+        }
+    }
+
+    @Override
+    public synchronized void guardar(Empleado empleado, Collection<Empleado> todos) {
+        empleados.put(empleado.getUsername(), empleado);
+    }
+
+    public synchronized List<Empleado> getEmpleados() {
+        return new ArrayList<>(empleados.values());
+    }
+}
@@ -0,0 +1,61 @@
+package archivo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Almacén de solicitudes solo en memoria, para pruebas y mediciones; no toca el disco
+ * y su contenido se pierde al terminar el proceso.
+ * Entrega los mismos objetos que recibe, así que los cambios de estado que SolicitudManager
+ * hace sobre ellos ya quedan guardados.
+ */
+public class MemoriaSolicitudStore implements SolicitudStore {
+
+    private final List<Solicitud> solicitudes = new ArrayList<>();
+    private int entregadas = 0;
+    private int ultimoId = 0;
+
+    public MemoriaSolicitudStore() {
+    }
+
+    /**
+     * Almacén que empieza con las solicitudes dadas
+     */
+    public MemoriaSolicitudStore(List<Solicitud> iniciales) {
+        for (Solicitud solicitud : iniciales) {
+            agregar(solicitud);
+        }
+    }
+
+    @Override
+    public synchronized void sincronizar(Receptor receptor) {
+        for (; entregadas < solicitudes.size(); entregadas++) {
+            receptor.agregada(solicitudes.get(entregadas));
+        }
+    }
+
+    @Override
+    public synchronized int siguienteId() {
+        return ++ultimoId;
+    }
+
+    @Override
+    public synchronized void agregar(Solicitud solicitud) {
+        solicitudes.add(solicitud);
+        ultimoId = Math.max(ultimoId, solicitud.getId());
+    }
+
+    @Override
+    public void actualizarEstado(Solicitud solicitud) {
+        // El objeto guardado es el mismo que se modificó
+    }
+
+    @Override
+    public synchronized void reiniciar() {
+        entregadas = 0;
+    }
+
+    public synchronized List<Solicitud> getSolicitudes() {
+        return new ArrayList<>(solicitudes);
+    }
+}
@@ -0,0 +1,85 @@
+package archivo;
+
+/**
+ * Correo pendiente de entrega
+ */
+public class MensajeCorreo {
+    private final String id;
+    private final String destinatario;
+    private final String asunto;
+    private final String contenido;
+    private final boolean transaccional;
+    private final long encoladoNanos;
+    private int intentos;
+    private long proximoIntento; // Epoch en milisegundos
+
+    public MensajeCorreo(String destinatario, String asunto, String contenido) {
+        this(destinatario, asunto, contenido, false);
+    }
+
+    /**
+     * @param transaccional respuesta a una acción puntual (aprobación, rechazo): se entrega antes que los avisos masivos
+     */
+    public MensajeCorreo(String destinatario, String asunto, String contenido, boolean transaccional) {
+        this(null, destinatario, asunto, contenido, transaccional, 0, 0);
+    }
+
+    public MensajeCorreo(String id, String destinatario, String asunto, String contenido, boolean transaccional,
+                         int intentos, long proximoIntento) {
+        this.id = id;
+        this.destinatario = destinatario;
+        this.asunto = asunto;
+        this.contenido = contenido;
+        this.transaccional = transaccional;
+        this.intentos = intentos;
+        this.proximoIntento = proximoIntento;
+        this.encoladoNanos = System.nanoTime();
+    }
+
+    /**
+     * Copia del mensaje con el identificador que le asigna la bandeja de salida
+     */
+    public MensajeCorreo conId(String id) {
+        return new MensajeCorreo(id, destinatario, asunto, contenido, transaccional, intentos, proximoIntento);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public String getContenido() {
+        return contenido;
+    }
+
+    public boolean isTransaccional() {
+        return transaccional;
+    }
+
+    public long getEncoladoNanos() {
+        return encoladoNanos;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    public long getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(long proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+}
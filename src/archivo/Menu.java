@@ -29,7 +29,7 @@ public class Menu extends javax.swing.JFrame {
     public Menu(Empleado usuarioAutenticado) {
         initComponents();
         this.usuarioActual = usuarioAutenticado;
-        this.dbManager = new DatabaseManager();
+        this.dbManager = DatabaseManager.getInstancia();
         this.bitacoraManager = new BitacoraManager();
 
         // Personalizar la interfaz con información del usuario
@@ -24,7 +24,7 @@ public class MenuEmpleado extends JFrame {
 
     public MenuEmpleado(Empleado empleado) {
         this.empleadoActual = empleado;
-        this.dbManager = new DatabaseManager();
+        this.dbManager = DatabaseManager.getInstancia();
         this.bitacoraManager = new BitacoraManager();
         
         initComponents();
@@ -0,0 +1,287 @@
+package archivo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copia única de los archivos de texto (Empleadosguardados.txt, solicitudes.txt con sus archivos
+ * de estados y motivos, y los segmentos de la bitácora) a la base de datos configurada en
+ * almacenamiento.properties. Después se cambia almacen.tipo a JDBC.
+ *
+ * Los archivos se leen línea por línea y las filas se insertan con executeBatch, de a
+ * TAMANO_LOTE, sin cargar los archivos en memoria; todo va en una sola transacción, así que si
+ * algo falla la base queda vacía y se puede volver a intentar. La aplicación no debe estar abierta
+ * mientras se migra. Los archivos no se modifican, salvo que el journal de empleados pendiente
+ * se compacta antes de leer.
+ *
+ * Uso: java -cp ...:driver.jar archivo.MigradorBaseDatos
+ */
+public class MigradorBaseDatos {
+
+    static final int TAMANO_LOTE = 1000;
+
+    private static final String SQL_MIGRAR_ESTADO =
+            "UPDATE solicitudes SET estado = ?, aprobado_por = ?, fecha_procesamiento = ? WHERE id = ?";
+    private static final String SQL_MIGRAR_MOTIVO = "UPDATE solicitudes SET motivo_rechazo = ? WHERE id = ?";
+
+    /**
+     * Falla de SQL dentro de un recorrido de archivo (los receptores no pueden lanzar SQLException)
+     */
+    private static final class ErrorMigracion extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ErrorMigracion(SQLException causa) {
+            super(causa);
+        }
+    }
+
+    private interface Parametros {
+        void asignar(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Sentencia preparada que acumula filas y las envía de a TAMANO_LOTE
+     */
+    private static final class Lote implements AutoCloseable {
+        private final PreparedStatement ps;
+        private int pendientes = 0;
+        private long filas = 0;
+
+        Lote(Connection conexion, String sql) throws SQLException {
+            this.ps = conexion.prepareStatement(sql);
+        }
+
+        void agregar(Parametros parametros) {
+            try {
+                parametros.asignar(ps);
+                ps.addBatch();
+                filas++;
+                if (++pendientes == TAMANO_LOTE) {
+                    vaciar();
+                }
+            } catch (SQLException e) {
+                throw new ErrorMigracion(e);
+            }
+        }
+
+        void vaciar() throws SQLException {
+            if (pendientes > 0) {
+                ps.executeBatch();
+                pendientes = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                vaciar();
+            } finally {
+                ps.close();
+            }
+        }
+    }
+
+    private final Almacenamiento almacenamiento;
+    private final PoolConexionesJdbc pool;
+    private final SegmentosBitacora bitacora;
+
+    private long empleados;
+    private long solicitudes;
+    private long estados;
+    private long motivos;
+    private long registrosBitacora;
+
+    public MigradorBaseDatos(Almacenamiento almacenamiento, SegmentosBitacora bitacora) {
+        this.almacenamiento = almacenamiento;
+        this.pool = almacenamiento.getPool();
+        this.bitacora = bitacora;
+    }
+
+    public static void main(String[] args) {
+        long inicio = System.nanoTime();
+        MigradorBaseDatos migrador = new MigradorBaseDatos(Almacenamiento.getInstancia(),
+                SegmentosBitacora.getInstancia());
+        try {
+            migrador.migrar();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Migración cancelada: " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Migración terminada en " + (System.nanoTime() - inicio) / 1_000_000 + " ms: "
+                + migrador.empleados + " empleados, " + migrador.solicitudes + " solicitudes ("
+                + migrador.estados + " estados, " + migrador.motivos + " motivos), "
+                + migrador.registrosBitacora + " registros de bitácora");
+    }
+
+    /**
+     * Crea las tablas y copia los tres archivos; falla si la base ya tiene datos
+     */
+    public void migrar() throws IOException {
+        new JdbcEmpleadoStore(pool).asegurarTabla();
+        new JdbcSolicitudStore(pool).asegurarTabla();
+        new JdbcBitacoraStore(pool).asegurarTabla();
+        try {
+            pool.enTransaccion(conexion -> {
+                for (String tabla : new String[]{"empleados", "solicitudes", "bitacora"}) {
+                    if (contarFilas(conexion, tabla) > 0) {
+                        throw new IllegalStateException("la tabla " + tabla + " ya tiene datos");
+                    }
+                }
+                migrarEmpleados(conexion);
+                migrarSolicitudes(conexion);
+                migrarBitacora(conexion);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Error escribiendo en la base de datos: " + e.getMessage(), e);
+        } catch (ErrorMigracion e) {
+            SQLException causa = (SQLException) e.getCause();
+            throw new IOException("Error escribiendo en la base de datos: " + causa.getMessage(), causa);
+        }
+    }
+
+    /**
+     * Mismo criterio que al cargar los archivos: se ignoran las líneas con username o DPI repetido
+     * (un DPI vacío no cuenta como repetido)
+     */
+    private void migrarEmpleados(Connection conexion) throws SQLException {
+        Set<String> usernames = new HashSet<>();
+        Set<String> dpis = new HashSet<>();
+        try (Lote lote = new Lote(conexion, JdbcEmpleadoStore.SQL_INSERTAR)) {
+            almacenamiento.crearArchivoEmpleadoStore().recorrer(new EmpleadoStore.Receptor() {
+                @Override
+                public boolean agregado(Empleado emp) {
+                    if (usernames.contains(emp.getUsername())
+                            || (DatabaseManager.esDpiIndexable(emp.getDpi()) && !dpis.add(emp.getDpi()))) {
+                        return false;
+                    }
+                    usernames.add(emp.getUsername());
+                    long orden = usernames.size();
+                    lote.agregar(ps -> {
+                        JdbcEmpleadoStore.asignarCampos(ps, emp);
+                        ps.setLong(10, orden);
+                    });
+                    return true;
+                }
+
+                @Override
+                public boolean guardado(Empleado emp) {
+                    return agregado(emp);
+                }
+            });
+            empleados = lote.filas;
+        }
+    }
+
+    /**
+     * Primero las líneas de solicitudes.txt (con IDs repetidos gana la primera, como al cargar)
+     * y después los registros de estado y motivos, como actualizaciones
+     */
+    private void migrarSolicitudes(Connection conexion) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (Lote altas = new Lote(conexion, JdbcSolicitudStore.SQL_INSERTAR);
+             Lote cambiosEstado = new Lote(conexion, SQL_MIGRAR_ESTADO);
+             Lote cambiosMotivo = new Lote(conexion, SQL_MIGRAR_MOTIVO)) {
+            try {
+                almacenamiento.crearArchivoSolicitudStore().recorrer(solicitud -> {
+                    if (ids.add(solicitud.getId())) {
+                        long version = ids.size();
+                        altas.agregar(ps -> JdbcSolicitudStore.asignarCampos(ps, solicitud, version));
+                    }
+                }, new ArchivoEstadosSolicitud.Visitante() {
+                    @Override
+                    public void estado(int id, Solicitud.EstadoSolicitud estado, String procesadoPor,
+                                       LocalDateTime fechaProcesamiento) {
+                        if (!ids.contains(id)) {
+                            return;
+                        }
+                        vaciarAltas();
+                        cambiosEstado.agregar(ps -> {
+                            ps.setString(1, estado.name());
+                            ps.setString(2, procesadoPor);
+                            if (fechaProcesamiento != null) {
+                                ps.setTimestamp(3, Timestamp.valueOf(fechaProcesamiento));
+                            } else {
+                                ps.setNull(3, Types.TIMESTAMP);
+                            }
+                            ps.setInt(4, id);
+                        });
+                    }
+
+                    @Override
+                    public void motivo(int id, String motivoRechazo) {
+                        if (!ids.contains(id)) {
+                            return;
+                        }
+                        vaciarAltas();
+                        cambiosMotivo.agregar(ps -> {
+                            ps.setString(1, motivoRechazo);
+                            ps.setInt(2, id);
+                        });
+                    }
+
+                    // Las filas tienen que existir antes de actualizarlas
+                    private void vaciarAltas() {
+                        try {
+                            altas.vaciar();
+                        } catch (SQLException e) {
+                            throw new ErrorMigracion(e);
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                throw new SQLException("Error leyendo solicitudes: " + e.getMessage(), e);
+            }
+            altas.vaciar();
+            cambiosEstado.vaciar();
+            solicitudes = altas.filas;
+            estados = cambiosEstado.filas;
+            motivos = cambiosMotivo.filas;
+        }
+        // Las altas traen su propia versión e ID: las próximas escrituras siguen después de los últimos
+        JdbcSolicitudStore.ajustarContadores(conexion);
+    }
+
+    /**
+     * Todos los segmentos en orden; la clave de cada fila es su posición lógica, la misma que
+     * usa el escritor de la bitácora al copiar los registros nuevos
+     */
+    private void migrarBitacora(Connection conexion) throws SQLException {
+        try (Lote lote = new Lote(conexion, JdbcBitacoraStore.SQL_INSERTAR);
+             InputStream in = bitacora.abrirDesde(0)) {
+            SegmentosBitacora.LectorLineas lector = new SegmentosBitacora.LectorLineas(in);
+            long posicion = 0;
+            for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                long inicioLinea = posicion;
+                posicion += lector.bytesUltimaLinea();
+                Bitacora registro = linea.isEmpty() ? null : Bitacora.parsear(linea);
+                if (registro != null) {
+                    lote.agregar(ps -> JdbcBitacoraStore.asignarCampos(ps, inicioLinea, registro));
+                } else if (!linea.isEmpty()) {
+                    System.err.println("Línea de bitácora inválida: " + linea);
+                }
+            }
+            registrosBitacora = lote.filas;
+        } catch (IOException e) {
+            throw new SQLException("Error leyendo bitácora: " + e.getMessage(), e);
+        }
+    }
+
+    private static long contarFilas(Connection conexion, String tabla) throws SQLException {
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tabla)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package archivo;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modelo de tabla de solo lectura respaldado directamente por una lista de objetos.
+ * No copia los datos a filas de Object[]: cada celda se lee del objeto cuando la tabla la
+ * pide, así que solo se calculan (y formatean) las celdas visibles. Reemplazar la lista
+ * dispara un único evento de cambio, sin importar cuántas filas tenga.
+ */
+public class ModeloTablaLista<T> extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Obtiene el valor de una columna a partir del objeto de la fila
+     */
+    public interface LectorColumnas<T> {
+        Object valor(T fila, int columna);
+    }
+
+    private final String[] columnas;
+    private final LectorColumnas<T> lector;
+    private List<T> filas = new ArrayList<>();
+
+    public ModeloTablaLista(String[] columnas, LectorColumnas<T> lector) {
+        this.columnas = columnas;
+        this.lector = lector;
+    }
+
+    /**
+     * Reemplaza el contenido de la tabla. La lista no se copia: no debe modificarse después.
+     */
+    public void setFilas(List<T> filas) {
+        this.filas = filas != null ? filas : new ArrayList<>();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Objeto mostrado en la fila dada (índice del modelo)
+     */
+    public T getFila(int fila) {
+        return filas.get(fila);
+    }
+
+    public List<T> getFilas() {
+        return filas;
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnas.length;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columnas[columna];
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        return lector.valor(filas.get(fila), columna);
+    }
+}
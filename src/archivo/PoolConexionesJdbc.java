@@ -0,0 +1,211 @@
+package archivo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de conexiones JDBC para los almacenes en base de datos.
+ * Abrir una conexión (con una base embebida, abrir el archivo y leer su encabezado) cuesta
+ * mucho más que una consulta, así que las conexiones se reutilizan. Nunca hay más de
+ * maxAbiertas a la vez: si todas están en uso, quien pide una espera a que se devuelva otra.
+ * Una conexión inactiva se valida antes de entregarla, y la que se usó en una operación
+ * que falló se descarta.
+ * El driver (H2, SQLite, ...) solo tiene que estar en el classpath; se elige con la URL.
+ */
+public class PoolConexionesJdbc {
+
+    /**
+     * Trabajo a hacer con una conexión del pool
+     */
+    public interface Operacion<R> {
+        R ejecutar(Connection conexion) throws SQLException;
+    }
+
+    private static final int SEGUNDOS_VALIDACION = 2;
+
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final int maxAbiertas;
+    private final Deque<Connection> inactivas = new ArrayDeque<>();
+    private int abiertas = 0;
+    private boolean cerrado = false;
+
+    private final AtomicLong conexionesCreadas = new AtomicLong();
+
+    public PoolConexionesJdbc(String url, String usuario, String password, int maxAbiertas) {
+        if (maxAbiertas < 1) {
+            throw new IllegalArgumentException("El pool necesita al menos una conexión");
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.maxAbiertas = maxAbiertas;
+    }
+
+    /**
+     * Ejecuta la operación con una conexión del pool (en modo autocommit)
+     */
+    public <R> R ejecutar(Operacion<R> operacion) throws SQLException {
+        Connection conexion = obtener();
+        boolean sana = false;
+        try {
+            R resultado = operacion.ejecutar(conexion);
+            sana = true;
+            return resultado;
+        } finally {
+            devolver(conexion, sana);
+        }
+    }
+
+    /**
+     * Ejecuta la operación dentro de una transacción: se confirma si termina bien
+     * y se deshace si lanza una excepción
+     */
+    public <R> R enTransaccion(Operacion<R> operacion) throws SQLException {
+        return ejecutar(conexion -> {
+            conexion.setAutoCommit(false);
+            try {
+                R resultado = operacion.ejecutar(conexion);
+                conexion.commit();
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conexion.rollback();
+                } catch (SQLException e2) {
+                    e.addSuppressed(e2);
+                }
+                throw e;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Crea una tabla y sus índices; las sentencias deben usar IF NOT EXISTS
+     */
+    public void crearSiNoExisten(String sqlTabla, String... sqlIndices) throws SQLException {
+        ejecutar(conexion -> {
+            try (Statement st = conexion.createStatement()) {
+                st.execute(sqlTabla);
+                for (String indice : sqlIndices) {
+                    st.execute(indice);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Cierra las conexiones inactivas; las que están en uso se cierran al devolverse
+     */
+    public void cerrar() {
+        List<Connection> aCerrar;
+        synchronized (this) {
+            cerrado = true;
+            aCerrar = new ArrayList<>(inactivas);
+            abiertas -= inactivas.size();
+            inactivas.clear();
+            notifyAll();
+        }
+        for (Connection conexion : aCerrar) {
+            cerrarSinError(conexion);
+        }
+    }
+
+    public long getConexionesCreadas() {
+        return conexionesCreadas.get();
+    }
+
+    public synchronized int getConexionesInactivas() {
+        return inactivas.size();
+    }
+
+    private Connection obtener() throws SQLException {
+        while (true) {
+            Connection conexion;
+            synchronized (this) {
+                while (inactivas.isEmpty() && abiertas >= maxAbiertas && !cerrado) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrumpido esperando una conexión", e);
+                    }
+                }
+                if (cerrado) {
+                    throw new SQLException("El pool de conexiones está cerrado");
+                }
+                conexion = inactivas.pollFirst();
+                if (conexion == null) {
+                    abiertas++; // Se reserva el lugar antes de abrir, fuera del lock
+                }
+            }
+            if (conexion == null) {
+                return nueva();
+            }
+            if (esValida(conexion)) {
+                return conexion;
+            }
+            descartar(conexion);
+        }
+    }
+
+    private Connection nueva() throws SQLException {
+        try {
+            Connection conexion = DriverManager.getConnection(url, usuario, password);
+            conexionesCreadas.incrementAndGet();
+            return conexion;
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                abiertas--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private void devolver(Connection conexion, boolean sana) {
+        synchronized (this) {
+            if (sana && !cerrado) {
+                // Al frente: la más recién usada es la que menos probablemente expiró
+                inactivas.addFirst(conexion);
+                notifyAll();
+                return;
+            }
+        }
+        descartar(conexion);
+    }
+
+    private void descartar(Connection conexion) {
+        synchronized (this) {
+            abiertas--;
+            notifyAll();
+        }
+        cerrarSinError(conexion);
+    }
+
+    private static boolean esValida(Connection conexion) {
+        try {
+            return conexion.isValid(SEGUNDOS_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void cerrarSinError(Connection conexion) {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            // La conexión ya estaba cerrada o rota
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package archivo;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de conexiones SMTP de larga duración.
+ * En lugar de Transport.send (una conexión TCP+TLS+AUTH por mensaje), cada conexión se
+ * reutiliza para muchos mensajes. Una conexión se descarta cuando estuvo inactiva más del
+ * tiempo límite (el servidor probablemente ya la cerró), cuando llegó al máximo de mensajes
+ * por conexión, o cuando un envío falla porque se cortó la conexión; en ese caso el mensaje se
+ * reintenta una vez con una conexión nueva. Si el servidor rechaza el mensaje (por ejemplo un
+ * destinatario inválido) no se reintenta: la conexión sigue sirviendo y vuelve al pool.
+ * Las conexiones se obtienen de una FabricaConexion, que en pruebas puede reemplazarse
+ * por un servidor SMTP simulado dentro del proceso.
+ */
+public class PoolTransporteSmtp {
+
+    /**
+     * Una conexión abierta con el servidor SMTP
+     */
+    public interface Conexion {
+        void enviar(Message mensaje) throws MessagingException;
+
+        boolean estaConectada();
+
+        void cerrar();
+    }
+
+    public interface FabricaConexion {
+        Conexion abrir() throws MessagingException;
+    }
+
+    private static class ConexionEnPool {
+        final Conexion conexion;
+        int enviados = 0;
+        long ultimoUso = System.nanoTime();
+
+        ConexionEnPool(Conexion conexion) {
+            this.conexion = conexion;
+        }
+    }
+
+    private final FabricaConexion fabrica;
+    private final int maxInactivas;
+    private final int maxMensajesPorConexion;
+    private final long inactividadMaximaNanos;
+    private final Deque<ConexionEnPool> inactivas = new ArrayDeque<>();
+    private boolean cerrado = false;
+
+    private final AtomicLong conexionesAbiertas = new AtomicLong();
+    private final AtomicLong mensajesEnviados = new AtomicLong();
+
+    public PoolTransporteSmtp(FabricaConexion fabrica, int maxInactivas, int maxMensajesPorConexion, long inactividadMaximaMs) {
+        this.fabrica = fabrica;
+        this.maxInactivas = maxInactivas;
+        this.maxMensajesPorConexion = maxMensajesPorConexion;
+        this.inactividadMaximaNanos = inactividadMaximaMs * 1_000_000L;
+    }
+
+    /**
+     * Fábrica que abre conexiones reales con el Transport SMTP de la sesión
+     */
+    public static FabricaConexion fabricaSmtp(Session session, String host, int puerto, String usuario, String password) {
+        return () -> {
+            Transport transporte = session.getTransport("smtp");
+            transporte.connect(host, puerto, usuario, password);
+            return new Conexion() {
+                @Override
+                public void enviar(Message mensaje) throws MessagingException {
+                    mensaje.saveChanges();
+                    transporte.sendMessage(mensaje, mensaje.getAllRecipients());
+                }
+
+                @Override
+                public boolean estaConectada() {
+                    return transporte.isConnected();
+                }
+
+                @Override
+                public void cerrar() {
+                    try {
+                        transporte.close();
+                    } catch (MessagingException e) {
+                        // La conexión ya estaba cerrada o rota
+                    }
+                }
+            };
+        };
+    }
+
+    public void enviar(Message mensaje) throws MessagingException {
+        ConexionEnPool conexion = obtener();
+        try {
+            conexion.conexion.enviar(mensaje);
+        } catch (MessagingException e) {
+            if (!esFallaDeConexion(conexion.conexion, e)) {
+                devolver(conexion);
+                throw e;
+            }
+            // La conexión se cortó: se descarta y se reintenta con una nueva
+            conexion.conexion.cerrar();
+            conexion = nueva();
+            try {
+                conexion.conexion.enviar(mensaje);
+            } catch (MessagingException | RuntimeException e2) {
+                conexion.conexion.cerrar();
+                throw e2;
+            }
+        } catch (RuntimeException e) {
+            conexion.conexion.cerrar();
+            throw e;
+        }
+        conexion.enviados++;
+        mensajesEnviados.incrementAndGet();
+        devolver(conexion);
+    }
+
+    /**
+     * Si el error vino de la conexión (cortada, o con una causa de E/S) y no de una respuesta del
+     * servidor. Un SendFailedException (destinatario rechazado) nunca se reintenta: con otra
+     * conexión fallaría igual y costaría otro saludo SMTP.
+     */
+    static boolean esFallaDeConexion(Conexion conexion, MessagingException e) {
+        if (e instanceof SendFailedException) {
+            return false;
+        }
+        if (!conexion.estaConectada()) {
+            return true;
+        }
+        for (Throwable causa = e.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Envía varios mensajes seguidos, reutilizando las conexiones del pool.
+     * Devuelve cuántos se enviaron; los que fallan se informan y se continúa con el resto.
+     */
+    public int enviarLote(List<Message> mensajes) {
+        int enviados = 0;
+        for (Message mensaje : mensajes) {
+            try {
+                enviar(mensaje);
+                enviados++;
+            } catch (MessagingException e) {
+                System.err.println("Error enviando correo del lote: " + e.getMessage());
+            }
+        }
+        return enviados;
+    }
+
+    /**
+     * Cierra todas las conexiones inactivas; las que están en uso se cierran al devolverse
+     */
+    public void cerrar() {
+        synchronized (this) {
+            cerrado = true;
+        }
+        cerrarInactivas();
+    }
+
+    public long getConexionesAbiertas() {
+        return conexionesAbiertas.get();
+    }
+
+    public long getMensajesEnviados() {
+        return mensajesEnviados.get();
+    }
+
+    public synchronized int getConexionesInactivas() {
+        return inactivas.size();
+    }
+
+    private ConexionEnPool obtener() throws MessagingException {
+        while (true) {
+            ConexionEnPool conexion;
+            synchronized (this) {
+                conexion = inactivas.pollFirst();
+            }
+            if (conexion == null) {
+                return nueva();
+            }
+            boolean vencida = System.nanoTime() - conexion.ultimoUso > inactividadMaximaNanos;
+            if (!vencida && conexion.conexion.estaConectada()) {
+                return conexion;
+            }
+            conexion.conexion.cerrar();
+        }
+    }
+
+    private ConexionEnPool nueva() throws MessagingException {
+        ConexionEnPool conexion = new ConexionEnPool(fabrica.abrir());
+        conexionesAbiertas.incrementAndGet();
+        return conexion;
+    }
+
+    private void devolver(ConexionEnPool conexion) {
+        long ahora = System.nanoTime();
+        List<ConexionEnPool> vencidas = new ArrayList<>();
+        boolean guardada = false;
+        synchronized (this) {
+            // Las del final son las usadas hace más tiempo
+            while (!inactivas.isEmpty() && ahora - inactivas.peekLast().ultimoUso > inactividadMaximaNanos) {
+                vencidas.add(inactivas.pollLast());
+            }
+            if (conexion.enviados < maxMensajesPorConexion && !cerrado && inactivas.size() < maxInactivas) {
+                conexion.ultimoUso = ahora;
+                // Al frente: la más recién usada es la que menos probablemente expiró
+                inactivas.addFirst(conexion);
+                guardada = true;
+            }
+        }
+        if (!guardada) {
+            conexion.conexion.cerrar();
+        }
+        for (ConexionEnPool vencida : vencidas) {
+            vencida.conexion.cerrar();
+        }
+    }
+
+    private void cerrarInactivas() {
+        while (true) {
+            ConexionEnPool conexion;
+            synchronized (this) {
+                conexion = inactivas.pollFirst();
+            }
+            if (conexion == null) {
+                return;
+            }
+            conexion.conexion.cerrar();
+        }
+    }
+}
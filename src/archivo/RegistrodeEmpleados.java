@@ -18,12 +18,14 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
     private DatabaseManager dbManager;
     private BitacoraManager bitacoraManager;
     private EmailService emailService;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
 
     // Additional form fields for comprehensive employee data
     private JTextField txtUsername;
     private JTextField txtEmail;
     private JPasswordField txtPassword;
     private JComboBox<String> cboMotivoInactividad;
+    private JButton btnRegistrar;
 
     /**
      * Creates new form RegistrodeEmpleados
@@ -256,7 +258,7 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
         // Buttons
         JPanel panelBotones = new JPanel(new FlowLayout());
 
-        JButton btnRegistrar = new JButton("Registrar");
+        btnRegistrar = new JButton("Registrar");
         btnRegistrar.setFont(new Font("Tahoma", Font.BOLD, 18));
         btnRegistrar.addActionListener(this::registrarEmpleado);
         panelBotones.add(btnRegistrar);
@@ -265,6 +267,7 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
         btnRegresar.setFont(new Font("Tahoma", Font.BOLD, 18));
         btnRegresar.addActionListener(this::regresarMenu);
         panelBotones.add(btnRegresar);
+        panelBotones.add(ejecutor.getIndicador());
 
         gbc.gridx = 0; gbc.gridy = 10; gbc.gridwidth = 2;
         gbc.insets = new Insets(20, 20, 20, 20);
@@ -302,6 +305,9 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
     }
 
     private void registrarEmpleado(ActionEvent evt) {
+        if (ejecutor.hayTareasEnCurso()) {
+            return; // Ya hay un registro en curso
+        }
         try {
             // Validar campos requeridos
             if (!validarCamposRequeridos()) {
@@ -340,11 +346,13 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
                 nuevoEmpleado.setMotivoInactividad(motivo);
             }
 
-            // Registrar en base de datos
-            if (dbManager.registrarEmpleado(nuevoEmpleado)) {
-                JOptionPane.showMessageDialog(this, "Empleado registrado exitosamente",
-                                            "Registro Exitoso", JOptionPane.INFORMATION_MESSAGE);
-
+            // Registrar en base de datos (fuera del EDT: escribe en disco). El formulario queda
+            // deshabilitado hasta que termina, así no se envía dos veces ni se pierden ediciones al limpiarlo
+            setFormularioHabilitado(false);
+            ejecutor.ejecutar(null, "Registrando empleado...", avance -> {
+                if (!dbManager.registrarEmpleado(nuevoEmpleado)) {
+                    return false;
+                }
                 // Registrar en bitácora
                 bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "CREATE_EMPLOYEE",
                                                  "Empleado creado: " + nombre, username);
@@ -355,14 +363,24 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
                         "Estimado/a " + nombre + ",\n\nSu cuenta ha sido creada exitosamente.\n" +
                         "Username: " + username + "\n\nSaludos cordiales,\nSistema RRHH");
                 }
-
-                // Limpiar formulario
-                limpiarFormulario();
-
-            } else {
-                JOptionPane.showMessageDialog(this, "Error: Ocurrió un error al registrar el empleado",
-                                            "Error de Registro", JOptionPane.ERROR_MESSAGE);
-            }
+                return true;
+            }, registrado -> {
+                setFormularioHabilitado(true);
+                if (registrado) {
+                    JOptionPane.showMessageDialog(this, "Empleado registrado exitosamente",
+                                                "Registro Exitoso", JOptionPane.INFORMATION_MESSAGE);
+
+                    // Limpiar formulario
+                    limpiarFormulario();
+                } else {
+                    JOptionPane.showMessageDialog(this, "Error: Ocurrió un error al registrar el empleado",
+                                                "Error de Registro", JOptionPane.ERROR_MESSAGE);
+                }
+            }, ex -> {
+                setFormularioHabilitado(true);
+                JOptionPane.showMessageDialog(this, "Error inesperado: " + ex.getMessage(),
+                                            "Error", JOptionPane.ERROR_MESSAGE);
+            });
 
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error inesperado: " + e.getMessage(),
@@ -418,6 +436,15 @@ public class RegistrodeEmpleados extends javax.swing.JFrame {
         cboMotivoInactividad.setSelectedIndex(0);
     }
 
+    private void setFormularioHabilitado(boolean habilitado) {
+        for (JComponent campo : new JComponent[]{txtdpi, txtnombre, txtUsername, txtarea, cboturno, cboestado,
+                cboMotivoInactividad, txtEmail, txtPassword, btnRegistrar}) {
+            if (campo != null) {
+                campo.setEnabled(habilitado);
+            }
+        }
+    }
+
     private void regresarMenu(ActionEvent evt) {
         MantenimientoUsuario menu = new MantenimientoUsuario(usuarioActual, dbManager, bitacoraManager);
         menu.setVisible(true);
@@ -0,0 +1,751 @@
+package archivo;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Segmentos de la bitácora.
+ * El segmento activo es bitacora.txt; al rotar (por tamaño o por cambio de día) se renombra a
+ * bitacora.&lt;base&gt;.txt, donde base es su posición lógica: la suma de los tamaños de los
+ * segmentos anteriores. Así una posición lógica (base + offset local) sigue siendo válida
+ * después de rotar, y el índice de la bitácora no necesita reescribirse.
+ * Cada segmento cerrado tiene un índice disperso (bitacora.&lt;base&gt;.marcas) con el instante
+ * y el offset de uno de cada N registros, para ir directo al punto de inicio de un rango de
+ * fechas. Los segmentos cerrados pueden comprimirse con gzip en segundo plano.
+ * Los lectores trabajan sobre una copia de la lista de segmentos y abren los archivos fuera del
+ * lock; al abrir se resuelve lo que cambió desde que se listó (ver abrir).
+ */
+public class SegmentosBitacora {
+
+    static final int REGISTROS_POR_MARCA = 128;
+    // Encabezado de los archivos .marcas (versión 2: guarda si los instantes están en orden);
+    // un archivo de la versión anterior se reconstruye
+    private static final long FORMATO_MARCAS = 0x4D41524341530002L;
+    private static final int ANCHO_BASE = 20;
+
+    private static SegmentosBitacora instancia;
+
+    private final File archivoActivo;
+    private final File directorio;
+    private final String prefijo;
+    private final long maxBytesSegmento;
+    private final boolean rotacionDiaria;
+    private final boolean comprimir;
+    private final Charset charset = Charset.defaultCharset();
+
+    // Catálogo de segmentos cerrados: se lee del directorio una vez y luego se mantiene al
+    // rotar y comprimir (un listado del directorio puede omitir un archivo que se está renombrando)
+    private List<Segmento> catalogo;
+    // Índices dispersos ya leídos o construidos, por base del segmento. Un índice publicado aquí
+    // no se modifica: para extenderlo se trabaja sobre una copia
+    private final Map<Long, Marcas> marcasPorBase = new HashMap<>();
+    private ExecutorService compresor;
+
+    /**
+     * Un segmento de la bitácora y su rango de posiciones lógicas [base, base + largo)
+     */
+    static class Segmento {
+        final long base;
+        final long largo;
+        final File archivo;
+        final boolean comprimido;
+        final boolean activo;
+
+        Segmento(long base, long largo, File archivo, boolean comprimido, boolean activo) {
+            this.base = base;
+            this.largo = largo;
+            this.archivo = archivo;
+            this.comprimido = comprimido;
+            this.activo = activo;
+        }
+
+        long fin() {
+            return base + largo;
+        }
+    }
+
+    /**
+     * Índice disperso de un segmento: instante y offset local de uno de cada N registros
+     */
+    private static class Marcas {
+        long cubierto = 0;      // Bytes del segmento ya recorridos
+        long primero = Long.MAX_VALUE;
+        long ultimo = Long.MIN_VALUE;
+        int registros = 0;
+        int cantidad = 0;
+        // Los instantes nunca retroceden; si el reloj se atrasó, las marcas no sirven para
+        // ubicar el inicio de un rango ni para dejar de leer al pasar su final
+        boolean ordenado = true;
+        long[] instantes = new long[16];
+        long[] offsets = new long[16];
+
+        Marcas copia() {
+            Marcas copia = new Marcas();
+            copia.cubierto = cubierto;
+            copia.primero = primero;
+            copia.ultimo = ultimo;
+            copia.registros = registros;
+            copia.cantidad = cantidad;
+            copia.ordenado = ordenado;
+            copia.instantes = instantes.clone();
+            copia.offsets = offsets.clone();
+            return copia;
+        }
+
+        void agregar(long instante, long offset) {
+            if (instante < ultimo) {
+                ordenado = false;
+            }
+            if (registros++ % REGISTROS_POR_MARCA == 0) {
+                if (cantidad == instantes.length) {
+                    instantes = Arrays.copyOf(instantes, cantidad * 2);
+                    offsets = Arrays.copyOf(offsets, cantidad * 2);
+                }
+                instantes[cantidad] = instante;
+                offsets[cantidad] = offset;
+                cantidad++;
+            }
+            primero = Math.min(primero, instante);
+            ultimo = Math.max(ultimo, instante);
+        }
+
+        /**
+         * Offset de la última marca anterior al instante (desde ahí conviene empezar a leer)
+         */
+        long offsetInicio(long desde) {
+            int bajo = 0;
+            int alto = cantidad - 1;
+            int encontrada = -1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (instantes[medio] < desde) {
+                    encontrada = medio;
+                    bajo = medio + 1;
+                } else {
+                    alto = medio - 1;
+                }
+            }
+            return encontrada < 0 ? 0 : offsets[encontrada];
+        }
+    }
+
+    public SegmentosBitacora(String archivoActivo, long maxBytesSegmento, boolean rotacionDiaria, boolean comprimir) {
+        this.archivoActivo = new File(archivoActivo).getAbsoluteFile();
+        this.directorio = this.archivoActivo.getParentFile();
+        String nombre = this.archivoActivo.getName();
+        this.prefijo = nombre.endsWith(".txt") ? nombre.substring(0, nombre.length() - 4) : nombre;
+        this.maxBytesSegmento = maxBytesSegmento;
+        this.rotacionDiaria = rotacionDiaria;
+        this.comprimir = comprimir;
+    }
+
+    public static synchronized SegmentosBitacora getInstancia() {
+        if (instancia == null) {
+            Properties config = EscritorBitacora.cargarConfiguracion();
+            instancia = new SegmentosBitacora(BitacoraManager.BITACORA_FILE,
+                    EscritorBitacora.leerNumero(config, "bitacora.segmento.max.bytes", 16777216, 0, Long.MAX_VALUE),
+                    Boolean.parseBoolean(config.getProperty("bitacora.segmento.diario", "true").trim()),
+                    Boolean.parseBoolean(config.getProperty("bitacora.segmento.comprimir", "false").trim()));
+        }
+        return instancia;
+    }
+
+    public File getArchivoActivo() {
+        return archivoActivo;
+    }
+
+    /**
+     * Indica si el segmento activo debe cerrarse antes de agregar el registro.
+     * Un segmento vacío nunca se rota.
+     */
+    public boolean debeRotar(long bytesActivo, LocalDate diaActivo, Bitacora registro, int bytesRegistro) {
+        if (bytesActivo == 0) {
+            return false;
+        }
+        if (maxBytesSegmento > 0 && bytesActivo + bytesRegistro > maxBytesSegmento) {
+            return true;
+        }
+        return rotacionDiaria && diaActivo != null && !diaActivo.equals(registro.getFechaHora().toLocalDate());
+    }
+
+    /**
+     * Día del primer registro del segmento activo (solo lee la primera línea); null si está vacío
+     */
+    public LocalDate diaActivo() {
+        if (archivoActivo.length() == 0) {
+            return null;
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(archivoActivo), charset))) {
+            String linea = br.readLine();
+            Bitacora registro = linea != null ? Bitacora.parsear(linea) : null;
+            return registro != null ? registro.getFechaHora().toLocalDate() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Cierra el segmento activo: lo renombra con su base, guarda su índice disperso y,
+     * si está configurado, lo comprime en segundo plano. El llamador ya cerró su canal.
+     */
+    public synchronized void rotar() throws IOException {
+        long largo = archivoActivo.length();
+        if (largo == 0) {
+            return;
+        }
+        List<Segmento> segmentos = cerrados();
+        long base = baseActivo(segmentos);
+        File cerrado = archivoSegmento(base, false);
+        if (cerrado.exists() || archivoSegmento(base, true).exists()) {
+            throw new IOException("Ya existe un segmento de bitácora con base " + base);
+        }
+        Files.move(archivoActivo.toPath(), cerrado.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        catalogo.add(new Segmento(base, largo, cerrado, false, false));
+
+        Marcas marcas = marcasPorBase.remove(-1L);
+        if (marcas != null && marcas.cubierto > largo) {
+            marcas = null;
+        }
+        if (marcas == null || marcas.cubierto != largo) {
+            marcas = construirMarcas(new Segmento(base, largo, cerrado, false, false), marcas);
+        }
+        guardarMarcas(base, largo, marcas);
+        marcasPorBase.put(base, marcas);
+
+        if (comprimir) {
+            if (compresor == null) {
+                compresor = Executors.newSingleThreadExecutor(r -> {
+                    Thread hilo = new Thread(r, "compresor-bitacora");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+            }
+            compresor.submit(() -> comprimirSegmento(base, largo, cerrado));
+        }
+    }
+
+    /**
+     * Segmentos cerrados ordenados por base, seguidos del activo
+     */
+    public synchronized List<Segmento> listar() throws IOException {
+        List<Segmento> segmentos = cerrados();
+        segmentos.add(new Segmento(baseActivo(segmentos), archivoActivo.length(), archivoActivo, false, true));
+        return segmentos;
+    }
+
+    /**
+     * Posición lógica donde comienza el segmento activo
+     */
+    public synchronized long baseActivo() throws IOException {
+        return baseActivo(cerrados());
+    }
+
+    /**
+     * Tamaño lógico de toda la bitácora (posición donde continuará el próximo registro)
+     */
+    public long tamanoLogico() throws IOException {
+        List<Segmento> segmentos = listar();
+        return segmentos.get(segmentos.size() - 1).fin();
+    }
+
+    /**
+     * Flujo con el contenido de la bitácora desde la posición lógica hasta el final,
+     * recorriendo los segmentos en orden
+     */
+    public InputStream abrirDesde(long posicion) throws IOException {
+        List<InputStream> flujos = new ArrayList<>();
+        try {
+            for (Segmento segmento : listar()) {
+                if (segmento.fin() > posicion) {
+                    flujos.add(abrir(segmento, Math.max(0, posicion - segmento.base)));
+                }
+            }
+        } catch (IOException e) {
+            for (InputStream flujo : flujos) {
+                flujo.close();
+            }
+            throw e;
+        }
+        return new BufferedInputStream(new SequenceInputStream(Collections.enumeration(flujos)), 65536);
+    }
+
+    /**
+     * Verifica que la posición lógica sea el comienzo de una línea
+     */
+    public boolean terminaEnLinea(long posicion) throws IOException {
+        if (posicion == 0) {
+            return true;
+        }
+        try (InputStream in = abrirDesde(posicion - 1)) {
+            return in.read() == '\n';
+        }
+    }
+
+    /**
+     * Lee las líneas ubicadas en las posiciones lógicas dadas (en orden creciente)
+     */
+    public void leerLineas(long[] posiciones, int[] largos, int cantidad, Consumer<String> destino) throws IOException {
+        List<Segmento> segmentos = listar();
+        int indiceSegmento = 0;
+        RandomAccessFile plano = null;
+        InputStream comprimido = null;
+        boolean leerComprimido = false; // El segmento actual se lee del .gz
+        long posicionComprimido = 0;
+        byte[] buffer = new byte[256];
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                long posicion = posiciones[i];
+                while (indiceSegmento < segmentos.size() - 1 && posicion >= segmentos.get(indiceSegmento).fin()) {
+                    indiceSegmento++;
+                    cerrar(plano, comprimido);
+                    plano = null;
+                    comprimido = null;
+                    leerComprimido = false;
+                }
+                Segmento segmento = segmentos.get(indiceSegmento);
+                long local = posicion - segmento.base;
+                if (buffer.length < largos[i]) {
+                    buffer = new byte[largos[i] * 2];
+                }
+                if (plano == null && !leerComprimido) {
+                    // Se resuelve al llegar al segmento: pudo comprimirse o rotarse desde que se listó
+                    plano = segmento.comprimido ? null : abrirPlano(segmento);
+                    leerComprimido = plano == null;
+                }
+                if (leerComprimido) {
+                    if (comprimido == null || posicionComprimido > local) {
+                        cerrar(null, comprimido);
+                        comprimido = new GZIPInputStream(new FileInputStream(archivoSegmento(segmento.base, true)), 65536);
+                        posicionComprimido = 0;
+                    }
+                    saltar(comprimido, local - posicionComprimido);
+                    new DataInputStream(comprimido).readFully(buffer, 0, largos[i]);
+                    posicionComprimido = local + largos[i];
+                } else {
+                    plano.seek(local);
+                    plano.readFully(buffer, 0, largos[i]);
+                }
+                destino.accept(new String(buffer, 0, sinTerminador(buffer, largos[i]), charset));
+            }
+        } finally {
+            cerrar(plano, comprimido);
+        }
+    }
+
+    /**
+     * Registros con fecha dentro del rango (inclusivo). Usa los índices dispersos para saltar
+     * los segmentos fuera del rango (por su primer y último instante) y, si los instantes del
+     * segmento están en orden, para empezar a leer cerca del primer registro buscado y dejar
+     * de leer al pasar el final; si no lo están (el reloj se atrasó), el segmento se lee completo.
+     * Lee sobre una copia de la lista de segmentos, sin bloquear la rotación.
+     */
+    public List<Bitacora> buscarPorFechas(LocalDateTime desde, LocalDateTime hasta) throws IOException {
+        long inicio = desde != null ? desde.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+        long fin = hasta != null ? hasta.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        List<Bitacora> resultado = new ArrayList<>();
+        for (Segmento segmento : listar()) {
+            Marcas marcas = marcas(segmento);
+            if (marcas.cantidad == 0 || marcas.ultimo < inicio || marcas.primero > fin) {
+                continue;
+            }
+            long offset = marcas.ordenado ? marcas.offsetInicio(inicio) : 0;
+            try (InputStream in = new BufferedInputStream(abrir(segmento, offset), 65536)) {
+                LectorLineas lector = new LectorLineas(in);
+                for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                    Bitacora registro = Bitacora.parsear(linea);
+                    if (registro == null) {
+                        continue;
+                    }
+                    long instante = registro.getFechaHora().toEpochSecond(ZoneOffset.UTC);
+                    if (instante > fin && marcas.ordenado) {
+                        break;
+                    }
+                    if (instante >= inicio && instante <= fin) {
+                        resultado.add(registro);
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private List<Segmento> cerrados() throws IOException {
+        if (catalogo == null) {
+            catalogo = leerCatalogo();
+        }
+        return new ArrayList<>(catalogo);
+    }
+
+    private List<Segmento> leerCatalogo() throws IOException {
+        List<Segmento> segmentos = new ArrayList<>();
+        File[] archivos = directorio.listFiles();
+        if (archivos == null) {
+            return segmentos;
+        }
+        Map<Long, File> planos = new HashMap<>();
+        Map<Long, File> comprimidos = new HashMap<>();
+        for (File archivo : archivos) {
+            String nombre = archivo.getName();
+            if (!nombre.startsWith(prefijo + ".")) {
+                continue;
+            }
+            String resto = nombre.substring(prefijo.length() + 1);
+            boolean esComprimido = resto.endsWith(".txt.gz");
+            if (!esComprimido && !resto.endsWith(".txt")) {
+                continue;
+            }
+            String numero = resto.substring(0, resto.indexOf('.'));
+            if (numero.length() != ANCHO_BASE || !numero.chars().allMatch(Character::isDigit)) {
+                continue;
+            }
+            (esComprimido ? comprimidos : planos).put(Long.parseLong(numero), archivo);
+        }
+        // Si la compresión aún no terminó de borrar el original, se usa el original
+        comprimidos.keySet().removeAll(planos.keySet());
+        for (Map.Entry<Long, File> entrada : planos.entrySet()) {
+            segmentos.add(new Segmento(entrada.getKey(), entrada.getValue().length(), entrada.getValue(), false, false));
+        }
+        for (Map.Entry<Long, File> entrada : comprimidos.entrySet()) {
+            long base = entrada.getKey();
+            segmentos.add(new Segmento(base, largoComprimido(base, entrada.getValue()), entrada.getValue(), true, false));
+        }
+        segmentos.sort((a, b) -> Long.compare(a.base, b.base));
+        return segmentos;
+    }
+
+    private long baseActivo(List<Segmento> cerrados) {
+        return cerrados.isEmpty() ? 0 : cerrados.get(cerrados.size() - 1).fin();
+    }
+
+    /**
+     * Abre el segmento en el offset local, resolviendo lo que pudo cambiar desde que se listó:
+     * el activo pudo rotarse (ahora es bitacora.&lt;base&gt;.txt) y un cerrado pudo comprimirse.
+     */
+    private InputStream abrir(Segmento segmento, long offsetLocal) throws IOException {
+        if (offsetLocal >= segmento.largo) {
+            // Nada que leer (p. ej. el activo listado entre una rotación y la creación del nuevo)
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        RandomAccessFile raf = segmento.comprimido ? null : abrirPlano(segmento);
+        if (raf == null) {
+            InputStream in = new GZIPInputStream(new FileInputStream(archivoSegmento(segmento.base, true)), 65536);
+            try {
+                saltar(in, offsetLocal);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            return in;
+        }
+        raf.seek(offsetLocal);
+        // Solo hasta el largo conocido del segmento, para no leer una línea que se está escribiendo
+        return new LimiteBytes(Channels.newInputStream(raf.getChannel()),
+                Math.max(0, segmento.largo - offsetLocal));
+    }
+
+    /**
+     * Abre el archivo sin comprimir del segmento; null si ya no existe porque se comprimió.
+     * La compresión crea el .gz antes de borrar el original, así que siempre existe uno de los dos.
+     * Para el activo, se abre primero y después se mira si ya existe su versión rotada: si no
+     * existe, lo abierto es el activo listado; si existe, el archivo abierto puede ser el activo
+     * nuevo y se usa el rotado.
+     */
+    private RandomAccessFile abrirPlano(Segmento segmento) throws IOException {
+        RandomAccessFile raf = abrirSiExiste(segmento.archivo);
+        if (segmento.activo
+                && (archivoSegmento(segmento.base, false).exists() || archivoSegmento(segmento.base, true).exists())) {
+            cerrar(raf, null);
+            raf = abrirSiExiste(archivoSegmento(segmento.base, false));
+        }
+        if (raf == null && segmento.activo && !archivoSegmento(segmento.base, true).exists()) {
+            throw new FileNotFoundException(segmento.archivo.getPath());
+        }
+        return raf;
+    }
+
+    private static RandomAccessFile abrirSiExiste(File archivo) throws IOException {
+        try {
+            return new RandomAccessFile(archivo, "r");
+        } catch (FileNotFoundException e) {
+            if (archivo.exists()) {
+                throw e; // Existe pero no se puede leer
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Índice disperso del segmento: del archivo .marcas para los cerrados, y construido
+     * (y extendido a medida que crece) en memoria para el activo
+     */
+    private Marcas marcas(Segmento segmento) throws IOException {
+        long clave = segmento.activo ? -1L : segmento.base;
+        Marcas marcas;
+        synchronized (this) {
+            marcas = marcasPorBase.get(clave);
+        }
+        if (marcas != null && segmento.activo && marcas.cubierto > segmento.largo) {
+            marcas = null; // El activo es un archivo nuevo (se rotó en otro proceso)
+        }
+        if (marcas == null && !segmento.activo) {
+            marcas = leerMarcas(segmento.base);
+        }
+        if (marcas == null || marcas.cubierto < segmento.largo) {
+            marcas = construirMarcas(segmento, marcas);
+            if (!segmento.activo) {
+                guardarMarcas(segmento.base, segmento.largo, marcas);
+            }
+        }
+        synchronized (this) {
+            // Si el activo se rotó mientras se leía, su índice ya no corresponde al activo actual;
+            // y otro lector pudo dejar un índice que cubre más
+            Marcas actual = marcasPorBase.get(clave);
+            boolean vigente = !segmento.activo || baseActivo(cerrados()) == segmento.base;
+            if (vigente && (actual == null || actual.cubierto <= marcas.cubierto)) {
+                marcasPorBase.put(clave, marcas);
+            }
+        }
+        return marcas;
+    }
+
+    /**
+     * Recorre el segmento (desde lo ya cubierto) registrando una marca cada N registros.
+     * Devuelve un índice nuevo: el existente puede estar siendo leído por otro hilo.
+     */
+    private Marcas construirMarcas(Segmento segmento, Marcas existentes) throws IOException {
+        Marcas marcas = existentes != null ? existentes.copia() : new Marcas();
+        try (InputStream in = new BufferedInputStream(abrir(segmento, marcas.cubierto), 65536)) {
+            LectorLineas lector = new LectorLineas(in);
+            long offset = marcas.cubierto;
+            for (String linea = lector.siguiente(); linea != null; linea = lector.siguiente()) {
+                Bitacora registro = Bitacora.parsear(linea);
+                if (registro != null) {
+                    marcas.agregar(registro.getFechaHora().toEpochSecond(ZoneOffset.UTC), offset);
+                }
+                offset += lector.bytesUltimaLinea();
+            }
+            marcas.cubierto = offset;
+        }
+        return marcas;
+    }
+
+    private void guardarMarcas(long base, long largo, Marcas marcas) throws IOException {
+        File destino = archivoMarcas(base);
+        // Nombre único: dos lectores pueden guardar el mismo índice a la vez
+        File temporal = File.createTempFile(destino.getName() + ".", ".tmp", directorio);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporal)))) {
+            out.writeLong(FORMATO_MARCAS);
+            out.writeLong(largo);
+            out.writeLong(marcas.primero);
+            out.writeLong(marcas.ultimo);
+            out.writeInt(marcas.registros);
+            out.writeInt(marcas.cantidad);
+            out.writeBoolean(marcas.ordenado);
+            for (int i = 0; i < marcas.cantidad; i++) {
+                out.writeLong(marcas.instantes[i]);
+                out.writeLong(marcas.offsets[i]);
+            }
+        }
+        Files.move(temporal.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Marcas leerMarcas(long base) {
+        File archivo = archivoMarcas(base);
+        if (!archivo.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(archivo)))) {
+            if (in.readLong() != FORMATO_MARCAS) {
+                return null; // Formato anterior: se reconstruye
+            }
+            Marcas marcas = new Marcas();
+            marcas.cubierto = in.readLong();
+            marcas.primero = in.readLong();
+            marcas.ultimo = in.readLong();
+            marcas.registros = in.readInt();
+            marcas.cantidad = in.readInt();
+            marcas.ordenado = in.readBoolean();
+            marcas.instantes = new long[Math.max(1, marcas.cantidad)];
+            marcas.offsets = new long[Math.max(1, marcas.cantidad)];
+            for (int i = 0; i < marcas.cantidad; i++) {
+                marcas.instantes[i] = in.readLong();
+                marcas.offsets[i] = in.readLong();
+            }
+            return marcas;
+        } catch (IOException e) {
+            System.err.println("Índice disperso dañado, se reconstruye: " + archivo.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Largo sin comprimir de un segmento .gz: se guarda en su archivo de marcas; si falta,
+     * se descomprime una vez para medirlo y se regeneran las marcas
+     */
+    private long largoComprimido(long base, File archivo) throws IOException {
+        Marcas marcas = marcasPorBase.get(base);
+        if (marcas == null) {
+            marcas = leerMarcas(base);
+        }
+        if (marcas == null) {
+            marcas = construirMarcas(new Segmento(base, Long.MAX_VALUE, archivo, true, false), null);
+            guardarMarcas(base, marcas.cubierto, marcas);
+        }
+        marcasPorBase.put(base, marcas);
+        return marcas.cubierto;
+    }
+
+    private void comprimirSegmento(long base, long largo, File segmento) {
+        File destino = archivoSegmento(base, true);
+        File temporal = new File(destino.getPath() + ".tmp");
+        try {
+            try (InputStream in = new FileInputStream(segmento);
+                 OutputStream out = new GZIPOutputStream(new FileOutputStream(temporal), 65536)) {
+                byte[] buffer = new byte[65536];
+                int leidos;
+                while ((leidos = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, leidos);
+                }
+            }
+            Files.move(temporal.toPath(), destino.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                for (int i = 0; i < catalogo.size(); i++) {
+                    if (catalogo.get(i).base == base) {
+                        catalogo.set(i, new Segmento(base, largo, destino, true, false));
+                    }
+                }
+            }
+            // Un lector que ya abrió el original puede seguir leyéndolo
+            Files.delete(segmento.toPath());
+        } catch (IOException e) {
+            System.err.println("Error comprimiendo segmento de bitácora " + segmento.getName() + ": " + e.getMessage());
+            temporal.delete();
+        }
+    }
+
+    private File archivoSegmento(long base, boolean comprimido) {
+        return new File(directorio, String.format("%s.%0" + ANCHO_BASE + "d.txt%s", prefijo, base, comprimido ? ".gz" : ""));
+    }
+
+    private File archivoMarcas(long base) {
+        return new File(directorio, String.format("%s.%0" + ANCHO_BASE + "d.marcas", prefijo, base));
+    }
+
+    private static void saltar(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long saltados = in.skip(bytes);
+            if (saltados <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException("Segmento de bitácora más corto de lo esperado");
+                }
+                saltados = 1;
+            }
+            bytes -= saltados;
+        }
+    }
+
+    private static void cerrar(Closeable plano, Closeable comprimido) throws IOException {
+        if (plano != null) {
+            plano.close();
+        }
+        if (comprimido != null) {
+            comprimido.close();
+        }
+    }
+
+    static int sinTerminador(byte[] linea, int largo) {
+        while (largo > 0 && (linea[largo - 1] == '\n' || linea[largo - 1] == '\r')) {
+            largo--;
+        }
+        return largo;
+    }
+
+    /**
+     * Lee líneas completas de un flujo de bytes, informando cuántos bytes ocupó cada una
+     * (una línea final sin salto de línea se ignora: puede estar a medio escribir)
+     */
+    static class LectorLineas {
+        private final InputStream in;
+        private final Charset charset = Charset.defaultCharset();
+        private byte[] linea = new byte[256];
+        private int bytesUltimaLinea;
+
+        LectorLineas(InputStream in) {
+            this.in = in;
+        }
+
+        String siguiente() throws IOException {
+            int largo = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, largo * 2);
+                }
+                linea[largo++] = (byte) b;
+                if (b == '\n') {
+                    bytesUltimaLinea = largo;
+                    return new String(linea, 0, sinTerminador(linea, largo), charset);
+                }
+            }
+            return null;
+        }
+
+        int bytesUltimaLinea() {
+            return bytesUltimaLinea;
+        }
+    }
+
+    /**
+     * Limita un flujo a una cantidad de bytes
+     */
+    private static class LimiteBytes extends FilterInputStream {
+        private long restantes;
+
+        LimiteBytes(InputStream in, long restantes) {
+            super(in);
+            this.restantes = restantes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                restantes--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, restantes));
+            if (n > 0) {
+                restantes -= n;
+            }
+            return n;
+        }
+    }
+}
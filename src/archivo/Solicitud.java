@@ -43,8 +43,6 @@ public class Solicitud {
         }
     }
 
-    private static int contadorId = 1;
-
     private int id;
     private String empleadoDpi;
     private String empleadoNombre;
@@ -58,10 +56,10 @@ public class Solicitud {
     private String motivoRechazo;
     private LocalDateTime fechaProcesamiento;
 
-    // Constructor
-    public Solicitud(String empleadoDpi, String empleadoNombre, TipoSolicitud tipo,
+    // El ID de una solicitud nueva lo reserva el almacén (SolicitudManager.crearSolicitud)
+    public Solicitud(int id, String empleadoDpi, String empleadoNombre, TipoSolicitud tipo,
                     String descripcion, LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        this.id = contadorId++;
+        this.id = id;
         this.empleadoDpi = empleadoDpi;
         this.empleadoNombre = empleadoNombre;
         this.tipo = tipo;
@@ -171,29 +169,29 @@ public class Solicitud {
 
     // Utility methods
     public String getFechaInicioFormateada() {
-        return fechaInicio.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+        return getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
     }
 
     public String getFechaFinFormateada() {
-        return fechaFin.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+        return getFechaFin().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
     }
 
     public String getFechaSolicitudFormateada() {
-        return fechaSolicitud.format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+        return getFechaSolicitud().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
     }
 
     // Business logic methods
     public void aprobar(String aprobadoPor) {
-        this.estado = EstadoSolicitud.APROBADA;
-        this.aprobadoPor = aprobadoPor;
-        this.fechaProcesamiento = LocalDateTime.now();
+        setEstado(EstadoSolicitud.APROBADA);
+        setAprobadoPor(aprobadoPor);
+        setFechaProcesamiento(LocalDateTime.now());
     }
 
     public void rechazar(String rechazadoPor, String motivo) {
-        this.estado = EstadoSolicitud.RECHAZADA;
-        this.aprobadoPor = rechazadoPor; // Usuario que procesó la solicitud
-        this.motivoRechazo = motivo;
-        this.fechaProcesamiento = LocalDateTime.now();
+        setEstado(EstadoSolicitud.RECHAZADA);
+        setAprobadoPor(rechazadoPor); // Usuario que procesó la solicitud
+        setMotivoRechazo(motivo);
+        setFechaProcesamiento(LocalDateTime.now());
     }
 
     public boolean isPendiente() {
@@ -213,11 +211,11 @@ public class Solicitud {
         return "Solicitud{" +
                 "id=" + id +
                 ", empleadoDpi='" + empleadoDpi + '\'' +
-                ", empleadoNombre='" + empleadoNombre + '\'' +
+                ", empleadoNombre='" + getEmpleadoNombre() + '\'' +
                 ", tipo=" + tipo +
-                ", descripcion='" + descripcion + '\'' +
-                ", fechaInicio=" + fechaInicio +
-                ", fechaFin=" + fechaFin +
+                ", descripcion='" + getDescripcion() + '\'' +
+                ", fechaInicio=" + getFechaInicio() +
+                ", fechaFin=" + getFechaFin() +
                 ", estado=" + estado +
                 '}';
     }
@@ -1,208 +1,207 @@
 package archivo;
 
-import java.io.*;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Gestor para manejar las operaciones de solicitudes
+ * Gestor para manejar las operaciones de solicitudes.
+ * Mantiene las solicitudes en memoria y en cada consulta solo le pide al almacén lo que
+ * cambió desde la anterior (con el almacén de archivo, nada si solicitudes.txt no cambió).
+ * Sobre la caché se mantienen índices por ID, por DPI del empleado y por estado,
+ * para que las consultas cuesten según el tamaño del resultado y no del historial.
+ * La persistencia está en un SolicitudStore (archivo, memoria o JDBC), que para la
+ * instancia compartida se elige en almacenamiento.properties.
  */
 public class SolicitudManager {
     
-    private static final String ARCHIVO_SOLICITUDES = "solicitudes.txt";
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    
+    private static SolicitudManager instancia;
+
+    private final SolicitudStore store;
+
+    // Caché de las solicitudes del almacén
+    private final List<Solicitud> solicitudes = new ArrayList<>();
+
+    // Índices secundarios de la caché (los conjuntos por estado conservan el orden del archivo)
+    private final Map<Integer, Solicitud> solicitudesPorId = new HashMap<>();
+    private final Map<String, List<Solicitud>> solicitudesPorDpi = new HashMap<>();
+    private final Map<Solicitud.EstadoSolicitud, Set<Solicitud>> solicitudesPorEstado =
+            new EnumMap<>(Solicitud.EstadoSolicitud.class);
+
+    // Aplica a la caché los cambios que entrega el almacén
+    private final SolicitudStore.Receptor receptor = new SolicitudStore.Receptor() {
+        @Override
+        public void reiniciar() {
+            vaciarCache();
+        }
+
+        @Override
+        public void agregada(Solicitud solicitud) {
+            agregarACache(solicitud);
+        }
+
+        @Override
+        public void estadoCambiado(Solicitud solicitud, Solicitud.EstadoSolicitud estadoAnterior) {
+            moverDeEstado(solicitud, estadoAnterior);
+        }
+    };
+
+    public SolicitudManager() {
+        this(new ArchivoSolicitudStore());
+    }
+
+    public SolicitudManager(SolicitudStore store) {
+        this.store = store;
+    }
+
     /**
-     * Guarda una solicitud en el archivo
+     * Gestor compartido por todas las ventanas, para que la caché se llene una sola vez
      */
-    public void guardarSolicitud(Solicitud solicitud) throws IOException {
-        try (FileWriter fw = new FileWriter(ARCHIVO_SOLICITUDES, true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            
-            String linea = formatearSolicitudParaArchivo(solicitud);
-            pw.println(linea);
+    public static synchronized SolicitudManager getInstancia() {
+        if (instancia == null) {
+            instancia = new SolicitudManager(Almacenamiento.getInstancia().crearSolicitudStore());
         }
+        return instancia;
+    }
+    
+    /**
+     * Crea una solicitud nueva con un ID reservado en el almacén y la guarda
+     */
+    public synchronized Solicitud crearSolicitud(String empleadoDpi, String empleadoNombre,
+                                                 Solicitud.TipoSolicitud tipo, String descripcion,
+                                                 LocalDateTime fechaInicio, LocalDateTime fechaFin) throws IOException {
+        Solicitud solicitud = new Solicitud(store.siguienteId(), empleadoDpi, empleadoNombre, tipo,
+                descripcion, fechaInicio, fechaFin);
+        guardarSolicitud(solicitud);
+        return solicitud;
+    }
+
+    /**
+     * Guarda una solicitud en el almacén
+     */
+    public synchronized void guardarSolicitud(Solicitud solicitud) throws IOException {
+        sincronizarCache();
+        store.agregar(solicitud);
+        // La solicitud recién guardada se incorpora como cualquier otro cambio del almacén
+        sincronizarCache();
     }
     
     /**
      * Obtiene todas las solicitudes de un empleado específico
      */
-    public List<Solicitud> obtenerSolicitudesPorEmpleado(String empleadoDpi) {
-        List<Solicitud> solicitudesEmpleado = new ArrayList<>();
-        List<Solicitud> todasLasSolicitudes = cargarTodasLasSolicitudes();
-        
-        for (Solicitud solicitud : todasLasSolicitudes) {
-            if (empleadoDpi.equals(solicitud.getEmpleadoDpi())) {
-                solicitudesEmpleado.add(solicitud);
-            }
-        }
-        
-        return solicitudesEmpleado;
+    public synchronized List<Solicitud> obtenerSolicitudesPorEmpleado(String empleadoDpi) {
+        sincronizarCache();
+        List<Solicitud> solicitudesEmpleado = solicitudesPorDpi.get(empleadoDpi);
+        return solicitudesEmpleado != null ? new ArrayList<>(solicitudesEmpleado) : new ArrayList<>();
+    }
+
+    /**
+     * Obtiene las solicitudes que están en un estado dado
+     */
+    public synchronized List<Solicitud> obtenerSolicitudesPorEstado(Solicitud.EstadoSolicitud estado) {
+        sincronizarCache();
+        Set<Solicitud> conEstado = solicitudesPorEstado.get(estado);
+        return conEstado != null ? new ArrayList<>(conEstado) : new ArrayList<>();
     }
     
     /**
      * Obtiene todas las solicitudes del sistema
      */
-    public List<Solicitud> cargarTodasLasSolicitudes() {
-        List<Solicitud> solicitudes = new ArrayList<>();
-        
-        File archivo = new File(ARCHIVO_SOLICITUDES);
-        if (!archivo.exists()) {
-            return solicitudes; // Retorna lista vacía si el archivo no existe
-        }
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(archivo))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                if (!linea.trim().isEmpty()) {
-                    try {
-                        Solicitud solicitud = parsearSolicitudDesdeArchivo(linea);
-                        if (solicitud != null) {
-                            solicitudes.add(solicitud);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error al parsear línea: " + linea + " - " + e.getMessage());
-                    }
-                }
-            }
+    public synchronized List<Solicitud> cargarTodasLasSolicitudes() {
+        sincronizarCache();
+        return new ArrayList<>(solicitudes);
+    }
+
+    /**
+     * Pone la caché al día con el almacén
+     */
+    private void sincronizarCache() {
+        try {
+            store.sincronizar(receptor);
         } catch (IOException e) {
-            System.err.println("Error al leer archivo de solicitudes: " + e.getMessage());
+            System.err.println("Error al leer las solicitudes: " + e.getMessage());
+            invalidarCache();
         }
-        
-        return solicitudes;
     }
-    
+
     /**
-     * Actualiza el estado de una solicitud
+     * Agrega una solicitud a la caché y a sus índices
      */
-    public void actualizarEstadoSolicitud(int solicitudId, Solicitud.EstadoSolicitud nuevoEstado, 
-                                        String procesadoPor, String motivoRechazo) throws IOException {
-        List<Solicitud> solicitudes = cargarTodasLasSolicitudes();
-        boolean encontrada = false;
-        
-        for (Solicitud solicitud : solicitudes) {
-            if (solicitud.getId() == solicitudId) {
-                if (nuevoEstado == Solicitud.EstadoSolicitud.APROBADA) {
-                    solicitud.aprobar(procesadoPor);
-                } else if (nuevoEstado == Solicitud.EstadoSolicitud.RECHAZADA) {
-                    solicitud.rechazar(procesadoPor, motivoRechazo);
-                }
-                encontrada = true;
-                break;
-            }
-        }
-        
-        if (encontrada) {
-            reescribirArchivoSolicitudes(solicitudes);
-        } else {
-            throw new IllegalArgumentException("Solicitud con ID " + solicitudId + " no encontrada");
-        }
+    private void agregarACache(Solicitud solicitud) {
+        solicitudes.add(solicitud);
+        // Con IDs repetidos (archivos anteriores al generador persistente) gana el primero
+        solicitudesPorId.putIfAbsent(solicitud.getId(), solicitud);
+        solicitudesPorDpi.computeIfAbsent(solicitud.getEmpleadoDpi(), k -> new ArrayList<>()).add(solicitud);
+        solicitudesPorEstado.computeIfAbsent(solicitud.getEstado(), k -> new LinkedHashSet<>()).add(solicitud);
     }
-    
+
     /**
-     * Formatea una solicitud para guardarla en archivo
+     * Descarta la caché; la próxima consulta vuelve a cargar todo desde el almacén
      */
-    private String formatearSolicitudParaArchivo(Solicitud solicitud) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(solicitud.getId()).append("|");
-        sb.append(solicitud.getEmpleadoDpi()).append("|");
-        sb.append(solicitud.getEmpleadoNombre()).append("|");
-        sb.append(solicitud.getTipo().name()).append("|");
-        sb.append(solicitud.getDescripcion().replace("|", "~")).append("|"); // Reemplazar | para evitar conflictos
-        sb.append(solicitud.getFechaInicio().format(FORMATTER)).append("|");
-        sb.append(solicitud.getFechaFin().format(FORMATTER)).append("|");
-        sb.append(solicitud.getFechaSolicitud().format(FORMATTER)).append("|");
-        sb.append(solicitud.getEstado().name()).append("|");
-        sb.append(solicitud.getAprobadoPor() != null ? solicitud.getAprobadoPor() : "").append("|");
-        sb.append(solicitud.getMotivoRechazo() != null ? solicitud.getMotivoRechazo().replace("|", "~") : "").append("|");
-        sb.append(solicitud.getFechaProcesamiento() != null ? solicitud.getFechaProcesamiento().format(FORMATTER) : "");
-        
-        return sb.toString();
+    private void invalidarCache() {
+        vaciarCache();
+        store.reiniciar();
+    }
+
+    private void vaciarCache() {
+        solicitudes.clear();
+        solicitudesPorId.clear();
+        solicitudesPorDpi.clear();
+        solicitudesPorEstado.clear();
     }
     
     /**
-     * Parsea una línea del archivo para crear una solicitud
+     * Actualiza el estado de una solicitud
      */
-    private Solicitud parsearSolicitudDesdeArchivo(String linea) {
-        String[] partes = linea.split("\\|", -1); // -1 para incluir campos vacíos al final
-        
-        if (partes.length < 9) {
-            return null; // Línea inválida
-        }
+    public synchronized void actualizarEstadoSolicitud(int solicitudId, Solicitud.EstadoSolicitud nuevoEstado, 
+                                        String procesadoPor, String motivoRechazo) throws IOException {
+        sincronizarCache();
+        Solicitud solicitud = solicitudesPorId.get(solicitudId);
         
-        try {
-            // Crear solicitud básica
-            int id = Integer.parseInt(partes[0]);
-            String empleadoDpi = partes[1];
-            String empleadoNombre = partes[2];
-            Solicitud.TipoSolicitud tipo = Solicitud.TipoSolicitud.valueOf(partes[3]);
-            String descripcion = partes[4].replace("~", "|"); // Restaurar | en descripción
-            LocalDateTime fechaInicio = LocalDateTime.parse(partes[5], FORMATTER);
-            LocalDateTime fechaFin = LocalDateTime.parse(partes[6], FORMATTER);
-            
-            Solicitud solicitud = new Solicitud(empleadoDpi, empleadoNombre, tipo, descripcion, fechaInicio, fechaFin);
-            solicitud.setId(id);
-            
-            // Restaurar fecha de solicitud
-            if (!partes[7].isEmpty()) {
-                solicitud.setFechaSolicitud(LocalDateTime.parse(partes[7], FORMATTER));
-            }
-            
-            // Restaurar estado
-            if (!partes[8].isEmpty()) {
-                solicitud.setEstado(Solicitud.EstadoSolicitud.valueOf(partes[8]));
-            }
-            
-            // Restaurar campos opcionales si existen
-            if (partes.length > 9 && !partes[9].isEmpty()) {
-                solicitud.setAprobadoPor(partes[9]);
-            }
-            
-            if (partes.length > 10 && !partes[10].isEmpty()) {
-                solicitud.setMotivoRechazo(partes[10].replace("~", "|"));
+        if (solicitud != null) {
+            Solicitud.EstadoSolicitud estadoAnterior = solicitud.getEstado();
+            if (nuevoEstado == Solicitud.EstadoSolicitud.APROBADA) {
+                solicitud.aprobar(procesadoPor);
+            } else if (nuevoEstado == Solicitud.EstadoSolicitud.RECHAZADA) {
+                solicitud.rechazar(procesadoPor, motivoRechazo);
             }
-            
-            if (partes.length > 11 && !partes[11].isEmpty()) {
-                solicitud.setFechaProcesamiento(LocalDateTime.parse(partes[11], FORMATTER));
+            moverDeEstado(solicitud, estadoAnterior);
+
+            try {
+                store.actualizarEstado(solicitud);
+            } catch (IOException | IllegalArgumentException e) {
+                invalidarCache(); // La caché ya tiene el cambio que no se pudo guardar
+                throw e;
             }
-            
-            return solicitud;
-            
-        } catch (Exception e) {
-            System.err.println("Error al parsear solicitud: " + e.getMessage());
-            return null;
+        } else {
+            throw new IllegalArgumentException("Solicitud con ID " + solicitudId + " no encontrada");
         }
     }
     
     /**
-     * Reescribe completamente el archivo de solicitudes
+     * Mueve la solicitud al conjunto de su estado actual
      */
-    private void reescribirArchivoSolicitudes(List<Solicitud> solicitudes) throws IOException {
-        try (FileWriter fw = new FileWriter(ARCHIVO_SOLICITUDES, false);
-             PrintWriter pw = new PrintWriter(fw)) {
-            
-            for (Solicitud solicitud : solicitudes) {
-                String linea = formatearSolicitudParaArchivo(solicitud);
-                pw.println(linea);
-            }
+    private void moverDeEstado(Solicitud solicitud, Solicitud.EstadoSolicitud estadoAnterior) {
+        if (estadoAnterior == solicitud.getEstado()) {
+            return;
+        }
+        Set<Solicitud> anteriores = solicitudesPorEstado.get(estadoAnterior);
+        if (anteriores != null) {
+            anteriores.remove(solicitud);
         }
+        solicitudesPorEstado.computeIfAbsent(solicitud.getEstado(), k -> new LinkedHashSet<>()).add(solicitud);
     }
     
     /**
      * Obtiene solicitudes pendientes (para administradores)
      */
-    public List<Solicitud> obtenerSolicitudesPendientes() {
-        List<Solicitud> solicitudesPendientes = new ArrayList<>();
-        List<Solicitud> todasLasSolicitudes = cargarTodasLasSolicitudes();
-        
-        for (Solicitud solicitud : todasLasSolicitudes) {
-            if (solicitud.getEstado() == Solicitud.EstadoSolicitud.PENDIENTE) {
-                solicitudesPendientes.add(solicitud);
-            }
-        }
-        
-        return solicitudesPendientes;
+    public synchronized List<Solicitud> obtenerSolicitudesPendientes() {
+        return obtenerSolicitudesPorEstado(Solicitud.EstadoSolicitud.PENDIENTE);
     }
 }
@@ -0,0 +1,187 @@
+package archivo;
+
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+
+/**
+ * Solicitud leída de un archivo mapeado (ver LectorMapeado). ID, DPI, tipo y estado, que
+ * SolicitudManager usa al cargar, se decodifican enseguida; el nombre, la descripción, las fechas
+ * y los datos de procesamiento quedan como bytes de la línea hasta que alguien los pide.
+ * Un setter (por ejemplo el archivo de estados al sincronizar) reemplaza el valor pendiente
+ * sin decodificarlo.
+ */
+final class SolicitudPerezosa extends Solicitud {
+
+    private static final int NOMBRE = 1;
+    private static final int DESCRIPCION = 2;
+    private static final int FECHA_INICIO = 4;
+    private static final int FECHA_FIN = 8;
+    private static final int FECHA_SOLICITUD = 16;
+    private static final int APROBADO_POR = 32;
+    private static final int MOTIVO_RECHAZO = 64;
+    private static final int FECHA_PROCESAMIENTO = 128;
+
+    private final Charset charset;
+    private volatile byte[] linea; // null cuando ya no queda nada por decodificar
+    private int pendientes = NOMBRE | DESCRIPCION | FECHA_INICIO | FECHA_FIN | FECHA_SOLICITUD
+            | APROBADO_POR | MOTIVO_RECHAZO | FECHA_PROCESAMIENTO;
+
+    /**
+     * @param linea bytes de la línea, ya validada por el lector (campos y formato de las fechas)
+     */
+    SolicitudPerezosa(int id, String empleadoDpi, TipoSolicitud tipo, EstadoSolicitud estado,
+                      byte[] linea, Charset charset) {
+        super(id, empleadoDpi, null, tipo, null, null, null);
+        super.setEstado(estado);
+        this.linea = linea;
+        this.charset = charset;
+    }
+
+    /**
+     * Decodifica los campos que siguen pendientes, igual que ArchivoSolicitudStore al parsear la línea
+     */
+    private synchronized void materializar() {
+        byte[] bytes = linea;
+        if (bytes == null) {
+            return;
+        }
+        LectorCampos campos = new LectorCampos().cargar(new String(bytes, charset));
+        // La carga ya validó las fechas (LectorMapeado.validarFechaHora), así que no fallan aquí
+        if (pendiente(NOMBRE)) {
+            super.setEmpleadoNombre(campos.texto(2));
+        }
+        if (pendiente(DESCRIPCION)) {
+            super.setDescripcion(campos.textoEscapado(4));
+        }
+        if (pendiente(FECHA_INICIO)) {
+            super.setFechaInicio(campos.fechaHora(5));
+        }
+        if (pendiente(FECHA_FIN)) {
+            super.setFechaFin(campos.fechaHora(6));
+        }
+        if (pendiente(FECHA_SOLICITUD) && !campos.vacio(7)) {
+            super.setFechaSolicitud(campos.fechaHora(7));
+        }
+        if (pendiente(APROBADO_POR) && campos.cantidad() > 9 && !campos.vacio(9)) {
+            super.setAprobadoPor(campos.texto(9));
+        }
+        if (pendiente(MOTIVO_RECHAZO) && campos.cantidad() > 10 && !campos.vacio(10)) {
+            super.setMotivoRechazo(campos.textoEscapado(10));
+        }
+        if (pendiente(FECHA_PROCESAMIENTO) && campos.cantidad() > 11 && !campos.vacio(11)) {
+            super.setFechaProcesamiento(campos.fechaHora(11));
+        }
+        pendientes = 0;
+        linea = null;
+    }
+
+    private boolean pendiente(int campo) {
+        return (pendientes & campo) != 0;
+    }
+
+    private synchronized void descartar(int campo) {
+        pendientes &= ~campo;
+    }
+
+    private void asegurar() {
+        if (linea != null) {
+            materializar();
+        }
+    }
+
+    @Override
+    public String getEmpleadoNombre() {
+        asegurar();
+        return super.getEmpleadoNombre();
+    }
+
+    @Override
+    public void setEmpleadoNombre(String empleadoNombre) {
+        descartar(NOMBRE);
+        super.setEmpleadoNombre(empleadoNombre);
+    }
+
+    @Override
+    public String getDescripcion() {
+        asegurar();
+        return super.getDescripcion();
+    }
+
+    @Override
+    public void setDescripcion(String descripcion) {
+        descartar(DESCRIPCION);
+        super.setDescripcion(descripcion);
+    }
+
+    @Override
+    public LocalDateTime getFechaInicio() {
+        asegurar();
+        return super.getFechaInicio();
+    }
+
+    @Override
+    public void setFechaInicio(LocalDateTime fechaInicio) {
+        descartar(FECHA_INICIO);
+        super.setFechaInicio(fechaInicio);
+    }
+
+    @Override
+    public LocalDateTime getFechaFin() {
+        asegurar();
+        return super.getFechaFin();
+    }
+
+    @Override
+    public void setFechaFin(LocalDateTime fechaFin) {
+        descartar(FECHA_FIN);
+        super.setFechaFin(fechaFin);
+    }
+
+    @Override
+    public LocalDateTime getFechaSolicitud() {
+        asegurar();
+        return super.getFechaSolicitud();
+    }
+
+    @Override
+    public void setFechaSolicitud(LocalDateTime fechaSolicitud) {
+        descartar(FECHA_SOLICITUD);
+        super.setFechaSolicitud(fechaSolicitud);
+    }
+
+    @Override
+    public String getAprobadoPor() {
+        asegurar();
+        return super.getAprobadoPor();
+    }
+
+    @Override
+    public void setAprobadoPor(String aprobadoPor) {
+        descartar(APROBADO_POR);
+        super.setAprobadoPor(aprobadoPor);
+    }
+
+    @Override
+    public String getMotivoRechazo() {
+        asegurar();
+        return super.getMotivoRechazo();
+    }
+
+    @Override
+    public void setMotivoRechazo(String motivoRechazo) {
+        descartar(MOTIVO_RECHAZO);
+        super.setMotivoRechazo(motivoRechazo);
+    }
+
+    @Override
+    public LocalDateTime getFechaProcesamiento() {
+        asegurar();
+        return super.getFechaProcesamiento();
+    }
+
+    @Override
+    public void setFechaProcesamiento(LocalDateTime fechaProcesamiento) {
+        descartar(FECHA_PROCESAMIENTO);
+        super.setFechaProcesamiento(fechaProcesamiento);
+    }
+}
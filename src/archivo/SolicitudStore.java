@@ -0,0 +1,60 @@
+package archivo;
+
+import java.io.IOException;
+
+/**
+ * Almacenamiento de las solicitudes. SolicitudManager mantiene las solicitudes en memoria con
+ * sus índices; el almacén solo le entrega lo que cambió desde la sincronización anterior
+ * (incluidos los cambios hechos por otros procesos, si el almacén puede detectarlos).
+ * Implementaciones: ArchivoSolicitudStore (solicitudes.txt y su archivo de estados),
+ * MemoriaSolicitudStore y JdbcSolicitudStore.
+ */
+public interface SolicitudStore {
+
+    /**
+     * Recibe los cambios del almacén
+     */
+    interface Receptor {
+        /**
+         * Lo recibido hasta ahora ya no es válido; a continuación se entrega todo de nuevo
+         */
+        void reiniciar();
+
+        /**
+         * Solicitud que el receptor aún no tenía, en orden de creación
+         */
+        void agregada(Solicitud solicitud);
+
+        /**
+         * Una solicitud ya entregada cambió de estado (el objeto ya tiene el estado nuevo)
+         */
+        void estadoCambiado(Solicitud solicitud, Solicitud.EstadoSolicitud estadoAnterior);
+    }
+
+    /**
+     * Entrega al receptor los cambios ocurridos desde la llamada anterior
+     */
+    void sincronizar(Receptor receptor) throws IOException;
+
+    /**
+     * Reserva el ID de una solicitud nueva. Nunca entrega dos veces el mismo, tampoco a otro
+     * proceso que comparta el almacén
+     */
+    int siguienteId() throws IOException;
+
+    /**
+     * Guarda una solicitud nueva; el receptor la recibe en la próxima sincronización
+     */
+    void agregar(Solicitud solicitud) throws IOException;
+
+    /**
+     * Guarda el estado, el aprobador, el motivo y la fecha de procesamiento de una solicitud
+     * ya entregada
+     */
+    void actualizarEstado(Solicitud solicitud) throws IOException;
+
+    /**
+     * Olvida lo entregado: la próxima sincronización vuelve a entregar todas las solicitudes
+     */
+    void reiniciar();
+}
@@ -6,7 +6,6 @@
 package archivo;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.List;
@@ -23,11 +22,12 @@ public class Solicitudes extends javax.swing.JFrame {
     private SolicitudManager solicitudManager;
 
     private JTable tablaSolicitudes;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaLista<Solicitud> modeloTabla;
     private JButton btnAprobar;
     private JButton btnRechazar;
     private JButton btnRegresar;
     private JTextArea txtMotivoRechazo;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
 
     /**
      * Creates new form Solicitudes
@@ -57,12 +57,18 @@ public class Solicitudes extends javax.swing.JFrame {
 
         // Tabla de solicitudes
         String[] columnas = {"ID", "Empleado", "DPI", "Tipo", "Descripción", "Fecha Inicio", "Fecha Fin", "Estado"};
-        modeloTabla = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        modeloTabla = new ModeloTablaLista<>(columnas, (sol, columna) -> {
+            switch (columna) {
+                case 0: return sol.getId();
+                case 1: return sol.getEmpleadoNombre();
+                case 2: return sol.getEmpleadoDpi();
+                case 3: return sol.getTipo().getDescripcion();
+                case 4: return sol.getDescripcion();
+                case 5: return sol.getFechaInicioFormateada();
+                case 6: return sol.getFechaFinFormateada();
+                default: return sol.getEstado().getDescripcion();
             }
-        };
+        });
 
         tablaSolicitudes = new JTable(modeloTabla);
         tablaSolicitudes.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -100,6 +106,7 @@ public class Solicitudes extends javax.swing.JFrame {
         btnRegresar.setFont(new Font("Tahoma", Font.BOLD, 14));
         btnRegresar.addActionListener(this::regresar);
         panelBotones.add(btnRegresar);
+        panelBotones.add(ejecutor.getIndicador());
 
         panelAcciones.add(panelMotivo, BorderLayout.NORTH);
         panelAcciones.add(panelBotones, BorderLayout.SOUTH);
@@ -117,26 +124,17 @@ public class Solicitudes extends javax.swing.JFrame {
 
     private void cargarSolicitudesPendientes() {
         // Use SolicitudManager instead of DatabaseManager
-        List<Solicitud> solicitudes = solicitudManager.obtenerSolicitudesPendientes();
-        actualizarTabla(solicitudes);
+        ejecutor.ejecutar("pendientes", "Cargando solicitudes...",
+                avance -> solicitudManager.obtenerSolicitudesPendientes(), this::actualizarTabla);
+    }
+
+    private void habilitarAcciones(boolean habilitar) {
+        btnAprobar.setEnabled(habilitar);
+        btnRechazar.setEnabled(habilitar);
     }
 
     private void actualizarTabla(List<Solicitud> solicitudes) {
-        modeloTabla.setRowCount(0);
-
-        for (Solicitud sol : solicitudes) {
-            Object[] fila = {
-                sol.getId(),
-                sol.getEmpleadoNombre(),
-                sol.getEmpleadoDpi(),
-                sol.getTipo().getDescripcion(),
-                sol.getDescripcion(),
-                sol.getFechaInicioFormateada(),
-                sol.getFechaFinFormateada(),
-                sol.getEstado().getDescripcion()
-            };
-            modeloTabla.addRow(fila);
-        }
+        modeloTabla.setFilas(solicitudes);
     }
 
     private void aprobarSolicitud(ActionEvent e) {
@@ -156,31 +154,35 @@ public class Solicitudes extends javax.swing.JFrame {
             "Confirmar Aprobación", JOptionPane.YES_NO_OPTION);
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            try {
+            String empleadoDpi = (String) modeloTabla.getValueAt(filaSeleccionada, 2);
+            habilitarAcciones(false);
+            ejecutor.ejecutar(null, "Aprobando solicitud...", avance -> {
                 // Use SolicitudManager to update request status
                 solicitudManager.actualizarEstadoSolicitud(solicitudId, Solicitud.EstadoSolicitud.APROBADA,
                                                          usuarioActual.getUsername(), null);
 
-                JOptionPane.showMessageDialog(this, "Solicitud aprobada exitosamente",
-                                            "Aprobación exitosa", JOptionPane.INFORMATION_MESSAGE);
-
                 // Registrar en bitácora
                 bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "APPROVE_REQUEST",
                                                  "Solicitud aprobada: " + tipoSolicitud, "ID: " + solicitudId);
 
                 // Find employee for email notification
-                String empleadoDpi = (String) modeloTabla.getValueAt(filaSeleccionada, 2);
                 Empleado empleado = dbManager.obtenerEmpleadoPorDpi(empleadoDpi);
                 if (empleado != null && empleado.getEmail() != null && !empleado.getEmail().isEmpty()) {
                     emailService.enviarAprobacionSolicitud(empleado.getEmail(), empleado.getNombre(), tipoSolicitud);
                 }
+                return null;
+            }, sinResultado -> {
+                habilitarAcciones(true);
+                JOptionPane.showMessageDialog(this, "Solicitud aprobada exitosamente",
+                                            "Aprobación exitosa", JOptionPane.INFORMATION_MESSAGE);
 
                 // Actualizar tabla
                 cargarSolicitudesPendientes();
-            } catch (Exception ex) {
+            }, ex -> {
+                habilitarAcciones(true);
                 JOptionPane.showMessageDialog(this, "Error al aprobar la solicitud: " + ex.getMessage(),
                                             "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
@@ -212,34 +214,39 @@ public class Solicitudes extends javax.swing.JFrame {
             "Confirmar Rechazo", JOptionPane.YES_NO_OPTION);
 
         if (confirmacion == JOptionPane.YES_OPTION) {
-            try {
+            String empleadoDpi = (String) modeloTabla.getValueAt(filaSeleccionada, 2);
+            String motivo = motivoRechazo;
+            habilitarAcciones(false);
+            ejecutor.ejecutar(null, "Rechazando solicitud...", avance -> {
                 // Use SolicitudManager to update request status
                 solicitudManager.actualizarEstadoSolicitud(solicitudId, Solicitud.EstadoSolicitud.RECHAZADA,
-                                                         usuarioActual.getUsername(), motivoRechazo);
-
-                JOptionPane.showMessageDialog(this, "Solicitud rechazada",
-                                            "Rechazo procesado", JOptionPane.INFORMATION_MESSAGE);
+                                                         usuarioActual.getUsername(), motivo);
 
                 // Registrar en bitácora
                 bitacoraManager.registrarOperacion(usuarioActual.getUsername(), "REJECT_REQUEST",
-                                                 "Solicitud rechazada: " + tipoSolicitud + ". Motivo: " + motivoRechazo,
+                                                 "Solicitud rechazada: " + tipoSolicitud + ". Motivo: " + motivo,
                                                  "ID: " + solicitudId);
 
                 // Find employee for email notification
-                String empleadoDpi = (String) modeloTabla.getValueAt(filaSeleccionada, 2);
                 Empleado empleado = dbManager.obtenerEmpleadoPorDpi(empleadoDpi);
                 if (empleado != null && empleado.getEmail() != null && !empleado.getEmail().isEmpty()) {
                     emailService.enviarRechazoSolicitud(empleado.getEmail(), empleado.getNombre(),
-                                                      tipoSolicitud, motivoRechazo);
+                                                      tipoSolicitud, motivo);
                 }
+                return null;
+            }, sinResultado -> {
+                habilitarAcciones(true);
+                JOptionPane.showMessageDialog(this, "Solicitud rechazada",
+                                            "Rechazo procesado", JOptionPane.INFORMATION_MESSAGE);
 
                 // Limpiar motivo y actualizar tabla
                 txtMotivoRechazo.setText("");
                 cargarSolicitudesPendientes();
-            } catch (Exception ex) {
+            }, ex -> {
+                habilitarAcciones(true);
                 JOptionPane.showMessageDialog(this, "Error al rechazar la solicitud: " + ex.getMessage(),
                                             "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
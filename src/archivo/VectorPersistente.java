@@ -0,0 +1,146 @@
+package archivo;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Lista inmutable con estructura compartida (un trie de 32 ramas por nivel, indexado por posición).
+ * Agregar al final o reemplazar una posición devuelve un vector nuevo que solo copia el camino
+ * hasta esa posición; el resto se comparte con el original, que sigue igual.
+ */
+final class VectorPersistente<E> {
+
+    private static final int BITS = 5;
+    private static final int ANCHO = 1 << BITS;
+    private static final int MASCARA = ANCHO - 1;
+    private static final VectorPersistente<Object> VACIO = new VectorPersistente<>(new Object[ANCHO], 0, 0);
+
+    private final Object[] raiz;
+    private final int nivel;   // Desplazamiento del índice en la raíz (0: la raíz tiene los elementos)
+    private final int tamano;
+
+    private VectorPersistente(Object[] raiz, int nivel, int tamano) {
+        this.raiz = raiz;
+        this.nivel = nivel;
+        this.tamano = tamano;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> VectorPersistente<E> vacio() {
+        return (VectorPersistente<E>) VACIO;
+    }
+
+    int tamano() {
+        return tamano;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int indice) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamaño " + tamano);
+        }
+        return (E) hoja(indice)[indice & MASCARA];
+    }
+
+    /**
+     * Vector con el elemento agregado al final
+     */
+    VectorPersistente<E> agregar(E elemento) {
+        if (tamano == 1 << (nivel + BITS)) {
+            // La raíz está llena: se agrega un nivel arriba
+            Object[] nuevaRaiz = new Object[ANCHO];
+            nuevaRaiz[0] = raiz;
+            nuevaRaiz[1] = camino(nivel, elemento);
+            return new VectorPersistente<>(nuevaRaiz, nivel + BITS, tamano + 1);
+        }
+        return new VectorPersistente<>(asignar(raiz, nivel, tamano, elemento), nivel, tamano + 1);
+    }
+
+    /**
+     * Vector con el elemento en la posición dada
+     */
+    VectorPersistente<E> con(int indice, E elemento) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + ", tamaño " + tamano);
+        }
+        return new VectorPersistente<>(asignar(raiz, nivel, indice, elemento), nivel, tamano);
+    }
+
+    /**
+     * Vista de solo lectura, sin copiar los elementos
+     */
+    List<E> comoLista() {
+        return new Vista();
+    }
+
+    private Object[] hoja(int indice) {
+        Object[] nodo = raiz;
+        for (int desplazamiento = nivel; desplazamiento > 0; desplazamiento -= BITS) {
+            nodo = (Object[]) nodo[(indice >>> desplazamiento) & MASCARA];
+        }
+        return nodo;
+    }
+
+    /**
+     * Copia del nodo con el elemento en el índice, copiando (o creando) los nodos del camino
+     */
+    private static Object[] asignar(Object[] nodo, int desplazamiento, int indice, Object elemento) {
+        Object[] copia = nodo != null ? nodo.clone() : new Object[ANCHO];
+        if (desplazamiento == 0) {
+            copia[indice & MASCARA] = elemento;
+        } else {
+            int i = (indice >>> desplazamiento) & MASCARA;
+            copia[i] = asignar((Object[]) copia[i], desplazamiento - BITS, indice, elemento);
+        }
+        return copia;
+    }
+
+    private static Object[] camino(int desplazamiento, Object elemento) {
+        Object[] nodo = new Object[ANCHO];
+        nodo[0] = desplazamiento == 0 ? elemento : camino(desplazamiento - BITS, elemento);
+        return nodo;
+    }
+
+    private final class Vista extends AbstractList<E> implements RandomAccess {
+        @Override
+        public E get(int indice) {
+            return VectorPersistente.this.get(indice);
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+
+        /**
+         * Recorre hoja por hoja en lugar de bajar desde la raíz por cada elemento
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int siguiente = 0;
+                private Object[] hoja;
+
+                @Override
+                public boolean hasNext() {
+                    return siguiente < tamano;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (siguiente >= tamano) {
+                        throw new NoSuchElementException();
+                    }
+                    if ((siguiente & MASCARA) == 0 || hoja == null) {
+                        hoja = hoja(siguiente);
+                    }
+                    return (E) hoja[siguiente++ & MASCARA];
+                }
+            };
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package archivo;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -18,14 +17,15 @@ public class VerSolicitudesEmpleado extends JFrame {
     
     // Componentes de la interfaz
     private JTable tablaSolicitudes;
-    private DefaultTableModel modeloTabla;
+    private ModeloTablaLista<Solicitud> modeloTabla;
     private JButton btnActualizar;
     private JButton btnCerrar;
     private JLabel lblEstadisticas;
+    private final EjecutorTareas ejecutor = new EjecutorTareas();
 
     public VerSolicitudesEmpleado(Empleado empleado) {
         this.empleadoActual = empleado;
-        this.solicitudManager = new SolicitudManager();
+        this.solicitudManager = SolicitudManager.getInstancia();
         this.bitacoraManager = new BitacoraManager();
         
         initComponents();
@@ -63,12 +63,19 @@ public class VerSolicitudesEmpleado extends JFrame {
             "Fecha Solicitud", "Estado", "Procesado Por", "Observaciones"
         };
         
-        modeloTabla = new DefaultTableModel(columnas, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Hacer la tabla de solo lectura
+        modeloTabla = new ModeloTablaLista<>(columnas, (solicitud, columna) -> {
+            switch (columna) {
+                case 0: return solicitud.getId();
+                case 1: return solicitud.getTipo().getDescripcion();
+                case 2: return truncarTexto(solicitud.getDescripcion(), 50);
+                case 3: return solicitud.getFechaInicioFormateada().substring(0, 10); // Solo fecha, sin hora
+                case 4: return solicitud.getFechaFinFormateada().substring(0, 10);
+                case 5: return solicitud.getFechaSolicitudFormateada().substring(0, 10);
+                case 6: return solicitud.getEstado().getDescripcion();
+                case 7: return solicitud.getAprobadoPor() != null ? solicitud.getAprobadoPor() : "";
+                default: return solicitud.getMotivoRechazo() != null ? truncarTexto(solicitud.getMotivoRechazo(), 30) : "";
             }
-        };
+        });
 
         tablaSolicitudes = new JTable(modeloTabla);
         tablaSolicitudes.setFont(new Font("Tahoma", Font.PLAIN, 12));
@@ -116,6 +123,7 @@ public class VerSolicitudesEmpleado extends JFrame {
 
         panelBotones.add(btnActualizar);
         panelBotones.add(btnCerrar);
+        panelBotones.add(ejecutor.getIndicador());
 
         // Agregar componentes al frame
         add(panelSuperior, BorderLayout.NORTH);
@@ -131,63 +139,48 @@ public class VerSolicitudesEmpleado extends JFrame {
     }
 
     private void cargarSolicitudes() {
-        try {
-            // Limpiar tabla
-            modeloTabla.setRowCount(0);
-            
+        ejecutor.ejecutar("solicitudes", "Cargando solicitudes...", avance -> {
             // Obtener solicitudes del empleado
             List<Solicitud> solicitudes = solicitudManager.obtenerSolicitudesPorEmpleado(empleadoActual.getDpi());
-            
-            // Contadores para estadísticas
-            int pendientes = 0, aprobadas = 0, rechazadas = 0;
-            
-            // Llenar tabla
-            for (Solicitud solicitud : solicitudes) {
-                Object[] fila = {
-                    solicitud.getId(),
-                    solicitud.getTipo().getDescripcion(),
-                    truncarTexto(solicitud.getDescripcion(), 50),
-                    solicitud.getFechaInicioFormateada().substring(0, 10), // Solo fecha, sin hora
-                    solicitud.getFechaFinFormateada().substring(0, 10),
-                    solicitud.getFechaSolicitudFormateada().substring(0, 10),
-                    solicitud.getEstado().getDescripcion(),
-                    solicitud.getAprobadoPor() != null ? solicitud.getAprobadoPor() : "",
-                    solicitud.getMotivoRechazo() != null ? truncarTexto(solicitud.getMotivoRechazo(), 30) : ""
-                };
-                
-                modeloTabla.addRow(fila);
-                
-                // Contar estados
-                switch (solicitud.getEstado()) {
-                    case PENDIENTE:
-                        pendientes++;
-                        break;
-                    case APROBADA:
-                        aprobadas++;
-                        break;
-                    case RECHAZADA:
-                        rechazadas++;
-                        break;
-                }
-            }
-            
-            // Actualizar estadísticas
-            String estadisticas = String.format("Total: %d solicitudes | Pendientes: %d | Aprobadas: %d | Rechazadas: %d",
-                    solicitudes.size(), pendientes, aprobadas, rechazadas);
-            lblEstadisticas.setText(estadisticas);
-            
-            // Aplicar colores a las filas según el estado
-            aplicarColoresFilas();
-            
+
             // Registrar consulta en bitácora
             bitacoraManager.registrarOperacion(empleadoActual.getUsername(), "CONSULTA_SOLICITUDES",
                     "Consulta de solicitudes propias", "Total: " + solicitudes.size());
-                    
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Error al cargar las solicitudes: " + e.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
+            return solicitudes;
+        }, this::mostrarSolicitudes, e -> JOptionPane.showMessageDialog(this,
+                "Error al cargar las solicitudes: " + e.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private void mostrarSolicitudes(List<Solicitud> solicitudes) {
+        // Contadores para estadísticas
+        int pendientes = 0, aprobadas = 0, rechazadas = 0;
+
+        // Llenar tabla (las celdas se leen de cada solicitud al mostrarse)
+        modeloTabla.setFilas(solicitudes);
+
+        for (Solicitud solicitud : solicitudes) {
+            // Contar estados
+            switch (solicitud.getEstado()) {
+                case PENDIENTE:
+                    pendientes++;
+                    break;
+                case APROBADA:
+                    aprobadas++;
+                    break;
+                case RECHAZADA:
+                    rechazadas++;
+                    break;
+            }
         }
+
+        // Actualizar estadísticas
+        String estadisticas = String.format("Total: %d solicitudes | Pendientes: %d | Aprobadas: %d | Rechazadas: %d",
+                solicitudes.size(), pendientes, aprobadas, rechazadas);
+        lblEstadisticas.setText(estadisticas);
+
+        // Aplicar colores a las filas según el estado
+        aplicarColoresFilas();
     }
     
     private void aplicarColoresFilas() {
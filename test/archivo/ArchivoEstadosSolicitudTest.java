@@ -0,0 +1,264 @@
+package archivo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Prueba del archivo lateral de estados a través de ArchivoSolicitudStore: migración desde
+ * solicitudes.txt, aprobar y rechazar con escrituras posicionadas, motivos y aprobadores largos
+ * en sus archivos aparte, cambios de otro proceso, reinicio y los casos en que no se migra
+ * (IDs repetidos, un ID que no cabe en su campo).
+ *
+ * Uso: ant test
+ */
+public class ArchivoEstadosSolicitudTest {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2024, 3, 1, 8, 30, 0);
+    // Termina en un carácter no ASCII si el charset de los archivos lo admite (con la localización
+    // POSIX es US-ASCII), para comprobar que los archivos laterales usan el mismo charset
+    private static final String APROBADOR_LARGO = "supervisor.de.recursos.humanos.".repeat(4)
+            + (ArchivoSolicitudStore.CHARSET.newEncoder().canEncode('ñ') ? "ñ" : "n");
+
+    /**
+     * Caché como la de SolicitudManager: solicitudes por ID y cambios de estado recibidos
+     */
+    static class Cache implements SolicitudStore.Receptor {
+        final Map<Integer, Solicitud> solicitudes = new LinkedHashMap<>();
+        final List<Integer> cambios = new ArrayList<>();
+
+        @Override
+        public void reiniciar() {
+            solicitudes.clear();
+            cambios.clear();
+        }
+
+        @Override
+        public void agregada(Solicitud solicitud) {
+            solicitudes.putIfAbsent(solicitud.getId(), solicitud);
+        }
+
+        @Override
+        public void estadoCambiado(Solicitud solicitud, Solicitud.EstadoSolicitud estadoAnterior) {
+            // Al releer el archivo completo también llegan los registros sin cambios
+            if (estadoAnterior != solicitud.getEstado()) {
+                cambios.add(solicitud.getId());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        File directorio = Files.createTempDirectory("estados-solicitud").toFile();
+        try {
+            probarMigracionYActualizaciones(new File(directorio, "solicitudes.txt").getPath());
+            probarIdsRepetidos(new File(directorio, "repetidos.txt").getPath());
+            probarIdDemasiadoAncho(new File(directorio, "anchos.txt").getPath());
+        } finally {
+            File[] archivos = directorio.listFiles();
+            if (archivos != null) {
+                for (File f : archivos) {
+                    f.delete();
+                }
+            }
+            directorio.delete();
+        }
+        System.out.println("ArchivoEstadosSolicitudTest: todas las pruebas pasaron");
+    }
+
+    private static void probarMigracionYActualizaciones(String archivo) throws IOException {
+        escribirLineas(archivo,
+                linea(1, "PENDIENTE", "", "", false),
+                linea(2, "APROBADA", "jefe", "", true),
+                linea(3, "RECHAZADA", "jefe", "sin|saldo", true),
+                linea(4, "APROBADA", APROBADOR_LARGO, "", true));
+        byte[] original = Files.readAllBytes(new File(archivo).toPath());
+
+        ArchivoSolicitudStore a = new ArchivoSolicitudStore(archivo);
+        Cache cacheA = sincronizar(a, new Cache());
+        File archivoEstados = new File(archivo.replace(".txt", ".estado"));
+        verificar(archivoEstados.exists(), "la migración crea el archivo de estados");
+        verificar(archivoEstados.length() == 4L * ArchivoEstadosSolicitud.TAMANO_REGISTRO,
+                "un registro de ancho fijo por solicitud");
+        verificarEstado(cacheA, 1, Solicitud.EstadoSolicitud.PENDIENTE, null, null);
+        verificarEstado(cacheA, 2, Solicitud.EstadoSolicitud.APROBADA, "jefe", null);
+        verificarEstado(cacheA, 3, Solicitud.EstadoSolicitud.RECHAZADA, "jefe", "sin|saldo");
+        verificarEstado(cacheA, 4, Solicitud.EstadoSolicitud.APROBADA, APROBADOR_LARGO, null);
+        verificar(cacheA.solicitudes.get(2).getFechaProcesamiento().equals(FECHA), "la fecha de procesamiento se migra");
+
+        // Otro proceso con el mismo archivo, ya sincronizado antes de los cambios
+        ArchivoSolicitudStore b = new ArchivoSolicitudStore(archivo);
+        Cache cacheB = sincronizar(b, new Cache());
+        verificarEstado(cacheB, 4, Solicitud.EstadoSolicitud.APROBADA, APROBADOR_LARGO, null);
+
+        esperarReloj();
+        Solicitud primera = cacheA.solicitudes.get(1);
+        primera.aprobar("jefe");
+        a.actualizarEstado(primera);
+        Solicitud segunda = cacheA.solicitudes.get(2);
+        segunda.rechazar(APROBADOR_LARGO, "fechas|ocupadas");
+        a.actualizarEstado(segunda);
+        verificar(Arrays.equals(Files.readAllBytes(new File(archivo).toPath()), original),
+                "aprobar y rechazar no reescriben solicitudes.txt");
+        verificar(archivoEstados.length() == 4L * ArchivoEstadosSolicitud.TAMANO_REGISTRO,
+                "la actualización escribe sobre el registro existente");
+
+        sincronizar(b, cacheB);
+        verificar(cacheB.cambios.containsAll(Arrays.asList(1, 2)) && cacheB.cambios.size() == 2,
+                "el otro proceso recibe los dos cambios de estado");
+        verificarEstado(cacheB, 1, Solicitud.EstadoSolicitud.APROBADA, "jefe", null);
+        verificarEstado(cacheB, 2, Solicitud.EstadoSolicitud.RECHAZADA, APROBADOR_LARGO, "fechas|ocupadas");
+
+        // Solicitud nueva en un proceso, procesada en el otro
+        Solicitud nueva = new Solicitud(a.siguienteId(), "3000000000001", "Luis García",
+                Solicitud.TipoSolicitud.PERMISO_PERSONAL, "cita", FECHA, FECHA.plusHours(4));
+        a.agregar(nueva);
+        esperarReloj();
+        sincronizar(b, cacheB);
+        Solicitud nuevaEnB = cacheB.solicitudes.get(nueva.getId());
+        verificar(nuevaEnB != null && nuevaEnB.isPendiente(), "el otro proceso ve la solicitud nueva");
+        nuevaEnB.rechazar("jefe", "primer motivo");
+        b.actualizarEstado(nuevaEnB);
+        nuevaEnB.rechazar("jefe", "motivo corregido");
+        b.actualizarEstado(nuevaEnB);
+        esperarReloj();
+        sincronizar(a, cacheA);
+        verificarEstado(cacheA, nueva.getId(), Solicitud.EstadoSolicitud.RECHAZADA, "jefe", "motivo corregido");
+
+        // Reinicio: todo sale de los archivos
+        Cache reiniciada = sincronizar(new ArchivoSolicitudStore(archivo), new Cache());
+        verificar(reiniciada.solicitudes.size() == 5, "cinco solicitudes al reiniciar");
+        for (Solicitud esperada : cacheA.solicitudes.values()) {
+            verificarEstado(reiniciada, esperada.getId(), esperada.getEstado(), esperada.getAprobadoPor(),
+                    esperada.getMotivoRechazo());
+            verificar(esperada.getFechaProcesamiento() == null
+                            ? reiniciada.solicitudes.get(esperada.getId()).getFechaProcesamiento() == null
+                            : esperada.getFechaProcesamiento().withNano(0).equals(
+                                    reiniciada.solicitudes.get(esperada.getId()).getFechaProcesamiento()),
+                    "fecha de procesamiento de " + esperada.getId() + " al reiniciar");
+        }
+
+        // El recorrido del migrador a base de datos: el último registro de cada ID gana
+        Map<Integer, String> aprobadores = new HashMap<>();
+        Map<Integer, String> motivos = new HashMap<>();
+        new ArchivoSolicitudStore(archivo).recorrer(s -> { }, new ArchivoEstadosSolicitud.Visitante() {
+            @Override
+            public void estado(int id, Solicitud.EstadoSolicitud estado, String procesadoPor,
+                               LocalDateTime fechaProcesamiento) {
+                aprobadores.put(id, procesadoPor);
+            }
+
+            @Override
+            public void motivo(int id, String motivoRechazo) {
+                motivos.put(id, motivoRechazo);
+            }
+        });
+        verificar(APROBADOR_LARGO.equals(aprobadores.get(2)) && APROBADOR_LARGO.equals(aprobadores.get(4)),
+                "el recorrido entrega los aprobadores largos completos");
+        verificar("motivo corregido".equals(motivos.get(nueva.getId())), "el recorrido entrega el último motivo");
+    }
+
+    /**
+     * Con IDs repetidos no se migra: los estados siguen en solicitudes.txt y actualizar lo reescribe
+     */
+    private static void probarIdsRepetidos(String archivo) throws IOException {
+        escribirLineas(archivo,
+                linea(5, "PENDIENTE", "", "", false),
+                linea(5, "APROBADA", "jefe", "", true),
+                linea(6, "PENDIENTE", "", "", false));
+        ArchivoSolicitudStore store = new ArchivoSolicitudStore(archivo);
+        Cache cache = sincronizar(store, new Cache());
+        verificar(!new File(archivo.replace(".txt", ".estado")).exists(), "con IDs repetidos no se migra");
+        verificarEstado(cache, 5, Solicitud.EstadoSolicitud.PENDIENTE, null, null);
+
+        Solicitud sexta = cache.solicitudes.get(6);
+        sexta.rechazar("jefe", "sin cupo");
+        store.actualizarEstado(sexta);
+        verificar(!new File(archivo.replace(".txt", ".estado")).exists(), "actualizar tampoco migra");
+        Cache recargada = sincronizar(new ArchivoSolicitudStore(archivo), new Cache());
+        verificarEstado(recargada, 6, Solicitud.EstadoSolicitud.RECHAZADA, "jefe", "sin cupo");
+    }
+
+    /**
+     * Un ID de 11 caracteres no cabe en su campo: no se migra y no queda un archivo temporal
+     */
+    private static void probarIdDemasiadoAncho(String archivo) throws IOException {
+        escribirLineas(archivo,
+                linea(Integer.MIN_VALUE, "PENDIENTE", "", "", false),
+                linea(7, "APROBADA", APROBADOR_LARGO, "", true));
+        ArchivoSolicitudStore store = new ArchivoSolicitudStore(archivo);
+        Cache cache = sincronizar(store, new Cache());
+        String estados = archivo.replace(".txt", ".estado");
+        verificar(!new File(estados).exists() && !new File(estados + ".tmp").exists(),
+                "con un ID demasiado ancho no se migra");
+        verificarEstado(cache, 7, Solicitud.EstadoSolicitud.APROBADA, APROBADOR_LARGO, null);
+
+        Solicitud septima = cache.solicitudes.get(7);
+        septima.rechazar("jefe", "falta revisar");
+        store.actualizarEstado(septima);
+        Cache recargada = sincronizar(new ArchivoSolicitudStore(archivo), new Cache());
+        verificarEstado(recargada, 7, Solicitud.EstadoSolicitud.RECHAZADA, "jefe", "falta revisar");
+        verificar(recargada.solicitudes.containsKey(Integer.MIN_VALUE), "la solicitud del ID ancho sigue");
+    }
+
+    /**
+     * Los cambios de otro proceso se detectan por fecha de modificación: entre la lectura de un
+     * proceso y la escritura del otro tiene que avanzar el reloj del sistema de archivos
+     */
+    private static void esperarReloj() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Cache sincronizar(ArchivoSolicitudStore store, Cache cache) throws IOException {
+        cache.cambios.clear();
+        store.sincronizar(cache);
+        return cache;
+    }
+
+    /**
+     * Línea del formato delimitado anterior al archivo de estados
+     */
+    private static String linea(int id, String estado, String aprobador, String motivo, boolean procesada) {
+        return id + "|2000000000001|Ana Ramírez|VACACIONES|descanso|" + FechaHoraTexto.formatear(FECHA) + "|"
+                + FechaHoraTexto.formatear(FECHA.plusDays(5)) + "|" + FechaHoraTexto.formatear(FECHA) + "|"
+                + estado + "|" + aprobador + "|" + motivo.replace('|', '~') + "|"
+                + (procesada ? FechaHoraTexto.formatear(FECHA) : "");
+    }
+
+    private static void escribirLineas(String archivo, String... lineas) throws IOException {
+        try (PrintWriter pw = new PrintWriter(archivo, ArchivoSolicitudStore.CHARSET)) {
+            for (String linea : lineas) {
+                pw.println(linea);
+            }
+        }
+    }
+
+    private static void verificarEstado(Cache cache, int id, Solicitud.EstadoSolicitud estado,
+                                        String aprobador, String motivo) {
+        Solicitud solicitud = cache.solicitudes.get(id);
+        verificar(solicitud != null, "existe la solicitud " + id);
+        verificar(solicitud.getEstado() == estado, "estado de " + id + ": " + solicitud.getEstado());
+        verificar(Objects.equals(solicitud.getAprobadoPor(), aprobador),
+                "procesada por de " + id + ": " + solicitud.getAprobadoPor());
+        verificar(Objects.equals(solicitud.getMotivoRechazo(), motivo),
+                "motivo de " + id + ": " + solicitud.getMotivoRechazo());
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package archivo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Prueba de BandejaSalidaCorreo con un envío simulado (sin servidor SMTP): los pendientes se
+ * retoman al reiniciar, los reintentos esperan cada vez más, después de N intentos el correo pasa
+ * a fallidos y los avisos retenidos para un resumen se envían sueltos si la aplicación se cerró.
+ *
+ * Uso: ant test
+ */
+public class BandejaSalidaCorreoTest {
+
+    /**
+     * Envío simulado: registra cada intento y falla los primeros que se le indiquen
+     */
+    static class EnvioSimulado implements Predicate<MensajeCorreo> {
+        final List<MensajeCorreo> intentos = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> instantes = Collections.synchronizedList(new ArrayList<>());
+        volatile int fallosPendientes;
+
+        EnvioSimulado(int fallos) {
+            this.fallosPendientes = fallos;
+        }
+
+        @Override
+        public synchronized boolean test(MensajeCorreo mensaje) {
+            intentos.add(mensaje);
+            instantes.add(System.currentTimeMillis());
+            if (fallosPendientes > 0) {
+                fallosPendientes--;
+                return false;
+            }
+            return true;
+        }
+
+        List<String> asuntos() {
+            List<String> asuntos = new ArrayList<>();
+            synchronized (intentos) {
+                for (MensajeCorreo mensaje : intentos) {
+                    asuntos.add(mensaje.getAsunto());
+                }
+            }
+            return asuntos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        File directorio = Files.createTempDirectory("bandeja-salida").toFile();
+        try {
+            probarReanudacion(new File(directorio, "reanudacion"));
+            probarEsperaExponencial(new File(directorio, "espera"));
+            probarFallidos(new File(directorio, "fallidos"));
+            probarRetenidos(new File(directorio, "retenidos"));
+        } finally {
+            borrar(directorio);
+        }
+        System.out.println("BandejaSalidaCorreoTest: todas las pruebas pasaron");
+    }
+
+    /**
+     * Lo que quedó en disco al cerrar se envía en la siguiente ejecución, con sus intentos
+     */
+    private static void probarReanudacion(File carpeta) throws Exception {
+        EnvioSimulado sinServidor = new EnvioSimulado(Integer.MAX_VALUE);
+        BandejaSalidaCorreo primera = bandeja(carpeta, 5, 200, sinServidor);
+        for (int i = 1; i <= 3; i++) {
+            primera.agregar(new MensajeCorreo("u" + i + "@empresa.com", "pendiente " + i, "contenido " + i));
+        }
+        esperarHasta(() -> sinServidor.intentos.size() == 3, "los tres correos se intentan una vez");
+        primera.cerrar(1000);
+        verificar(primera.getPendientes() == 3, "los correos no entregados quedan en disco");
+
+        EnvioSimulado envio = new EnvioSimulado(0);
+        BandejaSalidaCorreo segunda = bandeja(carpeta, 5, 200, envio);
+        esperarHasta(() -> segunda.getPendientes() == 0, "la bandeja nueva entrega los pendientes");
+        verificar(envio.asuntos().containsAll(Arrays.asList("pendiente 1", "pendiente 2", "pendiente 3"))
+                && envio.intentos.size() == 3, "se entrega cada pendiente una sola vez");
+        for (MensajeCorreo mensaje : envio.intentos) {
+            verificar(mensaje.getIntentos() == 1, "el intento anterior se conserva al reiniciar");
+        }
+        segunda.cerrar(1000);
+    }
+
+    /**
+     * Cada reintento espera al menos la mitad de base * 2^(intentos-1), sin pasar del máximo
+     */
+    private static void probarEsperaExponencial(File carpeta) throws Exception {
+        long base = 40;
+        long maxima = 200;
+        EnvioSimulado envio = new EnvioSimulado(4);
+        BandejaSalidaCorreo bandeja = bandeja(carpeta, 10, base, maxima, envio);
+        bandeja.agregar(new MensajeCorreo("ana@empresa.com", "reintentos", "contenido"));
+        esperarHasta(() -> bandeja.getPendientes() == 0, "el correo se entrega después de cuatro fallos");
+        verificar(envio.instantes.size() == 5, "cinco intentos: " + envio.instantes.size());
+        for (int intento = 1; intento < envio.instantes.size(); intento++) {
+            long espera = envio.instantes.get(intento) - envio.instantes.get(intento - 1);
+            long completa = Math.min(maxima, base << (intento - 1));
+            verificar(espera >= completa / 2, "el reintento " + intento + " esperó " + espera + " ms");
+        }
+        verificar(bandeja.getDescartados() == 0, "un correo entregado no se descarta");
+        bandeja.cerrar(1000);
+    }
+
+    /**
+     * Al agotar los intentos el correo pasa a fallidos con su cantidad de intentos
+     */
+    private static void probarFallidos(File carpeta) throws Exception {
+        EnvioSimulado sinServidor = new EnvioSimulado(Integer.MAX_VALUE);
+        BandejaSalidaCorreo bandeja = bandeja(carpeta, 3, 10, sinServidor);
+        bandeja.agregar(new MensajeCorreo("luis@empresa.com", "sin servidor", "contenido", true));
+        // El contador se incrementa antes de mover el archivo
+        esperarHasta(() -> bandeja.getDescartados() == 1 && bandeja.getPendientes() == 0,
+                "el correo descartado sale de la bandeja");
+        verificar(sinServidor.intentos.size() == 3, "se intenta exactamente maxIntentos veces");
+        File[] fallidos = new File(carpeta, "fallidos").listFiles((dir, nombre) -> nombre.endsWith(".msg"));
+        verificar(fallidos != null && fallidos.length == 1, "el correo queda en fallidos");
+        Properties datos = leer(fallidos[0]);
+        verificar("3".equals(datos.getProperty("intentos")), "fallidos guarda los intentos");
+        verificar("true".equals(datos.getProperty("transaccional")), "fallidos conserva el tipo de correo");
+        bandeja.cerrar(1000);
+
+        EnvioSimulado envio = new EnvioSimulado(0);
+        BandejaSalidaCorreo reiniciada = bandeja(carpeta, 3, 10, envio);
+        Thread.sleep(100);
+        verificar(envio.intentos.isEmpty(), "lo que está en fallidos no se reintenta al reiniciar");
+        reiniciada.cerrar(1000);
+    }
+
+    /**
+     * Un aviso retenido y no liberado se envía suelto al reiniciar; uno liberado no
+     */
+    private static void probarRetenidos(File carpeta) throws Exception {
+        EnvioSimulado sinUso = new EnvioSimulado(0);
+        BandejaSalidaCorreo primera = bandeja(carpeta, 5, 10, sinUso);
+        MensajeCorreo resumido = primera.retener(new MensajeCorreo("ana@empresa.com", "ya resumido", "contenido"));
+        MensajeCorreo huerfano = primera.retener(new MensajeCorreo("ana@empresa.com", "sin resumen", "contenido", true));
+        verificar(resumido != null && huerfano != null, "los avisos retenidos se guardan");
+        verificar(primera.getPendientes() == 0, "un aviso retenido no es un correo pendiente");
+        primera.liberar(Collections.singletonList(resumido));
+        primera.cerrar(1000);
+        verificar(sinUso.intentos.isEmpty(), "retener no envía");
+
+        EnvioSimulado envio = new EnvioSimulado(0);
+        BandejaSalidaCorreo segunda = bandeja(carpeta, 5, 10, envio);
+        esperarHasta(() -> segunda.getPendientes() == 0 && !envio.intentos.isEmpty(), "el aviso huérfano se envía");
+        Thread.sleep(100);
+        verificar(envio.asuntos().equals(Collections.singletonList("sin resumen")), "solo se envía el aviso huérfano");
+        verificar(envio.intentos.get(0).isTransaccional(), "el aviso recuperado conserva su tipo");
+        String[] retenidos = new File(carpeta, "retenidos").list();
+        verificar(retenidos == null || retenidos.length == 0, "no quedan avisos retenidos");
+        segunda.cerrar(1000);
+    }
+
+    private static BandejaSalidaCorreo bandeja(File carpeta, int maxIntentos, long esperaBaseMs,
+                                               Predicate<MensajeCorreo> envio) {
+        return bandeja(carpeta, maxIntentos, esperaBaseMs, esperaBaseMs * 4, envio);
+    }
+
+    private static BandejaSalidaCorreo bandeja(File carpeta, int maxIntentos, long esperaBaseMs, long esperaMaximaMs,
+                                               Predicate<MensajeCorreo> envio) {
+        return new BandejaSalidaCorreo(carpeta.getPath(), maxIntentos, esperaBaseMs, esperaMaximaMs, 2, 100, null, envio);
+    }
+
+    private static Properties leer(File archivo) throws IOException {
+        Properties datos = new Properties();
+        try (InputStream in = new FileInputStream(archivo)) {
+            datos.load(in);
+        }
+        return datos;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion, String caso) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                throw new AssertionError("Falló (tiempo agotado): " + caso);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void borrar(File archivo) {
+        File[] hijos = archivo.listFiles();
+        if (hijos != null) {
+            for (File hijo : hijos) {
+                borrar(hijo);
+            }
+        }
+        archivo.delete();
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
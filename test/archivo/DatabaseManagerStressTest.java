@@ -0,0 +1,157 @@
+package archivo;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga concurrente de DatabaseManager con ArchivoEmpleadoStore en modo journal:
+ * varios hilos registran empleados y cambian roles mientras otros autentican y buscan, y un
+ * hilo más compacta el journal sin parar. Al final se recarga desde disco y se comprueba que
+ * no se perdió ninguna escritura.
+ *
+ * Uso: ant test   (o java archivo.DatabaseManagerStressTest [escritores] [empleadosPorEscritor])
+ */
+public class DatabaseManagerStressTest {
+
+    private static final int LECTORES = 4;
+
+    public static void main(String[] args) throws Exception {
+        int escritores = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int porEscritor = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+
+        File directorio = Files.createTempDirectory("empleados-stress").toFile();
+        File archivo = new File(directorio, "Empleadosguardados.txt");
+        try {
+            probar(archivo, escritores, porEscritor);
+        } finally {
+            File[] archivos = directorio.listFiles();
+            if (archivos != null) {
+                for (File f : archivos) {
+                    f.delete();
+                }
+            }
+            directorio.delete();
+        }
+        System.out.println("DatabaseManagerStressTest: todas las pruebas pasaron");
+    }
+
+    private static void probar(File archivo, int escritores, int porEscritor) throws Exception {
+        ArchivoEmpleadoStore store = new ArchivoEmpleadoStore(archivo.getPath(), true);
+        DatabaseManager db = new DatabaseManager(store);
+        db.agregarEmpleado(empleado("base", 0, 0));
+
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        AtomicBoolean escribiendo = new AtomicBoolean(true);
+        AtomicLong lecturas = new AtomicLong();
+        CountDownLatch inicio = new CountDownLatch(1);
+
+        Thread[] hilosEscritores = new Thread[escritores];
+        for (int w = 0; w < escritores; w++) {
+            String prefijo = "w" + w;
+            int escritor = w + 1;
+            hilosEscritores[w] = hilo("escritor-" + w, inicio, errores, () -> {
+                for (int i = 0; i < porEscritor; i++) {
+                    verificar(db.registrarEmpleado(empleado(prefijo, escritor, i)), "registro de " + prefijo + "-" + i);
+                    // Cada segundo empleado cambia de rol poco después de registrarse
+                    if (i % 2 == 1) {
+                        verificar(db.asignarRol(prefijo + "-" + (i - 1), "AdminRRHH"), "rol de " + prefijo + "-" + (i - 1));
+                    }
+                }
+            });
+        }
+
+        Thread[] hilosLectores = new Thread[LECTORES];
+        for (int r = 0; r < LECTORES; r++) {
+            hilosLectores[r] = hilo("lector-" + r, inicio, errores, () -> {
+                while (escribiendo.get()) {
+                    verificar(db.autenticarUsuario("base-0", "clave-0") != null, "autenticar base-0");
+                    List<Empleado> todos = db.obtenerTodosEmpleados();
+                    Empleado ultimo = todos.get(todos.size() - 1);
+                    // Un empleado visible siempre tiene su entrada por DPI en la misma instantánea o una posterior
+                    Empleado porDpi = db.obtenerEmpleadoPorDpi(ultimo.getDpi());
+                    verificar(porDpi != null && porDpi.getUsername().equals(ultimo.getUsername()),
+                            "DPI de " + ultimo.getUsername());
+                    verificar(!db.buscarEmpleados(ultimo.getUsername()).isEmpty(), "búsqueda de " + ultimo.getUsername());
+                    lecturas.addAndGet(3);
+                }
+            });
+        }
+
+        Thread compactador = hilo("compactador", inicio, errores, () -> {
+            while (escribiendo.get()) {
+                store.compactarJournal();
+                Thread.sleep(2);
+            }
+        });
+
+        inicio.countDown();
+        for (Thread t : hilosEscritores) {
+            t.join();
+        }
+        escribiendo.set(false);
+        for (Thread t : hilosLectores) {
+            t.join();
+        }
+        compactador.join();
+        if (!errores.isEmpty()) {
+            throw new AssertionError("Falló un hilo: " + errores.peek(), errores.peek());
+        }
+
+        comprobarContenido(db, escritores, porEscritor, "en memoria");
+
+        // Espera a la compactación en curso y vuelca lo que quede del journal antes de recargar
+        store.compactarJournal();
+        comprobarContenido(new DatabaseManager(new ArchivoEmpleadoStore(archivo.getPath(), true)),
+                escritores, porEscritor, "tras recargar");
+        System.out.println("Escrituras: " + (escritores * porEscritor * 3 / 2) + ", lecturas: " + lecturas.get());
+    }
+
+    private static void comprobarContenido(DatabaseManager db, int escritores, int porEscritor, String caso) {
+        verificar(db.obtenerTodosEmpleados().size() == escritores * porEscritor + 1, "cantidad de empleados " + caso);
+        for (int w = 0; w < escritores; w++) {
+            for (int i = 0; i < porEscritor; i++) {
+                String username = "w" + w + "-" + i;
+                Empleado emp = db.obtenerEmpleadoPorUsername(username);
+                verificar(emp != null, username + " existe " + caso);
+                String rolEsperado = i % 2 == 0 && i + 1 < porEscritor ? "AdminRRHH" : "Empleado";
+                verificar(rolEsperado.equals(emp.getRole()), "rol de " + username + " " + caso);
+                verificar(db.obtenerEmpleadoPorDpi(emp.getDpi()) == emp, "DPI de " + username + " " + caso);
+            }
+        }
+    }
+
+    private static Empleado empleado(String prefijo, int escritor, int i) {
+        String username = prefijo + "-" + i;
+        String dpi = String.valueOf(1_000_000_000_000L + escritor * 10_000_000L + i);
+        return new Empleado(dpi, "Empleado " + username, username, "Área " + (i % 7), "Diurno", "Activo",
+                username + "@empresa.com", "clave-" + i);
+    }
+
+    private interface Cuerpo {
+        void ejecutar() throws Exception;
+    }
+
+    private static Thread hilo(String nombre, CountDownLatch inicio, ConcurrentLinkedQueue<Throwable> errores, Cuerpo cuerpo) {
+        Thread hilo = new Thread(() -> {
+            try {
+                inicio.await();
+                cuerpo.ejecutar();
+            } catch (Throwable t) {
+                errores.add(t);
+            }
+        }, nombre);
+        hilo.start();
+        return hilo;
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
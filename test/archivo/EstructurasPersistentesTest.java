@@ -0,0 +1,175 @@
+package archivo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Prueba de MapaPersistente y VectorPersistente contra HashMap y ArrayList con operaciones al
+ * azar (incluidas claves con el mismo hash), comprobando que las versiones anteriores no cambian.
+ * Al final mide el costo de una escritura en DatabaseManager con 5.000 y 50.000 empleados.
+ *
+ * Uso: ant test
+ */
+public class EstructurasPersistentesTest {
+
+    public static void main(String[] args) {
+        mapaIgualQueHashMap();
+        mapaConHashesRepetidos();
+        vectorIgualQueArrayList();
+        long chico = medirEscrituras(5_000);
+        long grande = medirEscrituras(50_000);
+        System.out.println("Escritura en DatabaseManager: " + chico + " ns con 5.000 empleados, "
+                + grande + " ns con 50.000");
+        System.out.println("EstructurasPersistentesTest: todas las pruebas pasaron");
+    }
+
+    static void mapaIgualQueHashMap() {
+        Random azar = new Random(7);
+        Map<String, Integer> esperado = new HashMap<>();
+        MapaPersistente<String, Integer> mapa = MapaPersistente.vacio();
+        for (int i = 0; i < 200_000; i++) {
+            String clave = "k" + azar.nextInt(20_000);
+            if (azar.nextInt(4) == 0) {
+                esperado.remove(clave);
+                mapa = mapa.sin(clave);
+            } else {
+                esperado.put(clave, i);
+                mapa = mapa.con(clave, i);
+            }
+        }
+        comparar(mapa, esperado, 20_000, "k");
+
+        // Una versión vieja no ve los cambios posteriores
+        Map<String, Integer> copia = new HashMap<>(esperado);
+        MapaPersistente<String, Integer> anterior = mapa;
+        for (int i = 0; i < 5_000; i++) {
+            mapa = mapa.con("k" + i, -i).sin("k" + (i + 10_000));
+        }
+        comparar(anterior, copia, 20_000, "k");
+    }
+
+    static void mapaConHashesRepetidos() {
+        // "Aa" y "BB" tienen el mismo hashCode, así que todas las combinaciones de igual largo también
+        List<String> claves = new ArrayList<>();
+        combinar("", 6, claves);
+        Map<String, Integer> esperado = new HashMap<>();
+        MapaPersistente<String, Integer> mapa = MapaPersistente.vacio();
+        Random azar = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            String clave = azar.nextInt(3) == 0 ? "x" + azar.nextInt(50) : claves.get(azar.nextInt(claves.size()));
+            if (azar.nextInt(3) == 0) {
+                esperado.remove(clave);
+                mapa = mapa.sin(clave);
+            } else {
+                esperado.put(clave, i);
+                mapa = mapa.con(clave, i);
+            }
+        }
+        verificar(mapa.tamano() == esperado.size(), "tamaño con colisiones");
+        for (String clave : claves) {
+            verificar(equals(mapa.get(clave), esperado.get(clave)), "colisión " + clave);
+        }
+        for (String clave : claves) {
+            mapa = mapa.sin(clave);
+        }
+        for (int i = 0; i < 50; i++) {
+            mapa = mapa.sin("x" + i);
+        }
+        verificar(mapa.tamano() == 0 && mapa.get("AaAaAa") == null, "vacío después de quitar todo");
+    }
+
+    private static void combinar(String prefijo, int largo, List<String> destino) {
+        if (prefijo.length() == largo) {
+            destino.add(prefijo);
+            return;
+        }
+        combinar(prefijo + "Aa", largo, destino);
+        combinar(prefijo + "BB", largo, destino);
+    }
+
+    private static void comparar(MapaPersistente<String, Integer> mapa, Map<String, Integer> esperado,
+                                 int claves, String prefijo) {
+        verificar(mapa.tamano() == esperado.size(), "tamaño " + mapa.tamano() + " vs " + esperado.size());
+        for (int i = 0; i < claves; i++) {
+            String clave = prefijo + i;
+            verificar(equals(mapa.get(clave), esperado.get(clave)), "valor de " + clave);
+            verificar(mapa.contiene(clave) == esperado.containsKey(clave), "contiene " + clave);
+        }
+    }
+
+    static void vectorIgualQueArrayList() {
+        Random azar = new Random(3);
+        List<Integer> esperado = new ArrayList<>();
+        VectorPersistente<Integer> vector = VectorPersistente.vacio();
+        List<VectorPersistente<Integer>> versiones = new ArrayList<>();
+        List<List<Integer>> copias = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            vector = vector.agregar(i);
+            esperado.add(i);
+            if (i % 7 == 0) {
+                int posicion = azar.nextInt(esperado.size());
+                vector = vector.con(posicion, -i);
+                esperado.set(posicion, -i);
+            }
+            if (i % 25_000 == 0 || i == 31 || i == 32 || i == 1023 || i == 1024) {
+                versiones.add(vector);
+                copias.add(new ArrayList<>(esperado));
+            }
+        }
+        verificar(vector.comoLista().equals(esperado), "contenido del vector");
+        Iterator<Integer> it = vector.comoLista().iterator();
+        for (Integer valor : esperado) {
+            verificar(valor.equals(it.next()), "iterador del vector");
+        }
+        verificar(!it.hasNext(), "fin del iterador");
+        for (int v = 0; v < versiones.size(); v++) {
+            verificar(versiones.get(v).comoLista().equals(copias.get(v)), "versión anterior " + v + " intacta");
+        }
+    }
+
+    /**
+     * Promedio en ns de cambiar el rol de un empleado cualquiera
+     */
+    static long medirEscrituras(int cantidad) {
+        List<Empleado> empleados = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            empleados.add(new Empleado(String.valueOf(1_000_000_000_000L + i), "Empleado " + i, "u" + i,
+                    "Área " + (i % 7), "Diurno", "Activo", "u" + i + "@empresa.com", "clave"));
+        }
+        DatabaseManager db = new DatabaseManager(new MemoriaEmpleadoStore(empleados));
+        List<Empleado> antes = db.obtenerTodosEmpleados();
+        Random azar = new Random(5);
+        int escrituras = 20_000;
+        long inicio = 0;
+        for (int i = -escrituras; i < escrituras; i++) {
+            if (i == 0) {
+                inicio = System.nanoTime(); // La primera mitad es de calentamiento
+            }
+            verificar(db.asignarRol("u" + azar.nextInt(cantidad), i % 2 == 0 ? "AdminRRHH" : "Empleado"), "asignar rol");
+        }
+        long porEscritura = (System.nanoTime() - inicio) / escrituras;
+
+        verificar(db.obtenerTodosEmpleados().size() == cantidad, "cantidad tras escribir");
+        for (int i = 0; i < cantidad; i += 97) {
+            Empleado emp = db.obtenerEmpleadoPorUsername("u" + i);
+            verificar(emp == db.obtenerTodosEmpleados().get(i), "orden de u" + i);
+            verificar(db.obtenerEmpleadoPorDpi(emp.getDpi()) == emp, "DPI de u" + i);
+            verificar("Empleado".equals(antes.get(i).getRole()), "la lista anterior no cambia");
+        }
+        return porEscritura;
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
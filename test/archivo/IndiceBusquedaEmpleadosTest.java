@@ -0,0 +1,130 @@
+package archivo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prueba del índice de trigramas de DatabaseManager: después de altas y cambios al azar, cada
+ * búsqueda debe dar lo mismo que recorrer todos los empleados (con el mismo orden por grupos),
+ * el refinamiento debe coincidir con una búsqueda nueva y un índice anterior no debe cambiar.
+ *
+ * Uso: ant test
+ */
+public class IndiceBusquedaEmpleadosTest {
+
+    private static final String[] NOMBRES = {"José Pérez", "Ana Ramírez", "Luis García", "María López", "Pedro Ruiz"};
+    private static final String[] AREAS = {"Operaciones", "Recursos Humanos", "Ventas", "Logística"};
+    private static final String[] CONSULTAS = {"u12", "ram", "RAMIREZ", "jose", "garcia 1", "opera", "ventas",
+            "1000000000017", "a", "pe", "u3", "humanos", "zzz", "lópez 4", "ia"};
+
+    public static void main(String[] args) {
+        Random azar = new Random(13);
+        List<Empleado> iniciales = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            iniciales.add(empleado(i, azar));
+        }
+        DatabaseManager db = new DatabaseManager(new MemoriaEmpleadoStore(iniciales));
+        comparar(db, "carga inicial");
+
+        IndiceBusquedaEmpleados anterior = db.obtenerIndiceBusqueda();
+        List<List<Empleado>> esperadosAnterior = new ArrayList<>();
+        for (String consulta : CONSULTAS) {
+            esperadosAnterior.add(anterior.buscar(consulta, null).getEmpleados());
+        }
+
+        int siguiente = iniciales.size();
+        for (int i = 0; i < 2_000; i++) {
+            int operacion = azar.nextInt(4);
+            if (operacion == 0) {
+                verificar(db.agregarEmpleado(empleado(siguiente++, azar)), "alta");
+            } else if (operacion == 1) {
+                verificar(db.asignarRol("u" + azar.nextInt(siguiente), "AdminRRHH"), "cambio de rol");
+            } else {
+                Empleado actual = db.obtenerEmpleadoPorUsername("u" + azar.nextInt(siguiente));
+                Empleado cambiado = new Empleado(actual);
+                cambiado.setNombre(NOMBRES[azar.nextInt(NOMBRES.length)] + " " + azar.nextInt(50));
+                cambiado.setArea(AREAS[azar.nextInt(AREAS.length)]);
+                verificar(db.actualizarEmpleado(cambiado), "cambio de nombre y área");
+            }
+            if (i % 250 == 0) {
+                comparar(db, "después de " + i + " cambios");
+            }
+        }
+        comparar(db, "al final");
+
+        for (int c = 0; c < CONSULTAS.length; c++) {
+            verificar(anterior.buscar(CONSULTAS[c], null).getEmpleados().equals(esperadosAnterior.get(c)),
+                    "el índice anterior no cambia con \"" + CONSULTAS[c] + "\"");
+        }
+
+        List<Empleado> exacto = db.buscarEmpleados("u12");
+        verificar(!exacto.isEmpty() && "u12".equals(exacto.get(0).getUsername()), "username exacto primero");
+        System.out.println("IndiceBusquedaEmpleadosTest: todas las pruebas pasaron");
+    }
+
+    private static Empleado empleado(int i, Random azar) {
+        return new Empleado(String.valueOf(1_000_000_000_000L + i),
+                NOMBRES[azar.nextInt(NOMBRES.length)] + " " + azar.nextInt(50), "u" + i,
+                AREAS[azar.nextInt(AREAS.length)], "Diurno", "Activo", "u" + i + "@empresa.com", "clave");
+    }
+
+    /**
+     * Cada consulta contra el recorrido completo, y cada refinamiento contra una búsqueda nueva
+     */
+    private static void comparar(DatabaseManager db, String caso) {
+        IndiceBusquedaEmpleados indice = db.obtenerIndiceBusqueda();
+        List<Empleado> todos = db.obtenerTodosEmpleados();
+        verificar(indice.getCantidadEmpleados() == todos.size(), "cantidad " + caso);
+        for (String consulta : CONSULTAS) {
+            List<Empleado> esperado = recorrer(todos, consulta);
+            verificar(db.buscarEmpleados(consulta).equals(esperado), "\"" + consulta + "\" " + caso);
+
+            IndiceBusquedaEmpleados.Resultado parcial = null;
+            for (int largo = 1; largo <= consulta.length(); largo++) {
+                parcial = indice.buscar(consulta.substring(0, largo), parcial);
+            }
+            verificar(parcial.getEmpleados().equals(esperado), "refinando \"" + consulta + "\" " + caso);
+        }
+    }
+
+    /**
+     * Búsqueda sin índice: exactos por username o DPI, luego por el primer campo que contiene la consulta
+     */
+    private static List<Empleado> recorrer(List<Empleado> todos, String consulta) {
+        String normalizada = IndiceBusquedaEmpleados.normalizar(consulta.trim());
+        List<List<Empleado>> grupos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            grupos.add(new ArrayList<>());
+        }
+        for (Empleado emp : todos) {
+            String[] campos = {
+                IndiceBusquedaEmpleados.normalizar(emp.getUsername()),
+                IndiceBusquedaEmpleados.normalizar(emp.getNombre()),
+                IndiceBusquedaEmpleados.normalizar(emp.getDpi()),
+                IndiceBusquedaEmpleados.normalizar(emp.getArea())
+            };
+            if (campos[0].equals(normalizada) || campos[2].equals(normalizada)) {
+                grupos.get(0).add(emp);
+                continue;
+            }
+            for (int campo = 0; campo < campos.length; campo++) {
+                if (campos[campo].contains(normalizada)) {
+                    grupos.get(campo + 1).add(emp);
+                    break;
+                }
+            }
+        }
+        List<Empleado> resultado = new ArrayList<>();
+        for (List<Empleado> grupo : grupos) {
+            resultado.addAll(grupo);
+        }
+        return resultado;
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
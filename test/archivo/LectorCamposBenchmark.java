@@ -0,0 +1,152 @@
+package archivo;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara el parseo de líneas de solicitudes.txt con String.split + DateTimeFormatter (la forma
+ * anterior) contra LectorCampos + FechaHoraTexto. Primero verifica que ambos lean exactamente los
+ * mismos valores y termina con error si no; después mide varias rondas.
+ *
+ * Uso: ant benchmark   (o java archivo.LectorCamposBenchmark [lineas] [rondas])
+ */
+public class LectorCamposBenchmark {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Solicitud.TipoSolicitud[] TIPOS = Solicitud.TipoSolicitud.values();
+    private static final Solicitud.EstadoSolicitud[] ESTADOS = Solicitud.EstadoSolicitud.values();
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> lineas = generarLineas(cantidad);
+
+        verificarCasosBorde();
+        for (int i = 0; i < lineas.size(); i++) {
+            String esperado = conSplit(lineas.get(i));
+            String obtenido = conLectorCampos(new LectorCampos(), lineas.get(i));
+            if (!esperado.equals(obtenido)) {
+                fallar("Diferencia en la línea " + i + ":\n  split:        " + esperado
+                        + "\n  LectorCampos: " + obtenido);
+            }
+        }
+        System.out.println("Verificadas " + lineas.size() + " líneas: ambos parseos coinciden");
+
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            long inicio = System.nanoTime();
+            long sumaSplit = 0;
+            for (String linea : lineas) {
+                sumaSplit += conSplit(linea).length();
+            }
+            long medio = System.nanoTime();
+            long sumaLector = 0;
+            LectorCampos lector = new LectorCampos();
+            for (String linea : lineas) {
+                sumaLector += conLectorCampos(lector, linea).length();
+            }
+            long fin = System.nanoTime();
+            if (sumaSplit != sumaLector) {
+                fallar("Las sumas de control no coinciden");
+            }
+            System.out.printf("Ronda %d: split + DateTimeFormatter %d ms | LectorCampos + FechaHoraTexto %d ms%n",
+                    ronda, (medio - inicio) / 1_000_000, (fin - medio) / 1_000_000);
+        }
+    }
+
+    /**
+     * Campos vacíos al final, descripción con '|' escapado y valores inválidos
+     */
+    private static void verificarCasosBorde() {
+        LectorCampos lector = new LectorCampos();
+        comprobar(lector.cargar("a|b||").cantidad() == 4, "cuenta los vacíos finales");
+        comprobar(lector.cantidadSinVaciosFinales() == "a|b||".split("\\|").length, "cantidad como split");
+        comprobar(lector.cargar("").cantidad() == 1 && lector.vacio(0), "línea vacía");
+        comprobar(lector.cargar("x|a~b").textoEscapado(1).equals("a|b"), "restaura '|'");
+        comprobar(lector.cargar("-2147483648|2147483647").entero(0) == Integer.MIN_VALUE
+                && lector.entero(1) == Integer.MAX_VALUE, "límites de int");
+        comprobar(lanza(() -> lector.cargar("2147483648").entero(0)), "entero fuera de rango");
+        comprobar(lanza(() -> lector.cargar("12a").entero(0)), "entero inválido");
+        comprobar(lanza(() -> lector.cargar("2024-1-01 08:00:00").fechaHora(0)), "fecha inválida");
+        comprobar(lanza(() -> lector.cargar("2024-02-31 08:00:00").fechaHora(0)), "fecha inexistente");
+        comprobar(lanza(() -> lector.cargar("NOPE").enumeracion(0, TIPOS)), "enum desconocido");
+    }
+
+    private static String conSplit(String linea) {
+        String[] partes = linea.split("\\|", -1);
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(Integer.parseInt(partes[0])).append(partes[1]).append(partes[2])
+                .append(Solicitud.TipoSolicitud.valueOf(partes[3])).append(partes[4].replace('~', '|'))
+                .append(LocalDateTime.parse(partes[5], FORMATO)).append(LocalDateTime.parse(partes[6], FORMATO));
+        if (!partes[7].isEmpty()) {
+            sb.append(LocalDateTime.parse(partes[7], FORMATO));
+        }
+        sb.append(Solicitud.EstadoSolicitud.valueOf(partes[8])).append(partes[9]).append(partes[10]);
+        if (!partes[11].isEmpty()) {
+            sb.append(LocalDateTime.parse(partes[11], FORMATO));
+        }
+        return sb.toString();
+    }
+
+    private static String conLectorCampos(LectorCampos campos, String linea) {
+        campos.cargar(linea);
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(campos.entero(0)).append(campos.texto(1)).append(campos.texto(2))
+                .append(campos.enumeracion(3, TIPOS)).append(campos.textoEscapado(4))
+                .append(campos.fechaHora(5)).append(campos.fechaHora(6));
+        if (!campos.vacio(7)) {
+            sb.append(campos.fechaHora(7));
+        }
+        sb.append(campos.enumeracion(8, ESTADOS)).append(campos.texto(9)).append(campos.texto(10));
+        if (!campos.vacio(11)) {
+            sb.append(campos.fechaHora(11));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Líneas con el formato de ArchivoSolicitudStore (id|dpi|nombre|tipo|descripción|inicio|fin|
+     * solicitada|estado|procesado por|motivo|procesada)
+     */
+    private static List<String> generarLineas(int cantidad) {
+        List<String> lineas = new ArrayList<>(cantidad);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0, 0);
+        for (int i = 1; i <= cantidad; i++) {
+            LocalDateTime inicio = base.plusHours(i * 7L);
+            Solicitud.EstadoSolicitud estado = ESTADOS[i % ESTADOS.length];
+            boolean procesada = estado != Solicitud.EstadoSolicitud.PENDIENTE;
+            lineas.add(i + "|" + (1000000000000L + i % 5000) + "|Empleado " + (i % 5000)
+                    + "|" + TIPOS[i % TIPOS.length].name()
+                    + "|Solicitud número " + i + (i % 10 == 0 ? " ~ con separador" : "")
+                    + "|" + FechaHoraTexto.formatear(inicio)
+                    + "|" + FechaHoraTexto.formatear(inicio.plusDays(1 + i % 5))
+                    + "|" + (i % 50 == 0 ? "" : FechaHoraTexto.formatear(inicio.minusDays(3)))
+                    + "|" + estado.name()
+                    + "|" + (procesada ? "admin" : "")
+                    + "|" + (estado == Solicitud.EstadoSolicitud.RECHAZADA ? "Sin cobertura" : "")
+                    + "|" + (procesada ? FechaHoraTexto.formatear(inicio.minusDays(1)) : ""));
+        }
+        return lineas;
+    }
+
+    private static boolean lanza(Runnable accion) {
+        try {
+            accion.run();
+            return false;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private static void comprobar(boolean condicion, String caso) {
+        if (!condicion) {
+            fallar("Falló el caso: " + caso);
+        }
+    }
+
+    private static void fallar(String mensaje) {
+        System.err.println(mensaje);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,249 @@
+package archivo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Prueba de equivalencia de la lectura mapeada (LectorMapeado, EmpleadoPerezoso, SolicitudPerezosa):
+ * un archivo de empleados y otro de solicitudes de más de 256 KB, con finales de línea CRLF, líneas
+ * inválidas, una última línea sin salto y fechas imposibles (31 de febrero), deben dar campo por
+ * campo lo mismo leídos por el mapeo que leídos línea por línea.
+ *
+ * Uso: ant test
+ */
+public class LecturaMapeadaTest {
+
+    private static final int LINEAS = 6_000;
+
+    public static void main(String[] args) throws Exception {
+        File directorio = Files.createTempDirectory("lectura-mapeada").toFile();
+        try {
+            probarEmpleados(directorio);
+            probarSolicitudes(directorio);
+        } finally {
+            File[] archivos = directorio.listFiles();
+            if (archivos != null) {
+                for (File f : archivos) {
+                    f.delete();
+                }
+            }
+            directorio.delete();
+        }
+        System.out.println("LecturaMapeadaTest: todas las pruebas pasaron");
+    }
+
+    private static void probarEmpleados(File directorio) throws IOException {
+        File archivo = new File(directorio, "Empleadosguardados.txt");
+        StringBuilder contenido = new StringBuilder();
+        for (int i = 0; i < LINEAS; i++) {
+            String base = "u" + i + "|clave" + i + "|Nombre Apellido " + i + "|" + (1_000_000_000_000L + i)
+                    + "|Operaciones|Diurno|Activo";
+            switch (i % 10) {
+                case 0:
+                    contenido.append(base).append("|u").append(i).append("@empresa.com|Empleado\n");
+                    break;
+                case 1:
+                    contenido.append(base).append("|u").append(i).append("@empresa.com|AdminRRHH\r\n");
+                    break;
+                case 2:
+                    contenido.append(base).append("|u").append(i).append("@empresa.com\n"); // Sin rol
+                    break;
+                case 3:
+                    contenido.append(base).append("||\r\n"); // Email y rol vacíos
+                    break;
+                case 4:
+                    contenido.append("u").append(i).append("|clave|Incompleto\n");
+                    break;
+                case 5:
+                    contenido.append(i % 20 == 5 ? "\n" : "   \r\n");
+                    break;
+                case 6:
+                    contenido.append("u").append(i).append("|clave|José Peña Ñandú|").append(1_000_000_000_000L + i)
+                            .append("|Logística|Nocturno|Inactivo|jose").append(i).append("@empresa.com|Supervisor\r\n");
+                    break;
+                case 7:
+                    // Username repetido: el receptor lo rechaza
+                    contenido.append("u").append(i - 1).append("|otra|Repetido|").append(2_000_000_000_000L + i)
+                            .append("|Ventas|Diurno|Activo\n");
+                    break;
+                case 8:
+                    contenido.append(base).append("|u").append(i).append("@empresa.com|Empleado|campo extra\n");
+                    break;
+                default:
+                    contenido.append(base).append("|u").append(i).append("@empresa.com|Empleado||\n");
+            }
+        }
+        contenido.append("ultimo|clave|Sin Salto|9999999999999|Ventas|Mixto|Activo|ultimo@empresa.com|Empleado");
+        Files.write(archivo.toPath(), contenido.toString().getBytes(Charset.defaultCharset()));
+        verificar(archivo.length() > LectorMapeado.MIN_BYTES_MAPEO, "el archivo de empleados supera el umbral del mapeo");
+
+        List<Empleado> mapeados = cargarEmpleados(new ArchivoEmpleadoStore(archivo.getPath(), true, true));
+        List<Empleado> leidos = cargarEmpleados(new ArchivoEmpleadoStore(archivo.getPath(), true, false));
+        verificar(mapeados.get(0) instanceof EmpleadoPerezoso, "la carga mapeada usa EmpleadoPerezoso");
+        verificar(!(leidos.get(0) instanceof EmpleadoPerezoso), "la carga línea por línea no");
+        verificar(mapeados.size() == leidos.size(), "misma cantidad de empleados: " + mapeados.size() + " y " + leidos.size());
+        verificar("ultimo".equals(leidos.get(leidos.size() - 1).getUsername()), "la última línea sin salto se lee");
+        for (int i = 0; i < leidos.size(); i++) {
+            Empleado m = mapeados.get(i);
+            Empleado l = leidos.get(i);
+            String caso = "empleado " + l.getUsername();
+            igual(m.getUsername(), l.getUsername(), caso + ", username");
+            igual(m.getPassword(), l.getPassword(), caso + ", password");
+            igual(m.getNombre(), l.getNombre(), caso + ", nombre");
+            igual(m.getDpi(), l.getDpi(), caso + ", DPI");
+            igual(m.getArea(), l.getArea(), caso + ", área");
+            igual(m.getTurno(), l.getTurno(), caso + ", turno");
+            igual(m.getEstado(), l.getEstado(), caso + ", estado");
+            igual(m.getEmail(), l.getEmail(), caso + ", email");
+            igual(m.getRole(), l.getRole(), caso + ", rol");
+        }
+    }
+
+    private static List<Empleado> cargarEmpleados(ArchivoEmpleadoStore store) throws IOException {
+        List<Empleado> empleados = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        Set<String> dpis = new HashSet<>();
+        store.cargar(new EmpleadoStore.Receptor() {
+            @Override
+            public boolean agregado(Empleado empleado) {
+                if (usernames.contains(empleado.getUsername()) || dpis.contains(empleado.getDpi())) {
+                    return false;
+                }
+                usernames.add(empleado.getUsername());
+                dpis.add(empleado.getDpi());
+                empleados.add(empleado);
+                return true;
+            }
+
+            @Override
+            public boolean guardado(Empleado empleado) {
+                throw new AssertionError("Falló: no hay journal que reproducir");
+            }
+        });
+        return empleados;
+    }
+
+    private static void probarSolicitudes(File directorio) throws IOException {
+        String fecha = "2024-03-01 08:30:00";
+        StringBuilder contenido = new StringBuilder();
+        for (int i = 1; i <= LINEAS; i++) {
+            String base = i + "|" + (1_000_000_000_000L + i) + "|Ana Ramírez " + i + "|VACACIONES|descanso~anual " + i
+                    + "|" + fecha + "|2024-03-05 18:00:00|" + fecha + "|";
+            switch (i % 12) {
+                case 0:
+                    contenido.append(base).append("PENDIENTE|||\n");
+                    break;
+                case 1:
+                    contenido.append(base).append("APROBADA|jefe||2024-03-02 09:15:00\r\n");
+                    break;
+                case 2:
+                    contenido.append(base).append("RECHAZADA|jefe|sin~saldo|2024-03-02 09:15:00\n");
+                    break;
+                case 3:
+                    contenido.append(base).append("APROBADA\r\n"); // Formato anterior, sin campos opcionales
+                    break;
+                case 4:
+                    contenido.append(base).append("|||\n"); // Estado vacío: pendiente
+                    break;
+                case 5:
+                    contenido.append(i).append("|1|Febrero|PERMISO_PERSONAL|x|2024-02-31 08:00:00|")
+                            .append(fecha).append('|').append(fecha).append("|PENDIENTE|||\n");
+                    break;
+                case 6:
+                    contenido.append(base).append("APROBADA|jefe||2023-02-29 10:00:00\r\n");
+                    break;
+                case 7:
+                    contenido.append(i).append("|1|Bisiesto|CITA_IGSS|x|2024-02-29 08:00:00|")
+                            .append(fecha).append('|').append(fecha).append("|PENDIENTE|||\r\n");
+                    break;
+                case 8:
+                    contenido.append('x').append(base).append("PENDIENTE|||\n"); // ID inválido
+                    break;
+                case 9:
+                    contenido.append(base.replace("VACACIONES", "FERIADO")).append("PENDIENTE|||\n");
+                    break;
+                case 10:
+                    contenido.append(i).append("|1|Incompleta|OTRO\n");
+                    break;
+                default:
+                    contenido.append(i % 24 == 11 ? "\r\n" : "  \n");
+            }
+        }
+        // A medio escribir: ninguna de las dos lecturas la entrega todavía
+        contenido.append(LINEAS + 1).append("|1|Sin Salto|OTRO|x|").append(fecha).append('|').append(fecha)
+                .append('|').append(fecha).append("|PENDIENTE|||");
+        byte[] bytes = contenido.toString().getBytes(Charset.defaultCharset());
+
+        // Cada lectura en su carpeta, porque la primera sincronización crea el archivo de estados
+        File mapeado = new File(directorio, "mapeadas.txt");
+        File leido = new File(directorio, "leidas.txt");
+        Files.write(mapeado.toPath(), bytes);
+        Files.write(leido.toPath(), bytes);
+        verificar(mapeado.length() > LectorMapeado.MIN_BYTES_MAPEO, "el archivo de solicitudes supera el umbral del mapeo");
+
+        List<Solicitud> mapeadas = cargarSolicitudes(new ArchivoSolicitudStore(mapeado.getPath(), true));
+        List<Solicitud> leidas = cargarSolicitudes(new ArchivoSolicitudStore(leido.getPath(), false));
+        verificar(mapeadas.get(0) instanceof SolicitudPerezosa, "la carga mapeada usa SolicitudPerezosa");
+        verificar(!(leidas.get(0) instanceof SolicitudPerezosa), "la carga línea por línea no");
+        verificar(mapeadas.size() == leidas.size(), "misma cantidad de solicitudes: " + mapeadas.size() + " y " + leidas.size());
+        for (Solicitud solicitud : leidas) {
+            verificar(!"Febrero".equals(solicitud.getEmpleadoNombre()), "el 31 de febrero invalida la línea");
+            verificar(solicitud.getId() != LINEAS + 1, "la línea sin salto queda para después");
+        }
+        verificar(leidas.stream().anyMatch(s -> "Bisiesto".equals(s.getEmpleadoNombre())), "el 29 de febrero de 2024 es válido");
+        for (int i = 0; i < leidas.size(); i++) {
+            Solicitud m = mapeadas.get(i);
+            Solicitud l = leidas.get(i);
+            String caso = "solicitud " + l.getId();
+            igual(m.getId(), l.getId(), caso + ", ID");
+            igual(m.getEmpleadoDpi(), l.getEmpleadoDpi(), caso + ", DPI");
+            igual(m.getEmpleadoNombre(), l.getEmpleadoNombre(), caso + ", nombre");
+            igual(m.getTipo(), l.getTipo(), caso + ", tipo");
+            igual(m.getDescripcion(), l.getDescripcion(), caso + ", descripción");
+            igual(m.getFechaInicio(), l.getFechaInicio(), caso + ", fecha de inicio");
+            igual(m.getFechaFin(), l.getFechaFin(), caso + ", fecha de fin");
+            igual(m.getFechaSolicitud(), l.getFechaSolicitud(), caso + ", fecha de solicitud");
+            igual(m.getEstado(), l.getEstado(), caso + ", estado");
+            igual(m.getAprobadoPor(), l.getAprobadoPor(), caso + ", procesada por");
+            igual(m.getMotivoRechazo(), l.getMotivoRechazo(), caso + ", motivo");
+            igual(m.getFechaProcesamiento(), l.getFechaProcesamiento(), caso + ", fecha de procesamiento");
+        }
+    }
+
+    private static List<Solicitud> cargarSolicitudes(ArchivoSolicitudStore store) throws IOException {
+        List<Solicitud> solicitudes = new ArrayList<>();
+        store.sincronizar(new SolicitudStore.Receptor() {
+            @Override
+            public void reiniciar() {
+                solicitudes.clear();
+            }
+
+            @Override
+            public void agregada(Solicitud solicitud) {
+                solicitudes.add(solicitud);
+            }
+
+            @Override
+            public void estadoCambiado(Solicitud solicitud, Solicitud.EstadoSolicitud estadoAnterior) {
+            }
+        });
+        return solicitudes;
+    }
+
+    private static void igual(Object obtenido, Object esperado, String caso) {
+        verificar(Objects.equals(obtenido, esperado), caso + ": " + obtenido + " en lugar de " + esperado);
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
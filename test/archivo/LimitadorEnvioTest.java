@@ -0,0 +1,156 @@
+package archivo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Prueba de LimitadorEnvio: ráfaga y recarga de fichas, espera de adquirir(), presupuesto diario
+ * con la reserva para transaccionales, conteo guardado entre ejecuciones y prioridad de un
+ * transaccional que espera sobre los masivos.
+ *
+ * Uso: ant test
+ */
+public class LimitadorEnvioTest {
+
+    public static void main(String[] args) throws Exception {
+        probarRafaga();
+        probarEspera();
+        probarPresupuestoDiario();
+        probarConteoGuardado();
+        probarPrioridad();
+        System.out.println("LimitadorEnvioTest: todas las pruebas pasaron");
+    }
+
+    /**
+     * La ráfaga sale sin esperar; la siguiente ficha llega según la tasa
+     */
+    private static void probarRafaga() throws InterruptedException {
+        LimitadorEnvio limitador = new LimitadorEnvio(10, 5, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.CONCEDIDO, "ficha " + i + " de la ráfaga");
+        }
+        verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.SIN_FICHA, "la ráfaga se agota");
+        verificar(limitador.intentarAdquirir(true) == LimitadorEnvio.Permiso.SIN_FICHA,
+                "un transaccional tampoco pasa sin ficha");
+        Thread.sleep(150);
+        verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.CONCEDIDO, "la ficha se recarga");
+        verificar(limitador.getEnviadosHoy() == 6, "cuenta solo los envíos concedidos");
+    }
+
+    /**
+     * adquirir() espera la ficha en lugar de fallar
+     */
+    private static void probarEspera() throws InterruptedException {
+        LimitadorEnvio limitador = new LimitadorEnvio(20, 1, 0, 0);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            verificar(limitador.adquirir(false), "adquirir concede con presupuesto");
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        verificar(ms >= 180, "cinco envíos a 20 por segundo con ráfaga 1 tardan unos 200 ms: " + ms);
+    }
+
+    /**
+     * Los masivos no usan la reserva final del día; sin presupuesto, adquirir no espera
+     */
+    private static void probarPresupuestoDiario() throws InterruptedException {
+        LimitadorEnvio limitador = new LimitadorEnvio(0, 1, 5, 2);
+        for (int i = 0; i < 3; i++) {
+            verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.CONCEDIDO, "masivo " + i);
+        }
+        verificar(limitador.getRestantesMasivosHoy() == 0 && limitador.getRestantesHoy() == 2, "quedan solo los reservados");
+        verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.SIN_PRESUPUESTO,
+                "un masivo no toma la reserva");
+        long inicio = System.nanoTime();
+        verificar(!limitador.adquirir(false), "adquirir sin presupuesto devuelve false");
+        verificar(System.nanoTime() - inicio < 100_000_000L, "sin presupuesto adquirir no espera");
+
+        verificar(limitador.adquirir(true), "un transaccional usa la reserva");
+        verificar(limitador.intentarAdquirir(true) == LimitadorEnvio.Permiso.CONCEDIDO, "el segundo también");
+        verificar(limitador.intentarAdquirir(true) == LimitadorEnvio.Permiso.SIN_PRESUPUESTO, "el día se agota");
+        verificar(limitador.getEnviadosHoy() == 5 && limitador.getRestantesHoy() == 0, "cinco envíos en el día");
+        verificar(limitador.getMsHastaNuevoDia() > 0, "el presupuesto se renueva al día siguiente");
+    }
+
+    /**
+     * Reiniciar no renueva el presupuesto; un conteo de otro día no cuenta
+     */
+    private static void probarConteoGuardado() throws Exception {
+        File directorio = Files.createTempDirectory("limitador-envio").toFile();
+        File conteo = new File(directorio, "enviados-hoy.properties");
+        try {
+            LimitadorEnvio primero = new LimitadorEnvio(0, 1, 5, 0, conteo);
+            for (int i = 0; i < 3; i++) {
+                verificar(primero.intentarAdquirir(false) == LimitadorEnvio.Permiso.CONCEDIDO, "envío " + i);
+            }
+            LimitadorEnvio reiniciado = new LimitadorEnvio(0, 1, 5, 0, conteo);
+            verificar(reiniciado.getEnviadosHoy() == 3, "el conteo de hoy sobrevive al reinicio");
+            verificar(reiniciado.getRestantesHoy() == 2, "quedan dos envíos hoy");
+
+            Properties ayer = new Properties();
+            ayer.setProperty("dia", LocalDate.now().minusDays(1).toString());
+            ayer.setProperty("enviados", "5");
+            try (OutputStream out = new FileOutputStream(conteo)) {
+                ayer.store(out, null);
+            }
+            verificar(new LimitadorEnvio(0, 1, 5, 0, conteo).getEnviadosHoy() == 0, "el conteo de ayer no cuenta");
+
+            Files.write(conteo.toPath(), ("dia=" + LocalDate.now() + "\nenviados=x\n").getBytes());
+            verificar(new LimitadorEnvio(0, 1, 5, 0, conteo).getEnviadosHoy() == 0, "un conteo ilegible se ignora");
+        } finally {
+            File[] archivos = directorio.listFiles();
+            if (archivos != null) {
+                for (File f : archivos) {
+                    f.delete();
+                }
+            }
+            directorio.delete();
+        }
+    }
+
+    /**
+     * Con un transaccional esperando, el masivo que esperaba desde antes no se lleva la ficha
+     */
+    private static void probarPrioridad() throws InterruptedException {
+        LimitadorEnvio limitador = new LimitadorEnvio(5, 1, 0, 0);
+        verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.CONCEDIDO, "se toma la única ficha");
+
+        List<String> orden = Collections.synchronizedList(new ArrayList<>());
+        Thread masivo = new Thread(() -> adquirirYAnotar(limitador, false, "masivo", orden));
+        Thread transaccional = new Thread(() -> adquirirYAnotar(limitador, true, "transaccional", orden));
+        masivo.start();
+        Thread.sleep(30);
+        transaccional.start();
+        Thread.sleep(30);
+        verificar(limitador.intentarAdquirir(false) == LimitadorEnvio.Permiso.SIN_FICHA,
+                "un masivo no recibe ficha mientras un transaccional espera");
+        masivo.join(5_000);
+        transaccional.join(5_000);
+        verificar(orden.size() == 2 && "transaccional".equals(orden.get(0)),
+                "el transaccional sale antes que el masivo que esperaba: " + orden);
+    }
+
+    private static void adquirirYAnotar(LimitadorEnvio limitador, boolean transaccional, String nombre,
+                                        List<String> orden) {
+        try {
+            if (limitador.adquirir(transaccional)) {
+                orden.add(nombre);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}
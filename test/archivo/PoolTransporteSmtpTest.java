@@ -0,0 +1,191 @@
+package archivo;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prueba de PoolTransporteSmtp con conexiones simuladas (sin servidor SMTP): reutilización,
+ * límite de mensajes por conexión, vencimiento por inactividad y qué errores se reintentan.
+ *
+ * Uso: ant test
+ */
+public class PoolTransporteSmtpTest {
+
+    /**
+     * Conexión simulada; el próximo error a lanzar se programa desde la prueba
+     */
+    static class ConexionSimulada implements PoolTransporteSmtp.Conexion {
+        final int numero;
+        boolean conectada = true;
+        boolean cortarAlEnviar = false;
+        MessagingException rechazo;
+        int enviados = 0;
+        boolean cerrada = false;
+
+        ConexionSimulada(int numero) {
+            this.numero = numero;
+        }
+
+        @Override
+        public void enviar(Message mensaje) throws MessagingException {
+            if (cortarAlEnviar) {
+                conectada = false;
+                throw new MessagingException("Conexión cortada", new SocketException("Connection reset"));
+            }
+            if (rechazo != null) {
+                MessagingException e = rechazo;
+                rechazo = null;
+                throw e;
+            }
+            enviados++;
+        }
+
+        @Override
+        public boolean estaConectada() {
+            return conectada && !cerrada;
+        }
+
+        @Override
+        public void cerrar() {
+            cerrada = true;
+        }
+    }
+
+    private final List<ConexionSimulada> abiertas = new ArrayList<>();
+    private MessagingException errorAlAbrir;
+
+    private PoolTransporteSmtp crearPool(int maxMensajes, long inactividadMs) {
+        abiertas.clear();
+        errorAlAbrir = null;
+        return new PoolTransporteSmtp(() -> {
+            if (errorAlAbrir != null) {
+                throw errorAlAbrir;
+            }
+            ConexionSimulada conexion = new ConexionSimulada(abiertas.size());
+            abiertas.add(conexion);
+            return conexion;
+        }, 2, maxMensajes, inactividadMs);
+    }
+
+    public static void main(String[] args) throws Exception {
+        PoolTransporteSmtpTest prueba = new PoolTransporteSmtpTest();
+        prueba.reutilizaLaConexion();
+        prueba.rotaAlLlegarAlMaximoDeMensajes();
+        prueba.descartaLaConexionVencida();
+        prueba.reintentaSiSeCortaLaConexion();
+        prueba.noReintentaUnDestinatarioRechazado();
+        prueba.noReintentaUnErrorDelServidor();
+        prueba.propagaSiFallaElReintento();
+        prueba.enviarLoteSigueDespuesDeUnError();
+        System.out.println("PoolTransporteSmtpTest: todas las pruebas pasaron");
+    }
+
+    void reutilizaLaConexion() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        for (int i = 0; i < 10; i++) {
+            pool.enviar(mensaje());
+        }
+        verificar(pool.getConexionesAbiertas() == 1, "10 mensajes con una sola conexión");
+        verificar(abiertas.get(0).enviados == 10, "la conexión envió los 10");
+        verificar(pool.getConexionesInactivas() == 1, "la conexión volvió al pool");
+        pool.cerrar();
+        verificar(abiertas.get(0).cerrada, "cerrar() cierra las inactivas");
+    }
+
+    void rotaAlLlegarAlMaximoDeMensajes() throws Exception {
+        PoolTransporteSmtp pool = crearPool(3, 60_000);
+        for (int i = 0; i < 7; i++) {
+            pool.enviar(mensaje());
+        }
+        verificar(pool.getConexionesAbiertas() == 3, "3 mensajes por conexión: 7 mensajes usan 3 conexiones");
+        verificar(abiertas.get(0).cerrada && abiertas.get(1).cerrada, "las conexiones agotadas se cierran");
+    }
+
+    void descartaLaConexionVencida() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 1);
+        pool.enviar(mensaje());
+        Thread.sleep(20);
+        pool.enviar(mensaje());
+        verificar(pool.getConexionesAbiertas() == 2, "la conexión inactiva vencida no se reutiliza");
+        verificar(abiertas.get(0).cerrada, "la conexión vencida se cierra");
+    }
+
+    void reintentaSiSeCortaLaConexion() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        pool.enviar(mensaje());
+        abiertas.get(0).cortarAlEnviar = true;
+        pool.enviar(mensaje());
+        verificar(pool.getConexionesAbiertas() == 2, "se abre una conexión nueva para el reintento");
+        verificar(abiertas.get(0).cerrada, "la conexión cortada se descarta");
+        verificar(abiertas.get(1).enviados == 1, "el mensaje se envía por la conexión nueva");
+        verificar(pool.getMensajesEnviados() == 2, "ambos mensajes cuentan como enviados");
+    }
+
+    void noReintentaUnDestinatarioRechazado() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        pool.enviar(mensaje());
+        abiertas.get(0).rechazo = new SendFailedException("550 5.1.1 Usuario desconocido");
+        verificar(lanza(pool), "el rechazo llega al llamador");
+        verificar(pool.getConexionesAbiertas() == 1, "un destinatario inválido no abre otra conexión");
+        verificar(!abiertas.get(0).cerrada && pool.getConexionesInactivas() == 1, "la conexión vuelve al pool");
+        pool.enviar(mensaje());
+        verificar(pool.getConexionesAbiertas() == 1 && abiertas.get(0).enviados == 2, "y se sigue usando");
+    }
+
+    void noReintentaUnErrorDelServidor() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        pool.enviar(mensaje());
+        abiertas.get(0).rechazo = new MessagingException("552 Mensaje demasiado grande");
+        verificar(lanza(pool), "el error llega al llamador");
+        verificar(pool.getConexionesAbiertas() == 1, "un error con la conexión sana no se reintenta");
+
+        abiertas.get(0).rechazo = new MessagingException("Error de E/S", new IOException("Broken pipe"));
+        pool.enviar(mensaje());
+        verificar(pool.getConexionesAbiertas() == 2, "un error con causa de E/S sí se reintenta");
+    }
+
+    void propagaSiFallaElReintento() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        pool.enviar(mensaje());
+        abiertas.get(0).cortarAlEnviar = true;
+        errorAlAbrir = new MessagingException("No se pudo conectar", new SocketException("Connection refused"));
+        verificar(lanza(pool), "si no se puede reconectar el error llega al llamador");
+        verificar(abiertas.get(0).cerrada && pool.getConexionesInactivas() == 0, "no queda ninguna conexión rota en el pool");
+    }
+
+    void enviarLoteSigueDespuesDeUnError() throws Exception {
+        PoolTransporteSmtp pool = crearPool(100, 60_000);
+        pool.enviar(mensaje());
+        abiertas.get(0).rechazo = new SendFailedException("550 Usuario desconocido");
+        int enviados = pool.enviarLote(Arrays.asList(mensaje(), mensaje(), mensaje()));
+        verificar(enviados == 2, "el lote envía los demás mensajes");
+        verificar(pool.getConexionesAbiertas() == 1, "el lote usa una sola conexión");
+    }
+
+    private static Message mensaje() {
+        return new MimeMessage((Session) null);
+    }
+
+    private static boolean lanza(PoolTransporteSmtp pool) {
+        try {
+            pool.enviar(mensaje());
+            return false;
+        } catch (MessagingException e) {
+            return true;
+        }
+    }
+
+    private static void verificar(boolean condicion, String caso) {
+        if (!condicion) {
+            throw new AssertionError("Falló: " + caso);
+        }
+    }
+}